@@ -0,0 +1,341 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.facets.fork;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.cactoos.Scalar;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.misc.Opt;
+import org.takes.rq.RqHref;
+import org.takes.tk.TkFixed;
+import org.takes.tk.TkText;
+
+/**
+ * Route of {@link TkRouter}, a path template or a regular expression.
+ *
+ * <p>A template is a path, where some segments may be parameters in
+ * curly braces, for example {@code /u/{id}/posts}. Other segments are
+ * matched literally, ignoring the case, and the parameters match any
+ * non-empty segment. The values of the parameters are available
+ * as named groups of {@link RqRegex#matcher()}:
+ *
+ * <pre> Take take = new TkRouter(
+ *   new FkRoute("/", new TkIndex()),
+ *   new FkRoute(
+ *     "/u/{id}/posts",
+ *     new TkRegex() {
+ *       &#64;Override
+ *       public Response act(final RqRegex req) {
+ *         final String user = req.matcher().group("id");
+ *       }
+ *     }
+ *   ),
+ *   new FkRoute("/file(.*)", new TkFile())
+ * );</pre>
+ *
+ * <p>If the path contains any of {@code \ [ ] ( ) * + ? ^ $ |}, or
+ * braces that are not a whole segment around a name of a group,
+ * it is a regular expression, which works exactly as in
+ * {@link FkRegex}. The route can be used as a {@link Fork} on its own,
+ * but only {@link TkRouter} makes templates faster than regular
+ * expressions.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ * @see TkRouter
+ */
+@ToString(of = "path")
+@EqualsAndHashCode
+public final class FkRoute implements Fork {
+
+    /**
+     * Pattern of a parameter segment.
+     */
+    private static final Pattern PARAM = Pattern.compile(
+        "\\{([a-zA-Z][a-zA-Z0-9]*)}"
+    );
+
+    /**
+     * Pattern of a literal segment.
+     */
+    private static final Pattern LITERAL = Pattern.compile(
+        "[^\\\\\\[\\](){}*+?^$|]*"
+    );
+
+    /**
+     * Segment of a template that stands for a parameter.
+     */
+    static final String ANY = "{}";
+
+    /**
+     * Path template or regular expression.
+     */
+    private final String path;
+
+    /**
+     * Pattern.
+     */
+    private final Pattern pattern;
+
+    /**
+     * Target.
+     */
+    private final Scalar<TkRegex> target;
+
+    /**
+     * Ctor.
+     * @param ptn Template or regular expression
+     * @param text Text
+     */
+    public FkRoute(final String ptn, final String text) {
+        this(ptn, new TkText(text));
+    }
+
+    /**
+     * Ctor.
+     * @param ptn Template or regular expression
+     * @param rsp Response
+     */
+    public FkRoute(final String ptn, final Response rsp) {
+        this(ptn, new TkFixed(rsp));
+    }
+
+    /**
+     * Ctor.
+     * @param ptn Template or regular expression
+     * @param tke Take
+     */
+    public FkRoute(final String ptn, final Take tke) {
+        this(
+            ptn,
+            new TkRegex() {
+                @Override
+                public Response act(final RqRegex req) throws Exception {
+                    return tke.act(req);
+                }
+            }
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param ptn Template or regular expression
+     * @param tke Take
+     */
+    public FkRoute(final String ptn, final TkRegex tke) {
+        this(
+            ptn,
+            new Scalar<TkRegex>() {
+                @Override
+                public TkRegex value() {
+                    return tke;
+                }
+            }
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param ptn Template or regular expression
+     * @param tke Take
+     */
+    public FkRoute(final String ptn, final Scalar<TkRegex> tke) {
+        this.path = ptn;
+        this.pattern = FkRoute.compile(ptn);
+        this.target = tke;
+    }
+
+    @Override
+    public Opt<Response> route(final Request req) throws Exception {
+        final Matcher matcher = this.pattern.matcher(
+            FkRoute.path(new RqHref.Base(req).href().path())
+        );
+        final Opt<Response> resp;
+        if (matcher.matches()) {
+            resp = new Opt.Single<>(this.act(matcher, req));
+        } else {
+            resp = new Opt.Empty<>();
+        }
+        return resp;
+    }
+
+    /**
+     * Is it a template?
+     * @return TRUE if it is
+     */
+    boolean template() {
+        return FkRoute.segments(this.path).has();
+    }
+
+    /**
+     * Segments of the template, lowered, with parameters replaced
+     * by {@code {}}.
+     * @return Segments, empty if it is not a template
+     */
+    List<String> segments() {
+        final Opt<List<String>> segs = FkRoute.segments(this.path);
+        final List<String> all;
+        if (segs.has()) {
+            all = segs.get();
+        } else {
+            all = Collections.emptyList();
+        }
+        final List<String> keys = new ArrayList<>(all.size());
+        for (final String seg : all) {
+            if (FkRoute.PARAM.matcher(seg).matches()) {
+                keys.add(FkRoute.ANY);
+            } else {
+                keys.add(FkRoute.lower(seg));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Match the path.
+     * @param normalized Path, already passed through {@link #path(String)}
+     * @return Matcher, which may not match
+     */
+    Matcher matcher(final String normalized) {
+        return this.pattern.matcher(normalized);
+    }
+
+    /**
+     * Process the request, which matched.
+     * @param matcher Matcher that matched
+     * @param req Request
+     * @return Response
+     * @throws Exception If fails
+     */
+    Response act(final Matcher matcher, final Request req) throws Exception {
+        return this.target.value().act(new RqMatcher(matcher, req));
+    }
+
+    /**
+     * Remove the trailing slash, as {@link FkRegex} does by default.
+     * @param path Path of the request
+     * @return Path to match
+     */
+    static String path(final String path) {
+        final String norm;
+        if (path.length() > 1 && path.charAt(path.length() - 1) == '/') {
+            norm = path.substring(0, path.length() - 1);
+        } else {
+            norm = path;
+        }
+        return norm;
+    }
+
+    /**
+     * Make ASCII letters lower case, as the case insensitive
+     * {@link Pattern} does.
+     * @param text Text
+     * @return Lowered text
+     */
+    static String lower(final String text) {
+        String low = text;
+        for (int idx = 0; idx < text.length(); ++idx) {
+            final char chr = text.charAt(idx);
+            if (chr >= 'A' && chr <= 'Z') {
+                final char[] chars = text.toCharArray();
+                for (int pos = idx; pos < chars.length; ++pos) {
+                    if (chars[pos] >= 'A' && chars[pos] <= 'Z') {
+                        chars[pos] = (char) (chars[pos] + ('a' - 'A'));
+                    }
+                }
+                low = new String(chars);
+                break;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compile the template or the regular expression.
+     * @param ptn Template or regular expression
+     * @return Pattern
+     */
+    private static Pattern compile(final String ptn) {
+        final Opt<List<String>> segs = FkRoute.segments(ptn);
+        final String regex;
+        if (segs.has()) {
+            final StringBuilder txt = new StringBuilder(ptn.length() << 1);
+            for (final String seg : segs.get()) {
+                txt.append('/');
+                final Matcher param = FkRoute.PARAM.matcher(seg);
+                if (param.matches()) {
+                    txt.append("(?<").append(param.group(1))
+                        .append(">[^/]+)");
+                } else if (!seg.isEmpty()) {
+                    txt.append(Pattern.quote(seg));
+                }
+            }
+            if (txt.length() == 0) {
+                txt.append('/');
+            }
+            regex = txt.toString();
+        } else {
+            regex = ptn;
+        }
+        return Pattern.compile(
+            regex, Pattern.CASE_INSENSITIVE | Pattern.DOTALL
+        );
+    }
+
+    /**
+     * Split the template into segments.
+     * @param ptn Template or regular expression
+     * @return Segments, or nothing if it's a regular expression
+     */
+    private static Opt<List<String>> segments(final String ptn) {
+        Opt<List<String>> segs = new Opt.Empty<>();
+        if (!ptn.isEmpty() && ptn.charAt(0) == '/') {
+            final List<String> all = new ArrayList<>(4);
+            if (ptn.length() > 1) {
+                Collections.addAll(all, ptn.substring(1).split("/", -1));
+            }
+            boolean valid = true;
+            for (final String seg : all) {
+                if (!FkRoute.LITERAL.matcher(seg).matches()
+                    && !FkRoute.PARAM.matcher(seg).matches()) {
+                    valid = false;
+                    break;
+                }
+            }
+            if (valid) {
+                segs = new Opt.Single<>(all);
+            }
+        }
+        return segs;
+    }
+}
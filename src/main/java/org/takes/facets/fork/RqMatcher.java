@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.facets.fork;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.regex.Matcher;
+import org.takes.Request;
+
+/**
+ * Request with a matcher inside.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 0.32.5
+ */
+final class RqMatcher implements RqRegex {
+
+    /**
+     * Matcher.
+     */
+    private final Matcher mtr;
+
+    /**
+     * Original request.
+     */
+    private final Request req;
+
+    /**
+     * Ctor.
+     * @param matcher Matcher
+     * @param request Request
+     */
+    RqMatcher(final Matcher matcher, final Request request) {
+        this.mtr = matcher;
+        this.req = request;
+    }
+
+    @Override
+    public Iterable<String> head() throws IOException {
+        return this.req.head();
+    }
+
+    @Override
+    public InputStream body() throws IOException {
+        return this.req.body();
+    }
+
+    @Override
+    public Matcher matcher() {
+        return this.mtr;
+    }
+}
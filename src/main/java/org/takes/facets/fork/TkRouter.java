@@ -0,0 +1,243 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.facets.fork;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.misc.Opt;
+import org.takes.rq.RqHref;
+
+/**
+ * Router that finds the route by a tree of path segments.
+ *
+ * <p>It works like {@link TkFork} with a list of {@link FkRegex},
+ * but the templates of {@link FkRoute} are compiled into a tree, with
+ * a branch per segment. Finding the route takes a walk along the path,
+ * no matter how many routes there are, and the path of the request is
+ * parsed only once. Only the route that is found runs its pattern,
+ * to make the {@link java.util.regex.Matcher} for {@link RqRegex}.
+ * Routes that are real regular expressions are checked one by one,
+ * as {@link TkFork} does it, only if they go before the one found
+ * in the tree:
+ *
+ * <pre> Take take = new TkRouter(
+ *   new FkRoute("/", new TkIndex()),
+ *   new FkRoute("/u/{id}", new TkUser()),
+ *   new FkRoute("/u/{id}/posts", new TkPosts())
+ * );</pre>
+ *
+ * <p>If many routes match the path, the first one wins, as in
+ * {@link TkFork}. If none of them match, the router throws
+ * {@link HttpException} with 404 status.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ * @see FkRoute
+ */
+@ToString(of = "routes")
+@EqualsAndHashCode(of = "routes")
+public final class TkRouter implements Take {
+
+    /**
+     * All routes, in order.
+     */
+    private final List<FkRoute> routes;
+
+    /**
+     * Root of the tree of templates.
+     */
+    private final TkRouter.Node root;
+
+    /**
+     * Positions of regular expressions among the routes.
+     */
+    private final int[] regexes;
+
+    /**
+     * Ctor.
+     * @param rts Routes
+     */
+    public TkRouter(final FkRoute... rts) {
+        this(Arrays.asList(rts));
+    }
+
+    /**
+     * Ctor.
+     * @param rts Routes
+     */
+    public TkRouter(final Collection<FkRoute> rts) {
+        this.routes = new ArrayList<>(rts);
+        this.root = new TkRouter.Node();
+        final List<Integer> others = new ArrayList<>(0);
+        for (int idx = 0; idx < this.routes.size(); ++idx) {
+            final FkRoute route = this.routes.get(idx);
+            if (route.template()) {
+                this.root.add(route.segments(), idx);
+            } else {
+                others.add(idx);
+            }
+        }
+        this.regexes = new int[others.size()];
+        for (int idx = 0; idx < this.regexes.length; ++idx) {
+            this.regexes[idx] = others.get(idx);
+        }
+    }
+
+    @Override
+    public Response act(final Request req) throws Exception {
+        final String path = FkRoute.path(new RqHref.Base(req).href().path());
+        final int found = this.root.find(FkRoute.lower(path));
+        Opt<Response> response = new Opt.Empty<>();
+        for (final int idx : this.regexes) {
+            if (idx > found) {
+                break;
+            }
+            final FkRoute route = this.routes.get(idx);
+            final Matcher matcher = route.matcher(path);
+            if (matcher.matches()) {
+                response = new Opt.Single<>(route.act(matcher, req));
+                break;
+            }
+        }
+        if (!response.has()) {
+            if (found == Integer.MAX_VALUE) {
+                throw new HttpException(HttpURLConnection.HTTP_NOT_FOUND);
+            }
+            final FkRoute route = this.routes.get(found);
+            final Matcher matcher = route.matcher(path);
+            if (!matcher.matches()) {
+                throw new IllegalStateException(
+                    String.format(
+                        "path \"%s\" doesn't match the route %s",
+                        path, route
+                    )
+                );
+            }
+            response = new Opt.Single<>(route.act(matcher, req));
+        }
+        return response.get();
+    }
+
+    /**
+     * Node of the tree, one per segment.
+     *
+     * <p>The node is mutable only while the tree is being built.
+     *
+     * @since 2.0
+     */
+    private static final class Node {
+
+        /**
+         * Children, by lowered segments; parameters are under
+         * {@code {}}.
+         */
+        private final Map<String, TkRouter.Node> children;
+
+        /**
+         * The first route that ends here, or MAX_VALUE if none.
+         */
+        private int end;
+
+        /**
+         * Ctor.
+         */
+        Node() {
+            this.children = new HashMap<>(0);
+            this.end = Integer.MAX_VALUE;
+        }
+
+        /**
+         * Add a route.
+         * @param segments Segments of its template
+         * @param route Position of the route
+         */
+        void add(final List<String> segments, final int route) {
+            TkRouter.Node node = this;
+            for (final String seg : segments) {
+                node = node.children.computeIfAbsent(
+                    seg, key -> new TkRouter.Node()
+                );
+            }
+            node.end = Math.min(node.end, route);
+        }
+
+        /**
+         * Find the first route that matches the path.
+         * @param path Lowered path, without the trailing slash
+         * @return Position of the route or MAX_VALUE if none
+         */
+        int find(final String path) {
+            final int found;
+            if ("/".equals(path)) {
+                found = this.end;
+            } else if (!path.isEmpty() && path.charAt(0) == '/') {
+                found = this.find(path, 0);
+            } else {
+                found = Integer.MAX_VALUE;
+            }
+            return found;
+        }
+
+        /**
+         * Find the first route that matches the rest of the path.
+         * @param path Lowered path
+         * @param pos Position of the slash before the next segment
+         * @return Position of the route or MAX_VALUE if none
+         */
+        private int find(final String path, final int pos) {
+            int found = Integer.MAX_VALUE;
+            if (pos == path.length()) {
+                found = this.end;
+            } else if (!this.children.isEmpty()) {
+                int next = path.indexOf('/', pos + 1);
+                if (next < 0) {
+                    next = path.length();
+                }
+                final String seg = path.substring(pos + 1, next);
+                final TkRouter.Node literal = this.children.get(seg);
+                if (literal != null) {
+                    found = literal.find(path, next);
+                }
+                final TkRouter.Node param = this.children.get(FkRoute.ANY);
+                if (param != null && !seg.isEmpty()) {
+                    found = Math.min(found, param.find(path, next));
+                }
+            }
+            return found;
+        }
+    }
+}
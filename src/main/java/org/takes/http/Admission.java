@@ -0,0 +1,287 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Admission control for {@link BkAdmission}.
+ *
+ * <p>At most {@link #limit()} connections are served at the same time,
+ * a bounded number of them wait in a queue, the rest are rejected. The
+ * limit adapts to the observed latency: it grows by one when a connection
+ * which used the whole limit is served faster than the target, and shrinks
+ * by a tenth, not more often than once per target period, when one is
+ * served slower (AIMD).
+ *
+ * <p>The latency is measured for the whole connection, from the moment
+ * the back starts to serve it until it's done. With keep-alive
+ * connections in {@link BkBasic} that includes all their requests and idle
+ * time, so the target must be set accordingly.
+ *
+ * <p>The limit, its changes, the queue depth and the rejections may be
+ * read at any moment, to be exposed as metrics.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @since 2.0
+ */
+public final class Admission {
+
+    /**
+     * How much of the limit is left after a decrease.
+     */
+    private static final double BACKOFF = 0.9;
+
+    /**
+     * The lowest limit.
+     */
+    private final int least;
+
+    /**
+     * The highest limit.
+     */
+    private final int most;
+
+    /**
+     * Target latency, in nanoseconds.
+     */
+    private final long target;
+
+    /**
+     * Connections waiting to be served.
+     */
+    private final BlockingQueue<Socket> waiting;
+
+    /**
+     * Current limit.
+     */
+    private final AtomicInteger current;
+
+    /**
+     * Connections being served now.
+     */
+    private final AtomicInteger running;
+
+    /**
+     * Connections rejected so far.
+     */
+    private final AtomicLong refused;
+
+    /**
+     * How many times the limit changed so far.
+     */
+    private final AtomicLong changed;
+
+    /**
+     * When the limit was decreased last time, by {@link System#nanoTime()}.
+     */
+    private final AtomicLong cut;
+
+    /**
+     * Ctor, with four connections per processor at most, as many waiting
+     * in the queue, and one second of target latency.
+     */
+    public Admission() {
+        this(Runtime.getRuntime().availableProcessors() << 2, 1000L);
+    }
+
+    /**
+     * Ctor, with as many waiting in the queue as may be served at most.
+     * @param max The highest limit, which is also the first one
+     * @param msec Target latency, in milliseconds
+     */
+    public Admission(final int max, final long msec) {
+        this(1, max, max, msec);
+    }
+
+    /**
+     * Ctor.
+     * @param min The lowest limit
+     * @param max The highest limit, which is also the first one
+     * @param queue How many connections may wait
+     * @param msec Target latency, in milliseconds
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public Admission(final int min, final int max, final int queue,
+        final long msec) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException(
+                String.format("Wrong limits: %d..%d", min, max)
+            );
+        }
+        this.least = min;
+        this.most = max;
+        this.target = TimeUnit.MILLISECONDS.toNanos(msec);
+        this.waiting = new ArrayBlockingQueue<>(Math.max(queue, 1));
+        this.current = new AtomicInteger(max);
+        this.running = new AtomicInteger();
+        this.refused = new AtomicLong();
+        this.changed = new AtomicLong();
+        this.cut = new AtomicLong(System.nanoTime() - this.target);
+    }
+
+    /**
+     * How many connections may be served at the same time now.
+     * @return The limit
+     */
+    public int limit() {
+        return this.current.get();
+    }
+
+    /**
+     * How many times the limit changed.
+     * @return Number of changes
+     */
+    public long changes() {
+        return this.changed.get();
+    }
+
+    /**
+     * How many connections are being served now.
+     * @return Number of connections
+     */
+    public int served() {
+        return this.running.get();
+    }
+
+    /**
+     * How many connections are waiting in the queue now.
+     * @return Number of connections
+     */
+    public int queued() {
+        return this.waiting.size();
+    }
+
+    /**
+     * How many connections were rejected.
+     * @return Number of connections
+     */
+    public long rejected() {
+        return this.refused.get();
+    }
+
+    /**
+     * The highest limit.
+     * @return The limit
+     */
+    int max() {
+        return this.most;
+    }
+
+    /**
+     * Take a place to serve a connection, if the limit allows.
+     * @return TRUE if taken
+     */
+    boolean enter() {
+        boolean taken = false;
+        while (true) {
+            final int now = this.running.get();
+            if (now >= this.current.get()) {
+                break;
+            }
+            if (this.running.compareAndSet(now, now + 1)) {
+                taken = true;
+                break;
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Leave the place taken by {@link #enter()}, after the connection
+     * was served, and adapt the limit.
+     * @param nanos How long it took
+     */
+    void leave(final long nanos) {
+        final boolean full = this.running.getAndDecrement()
+            >= this.current.get();
+        if (nanos > this.target) {
+            final long now = System.nanoTime();
+            final long last = this.cut.get();
+            if (now - last >= this.target
+                && this.cut.compareAndSet(last, now)) {
+                this.change(
+                    lim -> Math.max(
+                        this.least, (int) (lim * Admission.BACKOFF)
+                    )
+                );
+            }
+        } else if (full) {
+            this.change(lim -> Math.min(this.most, lim + 1));
+        }
+    }
+
+    /**
+     * Leave the place taken by {@link #enter()} without serving anything.
+     */
+    void abandon() {
+        this.running.decrementAndGet();
+    }
+
+    /**
+     * Put a connection into the queue, if there is room for it.
+     * @param socket The connection
+     * @return TRUE if it will wait, FALSE if it must be rejected
+     */
+    boolean queue(final Socket socket) {
+        final boolean room = this.waiting.offer(socket);
+        if (!room) {
+            this.refused.incrementAndGet();
+        }
+        return room;
+    }
+
+    /**
+     * Take the next connection from the queue.
+     * @return The connection or NULL if none is waiting
+     */
+    Socket next() {
+        return this.waiting.poll();
+    }
+
+    /**
+     * Count a connection rejected for another reason.
+     */
+    void reject() {
+        this.refused.incrementAndGet();
+    }
+
+    /**
+     * Change the limit.
+     * @param func How to change it
+     */
+    private void change(final IntUnaryOperator func) {
+        final int before = this.current.getAndUpdate(func);
+        if (func.applyAsInt(before) != before) {
+            this.changed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Parallel back-end with admission control.
+ *
+ * <p>Unlike {@link BkParallel}, which queues every connection without
+ * any limit, this back serves not more connections at the same time than
+ * the {@link Admission} allows, keeps a bounded number of them waiting,
+ * and rejects the rest right away with
+ * {@code 503 Service Unavailable} and {@code Retry-After}, without
+ * reading the request. A rejected connection is closed a bit later, when
+ * the client had the time to read the answer, and what it sent is
+ * skipped then, or the close would reset the connection and the answer
+ * could be lost:
+ *
+ * <pre> final Admission admission = new Admission(1, 64, 256, 500L);
+ * new FtBasic(
+ *   new BkAdmission(new BkSafe(new BkBasic(take)), admission),
+ *   8080
+ * ).start(Exit.NEVER);</pre>
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode(callSuper = true)
+public final class BkAdmission extends BkWrap {
+
+    /**
+     * Ctor.
+     * @param back Original back
+     */
+    public BkAdmission(final Back back) {
+        this(back, new Admission());
+    }
+
+    /**
+     * Ctor, asking rejected clients to retry in a second.
+     * @param back Original back
+     * @param admission Admission control
+     */
+    public BkAdmission(final Back back, final Admission admission) {
+        this(back, admission, 1);
+    }
+
+    /**
+     * Ctor.
+     * @param back Original back
+     * @param admission Admission control
+     * @param retry In how many seconds rejected clients may retry
+     */
+    public BkAdmission(final Back back, final Admission admission,
+        final int retry) {
+        this(
+            back, admission, retry,
+            Executors.newFixedThreadPool(
+                admission.max(), new BkParallel.Threads()
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param back Original back
+     * @param admission Admission control
+     * @param retry In how many seconds rejected clients may retry
+     * @param svc Executor service, with enough threads for the highest limit
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public BkAdmission(final Back back, final Admission admission,
+        final int retry, final ExecutorService svc) {
+        super(new BkAdmission.Gate(back, admission, retry, svc));
+    }
+
+    /**
+     * The back which lets connections in or not.
+     * @since 2.0
+     */
+    private static final class Gate implements Back {
+        /**
+         * How long a rejected connection stays open, in milliseconds.
+         */
+        private static final long LINGER = 1000L;
+
+        /**
+         * Original back.
+         */
+        private final Back origin;
+
+        /**
+         * Admission control.
+         */
+        private final Admission admission;
+
+        /**
+         * The response for rejected connections.
+         */
+        private final byte[] refusal;
+
+        /**
+         * Executor service.
+         */
+        private final ExecutorService service;
+
+        /**
+         * Wheel to close rejected connections in.
+         */
+        private final Wheel wheel;
+
+        /**
+         * Ctor.
+         * @param back Original back
+         * @param adm Admission control
+         * @param retry In how many seconds rejected clients may retry
+         * @param svc Executor service
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        Gate(final Back back, final Admission adm, final int retry,
+            final ExecutorService svc) {
+            this.origin = back;
+            this.admission = adm;
+            this.refusal = String.join(
+                "\r\n",
+                "HTTP/1.1 503 Service Unavailable",
+                String.format("Retry-After: %d", retry),
+                "Content-Length: 0",
+                "Connection: close",
+                "",
+                ""
+            ).getBytes(StandardCharsets.US_ASCII);
+            this.service = svc;
+            this.wheel = new Wheel();
+        }
+
+        @Override
+        public void accept(final Socket socket) {
+            if (this.admission.enter()) {
+                this.execute(socket);
+            } else if (this.admission.queue(socket)) {
+                this.next();
+            } else {
+                this.refuse(socket);
+            }
+        }
+
+        /**
+         * Serve connections from the queue, while the limit allows.
+         */
+        private void next() {
+            while (this.admission.enter()) {
+                final Socket socket = this.admission.next();
+                if (socket == null) {
+                    this.admission.abandon();
+                    break;
+                }
+                this.execute(socket);
+            }
+        }
+
+        /**
+         * Serve the connection in a thread of the executor, after
+         * a place was taken for it.
+         * @param socket The connection
+         */
+        private void execute(final Socket socket) {
+            try {
+                this.service.execute(() -> this.serve(socket));
+            } catch (final RejectedExecutionException ex) {
+                this.admission.abandon();
+                this.admission.reject();
+                this.refuse(socket);
+            }
+        }
+
+        /**
+         * Serve the connection and then the waiting ones.
+         * @param socket The connection
+         */
+        private void serve(final Socket socket) {
+            final long start = System.nanoTime();
+            try {
+                this.origin.accept(socket);
+            } catch (final IOException ex) {
+                throw new IllegalStateException(ex);
+            } finally {
+                this.admission.leave(System.nanoTime() - start);
+                this.next();
+            }
+        }
+
+        /**
+         * Answer with 503 and close the connection later, quietly.
+         * @param socket The connection
+         */
+        private void refuse(final Socket socket) {
+            boolean sent = false;
+            try {
+                final OutputStream output = socket.getOutputStream();
+                output.write(this.refusal);
+                output.flush();
+                socket.shutdownOutput();
+                sent = true;
+            } catch (final IOException ignored) {
+            }
+            if (sent) {
+                this.wheel.schedule(
+                    BkAdmission.Gate.LINGER,
+                    () -> BkAdmission.Gate.close(socket)
+                );
+            } else {
+                BkAdmission.Gate.close(socket);
+            }
+        }
+
+        /**
+         * Skip what the client sent, without waiting for more, and close
+         * the connection, quietly.
+         * @param socket The connection
+         */
+        private static void close(final Socket socket) {
+            try {
+                final InputStream input = socket.getInputStream();
+                for (int ready = input.available(); ready > 0;
+                    ready = input.available()) {
+                    input.skip((long) ready);
+                }
+            } catch (final IOException ignored) {
+            } finally {
+                try {
+                    socket.close();
+                } catch (final IOException ignored) {
+                }
+            }
+        }
+    }
+}
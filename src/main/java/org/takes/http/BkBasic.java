@@ -23,22 +23,35 @@
  */
 package org.takes.http;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import lombok.EqualsAndHashCode;
 import org.cactoos.bytes.BytesOf;
-import org.cactoos.bytes.UncheckedBytes;
 import org.cactoos.io.InputStreamOf;
+import org.cactoos.list.ListOf;
 import org.takes.HttpException;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
+import org.takes.rq.RequestOf;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqIndexed;
 import org.takes.rq.RqLive;
 import org.takes.rq.RqWithHeaders;
+import org.takes.rs.ResponseOf;
 import org.takes.rs.RsPrint;
 import org.takes.rs.RsText;
 import org.takes.rs.RsWithStatus;
@@ -81,70 +94,420 @@ public final class BkBasic implements Back {
      */
     private final Take take;
 
+    /**
+     * Timeouts of reading requests and of waiting for the next one.
+     */
+    private final Timeouts timeouts;
+
+    /**
+     * Max requests to serve in one connection.
+     */
+    private final int max;
+
+    /**
+     * Graceful shutdown.
+     */
+    private final Drain drain;
+
     /**
      * Ctor.
+     *
+     * <p>The connection is kept open only while pipelined requests are
+     * already waiting in it. Use {@link #BkBasic(Take, int, int)} to wait
+     * for the next request of a keep-alive client.
+     *
      * @param tks Take
      */
     public BkBasic(final Take tks) {
+        this(tks, new Timeouts(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Ctor.
+     * @param tks Take
+     * @param timeout How long to keep an idle connection open, in msec
+     * @param requests Max requests to serve in one connection
+     * @since 2.0
+     */
+    public BkBasic(final Take tks, final int timeout, final int requests) {
+        this(tks, new Timeouts(timeout), requests);
+    }
+
+    /**
+     * Ctor.
+     * @param tks Take
+     * @param tms Timeouts of reading requests and of idle connections
+     * @param requests Max requests to serve in one connection
+     * @since 2.0
+     */
+    public BkBasic(final Take tks, final Timeouts tms, final int requests) {
+        this(tks, tms, requests, new Drain());
+    }
+
+    /**
+     * Ctor.
+     * @param tks Take
+     * @param tms Timeouts of reading requests and of idle connections
+     * @param requests Max requests to serve in one connection
+     * @param drn Graceful shutdown, shared with the front
+     * @since 2.0
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public BkBasic(final Take tks, final Timeouts tms, final int requests,
+        final Drain drn) {
         this.take = tks;
+        this.timeouts = tms;
+        this.max = requests;
+        this.drain = drn;
     }
 
     @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     @Override
     public void accept(final Socket socket) throws IOException {
         try (
-            InputStream input = socket.getInputStream();
+            InputStream input = new BufferedInputStream(
+                socket.getInputStream()
+            );
             BufferedOutputStream output = new BufferedOutputStream(
                 socket.getOutputStream()
             )
         ) {
-            while (true) {
-                this.print(
-                    BkBasic.addSocketHeaders(
-                        new RqLive(input),
-                        socket
-                    ),
-                    output
+            final WritableByteChannel channel;
+            if (socket.getChannel() == null) {
+                channel = Channels.newChannel(output);
+            } else {
+                channel = socket.getChannel();
+            }
+            for (int served = 1; true; ++served) {
+                final Request head = this.head(input, socket);
+                final long length = BkBasic.length(head);
+                Wheel.Timeout reading = Wheel.Timeout.NEVER;
+                if (length != 0L) {
+                    reading = this.timeouts.body(socket);
+                }
+                final BkBasic.Body body = new BkBasic.Body(
+                    input, length, reading
                 );
-                if (input.available() <= 0) {
+                final Wheel.Timeout serving = this.timeouts.serve(socket);
+                final boolean alive;
+                try {
+                    alive = this.print(
+                        new RequestOf(head::head, () -> body),
+                        output,
+                        channel,
+                        served >= this.max
+                    ) && body.drain();
+                } finally {
+                    reading.cancel();
+                    serving.cancel();
+                }
+                if (!alive || !this.next(input, socket)) {
                     break;
                 }
             }
         }
     }
 
+    /**
+     * Read the head of the next request.
+     * @param input Input of the connection
+     * @param socket Socket of the connection
+     * @return Request with the head only
+     * @throws IOException If fails
+     */
+    private Request head(final InputStream input, final Socket socket)
+        throws IOException {
+        final Wheel.Timeout reading = this.timeouts.head(socket);
+        try {
+            return new RqIndexed(
+                BkBasic.addSocketHeaders(new RqLive(input), socket)
+            );
+        } finally {
+            reading.cancel();
+        }
+    }
+
+    /**
+     * Wait for the next request in the connection.
+     * @param input Input of the connection
+     * @param socket Socket of the connection
+     * @return TRUE if it arrived, FALSE if the connection must be closed
+     */
+    private boolean next(final InputStream input, final Socket socket) {
+        boolean next = this.drain.ready() && BkBasic.more(input);
+        if (!next && this.timeouts.keepAlive() && this.drain.idle(socket)) {
+            final Wheel.Timeout waiting = this.timeouts.idle(socket);
+            try {
+                input.mark(1);
+                next = input.read() >= 0;
+                input.reset();
+            } catch (final IOException ex) {
+                next = false;
+            } finally {
+                this.drain.busy(socket);
+            }
+            next = waiting.cancel() && next;
+        }
+        return next;
+    }
+
+    /**
+     * Are there more bytes of the next request already available?
+     * @param input Input of the connection
+     * @return TRUE if so, FALSE if none or if the stream is closed
+     */
+    private static boolean more(final InputStream input) {
+        boolean more;
+        try {
+            more = input.available() > 0;
+        } catch (final IOException ex) {
+            more = false;
+        }
+        return more;
+    }
+
     /**
      * Print response to output stream, safely.
+     *
+     * <p>The body is opened before the head is printed, so that if the
+     * take fails to make it, the client gets a clean failure response.
+     * Once any byte of the head went out, a failure can't be reported to
+     * the client any more: the connection is just closed.
+     *
      * @param req Request
      * @param output Output
+     * @param channel Channel behind the output
+     * @param last Is it the last request to serve in this connection?
+     * @return TRUE if the connection may serve the next request
      * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
      */
     @SuppressWarnings("PMD.AvoidCatchingThrowable")
-    private void print(final Request req, final OutputStream output)
+    private boolean print(final Request req, final OutputStream output,
+        final WritableByteChannel channel, final boolean last)
         throws IOException {
+        boolean alive = false;
+        final BkBasic.Watched watched = new BkBasic.Watched(output);
         try {
-            output.write(
-                new RsPrint(this.take.act(req)).asBytes()
-            );
+            final Response rsp = this.take.act(req);
+            final List<String> head = new ArrayList<>(new ListOf<>(rsp.head()));
+            final boolean chunked = BkBasic.chunked(req, head);
+            alive = !last && this.drain.ready()
+                && BkBasic.persistent(req, head, chunked);
+            this.connection(req, head, alive);
+            if (BkBasic.headless(req, head)) {
+                new RsPrint(new ResponseOf(() -> head, rsp::body))
+                    .printHead(watched);
+            } else {
+                try (InputStream body = rsp.body()) {
+                    final RsPrint print = new RsPrint(
+                        new ResponseOf(() -> head, () -> body)
+                    );
+                    if (chunked) {
+                        print.printChunked(watched);
+                    } else {
+                        print.print(watched, channel);
+                    }
+                }
+            }
         } catch (final HttpException ex) {
-            output.write(
-                new UncheckedBytes(
-                    new RsPrint(BkBasic.failure(ex, ex.code()))
-                ).asBytes()
-            );
+            alive = false;
+            if (!watched.written()) {
+                new RsPrint(BkBasic.failure(ex, ex.code())).print(output);
+            }
             // @checkstyle IllegalCatchCheck (10 lines)
         } catch (final Throwable ex) {
-            output.write(
-                new UncheckedBytes(
-                    new RsPrint(
-                        BkBasic.failure(
-                            ex,
-                            HttpURLConnection.HTTP_INTERNAL_ERROR
-                        )
+            alive = false;
+            if (!watched.written()) {
+                new RsPrint(
+                    BkBasic.failure(
+                        ex,
+                        HttpURLConnection.HTTP_INTERNAL_ERROR
                     )
-                ).asBytes()
-            );
+                ).print(output);
+            }
+        } finally {
+            output.flush();
         }
+        return alive;
+    }
+
+    /**
+     * Tell the client whether the connection stays open, unless the
+     * response already did.
+     * @param req Request
+     * @param head Head of the response, to add the header to
+     * @param alive Will the connection stay open?
+     * @throws IOException If fails
+     */
+    private void connection(final Request req, final List<String> head,
+        final boolean alive) throws IOException {
+        if (BkBasic.header(head, "connection:").isEmpty()) {
+            final boolean old = BkBasic.version(req).endsWith("/1.0");
+            if (!alive && !old) {
+                head.add("Connection: close");
+            }
+            if (alive && old && this.timeouts.keepAlive()) {
+                head.add("Connection: keep-alive");
+            }
+        }
+    }
+
+    /**
+     * Can the connection serve another request after this one?
+     *
+     * <p>An HTTP/1.1 connection persists unless either side asks to close
+     * it, an HTTP/1.0 one only if the client asks to keep it alive. In both
+     * cases the end of the response body and of the request body must be
+     * known without closing the connection.
+     *
+     * @param req Request
+     * @param head Head of the response
+     * @param chunked Will the response body go in chunks?
+     * @return TRUE if it can
+     * @throws IOException If fails
+     */
+    private static boolean persistent(final Request req,
+        final List<String> head, final boolean chunked) throws IOException {
+        final String version = BkBasic.version(req);
+        final String asked = String.join(
+            ",", new RqHeaders.Base(req).header("Connection")
+        ).toLowerCase(Locale.ENGLISH);
+        boolean persistent = "HTTP/1.1".equals(version)
+            && !asked.contains("close")
+            || "HTTP/1.0".equals(version) && asked.contains("keep-alive");
+        for (final String value : BkBasic.header(head, "connection:")) {
+            persistent = persistent
+                && !value.toLowerCase(Locale.ENGLISH).contains("close");
+        }
+        return persistent && (
+            chunked
+            || !BkBasic.header(head, "content-length:").isEmpty()
+            || !BkBasic.header(head, "transfer-encoding:").isEmpty()
+            || BkBasic.headless(req, head)
+        );
+    }
+
+    /**
+     * Must the response go without a body?
+     *
+     * <p>The response to HEAD has no body, and so haven't responses with
+     * 1xx, 204 and 304 statuses, whatever the take returns; its body is
+     * not sent, or the client would take it for the next response.
+     *
+     * @param req Request
+     * @param head Head of the response
+     * @return TRUE if so
+     * @throws IOException If fails
+     */
+    private static boolean headless(final Request req,
+        final List<String> head) throws IOException {
+        final Iterator<String> lines = req.head().iterator();
+        return lines.hasNext() && lines.next().startsWith("HEAD ")
+            || head.isEmpty() || !BkBasic.bodied(head.get(0));
+    }
+
+    /**
+     * Length of the request body, as its head announces it.
+     *
+     * <p>A body without Content-Length and Transfer-Encoding is empty;
+     * a chunked body or a broken length makes it unknown.
+     *
+     * @param req Request
+     * @return Length in bytes or -1 if unknown
+     * @throws IOException If fails
+     */
+    private static long length(final Request req) throws IOException {
+        final RqHeaders headers = new RqHeaders.Base(req);
+        final Iterator<String> length = headers.header("Content-Length")
+            .iterator();
+        long bytes = 0L;
+        if (headers.header("Transfer-Encoding").iterator().hasNext()) {
+            bytes = -1L;
+        } else if (length.hasNext()) {
+            try {
+                bytes = Long.parseLong(length.next().trim());
+            } catch (final NumberFormatException ex) {
+                bytes = -1L;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Protocol version of the request, like "HTTP/1.1".
+     * @param req Request
+     * @return Version or empty string if there is no request line
+     * @throws IOException If fails
+     */
+    private static String version(final Request req) throws IOException {
+        final Iterator<String> lines = req.head().iterator();
+        String version = "";
+        if (lines.hasNext()) {
+            final String line = lines.next();
+            version = line.substring(line.lastIndexOf(' ') + 1);
+        }
+        return version;
+    }
+
+    /**
+     * Values of the header in the head of the response.
+     * @param head Head of the response
+     * @param prefix Lower case name of the header, with a colon
+     * @return Values found
+     */
+    private static List<String> header(final List<String> head,
+        final String prefix) {
+        final List<String> values = new ArrayList<>(0);
+        for (int idx = 1; idx < head.size(); ++idx) {
+            final String line = head.get(idx);
+            if (line.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                values.add(line.substring(prefix.length()).trim());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Should the body of the response go in chunks?
+     *
+     * <p>Only if the client speaks HTTP/1.1, the response may have a body,
+     * and its length is not known.
+     *
+     * @param req Request
+     * @param head Head of the response
+     * @return TRUE if so
+     * @throws IOException If fails
+     */
+    private static boolean chunked(final Request req,
+        final List<String> head) throws IOException {
+        final Iterator<String> lines = req.head().iterator();
+        boolean chunked = lines.hasNext() && !head.isEmpty();
+        if (chunked) {
+            final String line = lines.next();
+            chunked = line.endsWith(" HTTP/1.1")
+                && !line.startsWith("HEAD ")
+                && BkBasic.bodied(head.get(0));
+        }
+        return chunked
+            && BkBasic.header(head, "content-length:").isEmpty()
+            && BkBasic.header(head, "transfer-encoding:").isEmpty();
+    }
+
+    /**
+     * Can a response with this status line have a body?
+     * @param status Status line, like "HTTP/1.1 200 OK"
+     * @return TRUE if it can
+     */
+    private static boolean bodied(final String status) {
+        final String[] parts = status.split(" ", 3);
+        boolean bodied = parts.length > 1
+            && parts[1].length() == 3
+            && parts[1].charAt(0) > '1' && parts[1].charAt(0) <= '9';
+        if (bodied) {
+            bodied = !"204".equals(parts[1]) && !"304".equals(parts[1]);
+        }
+        return bodied;
     }
 
     /**
@@ -153,7 +516,7 @@ public final class BkBasic implements Back {
      * @param code HTTP error code
      * @return Response
      */
-    private static Response failure(final Throwable err, final int code) {
+    static Response failure(final Throwable err, final int code) {
         return new RsWithStatus(
             new RsText(
                 new InputStreamOf(
@@ -166,27 +529,221 @@ public final class BkBasic implements Back {
 
     /**
      * Adds custom headers with information about socket.
+     *
+     * <p>Addresses which the socket doesn't have, as a Unix domain socket,
+     * are not added.
      * @param req Request
      * @param socket Socket
      * @return Request with custom headers
      */
     @SuppressWarnings("PMD.AvoidDuplicateLiterals")
-    private static Request addSocketHeaders(final Request req,
+    static Request addSocketHeaders(final Request req,
         final Socket socket) {
-        return new RqWithHeaders(
-            req,
-            String.format(
-                "%s: %s",
-                BkBasic.LOCALADDR,
-                socket.getLocalAddress().getHostAddress()
-            ),
-            String.format("%s: %d", BkBasic.LOCALPORT, socket.getLocalPort()),
-            String.format(
-                "%s: %s",
-                BkBasic.REMOTEADDR,
-                socket.getInetAddress().getHostAddress()
-            ),
-            String.format("%s: %d", BkBasic.REMOTEPORT, socket.getPort())
-        );
+        final List<String> headers = new ArrayList<>(4);
+        final InetAddress local = socket.getLocalAddress();
+        if (local != null) {
+            headers.add(
+                String.format(
+                    "%s: %s", BkBasic.LOCALADDR, local.getHostAddress()
+                )
+            );
+            headers.add(
+                String.format(
+                    "%s: %d", BkBasic.LOCALPORT, socket.getLocalPort()
+                )
+            );
+        }
+        final InetAddress remote = socket.getInetAddress();
+        if (remote != null) {
+            headers.add(
+                String.format(
+                    "%s: %s", BkBasic.REMOTEADDR, remote.getHostAddress()
+                )
+            );
+            headers.add(
+                String.format("%s: %d", BkBasic.REMOTEPORT, socket.getPort())
+            );
+        }
+        return new RqWithHeaders(req, headers);
+    }
+
+    /**
+     * Output stream which knows whether anything was written to it.
+     *
+     * @since 2.0
+     */
+    private static final class Watched extends FilterOutputStream {
+        /**
+         * Was anything written?
+         */
+        private boolean touched;
+
+        /**
+         * Ctor.
+         * @param output Output of the connection
+         */
+        Watched(final OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(final int data) throws IOException {
+            this.touched = true;
+            this.out.write(data);
+        }
+
+        @Override
+        public void write(final byte[] buf, final int off, final int len)
+            throws IOException {
+            this.touched = true;
+            this.out.write(buf, off, len);
+        }
+
+        @Override
+        public void close() {
+            // the connection outlives the response
+        }
+
+        /**
+         * Was anything written?
+         * @return TRUE if so
+         */
+        boolean written() {
+            return this.touched;
+        }
+    }
+
+    /**
+     * Body of a request, which ends where its head says it ends.
+     *
+     * <p>Closing it leaves the connection open for the next request.
+     * Reading it to the end cancels the timeout of reading it.
+     *
+     * @since 2.0
+     */
+    private static final class Body extends InputStream {
+        /**
+         * Most bytes to skip to keep the connection, 256 KB.
+         */
+        private static final long SKIP = 256L << 10;
+
+        /**
+         * Input of the connection.
+         */
+        private final InputStream origin;
+
+        /**
+         * Timeout of reading the body.
+         */
+        private final Wheel.Timeout timeout;
+
+        /**
+         * Bytes of the body not read yet, or -1 if the end is unknown.
+         */
+        private long more;
+
+        /**
+         * Ctor.
+         * @param input Input of the connection
+         * @param length Length of the body or -1 if unknown
+         * @param reading Timeout of reading the body
+         */
+        Body(final InputStream input, final long length,
+            final Wheel.Timeout reading) {
+            super();
+            this.origin = input;
+            this.more = length;
+            this.timeout = reading;
+        }
+
+        @Override
+        public int available() throws IOException {
+            int available = this.origin.available();
+            if (this.more >= 0L) {
+                available = (int) Math.min((long) available, this.more);
+            }
+            return available;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int data;
+            if (this.more == 0L) {
+                data = -1;
+            } else {
+                data = this.origin.read();
+                if (data < 0) {
+                    this.consumed(-1);
+                } else {
+                    this.consumed(1);
+                }
+            }
+            return data;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len)
+            throws IOException {
+            final int count;
+            if (this.more == 0L) {
+                count = -1;
+            } else if (this.more > 0L) {
+                count = this.origin.read(
+                    buf, off, (int) Math.min((long) len, this.more)
+                );
+                this.consumed(count);
+            } else {
+                count = this.origin.read(buf, off, len);
+                if (count < 0) {
+                    this.timeout.cancel();
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // the connection outlives the body of one request
+        }
+
+        /**
+         * Skip what the take didn't read.
+         *
+         * <p>Only a small rest is skipped; if more is left, the connection
+         * is not worth reading it, so it is closed instead.
+         * @return TRUE if the next request may follow in the connection
+         * @throws IOException If fails
+         */
+        boolean drain() throws IOException {
+            if (this.more > BkBasic.Body.SKIP) {
+                this.more = -1L;
+            }
+            while (this.more > 0L) {
+                final long skipped = this.origin.skip(this.more);
+                if (skipped > 0L) {
+                    this.more -= skipped;
+                } else if (this.origin.read() < 0) {
+                    this.more = -1L;
+                } else {
+                    this.more -= 1L;
+                }
+            }
+            return this.more == 0L;
+        }
+
+        /**
+         * Count bytes read from the body.
+         * @param count How many bytes were read, -1 if the input ended
+         */
+        private void consumed(final int count) {
+            if (count < 0) {
+                this.more = -1L;
+            } else if (this.more > 0L) {
+                this.more -= (long) count;
+            }
+            if (count < 0 || this.more == 0L) {
+                this.timeout.cancel();
+            }
+        }
     }
 }
@@ -0,0 +1,335 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import lombok.EqualsAndHashCode;
+import org.takes.Request;
+import org.takes.Take;
+import org.takes.misc.Opt;
+import org.takes.rq.RequestOf;
+import org.takes.rq.RqIndexed;
+import org.takes.rq.RqLive;
+
+/**
+ * Back-end that speaks HTTP/2 in clear text (h2c).
+ *
+ * <p>A client that knows the server speaks HTTP/2 starts the connection
+ * with the HTTP/2 preface. Another one sends an HTTP/1.1 request with
+ * {@code Upgrade: h2c}, which is answered in HTTP/2 as stream 1 of the
+ * upgraded connection. Every other connection goes to the HTTP/1.x
+ * back-end, which is {@link BkBasic} by default.
+ *
+ * <p>Streams of a connection are multiplexed: each of them goes to
+ * the take in its own thread, as a {@link Request} with the
+ * {@code :method} and {@code :path} in its request line, like
+ * {@code GET /index.html HTTP/2}, and {@code :authority} as the
+ * {@code Host} header. Its {@link org.takes.Response} goes back as
+ * {@code :status} and headers, compressed with HPACK, and the body in
+ * DATA frames, as the flow control of the client allows. So, takes don't
+ * need any changes.
+ *
+ * <p>A connection lives as long as the client keeps it, so run this
+ * back-end in {@link BkParallel} or {@link BkVirtual}:
+ *
+ * <pre> new FtBasic(
+ *   new BkParallel(new BkHttp2(new TkText("hello, h2!"))),
+ *   8080
+ * ).start(Exit.NEVER);</pre>
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode
+public final class BkHttp2 implements Back {
+
+    /**
+     * Max length of HTTP/1.1 head to look at, and of a body to upgrade.
+     */
+    private static final int PEEK = 8192;
+
+    /**
+     * Default max streams at a time in a connection.
+     */
+    private static final int STREAMS = 100;
+
+    /**
+     * Default time to keep an idle connection, in msec.
+     */
+    private static final int IDLE = 30_000;
+
+    /**
+     * Take.
+     */
+    private final Take take;
+
+    /**
+     * Back-end for HTTP/1.x.
+     */
+    private final Back origin;
+
+    /**
+     * Max streams at a time in a connection.
+     */
+    private final int streams;
+
+    /**
+     * How long to keep an idle connection, in msec.
+     */
+    private final int idle;
+
+    /**
+     * Ctor.
+     * @param tks Take
+     */
+    public BkHttp2(final Take tks) {
+        this(tks, new BkBasic(tks));
+    }
+
+    /**
+     * Ctor.
+     * @param tks Take
+     * @param back Back-end for HTTP/1.x connections
+     */
+    public BkHttp2(final Take tks, final Back back) {
+        this(tks, back, BkHttp2.STREAMS, BkHttp2.IDLE);
+    }
+
+    /**
+     * Ctor.
+     * @param tks Take
+     * @param back Back-end for HTTP/1.x connections
+     * @param max Max streams at a time in a connection
+     * @param timeout How long to keep an idle connection, in msec
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public BkHttp2(final Take tks, final Back back, final int max,
+        final int timeout) {
+        this.take = tks;
+        this.origin = back;
+        this.streams = max;
+        this.idle = timeout;
+    }
+
+    @Override
+    public void accept(final Socket socket) throws IOException {
+        final InputStream input = new BufferedInputStream(
+            socket.getInputStream(), BkHttp2.PEEK * 2
+        );
+        final String head = BkHttp2.peek(input);
+        if (head.startsWith("PRI * HTTP/2.0\r\n")) {
+            this.serve(socket, input, new Opt.Empty<>(), new byte[0]);
+        } else if (BkHttp2.upgrade(head)) {
+            this.upgrade(socket, input);
+        } else {
+            this.origin.accept(new PeekedSocket(socket, input));
+        }
+    }
+
+    /**
+     * Switch to HTTP/2 and answer the request in it.
+     * @param socket Socket
+     * @param input Input of the socket
+     * @throws IOException If fails
+     */
+    private void upgrade(final Socket socket, final InputStream input)
+        throws IOException {
+        final List<String> head = new ArrayList<>(0);
+        int length = 0;
+        byte[] settings = new byte[0];
+        for (final String line : new RqLive(input).head()) {
+            final String lower = line.toLowerCase(Locale.ENGLISH);
+            if (head.isEmpty()) {
+                head.add(
+                    String.format(
+                        "%s HTTP/2", line.substring(0, line.lastIndexOf(' '))
+                    )
+                );
+            } else if (lower.startsWith("http2-settings:")) {
+                settings = BkHttp2.settings(line);
+            } else if (lower.startsWith("content-length:")) {
+                length = Integer.parseInt(
+                    line.substring(line.indexOf(':') + 1).trim()
+                );
+                head.add(line);
+            } else if (!lower.startsWith("connection:")
+                && !lower.startsWith("upgrade:")) {
+                head.add(line);
+            }
+        }
+        final byte[] body = new byte[length];
+        new DataInputStream(input).readFully(body);
+        final Request req = new RqIndexed(
+            BkBasic.addSocketHeaders(
+                new RequestOf(head, new ByteArrayInputStream(body)), socket
+            )
+        );
+        final OutputStream output = socket.getOutputStream();
+        output.write(
+            String.join(
+                "\r\n",
+                "HTTP/1.1 101 Switching Protocols",
+                "Connection: Upgrade",
+                "Upgrade: h2c",
+                "",
+                ""
+            ).getBytes(StandardCharsets.ISO_8859_1)
+        );
+        output.flush();
+        this.serve(socket, input, new Opt.Single<>(req), settings);
+    }
+
+    /**
+     * Serve the connection in HTTP/2.
+     * @param socket Socket
+     * @param input Input of the socket
+     * @param upgraded Request that upgraded the connection, if any
+     * @param settings Settings the client sent in the upgrade
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private void serve(final Socket socket, final InputStream input,
+        final Opt<Request> upgraded, final byte[] settings)
+        throws IOException {
+        try (
+            InputStream ins = input;
+            OutputStream output = new BufferedOutputStream(
+                socket.getOutputStream(), BkHttp2.PEEK * 2
+            )
+        ) {
+            new H2Connection(
+                this.take, socket, ins, output, this.streams, this.idle
+            ).serve(upgraded, settings);
+        }
+    }
+
+    /**
+     * Look at the head of the first request, leaving it in the stream.
+     * @param input Input of the socket
+     * @return Head of HTTP/1.x or the preface of HTTP/2
+     * @throws IOException If fails
+     */
+    private static String peek(final InputStream input) throws IOException {
+        input.mark(BkHttp2.PEEK);
+        final ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int tail = 0;
+        while (head.size() < BkHttp2.PEEK) {
+            final int data = input.read();
+            if (data < 0) {
+                break;
+            }
+            head.write(data);
+            tail = tail << 8 | data;
+            // @checkstyle MagicNumber (1 line)
+            if (tail == 0x0D0A0D0A) {
+                break;
+            }
+        }
+        input.reset();
+        return new String(head.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Does the head ask to upgrade to h2c?
+     *
+     * <p>A body is read before the switch, so only a short one is allowed,
+     * and only with a known length.
+     *
+     * @param head Head of the request
+     * @return TRUE if it does
+     */
+    private static boolean upgrade(final String head) {
+        final String[] lines = head.split("\r\n");
+        boolean upgrade = false;
+        boolean settings = false;
+        boolean connection = false;
+        boolean body = false;
+        for (int idx = 1; idx < lines.length; ++idx) {
+            final String line = lines[idx].toLowerCase(Locale.ENGLISH);
+            final String value = line.substring(line.indexOf(':') + 1);
+            if (line.startsWith("upgrade:")) {
+                upgrade = BkHttp2.token(value, "h2c");
+            } else if (line.startsWith("http2-settings:")) {
+                settings = true;
+            } else if (line.startsWith("connection:")) {
+                connection = BkHttp2.token(value, "upgrade");
+            } else if (line.startsWith("transfer-encoding:")) {
+                body = true;
+            } else if (line.startsWith("content-length:")) {
+                body = !value.trim().matches("\\d{1,4}")
+                    || Integer.parseInt(value.trim()) > BkHttp2.PEEK;
+            }
+        }
+        return lines[0].endsWith(" HTTP/1.1")
+            && upgrade && settings && connection && !body;
+    }
+
+    /**
+     * Is the token in the comma-separated list?
+     * @param list The list, in lower case
+     * @param token The token
+     * @return TRUE if it is
+     */
+    private static boolean token(final String list, final String token) {
+        boolean found = false;
+        for (final String item : list.split(",")) {
+            if (item.trim().equals(token)) {
+                found = true;
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Decode the HTTP2-Settings header.
+     * @param line The header line
+     * @return Payload of SETTINGS, empty if it can't be decoded
+     */
+    private static byte[] settings(final String line) {
+        byte[] settings;
+        try {
+            settings = Base64.getUrlDecoder().decode(
+                line.substring(line.indexOf(':') + 1).trim()
+            );
+        } catch (final IllegalArgumentException ex) {
+            settings = new byte[0];
+        }
+        return settings;
+    }
+}
@@ -100,7 +100,7 @@ public final class BkParallel extends BkWrap {
      * Thread factory.
      * @since 0.1
      */
-    private static final class Threads implements ThreadFactory {
+    static final class Threads implements ThreadFactory {
         /**
          * Total threads created so far.
          */
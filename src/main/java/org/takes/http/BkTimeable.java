@@ -25,21 +25,27 @@ package org.takes.http;
 
 import java.io.IOException;
 import java.net.Socket;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 
 /**
  * Back decorator with maximum lifetime.
  *
+ * <p>When a connection is served longer than allowed, it meets the
+ * {@link Expiry}, which interrupts the serving thread by default. The
+ * timeouts are kept in a {@link Wheel}, so that they cost the same
+ * no matter how many connections are served, fire within a millisecond
+ * and are forgotten as soon as the connection is served.
+ *
+ * <p>It used to be a {@link Thread}, which had to be started to check
+ * the connections. It is not one anymore; {@link #start()},
+ * {@link #setDaemon(boolean)} and {@link #interrupt()} are kept for
+ * a release and do nothing.
+ *
  * <p>The class is immutable and thread-safe.
  * @since 0.14.2
  */
-@EqualsAndHashCode(callSuper = true)
-@SuppressWarnings("PMD.DoNotUseThreads")
-public final class BkTimeable extends Thread implements Back {
+@EqualsAndHashCode
+public final class BkTimeable implements Back {
     /**
      * Original back.
      */
@@ -51,9 +57,14 @@ public final class BkTimeable extends Thread implements Back {
     private final long latency;
 
     /**
-     * Threads storage.
+     * What to do with a connection served too long.
+     */
+    private final Expiry expiry;
+
+    /**
+     * The wheel.
      */
-    private final ConcurrentMap<Thread, Long> threads;
+    private final Wheel wheel;
 
     /**
      * Ctor.
@@ -61,47 +72,86 @@ public final class BkTimeable extends Thread implements Back {
      * @param msec Execution latency
      */
     public BkTimeable(final Back back, final long msec) {
-        super();
-        this.threads = new ConcurrentHashMap<>(1);
+        this(back, msec, new Expiry.Interrupt());
+    }
+
+    /**
+     * Ctor.
+     * @param back Original back
+     * @param msec Execution latency
+     * @param exp What to do with a connection served too long
+     * @since 2.0
+     */
+    public BkTimeable(final Back back, final long msec, final Expiry exp) {
+        this(back, msec, exp, new Wheel());
+    }
+
+    /**
+     * Ctor.
+     * @param back Original back
+     * @param msec Execution latency
+     * @param exp What to do with a connection served too long
+     * @param whl Wheel to keep the timeouts in
+     * @since 2.0
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public BkTimeable(final Back back, final long msec, final Expiry exp,
+        final Wheel whl) {
         this.back = back;
         this.latency = msec;
+        this.expiry = exp;
+        this.wheel = whl;
     }
 
-    @Override
-    public void run() {
-        while (true) {
-            this.check();
-            try {
-                TimeUnit.SECONDS.sleep(1L);
-            } catch (final InterruptedException ex) {
-                Thread.currentThread().interrupt();
-                throw new IllegalStateException(ex);
-            }
-        }
+    /**
+     * Start it.
+     *
+     * <p>It does nothing, since the wheel starts its own thread when
+     * it needs one.
+     * @deprecated It is not a thread anymore, will be removed soon
+     */
+    @Deprecated
+    public void start() {
+        // the wheel runs itself
     }
 
-    @Override
-    public void accept(final Socket socket) throws IOException {
-        this.threads.put(
-            Thread.currentThread(),
-            System.currentTimeMillis()
-        );
-        this.back.accept(socket);
+    /**
+     * Mark it as a daemon or user thread.
+     *
+     * <p>It does nothing, since the thread of the wheel is always
+     * a daemon.
+     * @param daemon Ignored
+     * @deprecated It is not a thread anymore, will be removed soon
+     */
+    @Deprecated
+    public void setDaemon(final boolean daemon) {
+        // the wheel runs a daemon thread
     }
 
     /**
-     * Checking threads storage and interrupt long running threads.
+     * Interrupt it.
+     *
+     * <p>It does nothing, since the thread of the wheel stops by itself
+     * when there are no timeouts.
+     * @deprecated It is not a thread anymore, will be removed soon
      */
-    private void check() {
-        for (final Map.Entry<Thread, Long> entry
-            : this.threads.entrySet()) {
-            final long time = System.currentTimeMillis();
-            if (time - entry.getValue() > this.latency) {
-                final Thread thread = entry.getKey();
-                if (thread.isAlive()) {
-                    thread.interrupt();
-                }
-                this.threads.remove(thread);
+    @Deprecated
+    public void interrupt() {
+        // the wheel stops itself
+    }
+
+    @Override
+    public void accept(final Socket socket) throws IOException {
+        if (this.latency == Long.MAX_VALUE) {
+            this.back.accept(socket);
+        } else {
+            final Wheel.Timeout timeout = new Guard(
+                this.expiry, Thread.currentThread(), socket
+            ).schedule(this.wheel, this.latency);
+            try {
+                this.back.accept(socket);
+            } finally {
+                timeout.cancel();
             }
         }
     }
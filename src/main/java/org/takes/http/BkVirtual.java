@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Back-end that runs every socket in its own virtual thread.
+ *
+ * <p>Virtual threads are cheap, so a slow {@link org.takes.Take} blocked
+ * on I/O doesn't stall the server. The total amount of sockets being
+ * processed at the same time is limited by a semaphore: when the limit
+ * is reached, {@link #accept(Socket)} waits until one of them is done,
+ * so the front stops accepting new connections.
+ *
+ * <p>When the runtime doesn't support virtual threads (before Java 21),
+ * a fixed pool of platform threads is used, the same as
+ * in {@link BkParallel}.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode(callSuper = true)
+public final class BkVirtual extends BkWrap {
+
+    /**
+     * Default maximum of sockets processed at the same time.
+     */
+    private static final int MAX = 10_000;
+
+    /**
+     * Ctor.
+     * @param back Original back
+     */
+    public BkVirtual(final Back back) {
+        this(back, BkVirtual.MAX);
+    }
+
+    /**
+     * Ctor.
+     * @param back Original back
+     * @param max Maximum of sockets processed at the same time
+     */
+    public BkVirtual(final Back back, final int max) {
+        this(back, BkVirtual.executor(), new Semaphore(max));
+    }
+
+    /**
+     * Ctor.
+     * @param back Original back
+     * @param svc Executor service
+     * @param permits Semaphore that limits concurrency
+     */
+    private BkVirtual(final Back back, final ExecutorService svc,
+        final Semaphore permits) {
+        super(
+            new Back() {
+                @Override
+                public void accept(final Socket socket) throws IOException {
+                    try {
+                        permits.acquire();
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(ex);
+                    }
+                    try {
+                        svc.execute(
+                            new Runnable() {
+                                @Override
+                                public void run() {
+                                    try {
+                                        back.accept(socket);
+                                    } catch (final IOException ex) {
+                                        throw new IllegalStateException(ex);
+                                    } finally {
+                                        permits.release();
+                                    }
+                                }
+                            }
+                        );
+                    } catch (final RejectedExecutionException ex) {
+                        permits.release();
+                        throw new IOException(ex);
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Is it possible to use virtual threads in this runtime?
+     * @return TRUE if yes
+     */
+    public static boolean supported() {
+        boolean supported;
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            supported = true;
+        } catch (final NoSuchMethodException ex) {
+            supported = false;
+        }
+        return supported;
+    }
+
+    /**
+     * Make an executor with virtual threads, if possible.
+     * @return Executor
+     */
+    private static ExecutorService executor() {
+        ExecutorService svc;
+        try {
+            svc = (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (final ReflectiveOperationException ex) {
+            svc = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors() << 2,
+                new BkParallel.Threads()
+            );
+        }
+        return svc;
+    }
+}
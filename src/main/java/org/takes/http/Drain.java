@@ -0,0 +1,287 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Graceful shutdown of a server.
+ *
+ * <p>While the server works, the drain is ready. Once it {@link #begin()}s,
+ * it is not ready any more, so health checks may report that (see
+ * {@link org.takes.tk.TkReady}), {@link FtBasic} stops accepting new
+ * connections, {@link BkBasic} closes keep-alive connections waiting
+ * for their next request and answers the requests in progress with
+ * {@code Connection: close}. Then {@link #finish()} waits until all the
+ * connections are closed, but not longer than the deadline, and closes
+ * the rest.
+ *
+ * <p>The same drain must be given to the front and to the back:
+ *
+ * <pre> final Drain drain = new Drain(10_000L);
+ * new FtBasic(
+ *   new BkParallel(new BkSafe(new BkBasic(take, timeouts, 100, drain))),
+ *   new ServerSocket(8080),
+ *   drain
+ * ).start(Exit.NEVER);</pre>
+ *
+ * <p>The class is thread-safe.
+ *
+ * @since 2.0
+ */
+@SuppressWarnings("PMD.AvoidUsingVolatile")
+public final class Drain {
+
+    /**
+     * How often to look for closed connections while waiting, in msec.
+     */
+    private static final long POLL = 10L;
+
+    /**
+     * How many connections to have at least, before the closed ones are
+     * forgotten.
+     */
+    private static final long LEAST = 64L;
+
+    /**
+     * How long to wait for connections to close, in milliseconds.
+     */
+    private final long deadline;
+
+    /**
+     * Connections accepted by the front, some of them maybe closed.
+     */
+    private final Set<Socket> open;
+
+    /**
+     * Connections waiting for the next request.
+     */
+    private final Set<Socket> idle;
+
+    /**
+     * How many connections to have, before the closed ones are forgotten.
+     */
+    private final AtomicLong limit;
+
+    /**
+     * Released when finished.
+     */
+    private final CountDownLatch done;
+
+    /**
+     * When the drain began, by {@link System#nanoTime()}, or NULL.
+     */
+    private final AtomicReference<Long> began;
+
+    /**
+     * Did anyone start finishing the drain?
+     */
+    private final AtomicBoolean finishing;
+
+    /**
+     * Did all connections close in time?
+     */
+    private volatile boolean clean;
+
+    /**
+     * How long it took, in milliseconds, or -1 if not finished.
+     */
+    private volatile long took;
+
+    /**
+     * Ctor, for a drain that doesn't wait for connections.
+     */
+    public Drain() {
+        this(0L);
+    }
+
+    /**
+     * Ctor.
+     * @param msec How long to wait for connections to close
+     */
+    public Drain(final long msec) {
+        this.deadline = msec;
+        this.open = ConcurrentHashMap.newKeySet();
+        this.idle = ConcurrentHashMap.newKeySet();
+        this.limit = new AtomicLong(Drain.LEAST);
+        this.done = new CountDownLatch(1);
+        this.began = new AtomicReference<>();
+        this.finishing = new AtomicBoolean();
+        this.took = -1L;
+    }
+
+    /**
+     * Is the server ready to serve new connections?
+     * @return TRUE until the drain begins
+     */
+    public boolean ready() {
+        return this.began.get() == null;
+    }
+
+    /**
+     * Stop serving new connections and close the idle ones.
+     *
+     * <p>Calling it again does nothing.
+     */
+    public void begin() {
+        if (this.began.compareAndSet(null, System.nanoTime())) {
+            for (final Socket socket : this.idle) {
+                Drain.close(socket);
+            }
+        }
+    }
+
+    /**
+     * Begin, if not yet, and wait for the connections to close, until
+     * the deadline; then close the rest.
+     *
+     * <p>Only the first call does the job, the others wait for it
+     * and return the same result.
+     * @return TRUE if all of them closed in time
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean finish() throws InterruptedException {
+        this.begin();
+        if (this.finishing.compareAndSet(false, true)) {
+            try {
+                this.clean = this.settle();
+            } finally {
+                this.done.countDown();
+            }
+        } else {
+            this.done.await();
+        }
+        return this.clean;
+    }
+
+    /**
+     * Wait until the drain finishes.
+     * @param msec How long to wait, in milliseconds
+     * @return TRUE if it finished
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean await(final long msec) throws InterruptedException {
+        return this.done.await(msec, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * How long the last drain took, from its beginning until all
+     * connections were closed.
+     * @return Milliseconds, or -1 if it didn't finish yet
+     */
+    public long duration() {
+        return this.took;
+    }
+
+    /**
+     * How many connections accepted by the front are still open.
+     * @return Number of connections
+     */
+    public int connections() {
+        this.open.removeIf(Socket::isClosed);
+        return this.open.size();
+    }
+
+    /**
+     * The front accepted a connection.
+     * @param socket The connection
+     */
+    void accepted(final Socket socket) {
+        this.open.add(socket);
+        if (this.open.size() > this.limit.get()) {
+            this.limit.set(
+                Math.max((long) this.connections() << 1, Drain.LEAST)
+            );
+        }
+    }
+
+    /**
+     * The back waits for the next request in the connection.
+     * @param socket The connection
+     * @return TRUE if it may, FALSE if the drain began
+     */
+    boolean idle(final Socket socket) {
+        this.idle.add(socket);
+        final boolean ready = this.ready();
+        if (!ready) {
+            this.idle.remove(socket);
+        }
+        return ready;
+    }
+
+    /**
+     * The next request arrived in the connection, or it closed.
+     * @param socket The connection
+     */
+    void busy(final Socket socket) {
+        this.idle.remove(socket);
+    }
+
+    /**
+     * Wait for the connections to close, until the deadline, and close
+     * the rest.
+     * @return TRUE if all of them closed in time
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private boolean settle() throws InterruptedException {
+        final long start = this.began.get();
+        final long until = start
+            + TimeUnit.MILLISECONDS.toNanos(this.deadline);
+        while (this.connections() > 0 && until - System.nanoTime() > 0L) {
+            TimeUnit.MILLISECONDS.sleep(
+                Math.min(
+                    Drain.POLL,
+                    TimeUnit.NANOSECONDS.toMillis(until - System.nanoTime())
+                        + 1L
+                )
+            );
+        }
+        final boolean closed = this.connections() == 0;
+        for (final Socket socket : this.open) {
+            Drain.close(socket);
+        }
+        this.open.clear();
+        this.took = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return closed;
+    }
+
+    /**
+     * Close a connection, quietly.
+     * @param socket The connection
+     */
+    private static void close(final Socket socket) {
+        try {
+            socket.close();
+        } catch (final IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import lombok.EqualsAndHashCode;
+import org.takes.rs.RsEmpty;
+import org.takes.rs.RsPrint;
+import org.takes.rs.RsWithHeader;
+import org.takes.rs.RsWithStatus;
+
+/**
+ * What to do with a connection, when its time is out.
+ *
+ * <p>It is called by the thread of a {@link Wheel}, not by the thread
+ * that serves the connection, so it must be quick.
+ *
+ * <p>All implementations of this interface must be immutable and
+ * thread-safe.
+ *
+ * @since 2.0
+ */
+public interface Expiry {
+
+    /**
+     * The time is out.
+     * @param thread Thread serving the connection
+     * @param socket The connection
+     * @throws IOException If fails
+     */
+    void expire(Thread thread, Socket socket) throws IOException;
+
+    /**
+     * Interrupt the thread, so that a take waiting for something
+     * stops waiting.
+     *
+     * @since 2.0
+     */
+    @EqualsAndHashCode
+    final class Interrupt implements Expiry {
+        @Override
+        public void expire(final Thread thread, final Socket socket) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Close the connection, so that any reading from it or writing to it
+     * fails.
+     *
+     * @since 2.0
+     */
+    @EqualsAndHashCode
+    final class Close implements Expiry {
+        @Override
+        public void expire(final Thread thread, final Socket socket)
+            throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * Send a bodiless response with this status and close the connection.
+     *
+     * <p>Use it only for a connection whose response hasn't started yet,
+     * like one that is still sending its request, or the client gets a
+     * mess of two responses.
+     *
+     * @since 2.0
+     */
+    @EqualsAndHashCode
+    final class Reply implements Expiry {
+
+        /**
+         * Status.
+         */
+        private final int status;
+
+        /**
+         * Ctor, with "503 Service Unavailable".
+         */
+        public Reply() {
+            this(HttpURLConnection.HTTP_UNAVAILABLE);
+        }
+
+        /**
+         * Ctor.
+         * @param code Status, like 408 for a request that came too slowly
+         */
+        public Reply(final int code) {
+            this.status = code;
+        }
+
+        @Override
+        public void expire(final Thread thread, final Socket socket)
+            throws IOException {
+            try {
+                final OutputStream output = new BufferedOutputStream(
+                    socket.getOutputStream()
+                );
+                new RsPrint(
+                    new RsWithHeader(
+                        new RsWithStatus(new RsEmpty(), this.status),
+                        "Connection: close"
+                    )
+                ).print(output);
+                output.flush();
+            } finally {
+                socket.close();
+            }
+        }
+    }
+}
@@ -25,10 +25,12 @@ package org.takes.http;
 
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import org.takes.Take;
+import org.takes.misc.Opt;
 
 /**
  * Basic front.
@@ -50,6 +52,11 @@ public final class FtBasic implements Front {
      */
     private final ServerSocket socket;
 
+    /**
+     * Graceful shutdown, if any.
+     */
+    private final Opt<Drain> drain;
+
     /**
      * Ctor.
      * @param tks Take
@@ -88,8 +95,35 @@ public final class FtBasic implements Front {
      * @since 0.22
      */
     public FtBasic(final Back bck, final ServerSocket skt) {
+        this(bck, skt, new Opt.Empty<>());
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>The front stops when the exit is ready or when the drain
+     * begins, and then finishes the drain before it returns.
+     *
+     * @param bck Back
+     * @param skt Server socket
+     * @param drn Graceful shutdown, shared with the back
+     * @since 2.0
+     */
+    public FtBasic(final Back bck, final ServerSocket skt, final Drain drn) {
+        this(bck, skt, new Opt.Single<>(drn));
+    }
+
+    /**
+     * Ctor.
+     * @param bck Back
+     * @param skt Server socket
+     * @param drn Graceful shutdown, if any
+     */
+    private FtBasic(final Back bck, final ServerSocket skt,
+        final Opt<Drain> drn) {
         this.back = bck;
         this.socket = skt;
+        this.drain = drn;
     }
 
     @Override
@@ -98,9 +132,33 @@ public final class FtBasic implements Front {
         try {
             do {
                 this.loop(this.socket);
-            } while (!exit.ready());
+            } while (!exit.ready() && this.ready());
         } finally {
             this.socket.close();
+            if (this.drain.has()) {
+                this.finish();
+            }
+        }
+    }
+
+    /**
+     * Is the drain, if any, still ready?
+     * @return TRUE if the front may accept more connections
+     */
+    private boolean ready() {
+        return !this.drain.has() || this.drain.get().ready();
+    }
+
+    /**
+     * Wait for the connections to close.
+     * @throws IOException If interrupted
+     */
+    private void finish() throws IOException {
+        try {
+            this.drain.get().finish();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
         }
     }
 
@@ -111,7 +169,11 @@ public final class FtBasic implements Front {
      */
     private void loop(final ServerSocket server) throws IOException {
         try {
-            this.back.accept(server.accept());
+            final Socket accepted = server.accept();
+            if (this.drain.has()) {
+                this.drain.get().accepted(accepted);
+            }
+            this.back.accept(accepted);
         } catch (final SocketTimeoutException ignored) {
         }
     }
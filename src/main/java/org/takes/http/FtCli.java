@@ -24,20 +24,23 @@
 package org.takes.http;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
+import org.takes.misc.Opt;
 import org.takes.rq.RqWithHeader;
 
 /**
  * Front with a command line interface.
  *
- * <p>You must provide {@code --port} argument. Without it, the
- * server won't start. If you want to start the server at random port, you
- * should specify a file name as the value of this {@code --port} configuration
- * option. For example:</p>
+ * <p>You must provide {@code --port} argument, or {@code --socket}.
+ * Without them, the server won't start. If you want to start the server
+ * at random port, you should specify a file name as the value of this
+ * {@code --port} configuration option. For example:</p>
  *
  * <pre> new FtCLI(
  *   new TkText("hello, world!"),
@@ -50,6 +53,20 @@ import org.takes.rq.RqWithHeader;
  * work in the foreground. The server will be started at a random TCP
  * port and its number will be saved to {@code /tmp/port.txt} file.</p>
  *
+ * <p>With {@code --threads=virtual} every connection is processed
+ * in its own virtual thread, see {@link BkVirtual}.</p>
+ *
+ * <p>With {@code --keep-alive=5000} a connection waits up to five seconds
+ * for the next request of a keep-alive client, see {@link BkBasic}.</p>
+ *
+ * <p>With {@code --drain=10000} the server shuts down gracefully when
+ * the JVM does, for example on SIGTERM: it stops accepting connections
+ * and waits up to ten seconds for the requests in progress,
+ * see {@link Drain}.</p>
+ *
+ * <p>With {@code --socket=/run/takes.sock} the server listens to
+ * a Unix domain socket instead of a port, see {@link FtUnix}.</p>
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
@@ -104,19 +121,43 @@ public final class FtCli implements Front {
         } else {
             tks = this.take;
         }
-        final BkTimeable timeable = new BkTimeable(
-            new BkSafe(new BkBasic(tks)),
-            this.options.maxLatency()
-        );
-        timeable.setDaemon(true);
-        timeable.start();
-        final Front front = new FtBasic(
-            new BkParallel(
-                timeable,
-                this.options.threads()
-            ),
-            this.options.socket()
+        final Drain drain = new Drain(this.options.drain());
+        final Back basic = new BkSafe(
+            new BkBasic(
+                tks,
+                new Timeouts(
+                    0L, 0L, this.options.keepAlive(),
+                    this.options.maxLatency(), new Expiry.Interrupt(),
+                    new Wheel()
+                ),
+                Integer.MAX_VALUE,
+                drain
+            )
         );
+        final Back back;
+        if (this.options.virtual()) {
+            back = new BkVirtual(basic);
+        } else {
+            back = new BkParallel(basic, this.options.threads());
+        }
+        final Front front = this.front(back, drain);
+        if (this.options.drain() > 0L) {
+            Runtime.getRuntime().addShutdownHook(
+                new Thread(
+                    () -> {
+                        drain.begin();
+                        try {
+                            drain.await(
+                                this.options.drain()
+                                    + TimeUnit.SECONDS.toMillis(2L)
+                            );
+                        } catch (final InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                )
+            );
+        }
         if (this.options.isDaemon()) {
             final Thread thread = new Thread(
                 new Runnable() {
@@ -137,6 +178,31 @@ public final class FtCli implements Front {
         }
     }
 
+    /**
+     * Create the front, listening to the port or to the Unix domain
+     * socket.
+     * @param back Back
+     * @param drain Graceful shutdown, used if its deadline is set
+     * @return Front
+     * @throws IOException If fails
+     */
+    private Front front(final Back back, final Drain drain)
+        throws IOException {
+        final Opt<Path> unix = this.options.unix();
+        final boolean draining = this.options.drain() > 0L;
+        final Front front;
+        if (unix.has() && draining) {
+            front = new FtUnix(back, unix.get(), drain);
+        } else if (unix.has()) {
+            front = new FtUnix(back, unix.get());
+        } else if (draining) {
+            front = new FtBasic(back, this.options.socket(), drain);
+        } else {
+            front = new FtBasic(back, this.options.socket());
+        }
+        return front;
+    }
+
     /**
      * Create exit.
      * @param exit Original exit
@@ -0,0 +1,313 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Front with many acceptor threads.
+ *
+ * <p>{@link FtBasic} accepts connections in one thread, which becomes
+ * the bottleneck for many short connections on many cores. This front
+ * runs an acceptor thread per back, each feeding its own back, for
+ * example its own {@link BkParallel}. Where the platform supports
+ * {@code SO_REUSEPORT}, every acceptor listens to its own socket and
+ * the kernel spreads connections among them; otherwise they share one
+ * listening socket.
+ *
+ * <pre> final List&lt;Back&gt; backs = new ArrayList&lt;&gt;(16);
+ * for (int idx = 0; idx &lt; 16; ++idx) {
+ *   backs.add(new BkParallel(new BkSafe(new BkBasic(take)), 4));
+ * }
+ * new FtMulti(
+ *   backs, new InetSocketAddress(8080), new Tuning(4096, true, 0, 0)
+ * ).start(Exit.NEVER);</pre>
+ *
+ * <p>Acceptors block in {@code accept()} without timeouts, the exit is
+ * checked by the thread that started the front, which closes the
+ * listening sockets when it's ready. When {@code accept()} fails while
+ * the socket is open, for example because the process is out of file
+ * descriptors, the acceptor logs it and waits, from 10 milliseconds up
+ * to a second, before it tries again.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode
+public final class FtMulti implements Front {
+
+    /**
+     * How often to check the exit, in milliseconds.
+     */
+    private static final long POLL = 100L;
+
+    /**
+     * Backs, one per acceptor.
+     */
+    private final List<Back> backs;
+
+    /**
+     * Address to listen to.
+     */
+    private final InetSocketAddress address;
+
+    /**
+     * Socket options.
+     */
+    private final Tuning tuning;
+
+    /**
+     * Ctor, with an acceptor per processor.
+     * @param back Back, shared by all acceptors
+     * @param port Port
+     */
+    public FtMulti(final Back back, final int port) {
+        this(back, port, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Ctor.
+     * @param back Back, shared by all acceptors
+     * @param port Port
+     * @param acceptors How many acceptors to run
+     */
+    public FtMulti(final Back back, final int port, final int acceptors) {
+        this(back, port, acceptors, new Tuning());
+    }
+
+    /**
+     * Ctor.
+     * @param back Back, shared by all acceptors
+     * @param port Port
+     * @param acceptors How many acceptors to run
+     * @param tng Socket options
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public FtMulti(final Back back, final int port, final int acceptors,
+        final Tuning tng) {
+        this(
+            Collections.nCopies(acceptors, back),
+            new InetSocketAddress(port),
+            tng
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param bcks Backs, one per acceptor
+     * @param addr Address to listen to
+     * @param tng Socket options
+     */
+    public FtMulti(final List<Back> bcks, final InetSocketAddress addr,
+        final Tuning tng) {
+        if (bcks.isEmpty()) {
+            throw new IllegalArgumentException("At least one back is needed");
+        }
+        this.backs = Collections.unmodifiableList(new ArrayList<>(bcks));
+        this.address = addr;
+        this.tuning = tng;
+    }
+
+    @Override
+    public void start(final Exit exit) throws IOException {
+        final List<ServerSocket> servers = this.listen();
+        final List<Thread> threads = new ArrayList<>(this.backs.size());
+        try {
+            for (int idx = 0; idx < this.backs.size(); ++idx) {
+                final Thread thread = new Thread(
+                    new FtMulti.Acceptor(
+                        servers.get(idx % servers.size()),
+                        this.backs.get(idx),
+                        this.tuning
+                    ),
+                    String.format(
+                        "%s-%d", FtMulti.class.getSimpleName(), idx
+                    )
+                );
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+            while (!exit.ready()) {
+                TimeUnit.MILLISECONDS.sleep(FtMulti.POLL);
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (final ServerSocket server : servers) {
+                server.close();
+            }
+            for (final Thread thread : threads) {
+                FtMulti.join(thread);
+            }
+        }
+    }
+
+    /**
+     * Open the listening sockets: one per acceptor, if they can share
+     * the port, or one for all of them.
+     * @return Bound sockets
+     * @throws IOException If fails
+     */
+    private List<ServerSocket> listen() throws IOException {
+        final List<ServerSocket> servers = new ArrayList<>(this.backs.size());
+        if (this.backs.size() > 1 && Tuning.sharing()) {
+            try {
+                final ServerSocket first =
+                    this.tuning.listen(this.address, true);
+                servers.add(first);
+                final InetSocketAddress bound = new InetSocketAddress(
+                    first.getInetAddress(), first.getLocalPort()
+                );
+                while (servers.size() < this.backs.size()) {
+                    servers.add(this.tuning.listen(bound, true));
+                }
+            } catch (final IOException ex) {
+                for (final ServerSocket server : servers) {
+                    server.close();
+                }
+                throw ex;
+            }
+        } else {
+            servers.add(this.tuning.listen(this.address, false));
+        }
+        return servers;
+    }
+
+    /**
+     * Wait for a thread to finish, keeping the interrupt flag.
+     * @param thread The thread
+     */
+    private static void join(final Thread thread) {
+        try {
+            thread.join();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Accept loop of one thread.
+     *
+     * <p>Like the other fronts, it doesn't report failures: when
+     * {@code accept()} fails, it waits, longer and longer up to a second,
+     * and tries again; when the back fails, the socket is closed. A back
+     * that has to report failures of serving does it itself.
+     * @since 2.0
+     */
+    static final class Acceptor implements Runnable {
+        /**
+         * Shortest pause after a failure of {@code accept()}, in msec.
+         */
+        private static final long LEAST = 10L;
+
+        /**
+         * Longest pause after a failure of {@code accept()}, in msec.
+         */
+        private static final long MOST = 1000L;
+
+        /**
+         * Listening socket.
+         */
+        private final ServerSocket server;
+
+        /**
+         * Back.
+         */
+        private final Back back;
+
+        /**
+         * Socket options.
+         */
+        private final Tuning tuning;
+
+        /**
+         * Ctor.
+         * @param srv Listening socket
+         * @param bck Back
+         * @param tng Socket options
+         */
+        Acceptor(final ServerSocket srv, final Back bck, final Tuning tng) {
+            this.server = srv;
+            this.back = bck;
+            this.tuning = tng;
+        }
+
+        @Override
+        public void run() {
+            long delay = 0L;
+            while (!this.server.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = this.server.accept();
+                } catch (final IOException ignored) {
+                    delay = Math.min(
+                        Math.max(delay << 1, Acceptor.LEAST), Acceptor.MOST
+                    );
+                    if (!this.pause(delay)) {
+                        break;
+                    }
+                    continue;
+                }
+                delay = 0L;
+                try {
+                    this.back.accept(this.tuning.apply(socket));
+                } catch (final IOException ignored) {
+                    try {
+                        socket.close();
+                    } catch (final IOException suppressed) {
+                    }
+                }
+            }
+        }
+
+        /**
+         * Wait after a failure of {@code accept()}, unless the socket is
+         * closed.
+         * @param msec How long to wait
+         * @return FALSE if the acceptor must stop
+         */
+        private boolean pause(final long msec) {
+            boolean resume = !this.server.isClosed();
+            if (resume) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(msec);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    resume = false;
+                }
+            }
+            return resume;
+        }
+    }
+}
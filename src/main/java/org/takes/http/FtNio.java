@@ -0,0 +1,314 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import org.takes.Take;
+import org.takes.misc.Opt;
+
+/**
+ * Non-blocking front, based on {@link Selector}.
+ *
+ * <p>All connections are parked in a single selector, while they are
+ * idle. A connection is given to the {@link Back} only when the entire
+ * head of the next request has arrived. When the back is done with
+ * the request and closes the streams of the socket, the connection
+ * goes back to the selector and waits for the next request there,
+ * without occupying a thread. Thus, the back should be asynchronous,
+ * for example {@link BkParallel}:
+ *
+ * <pre> new FtNio(
+ *   new BkParallel(new BkSafe(new BkBasic(take)), 16),
+ *   8080
+ * ).start(Exit.NEVER);</pre>
+ *
+ * <p>Connections that stay idle longer than the idle timeout are closed.
+ *
+ * <p>With a {@link Tls} configuration the connections are secure: the
+ * handshake and the decryption are done by {@link javax.net.ssl.SSLEngine}
+ * while the connection is parked, so HTTPS connections are parked and
+ * handed off the same way as plain ones.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@EqualsAndHashCode
+public final class FtNio implements Front {
+
+    /**
+     * Back.
+     */
+    private final Back back;
+
+    /**
+     * Server socket channel.
+     */
+    private final ServerSocketChannel channel;
+
+    /**
+     * Maximum idle time of a connection, in milliseconds.
+     */
+    private final long idle;
+
+    /**
+     * TLS configuration, if connections are secure.
+     */
+    private final Opt<Tls> tls;
+
+    /**
+     * Ctor.
+     * @param tks Take
+     * @param port Port
+     * @throws IOException If fails
+     */
+    public FtNio(final Take tks, final int port) throws IOException {
+        this(new BkParallel(new BkSafe(new BkBasic(tks))), port);
+    }
+
+    /**
+     * Ctor.
+     * @param bck Back
+     * @param port Port
+     * @throws IOException If fails
+     */
+    public FtNio(final Back bck, final int port) throws IOException {
+        this(bck, FtNio.bind(port));
+    }
+
+    /**
+     * Ctor.
+     * @param bck Back
+     * @param chnl Server socket channel, already bound
+     */
+    public FtNio(final Back bck, final ServerSocketChannel chnl) {
+        this(bck, chnl, TimeUnit.MINUTES.toMillis(1L));
+    }
+
+    /**
+     * Ctor.
+     * @param bck Back
+     * @param chnl Server socket channel, already bound
+     * @param msec Maximum idle time of a connection, in milliseconds
+     */
+    public FtNio(final Back bck, final ServerSocketChannel chnl,
+        final long msec) {
+        this(bck, chnl, msec, new Opt.Empty<>());
+    }
+
+    /**
+     * Ctor, for secure connections.
+     * @param bck Back
+     * @param port Port
+     * @param sec TLS configuration
+     * @throws IOException If fails
+     */
+    public FtNio(final Back bck, final int port, final Tls sec)
+        throws IOException {
+        this(bck, FtNio.bind(port), TimeUnit.MINUTES.toMillis(1L), sec);
+    }
+
+    /**
+     * Ctor, for secure connections.
+     * @param bck Back
+     * @param chnl Server socket channel, already bound
+     * @param msec Maximum idle time of a connection, in milliseconds
+     * @param sec TLS configuration
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public FtNio(final Back bck, final ServerSocketChannel chnl,
+        final long msec, final Tls sec) {
+        this(bck, chnl, msec, new Opt.Single<>(sec));
+    }
+
+    /**
+     * Ctor.
+     * @param bck Back
+     * @param chnl Server socket channel, already bound
+     * @param msec Maximum idle time of a connection, in milliseconds
+     * @param sec TLS configuration, if connections are secure
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private FtNio(final Back bck, final ServerSocketChannel chnl,
+        final long msec, final Opt<Tls> sec) {
+        this.back = bck;
+        this.channel = chnl;
+        this.idle = msec;
+        this.tls = sec;
+    }
+
+    @Override
+    public void start(final Exit exit) throws IOException {
+        final Queue<NioSocket> parked = new ConcurrentLinkedQueue<>();
+        try (Selector selector = Selector.open()) {
+            this.channel.configureBlocking(false);
+            this.channel.register(selector, SelectionKey.OP_ACCEPT);
+            long swept = System.currentTimeMillis();
+            do {
+                this.loop(selector, parked);
+                final long now = System.currentTimeMillis();
+                if (now - swept > TimeUnit.SECONDS.toMillis(1L)) {
+                    this.sweep(selector, now);
+                    swept = now;
+                }
+            } while (!exit.ready());
+            for (final SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof NioSocket) {
+                    ((NioSocket) key.attachment()).shutdown();
+                } else {
+                    key.channel().close();
+                }
+            }
+        } finally {
+            this.channel.close();
+            for (final NioSocket socket : parked) {
+                socket.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Make a loop cycle.
+     * @param selector Selector
+     * @param parked Connections returned by the back
+     * @throws IOException If fails
+     */
+    private void loop(final Selector selector,
+        final Queue<NioSocket> parked) throws IOException {
+        selector.select(TimeUnit.SECONDS.toMillis(1L));
+        final Collection<NioSocket> ready = new LinkedList<>();
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            final SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                this.accept(selector, parked);
+            } else if (key.isReadable() || key.isWritable()) {
+                final NioSocket socket = (NioSocket) key.attachment();
+                if (socket.fill()) {
+                    key.cancel();
+                    ready.add(socket);
+                }
+            }
+        }
+        while (true) {
+            final NioSocket socket = parked.poll();
+            if (socket == null) {
+                break;
+            }
+            if (socket.complete() || socket.fill()) {
+                ready.add(socket);
+            } else if (!socket.isClosed()) {
+                socket.park(selector);
+            }
+        }
+        if (!ready.isEmpty()) {
+            selector.selectNow();
+            for (final NioSocket socket : ready) {
+                this.dispatch(socket);
+            }
+        }
+    }
+
+    /**
+     * Accept all pending connections.
+     * @param selector Selector
+     * @param parked Connections returned by the back
+     * @throws IOException If fails
+     */
+    private void accept(final Selector selector,
+        final Queue<NioSocket> parked) throws IOException {
+        while (true) {
+            final SocketChannel client = this.channel.accept();
+            if (client == null) {
+                break;
+            }
+            final Wire wire;
+            if (this.tls.has()) {
+                wire = new TlsWire(client, this.tls.get().engine());
+            } else {
+                wire = new Wire.Plain(client);
+            }
+            new NioSocket(client, wire, selector, parked).park(selector);
+        }
+    }
+
+    /**
+     * Give the connection to the back.
+     * @param socket Socket with a complete request head
+     */
+    private void dispatch(final NioSocket socket) {
+        try {
+            socket.handoff();
+            this.back.accept(socket);
+        } catch (final IOException ex) {
+            socket.shutdown();
+        }
+    }
+
+    /**
+     * Close all connections that were idle for too long.
+     * @param selector Selector
+     * @param now Current time
+     */
+    private void sweep(final Selector selector, final long now) {
+        for (final SelectionKey key : selector.keys()) {
+            final Object socket = key.attachment();
+            if (socket instanceof NioSocket
+                && ((NioSocket) socket).idle(now) > this.idle) {
+                key.cancel();
+                ((NioSocket) socket).shutdown();
+            }
+        }
+    }
+
+    /**
+     * Open a server socket channel.
+     * @param port Port
+     * @return Channel
+     * @throws IOException If fails
+     */
+    private static ServerSocketChannel bind(final int port)
+        throws IOException {
+        final ServerSocketChannel chnl = ServerSocketChannel.open();
+        chnl.bind(new InetSocketAddress(port));
+        return chnl;
+    }
+}
@@ -25,7 +25,10 @@ package org.takes.http;
 
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
 import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSocket;
 import lombok.EqualsAndHashCode;
 import org.takes.Take;
 
@@ -33,7 +36,10 @@ import org.takes.Take;
  * Secure (SSL) front.
  *
  * <p>Make sure that valid keystore and certificates are available
- * to the underlying JSSE infrastructure.
+ * to the underlying JSSE infrastructure, or give the front an explicit
+ * {@link Tls} configuration. With it, handshakes run in the threads
+ * of the back, not in the thread that accepts connections, and
+ * a client that doesn't finish its handshake in time is disconnected.
  *
  * <p>The class is immutable and thread-safe.
  *
@@ -80,6 +86,38 @@ public final class FtSecure implements Front {
         );
     }
 
+    /**
+     * Ctor, with handshakes in as many threads as
+     * {@link BkParallel} has by default.
+     * @param bck Back, it doesn't need to be parallel
+     * @param port Port
+     * @param tls TLS configuration
+     * @throws IOException If fails
+     * @since 2.0
+     */
+    public FtSecure(final Back bck, final int port, final Tls tls)
+        throws IOException {
+        this(
+            bck, tls.listen(port),
+            Runtime.getRuntime().availableProcessors() << 2,
+            TimeUnit.SECONDS.toMillis(10L)
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param bck Back, it doesn't need to be parallel
+     * @param skt Server socket, made by {@link Tls#listen(int)}
+     * @param threads How many threads make handshakes and run the back
+     * @param msec How long to wait for a handshake, in milliseconds
+     * @since 2.0
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public FtSecure(final Back bck, final ServerSocket skt, final int threads,
+        final long msec) {
+        this(new BkParallel(new FtSecure.Handshake(bck, msec), threads), skt);
+    }
+
     /**
      * Ctor.
      * @param bck Back
@@ -93,4 +131,66 @@ public final class FtSecure implements Front {
     public void start(final Exit exit) throws IOException {
         this.front.start(exit);
     }
+
+    /**
+     * Back that makes the TLS handshake before the original back
+     * gets the connection.
+     *
+     * <p>It turns Nagle's algorithm off, since handshake messages are
+     * small writes waiting for each other, which otherwise meet
+     * delayed acknowledgements of the peer.
+     * @since 2.0
+     */
+    private static final class Handshake implements Back {
+        /**
+         * Original back.
+         */
+        private final Back origin;
+
+        /**
+         * How long to wait for a handshake, in milliseconds.
+         */
+        private final long timeout;
+
+        /**
+         * Ctor.
+         * @param back Original back
+         * @param msec How long to wait for a handshake, in milliseconds
+         */
+        Handshake(final Back back, final long msec) {
+            this.origin = back;
+            this.timeout = msec;
+        }
+
+        @Override
+        public void accept(final Socket socket) throws IOException {
+            if (this.shake(socket)) {
+                this.origin.accept(socket);
+            } else {
+                socket.close();
+            }
+        }
+
+        /**
+         * Make the handshake, if the connection is secure.
+         * @param socket The connection
+         * @return TRUE if it succeeded in time
+         * @throws IOException If fails to set the timeout
+         */
+        private boolean shake(final Socket socket) throws IOException {
+            boolean done = true;
+            if (socket instanceof SSLSocket) {
+                socket.setTcpNoDelay(true);
+                final int before = socket.getSoTimeout();
+                socket.setSoTimeout((int) this.timeout);
+                try {
+                    ((SSLSocket) socket).startHandshake();
+                    socket.setSoTimeout(before);
+                } catch (final IOException ex) {
+                    done = false;
+                }
+            }
+            return done;
+        }
+    }
 }
@@ -0,0 +1,326 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import org.takes.misc.Opt;
+
+/**
+ * Front listening to a Unix domain socket.
+ *
+ * <p>When the server works behind a proxy on the same machine, for
+ * example nginx or envoy, a Unix domain socket saves the overhead of
+ * TCP over loopback and doesn't use ephemeral ports:
+ *
+ * <pre> new FtUnix(
+ *   new BkParallel(new BkSafe(new BkBasic(take))),
+ *   Paths.get("/run/takes.sock")
+ * ).start(Exit.NEVER);</pre>
+ *
+ * <p>Connections have no IP addresses, so the back doesn't add
+ * {@code X-Takes-RemoteAddress} and the similar headers to requests;
+ * the proxy should tell the address of the client, for example in
+ * {@code X-Forwarded-For}.
+ *
+ * <p>Unix domain sockets need Java 16 or newer; they are found by
+ * reflection, so that the class may be compiled for older versions.
+ * A stale socket file left by an earlier server is removed before
+ * binding, and the file is removed when the front stops. If a server
+ * still accepts connections on the file, the front fails with
+ * {@link java.net.BindException} and leaves it alone.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode
+public final class FtUnix implements Front {
+
+    /**
+     * Back.
+     */
+    private final Back back;
+
+    /**
+     * Path of the socket.
+     */
+    private final Path path;
+
+    /**
+     * Graceful shutdown, if any.
+     */
+    private final Opt<Drain> drain;
+
+    /**
+     * Ctor.
+     * @param bck Back
+     * @param file Path of the socket
+     */
+    public FtUnix(final Back bck, final Path file) {
+        this(bck, file, new Opt.Empty<>());
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>The front stops when the exit is ready or when the drain
+     * begins, and then finishes the drain before it returns.
+     *
+     * @param bck Back
+     * @param file Path of the socket
+     * @param drn Graceful shutdown, shared with the back
+     */
+    public FtUnix(final Back bck, final Path file, final Drain drn) {
+        this(bck, file, new Opt.Single<>(drn));
+    }
+
+    /**
+     * Ctor.
+     * @param bck Back
+     * @param file Path of the socket
+     * @param drn Graceful shutdown, if any
+     */
+    private FtUnix(final Back bck, final Path file, final Opt<Drain> drn) {
+        this.back = bck;
+        this.path = file;
+        this.drain = drn;
+    }
+
+    @Override
+    public void start(final Exit exit) throws IOException {
+        FtUnix.clean(this.path);
+        try (ServerSocketChannel server = FtUnix.open();
+            Selector selector = Selector.open()) {
+            server.bind(FtUnix.address(this.path));
+            try {
+                server.configureBlocking(false);
+                server.register(selector, SelectionKey.OP_ACCEPT);
+                do {
+                    this.loop(server, selector);
+                } while (!exit.ready() && this.ready());
+            } finally {
+                Files.deleteIfExists(this.path);
+            }
+        } finally {
+            if (this.drain.has()) {
+                this.finish();
+            }
+        }
+    }
+
+    /**
+     * Are Unix domain sockets supported by this JVM?
+     * @return TRUE if they are
+     */
+    static boolean supported() {
+        boolean yes;
+        try {
+            Class.forName("java.net.UnixDomainSocketAddress");
+            yes = true;
+        } catch (final ClassNotFoundException ex) {
+            yes = false;
+        }
+        return yes;
+    }
+
+    /**
+     * Address of the socket.
+     * @param file Path of the socket
+     * @return Address
+     * @throws IOException If Unix domain sockets are not supported
+     */
+    static SocketAddress address(final Path file) throws IOException {
+        try {
+            return (SocketAddress) Class
+                .forName("java.net.UnixDomainSocketAddress")
+                .getMethod("of", Path.class)
+                .invoke(null, file);
+        } catch (final ReflectiveOperationException ex) {
+            throw FtUnix.unsupported(ex);
+        }
+    }
+
+    /**
+     * Connect to the socket, as a client.
+     * @param file Path of the socket
+     * @return Channel, in blocking mode
+     * @throws IOException If fails
+     */
+    static SocketChannel connect(final Path file) throws IOException {
+        final SocketChannel channel;
+        try {
+            channel = (SocketChannel) SocketChannel.class
+                .getMethod("open", ProtocolFamily.class)
+                .invoke(null, FtUnix.family());
+        } catch (final ReflectiveOperationException ex) {
+            throw FtUnix.unsupported(ex);
+        }
+        try {
+            channel.connect(FtUnix.address(file));
+        } catch (final IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        return channel;
+    }
+
+    /**
+     * Make a loop cycle.
+     * @param server Server channel
+     * @param selector Selector
+     * @throws IOException If fails
+     */
+    private void loop(final ServerSocketChannel server,
+        final Selector selector) throws IOException {
+        selector.select(TimeUnit.SECONDS.toMillis(1L));
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            this.accept(server);
+        }
+    }
+
+    /**
+     * Accept all pending connections.
+     * @param server Server channel
+     * @throws IOException If fails
+     */
+    private void accept(final ServerSocketChannel server) throws IOException {
+        while (true) {
+            final SocketChannel client = server.accept();
+            if (client == null) {
+                break;
+            }
+            client.configureBlocking(true);
+            final UnixSocket socket = new UnixSocket(client);
+            if (this.drain.has()) {
+                this.drain.get().accepted(socket);
+            }
+            this.back.accept(socket);
+        }
+    }
+
+    /**
+     * Is the drain, if any, still ready?
+     * @return TRUE if the front may accept more connections
+     */
+    private boolean ready() {
+        return !this.drain.has() || this.drain.get().ready();
+    }
+
+    /**
+     * Wait for the connections to close.
+     * @throws IOException If interrupted
+     */
+    private void finish() throws IOException {
+        try {
+            this.drain.get().finish();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Open a server channel for Unix domain sockets.
+     * @return Channel, not bound
+     * @throws IOException If fails
+     */
+    static ServerSocketChannel open() throws IOException {
+        try {
+            return (ServerSocketChannel) ServerSocketChannel.class
+                .getMethod("open", ProtocolFamily.class)
+                .invoke(null, FtUnix.family());
+        } catch (final ReflectiveOperationException ex) {
+            throw FtUnix.unsupported(ex);
+        }
+    }
+
+    /**
+     * The family of Unix domain sockets.
+     * @return Family
+     * @throws IOException If it's unknown
+     */
+    private static ProtocolFamily family() throws IOException {
+        try {
+            return StandardProtocolFamily.valueOf("UNIX");
+        } catch (final IllegalArgumentException ex) {
+            throw FtUnix.unsupported(ex);
+        }
+    }
+
+    /**
+     * Remove a stale socket file, but not a regular file or a directory,
+     * and not the socket of a server that is still running.
+     * @param file Path of the socket
+     * @throws IOException If fails or if the socket is in use
+     */
+    private static void clean(final Path file) throws IOException {
+        if (Files.exists(file, LinkOption.NOFOLLOW_LINKS)
+            && Files.readAttributes(
+                file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS
+            ).isOther()) {
+            boolean alive;
+            try (SocketChannel channel = FtUnix.connect(file)) {
+                alive = channel.isConnected();
+            } catch (final ConnectException ex) {
+                alive = false;
+            }
+            if (alive) {
+                throw new BindException(
+                    String.format("Address already in use: %s", file)
+                );
+            }
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * The exception about an old JVM.
+     * @param cause Cause
+     * @return Exception
+     */
+    private static IOException unsupported(final Exception cause) {
+        return new IOException(
+            "Unix domain sockets need Java 16 or newer", cause
+        );
+    }
+}
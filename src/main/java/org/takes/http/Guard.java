@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Expiry of a connection served by a thread, which can't touch the
+ * thread once it is done with the connection.
+ *
+ * <p>If the expiry interrupts the thread, the interrupt flag is cleared
+ * when the thread cancels the timeout, so that a pooled thread goes on
+ * with the next connection without it. The timeout must be cancelled
+ * by the thread serving the connection.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @since 2.0
+ */
+final class Guard implements Runnable {
+
+    /**
+     * What to do.
+     */
+    private final Expiry expiry;
+
+    /**
+     * Thread serving the connection.
+     */
+    private final Thread thread;
+
+    /**
+     * The connection.
+     */
+    private final Socket socket;
+
+    /**
+     * Is the connection served?
+     */
+    private boolean finished;
+
+    /**
+     * Did the expiry happen?
+     */
+    private boolean expired;
+
+    /**
+     * Ctor.
+     * @param exp What to do
+     * @param thr Thread serving the connection
+     * @param skt The connection
+     */
+    Guard(final Expiry exp, final Thread thr, final Socket skt) {
+        this.expiry = exp;
+        this.thread = thr;
+        this.socket = skt;
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (!this.finished) {
+                this.expired = true;
+                try {
+                    this.expiry.expire(this.thread, this.socket);
+                } catch (final IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedule it.
+     * @param wheel The wheel
+     * @param msec Timeout in milliseconds
+     * @return Timeout, which finishes the guard if it can't be cancelled
+     */
+    Wheel.Timeout schedule(final Wheel wheel, final long msec) {
+        final Wheel.Timeout timeout = wheel.schedule(msec, this);
+        return () -> {
+            final boolean cancelled = timeout.cancel();
+            if (!cancelled) {
+                this.finish();
+            }
+            return cancelled;
+        };
+    }
+
+    /**
+     * The connection is served, so that the thread may go on with
+     * something else, without the interrupt flag of this guard.
+     */
+    private void finish() {
+        synchronized (this) {
+            if (this.expired && !this.finished) {
+                Thread.interrupted();
+            }
+            this.finished = true;
+        }
+    }
+}
@@ -0,0 +1,1375 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.misc.Opt;
+import org.takes.rq.RequestOf;
+import org.takes.rq.RqIndexed;
+
+/**
+ * HTTP/2 connection, RFC 7540.
+ *
+ * <p>The thread that calls {@link #serve(Opt, byte[])} reads frames,
+ * every new stream goes to a pool of workers, where the take makes its
+ * response, which goes back in HEADERS and DATA frames as the windows
+ * of the stream and the connection allow. Frames are written under the
+ * lock of the output, so the HPACK encoder sees the blocks in the order
+ * the client does. Server push and priorities are not supported.
+ *
+ * <p>The class is mutable and thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle MagicNumber (1000 lines)
+ * @checkstyle ClassDataAbstractionCouplingCheck (1000 lines)
+ * @checkstyle ClassFanOutComplexityCheck (1000 lines)
+ */
+@SuppressWarnings(
+    {
+        "PMD.TooManyMethods",
+        "PMD.GodClass",
+        "PMD.CyclomaticComplexity",
+        "PMD.StdCyclomaticComplexity",
+        "PMD.ModifiedCyclomaticComplexity"
+    }
+)
+final class H2Connection {
+
+    /**
+     * Initial window of a stream and of the connection, both ways.
+     */
+    static final int WINDOW = 65_535;
+
+    /**
+     * Frame types.
+     */
+    private static final int DATA = 0;
+
+    /**
+     * HEADERS frame.
+     */
+    private static final int HEADERS = 1;
+
+    /**
+     * PRIORITY frame.
+     */
+    private static final int PRIORITY = 2;
+
+    /**
+     * RST_STREAM frame.
+     */
+    private static final int RST_STREAM = 3;
+
+    /**
+     * SETTINGS frame.
+     */
+    private static final int SETTINGS = 4;
+
+    /**
+     * PUSH_PROMISE frame.
+     */
+    private static final int PUSH_PROMISE = 5;
+
+    /**
+     * PING frame.
+     */
+    private static final int PING = 6;
+
+    /**
+     * GOAWAY frame.
+     */
+    private static final int GOAWAY = 7;
+
+    /**
+     * WINDOW_UPDATE frame.
+     */
+    private static final int WINDOW_UPDATE = 8;
+
+    /**
+     * CONTINUATION frame.
+     */
+    private static final int CONTINUATION = 9;
+
+    /**
+     * END_STREAM flag, also ACK of SETTINGS and PING.
+     */
+    private static final int END_STREAM = 0x1;
+
+    /**
+     * END_HEADERS flag.
+     */
+    private static final int END_HEADERS = 0x4;
+
+    /**
+     * PADDED flag.
+     */
+    private static final int PADDED = 0x8;
+
+    /**
+     * PRIORITY flag.
+     */
+    private static final int PRIORITIZED = 0x20;
+
+    /**
+     * NO_ERROR code.
+     */
+    private static final int NO_ERROR = 0;
+
+    /**
+     * PROTOCOL_ERROR code.
+     */
+    private static final int PROTOCOL_ERROR = 1;
+
+    /**
+     * INTERNAL_ERROR code.
+     */
+    private static final int INTERNAL_ERROR = 2;
+
+    /**
+     * FLOW_CONTROL_ERROR code.
+     */
+    private static final int FLOW_CONTROL_ERROR = 3;
+
+    /**
+     * STREAM_CLOSED code.
+     */
+    private static final int STREAM_CLOSED = 5;
+
+    /**
+     * FRAME_SIZE_ERROR code.
+     */
+    private static final int FRAME_SIZE_ERROR = 6;
+
+    /**
+     * REFUSED_STREAM code.
+     */
+    private static final int REFUSED_STREAM = 7;
+
+    /**
+     * COMPRESSION_ERROR code.
+     */
+    private static final int COMPRESSION_ERROR = 9;
+
+    /**
+     * The largest frame we accept, the default one.
+     */
+    private static final int FRAME = 16_384;
+
+    /**
+     * Size of HPACK tables, the default one.
+     */
+    private static final int TABLE = 4096;
+
+    /**
+     * The largest header list we accept.
+     */
+    private static final int LIST = 65_536;
+
+    /**
+     * The largest window.
+     */
+    private static final long MAX_WINDOW = 0x7FFFFFFFL;
+
+    /**
+     * The preface a client starts with.
+     */
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n"
+        .getBytes(StandardCharsets.ISO_8859_1);
+
+    /**
+     * Connection-specific headers, which HTTP/2 forbids.
+     */
+    private static final Collection<String> HOP = new HashSet<>(
+        Arrays.asList(
+            "connection", "keep-alive", "proxy-connection",
+            "transfer-encoding", "upgrade"
+        )
+    );
+
+    /**
+     * Take.
+     */
+    private final Take take;
+
+    /**
+     * Socket.
+     */
+    private final Socket socket;
+
+    /**
+     * Input of the socket.
+     */
+    private final DataInputStream input;
+
+    /**
+     * Output of the socket, also the lock of writing.
+     */
+    private final OutputStream output;
+
+    /**
+     * Max streams at a time.
+     */
+    private final int concurrent;
+
+    /**
+     * How long to wait for a frame while there are no streams, in msec.
+     */
+    private final int idle;
+
+    /**
+     * HPACK decoder, used only by the reading thread.
+     */
+    private final HpackDecoder decoder;
+
+    /**
+     * HPACK encoder, guarded by the output.
+     */
+    private final HpackEncoder encoder;
+
+    /**
+     * Open streams.
+     */
+    private final Map<Integer, H2Stream> streams;
+
+    /**
+     * Workers, which run the take.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * Lock of send windows.
+     */
+    private final Object windows;
+
+    /**
+     * How much more we may send in the connection.
+     */
+    private long window;
+
+    /**
+     * Initial send window of a stream, as the client set it.
+     */
+    private int initial;
+
+    /**
+     * The largest frame the client accepts.
+     */
+    private volatile int frame;
+
+    /**
+     * How much more the client may send in the connection.
+     */
+    private final AtomicLong receive;
+
+    /**
+     * Bytes read from streams and not returned to the client yet.
+     */
+    private final AtomicInteger credit;
+
+    /**
+     * The highest stream the client opened.
+     */
+    private int last;
+
+    /**
+     * Has either side sent GOAWAY?
+     */
+    private volatile boolean away;
+
+    /**
+     * Is the connection closed?
+     */
+    private volatile boolean closed;
+
+    /**
+     * Ctor.
+     * @param tks Take
+     * @param skt Socket
+     * @param ins Input of the socket, which may have more bytes buffered
+     * @param out Output of the socket
+     * @param max Max streams at a time
+     * @param timeout How long to keep an idle connection, in msec
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    H2Connection(final Take tks, final Socket skt, final InputStream ins,
+        final OutputStream out, final int max, final int timeout) {
+        this.take = tks;
+        this.socket = skt;
+        this.input = new DataInputStream(ins);
+        this.output = out;
+        this.concurrent = max;
+        this.idle = timeout;
+        this.decoder = new HpackDecoder(H2Connection.TABLE, H2Connection.LIST);
+        this.encoder = new HpackEncoder(H2Connection.TABLE);
+        this.streams = new ConcurrentHashMap<>(0);
+        this.workers = Executors.newCachedThreadPool();
+        this.windows = new Object();
+        this.window = (long) H2Connection.WINDOW;
+        this.initial = H2Connection.WINDOW;
+        this.frame = H2Connection.FRAME;
+        this.receive = new AtomicLong((long) H2Connection.WINDOW);
+        this.credit = new AtomicInteger();
+    }
+
+    /**
+     * Serve the connection until it is closed.
+     * @param upgraded The request that upgraded the connection to HTTP/2,
+     *  which becomes stream 1, if any
+     * @param settings Payload of SETTINGS the client sent in the upgrade
+     * @throws IOException If fails
+     */
+    void serve(final Opt<Request> upgraded, final byte[] settings)
+        throws IOException {
+        try {
+            if (this.idle > 0) {
+                this.socket.setSoTimeout(this.idle);
+            }
+            this.socket.setTcpNoDelay(true);
+            this.settings(settings);
+            this.write(H2Connection.SETTINGS, 0, 0, this.ours());
+            if (upgraded.has()) {
+                this.last = 1;
+                final H2Stream stream = new H2Stream(
+                    1, this, (long) this.initial, true
+                );
+                this.streams.put(1, stream);
+                this.dispatch(stream, upgraded.get());
+            }
+            this.preface();
+            for (Opt<H2Connection.Frame> next = this.next(); next.has();
+                next = this.next()) {
+                this.handle(next.get());
+            }
+        } catch (final H2Connection.Failure ex) {
+            this.goAway(ex.code());
+        } finally {
+            this.close();
+        }
+    }
+
+    /**
+     * The take read some bytes of a stream, return them to the client.
+     * @param stream Identifier of the stream
+     * @param announce How much to give back in the stream
+     * @param bytes How many bytes were read
+     * @throws IOException If fails
+     */
+    void consumed(final int stream, final int announce, final int bytes)
+        throws IOException {
+        if (announce > 0) {
+            this.update(stream, announce);
+        }
+        final int total = this.credit.addAndGet(bytes);
+        if (total >= H2Connection.WINDOW / 2
+            && this.credit.compareAndSet(total, 0)) {
+            this.receive.addAndGet((long) total);
+            this.update(0, total);
+        }
+    }
+
+    /**
+     * Our settings: max concurrent streams and max header list size.
+     * @return Payload of SETTINGS
+     */
+    private byte[] ours() {
+        final byte[] payload = new byte[12];
+        payload[1] = 3;
+        final byte[] streams = H2Connection.bytes(this.concurrent);
+        System.arraycopy(streams, 0, payload, 2, 4);
+        payload[7] = 6;
+        final byte[] list = H2Connection.bytes(H2Connection.LIST);
+        System.arraycopy(list, 0, payload, 8, 4);
+        return payload;
+    }
+
+    /**
+     * Read the preface of the client, with its SETTINGS.
+     * @throws IOException If fails
+     */
+    private void preface() throws IOException {
+        final byte[] preface = new byte[H2Connection.PREFACE.length];
+        this.input.readFully(preface);
+        if (!Arrays.equals(preface, H2Connection.PREFACE)) {
+            throw new H2Connection.Failure(
+                H2Connection.PROTOCOL_ERROR, "broken connection preface"
+            );
+        }
+        final Opt<H2Connection.Frame> first = this.next();
+        if (!first.has() || first.get().type != H2Connection.SETTINGS) {
+            throw new H2Connection.Failure(
+                H2Connection.PROTOCOL_ERROR, "SETTINGS expected first"
+            );
+        }
+        this.handle(first.get());
+    }
+
+    /**
+     * Read the next frame.
+     * @return The frame or nothing if the connection is over
+     * @throws IOException If fails
+     */
+    private Opt<H2Connection.Frame> next() throws IOException {
+        final int first = this.first();
+        final Opt<H2Connection.Frame> next;
+        if (first < 0) {
+            next = new Opt.Empty<>();
+        } else {
+            final byte[] head = new byte[9];
+            head[0] = (byte) first;
+            this.input.readFully(head, 1, head.length - 1);
+            final int length = (head[0] & 0xFF) << 16
+                | (head[1] & 0xFF) << 8 | head[2] & 0xFF;
+            if (length > H2Connection.FRAME) {
+                throw new H2Connection.Failure(
+                    H2Connection.FRAME_SIZE_ERROR,
+                    String.format("frame of %d bytes is too big", length)
+                );
+            }
+            final byte[] payload = new byte[length];
+            this.input.readFully(payload);
+            next = new Opt.Single<>(
+                new H2Connection.Frame(
+                    head[3] & 0xFF,
+                    head[4] & 0xFF,
+                    H2Connection.integer(head, 5) & Integer.MAX_VALUE,
+                    payload
+                )
+            );
+        }
+        return next;
+    }
+
+    /**
+     * Read the first byte of a frame, waiting while streams are open.
+     * @return The byte or -1 if the connection is over
+     * @throws IOException If fails
+     */
+    private int first() throws IOException {
+        int first;
+        while (true) {
+            try {
+                first = this.input.read();
+                break;
+            } catch (final SocketTimeoutException ex) {
+                if (this.streams.isEmpty()) {
+                    this.goAway(H2Connection.NO_ERROR);
+                    first = -1;
+                    break;
+                }
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Handle a frame.
+     * @param frm The frame
+     * @throws IOException If fails
+     */
+    @SuppressWarnings("PMD.SwitchDensity")
+    private void handle(final H2Connection.Frame frm) throws IOException {
+        switch (frm.type) {
+            case H2Connection.DATA:
+                this.data(frm);
+                break;
+            case H2Connection.HEADERS:
+                this.headers(frm);
+                break;
+            case H2Connection.PRIORITY:
+                H2Connection.expect(frm.stream != 0, "PRIORITY");
+                if (frm.payload.length != 5) {
+                    this.reset(frm.stream, H2Connection.FRAME_SIZE_ERROR);
+                }
+                break;
+            case H2Connection.RST_STREAM:
+                this.reset(frm);
+                break;
+            case H2Connection.SETTINGS:
+                H2Connection.expect(frm.stream == 0, "SETTINGS");
+                if ((frm.flags & H2Connection.END_STREAM) == 0) {
+                    this.settings(frm.payload);
+                    this.write(
+                        H2Connection.SETTINGS, H2Connection.END_STREAM,
+                        0, new byte[0]
+                    );
+                } else if (frm.payload.length > 0) {
+                    throw new H2Connection.Failure(
+                        H2Connection.FRAME_SIZE_ERROR, "SETTINGS ACK"
+                    );
+                }
+                break;
+            case H2Connection.PING:
+                H2Connection.expect(frm.stream == 0, "PING");
+                H2Connection.size(frm, 8);
+                if ((frm.flags & H2Connection.END_STREAM) == 0) {
+                    this.write(
+                        H2Connection.PING, H2Connection.END_STREAM,
+                        0, frm.payload
+                    );
+                }
+                break;
+            case H2Connection.GOAWAY:
+                H2Connection.expect(frm.stream == 0, "GOAWAY");
+                this.away = true;
+                break;
+            case H2Connection.WINDOW_UPDATE:
+                this.update(frm);
+                break;
+            case H2Connection.PUSH_PROMISE:
+            case H2Connection.CONTINUATION:
+                throw new H2Connection.Failure(
+                    H2Connection.PROTOCOL_ERROR,
+                    String.format("unexpected frame of type %d", frm.type)
+                );
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Handle DATA.
+     * @param frm The frame
+     * @throws IOException If fails
+     */
+    private void data(final H2Connection.Frame frm) throws IOException {
+        H2Connection.expect(frm.stream != 0, "DATA");
+        final byte[] data = H2Connection.unpadded(frm);
+        final int length = frm.payload.length;
+        if (this.receive.addAndGet((long) -length) < 0L) {
+            throw new H2Connection.Failure(
+                H2Connection.FLOW_CONTROL_ERROR, "connection window exceeded"
+            );
+        }
+        final H2Stream stream = this.streams.get(frm.stream);
+        if (stream == null || stream.closed()) {
+            H2Connection.expect(frm.stream <= this.last, "DATA");
+            this.consumed(0, 0, length);
+            if (stream != null) {
+                this.reset(frm.stream, H2Connection.STREAM_CLOSED);
+            }
+        } else {
+            if (!stream.data(
+                data, length, (frm.flags & H2Connection.END_STREAM) != 0
+            )) {
+                this.reset(frm.stream, H2Connection.FLOW_CONTROL_ERROR);
+                this.drop(stream);
+            }
+        }
+    }
+
+    /**
+     * Handle HEADERS, with CONTINUATION that follow it.
+     * @param frm The frame
+     * @throws IOException If fails
+     */
+    private void headers(final H2Connection.Frame frm) throws IOException {
+        H2Connection.expect(frm.stream % 2 == 1, "HEADERS");
+        final byte[] payload = H2Connection.unpadded(frm);
+        int start = 0;
+        if ((frm.flags & H2Connection.PRIORITIZED) != 0) {
+            start = 5;
+        }
+        H2Connection.expect(payload.length >= start, "HEADERS");
+        final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        block.write(payload, start, payload.length - start);
+        boolean done = (frm.flags & H2Connection.END_HEADERS) != 0;
+        while (!done) {
+            final Opt<H2Connection.Frame> next = this.next();
+            if (!next.has() || next.get().type != H2Connection.CONTINUATION
+                || next.get().stream != frm.stream
+                || block.size() > H2Connection.LIST) {
+                throw new H2Connection.Failure(
+                    H2Connection.PROTOCOL_ERROR, "broken header block"
+                );
+            }
+            block.write(next.get().payload, 0, next.get().payload.length);
+            done = (next.get().flags & H2Connection.END_HEADERS) != 0;
+        }
+        final List<Map.Entry<String, String>> headers;
+        try {
+            headers = this.decoder.decode(block.toByteArray());
+        } catch (final IOException ex) {
+            throw new H2Connection.Failure(
+                H2Connection.COMPRESSION_ERROR, ex.getMessage()
+            );
+        }
+        this.open(
+            frm.stream, headers, (frm.flags & H2Connection.END_STREAM) != 0
+        );
+    }
+
+    /**
+     * Open a stream or take trailers of an open one.
+     * @param num Identifier of the stream
+     * @param headers Headers
+     * @param end Is there no body?
+     * @throws IOException If fails
+     */
+    private void open(final int num,
+        final List<Map.Entry<String, String>> headers, final boolean end)
+        throws IOException {
+        final H2Stream existing = this.streams.get(num);
+        if (existing != null) {
+            if (!end) {
+                throw new H2Connection.Failure(
+                    H2Connection.PROTOCOL_ERROR, "trailers without END_STREAM"
+                );
+            }
+            existing.end();
+        } else if (num > this.last) {
+            this.last = num;
+            if (this.away) {
+                this.reset(num, H2Connection.REFUSED_STREAM);
+            } else if (this.streams.size() >= this.concurrent) {
+                this.reset(num, H2Connection.REFUSED_STREAM);
+            } else {
+                final long window;
+                synchronized (this.windows) {
+                    window = (long) this.initial;
+                }
+                final H2Stream stream = new H2Stream(num, this, window, end);
+                final List<String> head;
+                try {
+                    head = H2Connection.head(headers);
+                } catch (final H2Connection.Failure ex) {
+                    this.reset(num, ex.code());
+                    return;
+                }
+                this.streams.put(num, stream);
+                this.dispatch(
+                    stream,
+                    new RqIndexed(
+                        BkBasic.addSocketHeaders(
+                            new RequestOf(head, stream.body()), this.socket
+                        )
+                    )
+                );
+            }
+        }
+    }
+
+    /**
+     * Handle RST_STREAM.
+     * @param frm The frame
+     * @throws IOException If fails
+     */
+    private void reset(final H2Connection.Frame frm) throws IOException {
+        H2Connection.expect(frm.stream != 0, "RST_STREAM");
+        H2Connection.expect(frm.stream <= this.last, "RST_STREAM");
+        H2Connection.size(frm, 4);
+        final H2Stream stream = this.streams.remove(frm.stream);
+        if (stream != null) {
+            this.consumed(0, 0, stream.cancel());
+            synchronized (this.windows) {
+                this.windows.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Handle WINDOW_UPDATE.
+     * @param frm The frame
+     * @throws IOException If fails
+     */
+    private void update(final H2Connection.Frame frm) throws IOException {
+        H2Connection.size(frm, 4);
+        final long inc = (long) (H2Connection.integer(frm.payload, 0)
+            & Integer.MAX_VALUE);
+        if (frm.stream == 0) {
+            H2Connection.expect(inc > 0L, "WINDOW_UPDATE");
+            synchronized (this.windows) {
+                this.window += inc;
+                if (this.window > H2Connection.MAX_WINDOW) {
+                    throw new H2Connection.Failure(
+                        H2Connection.FLOW_CONTROL_ERROR, "window overflow"
+                    );
+                }
+                this.windows.notifyAll();
+            }
+        } else {
+            H2Connection.expect(frm.stream <= this.last, "WINDOW_UPDATE");
+            final H2Stream stream = this.streams.get(frm.stream);
+            if (inc == 0L) {
+                this.reset(frm.stream, H2Connection.PROTOCOL_ERROR);
+            } else if (stream != null) {
+                final boolean overflow;
+                synchronized (this.windows) {
+                    overflow = stream.window(inc) > H2Connection.MAX_WINDOW;
+                    this.windows.notifyAll();
+                }
+                if (overflow) {
+                    this.reset(frm.stream, H2Connection.FLOW_CONTROL_ERROR);
+                    this.drop(stream);
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the settings of the client.
+     * @param payload Payload of SETTINGS
+     * @throws IOException If fails
+     */
+    private void settings(final byte[] payload) throws IOException {
+        if (payload.length % 6 != 0) {
+            throw new H2Connection.Failure(
+                H2Connection.FRAME_SIZE_ERROR, "broken SETTINGS"
+            );
+        }
+        for (int pos = 0; pos < payload.length; pos += 6) {
+            final int key = (payload[pos] & 0xFF) << 8
+                | payload[pos + 1] & 0xFF;
+            final long value = (long) H2Connection.integer(payload, pos + 2)
+                & 0xFFFFFFFFL;
+            if (key == 1) {
+                synchronized (this.output) {
+                    this.encoder.resize(
+                        (int) Math.min(value, (long) Integer.MAX_VALUE)
+                    );
+                }
+            } else if (key == 2) {
+                H2Connection.expect(value <= 1L, "SETTINGS_ENABLE_PUSH");
+            } else if (key == 4) {
+                this.initial(value);
+            } else if (key == 5) {
+                H2Connection.expect(
+                    value >= (long) H2Connection.FRAME
+                        && value < 1L << 24,
+                    "SETTINGS_MAX_FRAME_SIZE"
+                );
+                this.frame = (int) value;
+            }
+        }
+    }
+
+    /**
+     * Change the initial window of streams.
+     * @param value New window
+     * @throws IOException If it is too big
+     */
+    private void initial(final long value) throws IOException {
+        if (value > H2Connection.MAX_WINDOW) {
+            throw new H2Connection.Failure(
+                H2Connection.FLOW_CONTROL_ERROR, "SETTINGS_INITIAL_WINDOW_SIZE"
+            );
+        }
+        synchronized (this.windows) {
+            final long delta = value - (long) this.initial;
+            this.initial = (int) value;
+            for (final H2Stream stream : this.streams.values()) {
+                stream.window(delta);
+            }
+            this.windows.notifyAll();
+        }
+    }
+
+    /**
+     * Make the response of a stream in a worker.
+     * @param stream The stream
+     * @param req Request
+     */
+    private void dispatch(final H2Stream stream, final Request req) {
+        this.workers.execute(
+            () -> {
+                try {
+                    this.respond(stream, req);
+                } catch (final IOException ex) {
+                    this.resetQuietly(stream);
+                } finally {
+                    this.dropQuietly(stream);
+                }
+            }
+        );
+    }
+
+    /**
+     * Make the response and send it.
+     * @param stream The stream
+     * @param req Request
+     * @throws IOException If fails
+     */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private void respond(final H2Stream stream, final Request req)
+        throws IOException {
+        Response rsp;
+        List<Map.Entry<String, String>> headers;
+        try {
+            rsp = this.take.act(req);
+            headers = H2Connection.headers(rsp.head());
+        } catch (final HttpException ex) {
+            rsp = BkBasic.failure(ex, ex.code());
+            headers = H2Connection.headers(rsp.head());
+            // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Throwable ex) {
+            rsp = BkBasic.failure(ex, HttpURLConnection.HTTP_INTERNAL_ERROR);
+            headers = H2Connection.headers(rsp.head());
+        }
+        final boolean head = req.head().iterator().next().startsWith("HEAD ");
+        try (InputStream body = rsp.body()) {
+            final byte[] buf = new byte[H2Connection.FRAME];
+            int count = -1;
+            if (!head) {
+                count = body.read(buf);
+            }
+            this.headers(stream, headers, count < 0);
+            if (count >= 0) {
+                while (count >= 0) {
+                    this.data(stream, buf, count, false);
+                    count = body.read(buf);
+                }
+                this.data(stream, buf, 0, true);
+            }
+        }
+    }
+
+    /**
+     * Send HEADERS, with CONTINUATION if they don't fit into one frame.
+     *
+     * <p>They are flushed only at the end of the stream, otherwise DATA
+     * follows them at once.
+     * @param stream The stream
+     * @param headers Headers
+     * @param end Is it the end of the stream?
+     * @throws IOException If fails
+     */
+    private void headers(final H2Stream stream,
+        final List<Map.Entry<String, String>> headers, final boolean end)
+        throws IOException {
+        synchronized (this.output) {
+            final byte[] block = this.encoder.encode(headers);
+            int pos = 0;
+            int type = H2Connection.HEADERS;
+            int flags = 0;
+            if (end) {
+                flags = H2Connection.END_STREAM;
+            }
+            do {
+                final int len = Math.min(this.frame, block.length - pos);
+                if (pos + len == block.length) {
+                    flags |= H2Connection.END_HEADERS;
+                }
+                this.frame(type, flags, stream.id(), block, pos, len);
+                pos += len;
+                type = H2Connection.CONTINUATION;
+                flags = 0;
+            } while (pos < block.length);
+            if (end) {
+                this.output.flush();
+            }
+        }
+    }
+
+    /**
+     * Send DATA, as the windows allow.
+     * @param stream The stream
+     * @param buf Data
+     * @param len How many bytes of it to send
+     * @param end Is it the end of the stream?
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private void data(final H2Stream stream, final byte[] buf, final int len,
+        final boolean end) throws IOException {
+        int pos = 0;
+        do {
+            final int chunk = this.reserve(stream, len - pos);
+            int flags = 0;
+            if (end && pos + chunk == len) {
+                flags = H2Connection.END_STREAM;
+            }
+            synchronized (this.output) {
+                this.frame(
+                    H2Connection.DATA, flags, stream.id(), buf, pos, chunk
+                );
+                this.output.flush();
+            }
+            pos += chunk;
+        } while (pos < len);
+    }
+
+    /**
+     * Take space in the windows of the connection and the stream, waiting
+     * until there is some.
+     * @param stream The stream
+     * @param wanted How many bytes are to be sent
+     * @return How many of them may be sent now
+     * @throws IOException If the stream was reset meanwhile
+     */
+    private int reserve(final H2Stream stream, final int wanted)
+        throws IOException {
+        int size = 0;
+        if (wanted > 0) {
+            synchronized (this.windows) {
+                while (this.window <= 0L || stream.window() <= 0L) {
+                    if (stream.cancelled() || this.closed) {
+                        throw new IOException(
+                            String.format("stream %d was reset", stream.id())
+                        );
+                    }
+                    try {
+                        this.windows.wait();
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(ex);
+                    }
+                }
+                size = (int) Math.min(
+                    (long) Math.min(wanted, this.frame),
+                    Math.min(this.window, stream.window())
+                );
+                this.window -= (long) size;
+                stream.window((long) -size);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Forget the stream after its response, returning what the take didn't
+     * read to the client.
+     * @param stream The stream
+     * @throws IOException If fails
+     */
+    private void drop(final H2Stream stream) throws IOException {
+        if (this.streams.remove(stream.id(), stream)) {
+            final boolean open = !stream.closed();
+            this.consumed(0, 0, stream.cancel());
+            if (open && !this.closed) {
+                this.reset(stream.id(), H2Connection.NO_ERROR);
+            }
+        }
+    }
+
+    /**
+     * Forget the stream, ignoring failures of the connection.
+     * @param stream The stream
+     */
+    private void dropQuietly(final H2Stream stream) {
+        try {
+            this.drop(stream);
+        } catch (final IOException ex) {
+            this.closed = true;
+        }
+    }
+
+    /**
+     * Reset the stream after a failure of its response.
+     * @param stream The stream
+     */
+    private void resetQuietly(final H2Stream stream) {
+        if (!this.closed && this.streams.containsKey(stream.id())) {
+            try {
+                this.reset(stream.id(), H2Connection.INTERNAL_ERROR);
+            } catch (final IOException ex) {
+                this.closed = true;
+            }
+        }
+    }
+
+    /**
+     * Send RST_STREAM.
+     * @param stream Identifier of the stream
+     * @param code Error code
+     * @throws IOException If fails
+     */
+    private void reset(final int stream, final int code) throws IOException {
+        this.write(
+            H2Connection.RST_STREAM, 0, stream, H2Connection.bytes(code)
+        );
+    }
+
+    /**
+     * Send WINDOW_UPDATE.
+     * @param stream Identifier of the stream, zero for the connection
+     * @param inc How much to add
+     * @throws IOException If fails
+     */
+    private void update(final int stream, final int inc) throws IOException {
+        this.write(
+            H2Connection.WINDOW_UPDATE, 0, stream, H2Connection.bytes(inc)
+        );
+    }
+
+    /**
+     * Send GOAWAY, quietly.
+     * @param code Error code
+     */
+    private void goAway(final int code) {
+        this.away = true;
+        final byte[] payload = new byte[8];
+        System.arraycopy(H2Connection.bytes(this.last), 0, payload, 0, 4);
+        System.arraycopy(H2Connection.bytes(code), 0, payload, 4, 4);
+        try {
+            this.write(H2Connection.GOAWAY, 0, 0, payload);
+        } catch (final IOException ex) {
+            this.closed = true;
+        }
+    }
+
+    /**
+     * Stop all streams.
+     */
+    private void close() {
+        this.closed = true;
+        for (final H2Stream stream : this.streams.values()) {
+            stream.cancel();
+        }
+        synchronized (this.windows) {
+            this.windows.notifyAll();
+        }
+        this.workers.shutdown();
+    }
+
+    /**
+     * Write a frame and flush it.
+     * @param type Type
+     * @param flags Flags
+     * @param stream Identifier of the stream
+     * @param payload Payload
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private void write(final int type, final int flags, final int stream,
+        final byte[] payload) throws IOException {
+        synchronized (this.output) {
+            this.frame(type, flags, stream, payload, 0, payload.length);
+            this.output.flush();
+        }
+    }
+
+    /**
+     * Write a frame, to use only with the lock of the output.
+     * @param type Type
+     * @param flags Flags
+     * @param stream Identifier of the stream
+     * @param payload Payload
+     * @param off Where the payload starts
+     * @param len Length of the payload
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private void frame(final int type, final int flags, final int stream,
+        final byte[] payload, final int off, final int len)
+        throws IOException {
+        final byte[] head = {
+            (byte) (len >>> 16),
+            (byte) (len >>> 8),
+            (byte) len,
+            (byte) type,
+            (byte) flags,
+            (byte) (stream >>> 24),
+            (byte) (stream >>> 16),
+            (byte) (stream >>> 8),
+            (byte) stream,
+        };
+        this.output.write(head);
+        this.output.write(payload, off, len);
+    }
+
+    /**
+     * Make the head of a request from the headers of a stream.
+     * @param headers Headers
+     * @return Lines of the head
+     * @throws H2Connection.Failure If the headers are malformed
+     */
+    private static List<String> head(
+        final List<Map.Entry<String, String>> headers)
+        throws H2Connection.Failure {
+        final Map<String, String> pseudo = new HashMap<>(0);
+        final List<String> lines = new ArrayList<>(headers.size() + 1);
+        final List<String> cookies = new ArrayList<>(0);
+        boolean host = false;
+        for (final Map.Entry<String, String> header : headers) {
+            final String name = header.getKey();
+            final String value = header.getValue();
+            H2Connection.malformed(
+                !name.equals(name.toLowerCase(Locale.ENGLISH))
+            );
+            if (name.startsWith(":")) {
+                H2Connection.malformed(
+                    !lines.isEmpty() || !cookies.isEmpty()
+                        || pseudo.put(name, value) != null
+                );
+            } else {
+                H2Connection.malformed(
+                    H2Connection.HOP.contains(name)
+                        || "te".equals(name) && !"trailers".equals(value)
+                );
+                if ("cookie".equals(name)) {
+                    cookies.add(value);
+                } else {
+                    host = host || "host".equals(name);
+                    lines.add(String.join(": ", name, value));
+                }
+            }
+        }
+        final String method = pseudo.remove(":method");
+        final String path = pseudo.remove(":path");
+        final String authority = pseudo.remove(":authority");
+        H2Connection.malformed(
+            method == null || path == null || path.isEmpty()
+                || pseudo.remove(":scheme") == null || !pseudo.isEmpty()
+        );
+        lines.add(0, String.format("%s %s HTTP/2", method, path));
+        if (!host && authority != null) {
+            lines.add(1, String.join(": ", "host", authority));
+        }
+        if (!cookies.isEmpty()) {
+            lines.add(String.join(": ", "cookie", String.join("; ", cookies)));
+        }
+        return lines;
+    }
+
+    /**
+     * Make headers of HTTP/2 from the head of a response.
+     * @param head Head of the response
+     * @return Headers, with status first
+     * @throws IOException If the head is broken
+     */
+    private static List<Map.Entry<String, String>> headers(
+        final Iterable<String> head) throws IOException {
+        final Iterator<String> lines = head.iterator();
+        if (!lines.hasNext()) {
+            throw new IOException("empty head of response");
+        }
+        final String[] status = lines.next().split(" ", 3);
+        if (status.length < 2) {
+            throw new IOException("broken status line of response");
+        }
+        final List<Map.Entry<String, String>> headers = new ArrayList<>(0);
+        headers.add(
+            new AbstractMap.SimpleImmutableEntry<>(":status", status[1])
+        );
+        while (lines.hasNext()) {
+            final String line = lines.next();
+            final int colon = line.indexOf(':');
+            if (colon > 0) {
+                final String name = line.substring(0, colon).trim()
+                    .toLowerCase(Locale.ENGLISH);
+                if (!H2Connection.HOP.contains(name)) {
+                    headers.add(
+                        new AbstractMap.SimpleImmutableEntry<>(
+                            name, line.substring(colon + 1).trim()
+                        )
+                    );
+                }
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Payload of a frame without padding.
+     * @param frm The frame
+     * @return Payload
+     * @throws IOException If the padding is broken
+     */
+    private static byte[] unpadded(final H2Connection.Frame frm)
+        throws IOException {
+        byte[] payload = frm.payload;
+        if ((frm.flags & H2Connection.PADDED) != 0) {
+            H2Connection.expect(payload.length > 0, "padding");
+            final int pad = payload[0] & 0xFF;
+            H2Connection.expect(pad < payload.length, "padding");
+            payload = Arrays.copyOfRange(payload, 1, payload.length - pad);
+        }
+        return payload;
+    }
+
+    /**
+     * Fail the stream if its headers are malformed.
+     * @param broken Are they?
+     * @throws H2Connection.Failure If so
+     */
+    private static void malformed(final boolean broken)
+        throws H2Connection.Failure {
+        if (broken) {
+            throw new H2Connection.Failure(
+                H2Connection.PROTOCOL_ERROR, "malformed headers"
+            );
+        }
+    }
+
+    /**
+     * Fail the connection unless the condition holds.
+     * @param condition The condition
+     * @param frame What is checked
+     * @throws H2Connection.Failure If it doesn't
+     */
+    private static void expect(final boolean condition, final String frame)
+        throws H2Connection.Failure {
+        if (!condition) {
+            throw new H2Connection.Failure(
+                H2Connection.PROTOCOL_ERROR,
+                String.format("broken %s", frame)
+            );
+        }
+    }
+
+    /**
+     * Fail the connection unless the payload has this size.
+     * @param frm The frame
+     * @param size Expected size
+     * @throws H2Connection.Failure If it doesn't
+     */
+    private static void size(final H2Connection.Frame frm, final int size)
+        throws H2Connection.Failure {
+        if (frm.payload.length != size) {
+            throw new H2Connection.Failure(
+                H2Connection.FRAME_SIZE_ERROR,
+                String.format(
+                    "frame of type %d is not %d bytes", frm.type, size
+                )
+            );
+        }
+    }
+
+    /**
+     * Read a 32-bit integer.
+     * @param src Bytes
+     * @param pos Where it starts
+     * @return The integer
+     */
+    private static int integer(final byte[] src, final int pos) {
+        return (src[pos] & 0xFF) << 24 | (src[pos + 1] & 0xFF) << 16
+            | (src[pos + 2] & 0xFF) << 8 | src[pos + 3] & 0xFF;
+    }
+
+    /**
+     * Write a 32-bit integer.
+     * @param value The integer
+     * @return Bytes
+     */
+    private static byte[] bytes(final int value) {
+        return new byte[] {
+            (byte) (value >>> 24),
+            (byte) (value >>> 16),
+            (byte) (value >>> 8),
+            (byte) value,
+        };
+    }
+
+    /**
+     * A frame.
+     * @since 2.0
+     */
+    private static final class Frame {
+        /**
+         * Type.
+         */
+        private final int type;
+
+        /**
+         * Flags.
+         */
+        private final int flags;
+
+        /**
+         * Identifier of the stream.
+         */
+        private final int stream;
+
+        /**
+         * Payload.
+         */
+        private final byte[] payload;
+
+        /**
+         * Ctor.
+         * @param tpe Type
+         * @param flgs Flags
+         * @param num Identifier of the stream
+         * @param data Payload
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        Frame(final int tpe, final int flgs, final int num,
+            final byte[] data) {
+            this.type = tpe;
+            this.flags = flgs;
+            this.stream = num;
+            this.payload = data;
+        }
+    }
+
+    /**
+     * Error of the connection or of a stream.
+     * @since 2.0
+     */
+    private static final class Failure extends IOException {
+        /**
+         * Serialization marker.
+         */
+        private static final long serialVersionUID = 0x7A4B3C2D1E0F9081L;
+
+        /**
+         * Error code.
+         */
+        private final int error;
+
+        /**
+         * Ctor.
+         * @param code Error code
+         * @param msg Message
+         */
+        Failure(final int code, final String msg) {
+            super(msg);
+            this.error = code;
+        }
+
+        /**
+         * Error code.
+         * @return Code
+         */
+        int code() {
+            return this.error;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * One stream of an HTTP/2 connection.
+ *
+ * <p>It keeps the DATA the client sent until the take reads it from
+ * {@link #body()}, and returns the space to the client as it does.
+ * The send window is guarded by the connection, see
+ * {@link H2Connection}.
+ *
+ * <p>The class is mutable and thread-safe.
+ *
+ * @since 2.0
+ */
+final class H2Stream {
+
+    /**
+     * Identifier of the stream.
+     */
+    private final int number;
+
+    /**
+     * The connection.
+     */
+    private final H2Connection connection;
+
+    /**
+     * Received chunks of the body, not read yet.
+     */
+    private final Deque<byte[]> chunks;
+
+    /**
+     * Bytes read from the first chunk.
+     */
+    private int offset;
+
+    /**
+     * Has the client ended the stream?
+     */
+    private boolean ended;
+
+    /**
+     * Has the stream been reset?
+     */
+    private boolean reset;
+
+    /**
+     * How much more the client may send.
+     */
+    private int receive;
+
+    /**
+     * Bytes read and not returned to the client yet.
+     */
+    private int pending;
+
+    /**
+     * How much more we may send, guarded by the connection.
+     */
+    private long send;
+
+    /**
+     * Ctor.
+     * @param num Identifier of the stream
+     * @param conn The connection
+     * @param window Initial send window
+     * @param end Has the client ended the stream already?
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    H2Stream(final int num, final H2Connection conn, final long window,
+        final boolean end) {
+        this.number = num;
+        this.connection = conn;
+        this.chunks = new ArrayDeque<>(0);
+        this.ended = end;
+        this.receive = H2Connection.WINDOW;
+        this.send = window;
+    }
+
+    /**
+     * Identifier of the stream.
+     * @return Identifier
+     */
+    int id() {
+        return this.number;
+    }
+
+    /**
+     * Take DATA from the client.
+     * @param data Payload without padding
+     * @param length Length of the frame, as flow control counts it
+     * @param end Is it the end of the stream?
+     * @return FALSE if the client sent more than the window allowed
+     */
+    synchronized boolean data(final byte[] data, final int length,
+        final boolean end) {
+        this.receive -= length;
+        if (data.length > 0) {
+            this.chunks.addLast(data);
+        }
+        this.ended = this.ended || end;
+        this.notifyAll();
+        return this.receive >= 0;
+    }
+
+    /**
+     * The client ended the stream, with trailers.
+     */
+    synchronized void end() {
+        this.ended = true;
+        this.notifyAll();
+    }
+
+    /**
+     * Has the client ended the stream?
+     * @return TRUE if it has
+     */
+    synchronized boolean closed() {
+        return this.ended;
+    }
+
+    /**
+     * Reset the stream.
+     * @return Bytes received and not read, to return to the connection
+     */
+    synchronized int cancel() {
+        this.reset = true;
+        int unread = -this.offset;
+        for (final byte[] chunk : this.chunks) {
+            unread += chunk.length;
+        }
+        this.chunks.clear();
+        this.offset = 0;
+        this.notifyAll();
+        return Math.max(unread, 0);
+    }
+
+    /**
+     * Has the stream been reset?
+     * @return TRUE if it has
+     */
+    synchronized boolean cancelled() {
+        return this.reset;
+    }
+
+    /**
+     * Send window, to use only with the lock of the connection.
+     * @return How much more we may send
+     */
+    long window() {
+        return this.send;
+    }
+
+    /**
+     * Change the send window, to use only with the lock of the connection.
+     * @param delta How much to add
+     * @return New window
+     */
+    long window(final long delta) {
+        this.send += delta;
+        return this.send;
+    }
+
+    /**
+     * Body of the request.
+     * @return Stream of DATA
+     */
+    InputStream body() {
+        return new H2Stream.Body();
+    }
+
+    /**
+     * Read the body.
+     * @param buf Where to read
+     * @param off Offset in the buffer
+     * @param len Max bytes to read
+     * @return Bytes read or -1 at the end
+     * @throws IOException If the stream was reset
+     */
+    private int read(final byte[] buf, final int off, final int len)
+        throws IOException {
+        final int count;
+        int announce = 0;
+        synchronized (this) {
+            while (this.chunks.isEmpty() && !this.ended && !this.reset) {
+                try {
+                    this.wait();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(ex);
+                }
+            }
+            if (this.reset) {
+                throw new IOException(
+                    String.format("stream %d was reset", this.number)
+                );
+            }
+            if (this.chunks.isEmpty()) {
+                count = -1;
+            } else {
+                final byte[] first = this.chunks.peekFirst();
+                count = Math.min(len, first.length - this.offset);
+                System.arraycopy(first, this.offset, buf, off, count);
+                this.offset += count;
+                if (this.offset == first.length) {
+                    this.chunks.removeFirst();
+                    this.offset = 0;
+                }
+                this.pending += count;
+                if (!this.ended && this.pending >= H2Connection.WINDOW / 2) {
+                    announce = this.pending;
+                    this.receive += announce;
+                    this.pending = 0;
+                }
+            }
+        }
+        if (count > 0) {
+            this.connection.consumed(this.number, announce, count);
+        }
+        return count;
+    }
+
+    /**
+     * How many bytes may be read.
+     *
+     * <p>Until the client ends the stream, the length of the body is
+     * unknown, as with a chunked body of HTTP/1.1, so it says there are
+     * as many as may be; otherwise {@link org.takes.rq.RqLengthAware}
+     * would cut the body to the bytes which happened to arrive before.
+     * @return Bytes
+     */
+    private synchronized int ready() {
+        int ready = -this.offset;
+        for (final byte[] chunk : this.chunks) {
+            ready += chunk.length;
+        }
+        if (!this.ended && !this.reset) {
+            ready = Integer.MAX_VALUE;
+        }
+        return Math.max(ready, 0);
+    }
+
+    /**
+     * Body of the request.
+     * @since 2.0
+     */
+    private final class Body extends InputStream {
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            final int data;
+            if (this.read(one, 0, 1) < 0) {
+                data = -1;
+            } else {
+                data = one[0] & 0xFF;
+            }
+            return data;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len)
+            throws IOException {
+            final int count;
+            if (len == 0) {
+                count = 0;
+            } else {
+                count = H2Stream.this.read(buf, off, len);
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return H2Stream.this.ready();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decoder of HPACK header blocks, RFC 7541.
+ *
+ * <p>It keeps the dynamic table of one direction of a connection, so
+ * all blocks of the connection must go through it, in order.
+ *
+ * <p>The class is mutable and NOT thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class HpackDecoder {
+
+    /**
+     * Table of headers.
+     */
+    private final HpackTable table;
+
+    /**
+     * Huffman code.
+     */
+    private final Huffman huffman;
+
+    /**
+     * The largest table the peer may ask for.
+     */
+    private final int limit;
+
+    /**
+     * The largest header list to accept, in octets.
+     */
+    private final int most;
+
+    /**
+     * Position in the block being decoded.
+     */
+    private int pos;
+
+    /**
+     * Ctor.
+     * @param size Max size of the dynamic table, as in our settings
+     * @param list Max size of a header list
+     */
+    HpackDecoder(final int size, final int list) {
+        this.table = new HpackTable(size);
+        this.huffman = new Huffman();
+        this.limit = size;
+        this.most = list;
+    }
+
+    /**
+     * Decode a header block.
+     * @param block The block
+     * @return Names and values of headers, in order
+     * @throws IOException If the block is broken
+     */
+    List<Map.Entry<String, String>> decode(final byte[] block)
+        throws IOException {
+        final List<Map.Entry<String, String>> headers = new ArrayList<>(0);
+        this.pos = 0;
+        int total = 0;
+        while (this.pos < block.length) {
+            final int first = block[this.pos] & 0xFF;
+            if ((first & 0xE0) == 0x20) {
+                if (!headers.isEmpty()) {
+                    throw new IOException("table size update after header");
+                }
+                final int size = this.integer(block, 5);
+                if (size > this.limit) {
+                    throw new IOException(
+                        String.format("HPACK table size %d is too big", size)
+                    );
+                }
+                this.table.resize(size);
+                continue;
+            }
+            final Map.Entry<String, String> header;
+            if ((first & 0x80) != 0) {
+                final int index = this.integer(block, 7);
+                header = new AbstractMap.SimpleImmutableEntry<>(
+                    this.table.name(index), this.table.value(index)
+                );
+            } else if ((first & 0xC0) == 0x40) {
+                header = this.literal(block, 6);
+                this.table.add(header.getKey(), header.getValue());
+            } else {
+                header = this.literal(block, 4);
+            }
+            total += HpackTable.size(header.getKey(), header.getValue());
+            if (total > this.most) {
+                throw new IOException("header list is too long");
+            }
+            headers.add(header);
+        }
+        return headers;
+    }
+
+    /**
+     * Decode a literal header.
+     * @param block The block
+     * @param prefix Bits in the prefix of the name index
+     * @return Name and value
+     * @throws IOException If the block is broken
+     */
+    private Map.Entry<String, String> literal(final byte[] block,
+        final int prefix) throws IOException {
+        final int index = this.integer(block, prefix);
+        final String name;
+        if (index == 0) {
+            name = this.string(block);
+        } else {
+            name = this.table.name(index);
+        }
+        return new AbstractMap.SimpleImmutableEntry<>(
+            name, this.string(block)
+        );
+    }
+
+    /**
+     * Decode a string literal.
+     * @param block The block
+     * @return The string
+     * @throws IOException If the block is broken
+     */
+    private String string(final byte[] block) throws IOException {
+        if (this.pos >= block.length) {
+            throw new IOException("HPACK string is missing");
+        }
+        final boolean coded = (block[this.pos] & 0x80) != 0;
+        final int len = this.integer(block, 7);
+        if (len > block.length - this.pos) {
+            throw new IOException("HPACK string is longer than the block");
+        }
+        final String text;
+        if (coded) {
+            text = this.huffman.decode(block, this.pos, len);
+        } else {
+            text = new String(
+                block, this.pos, len, StandardCharsets.ISO_8859_1
+            );
+        }
+        this.pos += len;
+        return text;
+    }
+
+    /**
+     * Decode an integer with a prefix.
+     * @param block The block
+     * @param prefix Bits of the prefix in the first byte
+     * @return The integer
+     * @throws IOException If the block is broken
+     */
+    private int integer(final byte[] block, final int prefix)
+        throws IOException {
+        final int mask = (1 << prefix) - 1;
+        long value = (long) (block[this.pos] & mask);
+        ++this.pos;
+        if (value == (long) mask) {
+            int shift = 0;
+            int next;
+            do {
+                if (this.pos >= block.length || shift > 28) {
+                    throw new IOException("broken HPACK integer");
+                }
+                next = block[this.pos] & 0xFF;
+                ++this.pos;
+                value += (long) (next & 0x7F) << shift;
+                shift += 7;
+            } while ((next & 0x80) != 0);
+            if (value > (long) Integer.MAX_VALUE) {
+                throw new IOException("HPACK integer is too big");
+            }
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encoder of HPACK header blocks, RFC 7541.
+ *
+ * <p>Headers found in the table are sent as indices. Others are added
+ * to the dynamic table, except those that change from response to
+ * response or must not be kept, which are sent as literals. Strings go
+ * in the Huffman code when it is shorter.
+ *
+ * <p>The class is mutable and NOT thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class HpackEncoder {
+
+    /**
+     * Headers not to add to the dynamic table.
+     */
+    private static final Collection<String> VOLATILE = new HashSet<>(
+        Arrays.asList(
+            "age", "authorization", "content-length", "content-range",
+            "date", "etag", "expires", "last-modified", "location",
+            "proxy-authorization", "set-cookie"
+        )
+    );
+
+    /**
+     * Values longer than this are not added to the dynamic table.
+     */
+    private static final int LONG = 256;
+
+    /**
+     * The largest table we keep, whatever the peer allows.
+     */
+    private final int cap;
+
+    /**
+     * Table of headers.
+     */
+    private final HpackTable table;
+
+    /**
+     * Huffman code.
+     */
+    private final Huffman huffman;
+
+    /**
+     * Max size of the dynamic table.
+     */
+    private int max;
+
+    /**
+     * The smallest max size since the last block, or -1 if not changed.
+     */
+    private int smallest;
+
+    /**
+     * Ctor.
+     * @param size Max size of the dynamic table to keep
+     */
+    HpackEncoder(final int size) {
+        this.cap = size;
+        this.table = new HpackTable(size);
+        this.huffman = new Huffman();
+        this.max = size;
+        this.smallest = -1;
+    }
+
+    /**
+     * Take the max size of the table the peer allows.
+     * @param size The size from its settings
+     */
+    void resize(final int size) {
+        final int fit = Math.min(size, this.cap);
+        if (fit != this.max) {
+            this.max = fit;
+            if (this.smallest < 0 || fit < this.smallest) {
+                this.smallest = fit;
+            }
+            this.table.resize(fit);
+        }
+    }
+
+    /**
+     * Encode a header block.
+     * @param headers Names, in lower case, and values of headers
+     * @return The block
+     */
+    byte[] encode(final List<Map.Entry<String, String>> headers) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (this.smallest >= 0) {
+            if (this.smallest < this.max) {
+                HpackEncoder.integer(out, 0x20, 5, this.smallest);
+            }
+            HpackEncoder.integer(out, 0x20, 5, this.max);
+            this.smallest = -1;
+        }
+        for (final Map.Entry<String, String> header : headers) {
+            final String name = HpackEncoder.octets(header.getKey());
+            final String value = HpackEncoder.octets(header.getValue());
+            final int found = this.table.find(name, value);
+            if (found > 0) {
+                HpackEncoder.integer(out, 0x80, 7, found);
+            } else {
+                final int index = this.table.named(name);
+                if (HpackEncoder.VOLATILE.contains(name)
+                    || value.length() > HpackEncoder.LONG) {
+                    HpackEncoder.integer(out, 0x00, 4, index);
+                } else {
+                    HpackEncoder.integer(out, 0x40, 6, index);
+                    this.table.add(name, value);
+                }
+                if (index == 0) {
+                    this.string(out, name);
+                }
+                this.string(out, value);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode a string literal.
+     * @param out Where to write
+     * @param text The string, one char per octet
+     */
+    private void string(final ByteArrayOutputStream out, final String text) {
+        final byte[] raw = text.getBytes(StandardCharsets.ISO_8859_1);
+        if (this.huffman.length(raw) < raw.length) {
+            final byte[] coded = this.huffman.encode(raw);
+            HpackEncoder.integer(out, 0x80, 7, coded.length);
+            out.write(coded, 0, coded.length);
+        } else {
+            HpackEncoder.integer(out, 0x00, 7, raw.length);
+            out.write(raw, 0, raw.length);
+        }
+    }
+
+    /**
+     * Encode an integer with a prefix.
+     * @param out Where to write
+     * @param flags Bits of the first byte above the prefix
+     * @param prefix Bits of the prefix
+     * @param value The integer
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private static void integer(final ByteArrayOutputStream out,
+        final int flags, final int prefix, final int value) {
+        final int mask = (1 << prefix) - 1;
+        if (value < mask) {
+            out.write(flags | value);
+        } else {
+            out.write(flags | mask);
+            int rest = value - mask;
+            while (rest >= 0x80) {
+                out.write(rest & 0x7F | 0x80);
+                rest >>>= 7;
+            }
+            out.write(rest);
+        }
+    }
+
+    /**
+     * Make sure the string has one char per octet, as the peer sees it.
+     * @param text The string
+     * @return The same or a string with unmappable chars replaced
+     */
+    private static String octets(final String text) {
+        return new String(
+            text.getBytes(StandardCharsets.ISO_8859_1),
+            StandardCharsets.ISO_8859_1
+        );
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Table of headers, shared by the two ends of an HPACK context.
+ *
+ * <p>Indices from 1 to 61 point to the static table of RFC 7541,
+ * appendix A, the next ones to the dynamic table, newest first.
+ * The size of an entry is the length of its name and value plus 32.
+ *
+ * <p>The class is mutable and NOT thread-safe.
+ *
+ * @since 2.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+final class HpackTable {
+
+    /**
+     * Names and values of the static table, from index 1.
+     */
+    private static final String[] STATIC = {
+        ":authority", "",
+        ":method", "GET",
+        ":method", "POST",
+        ":path", "/",
+        ":path", "/index.html",
+        ":scheme", "http",
+        ":scheme", "https",
+        ":status", "200",
+        ":status", "204",
+        ":status", "206",
+        ":status", "304",
+        ":status", "400",
+        ":status", "404",
+        ":status", "500",
+        "accept-charset", "",
+        "accept-encoding", "gzip, deflate",
+        "accept-language", "",
+        "accept-ranges", "",
+        "accept", "",
+        "access-control-allow-origin", "",
+        "age", "",
+        "allow", "",
+        "authorization", "",
+        "cache-control", "",
+        "content-disposition", "",
+        "content-encoding", "",
+        "content-language", "",
+        "content-length", "",
+        "content-location", "",
+        "content-range", "",
+        "content-type", "",
+        "cookie", "",
+        "date", "",
+        "etag", "",
+        "expect", "",
+        "expires", "",
+        "from", "",
+        "host", "",
+        "if-match", "",
+        "if-modified-since", "",
+        "if-none-match", "",
+        "if-range", "",
+        "if-unmodified-since", "",
+        "last-modified", "",
+        "link", "",
+        "location", "",
+        "max-forwards", "",
+        "proxy-authenticate", "",
+        "proxy-authorization", "",
+        "range", "",
+        "referer", "",
+        "refresh", "",
+        "retry-after", "",
+        "server", "",
+        "set-cookie", "",
+        "strict-transport-security", "",
+        "transfer-encoding", "",
+        "user-agent", "",
+        "vary", "",
+        "via", "",
+        "www-authenticate", "",
+    };
+
+    /**
+     * Entries of the static table.
+     */
+    private static final int STATICS = HpackTable.STATIC.length / 2;
+
+    /**
+     * Static indices of names, the lowest one of each.
+     */
+    private static final Map<String, Integer> NAMES = HpackTable.names();
+
+    /**
+     * Static indices of names with values, like "{@code :path\n/}".
+     */
+    private static final Map<String, Integer> PAIRS = HpackTable.pairs();
+
+    /**
+     * Entries of the dynamic table, newest first, as name and value.
+     */
+    private final Deque<String[]> entries;
+
+    /**
+     * Size of the dynamic table.
+     */
+    private int size;
+
+    /**
+     * Max size of the dynamic table.
+     */
+    private int max;
+
+    /**
+     * Ctor.
+     * @param limit Max size of the dynamic table
+     */
+    HpackTable(final int limit) {
+        this.entries = new ArrayDeque<>(0);
+        this.max = limit;
+    }
+
+    /**
+     * Name of the entry.
+     * @param index Index, from one
+     * @return Name
+     * @throws IOException If there is no such entry
+     */
+    String name(final int index) throws IOException {
+        final String name;
+        if (index > 0 && index <= HpackTable.STATICS) {
+            name = HpackTable.STATIC[(index - 1) * 2];
+        } else {
+            name = this.dynamic(index)[0];
+        }
+        return name;
+    }
+
+    /**
+     * Value of the entry.
+     * @param index Index, from one
+     * @return Value
+     * @throws IOException If there is no such entry
+     */
+    String value(final int index) throws IOException {
+        final String value;
+        if (index > 0 && index <= HpackTable.STATICS) {
+            value = HpackTable.STATIC[(index - 1) * 2 + 1];
+        } else {
+            value = this.dynamic(index)[1];
+        }
+        return value;
+    }
+
+    /**
+     * Find the entry with this name and value.
+     * @param name Name
+     * @param value Value
+     * @return Index or zero if there is none
+     */
+    int find(final String name, final String value) {
+        int found = HpackTable.PAIRS.getOrDefault(
+            HpackTable.key(name, value), 0
+        );
+        if (found == 0) {
+            int index = HpackTable.STATICS;
+            for (final String[] entry : this.entries) {
+                ++index;
+                if (entry[0].equals(name) && entry[1].equals(value)) {
+                    found = index;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find an entry with this name.
+     * @param name Name
+     * @return Index or zero if there is none
+     */
+    int named(final String name) {
+        int found = HpackTable.NAMES.getOrDefault(name, 0);
+        if (found == 0) {
+            int index = HpackTable.STATICS;
+            for (final String[] entry : this.entries) {
+                ++index;
+                if (entry[0].equals(name)) {
+                    found = index;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Add an entry to the dynamic table, evicting the oldest ones.
+     *
+     * <p>An entry larger than the table empties it and is not added.
+     *
+     * @param name Name
+     * @param value Value
+     */
+    void add(final String name, final String value) {
+        final int bytes = HpackTable.size(name, value);
+        this.evict(this.max - bytes);
+        if (bytes <= this.max) {
+            this.entries.addFirst(new String[] {name, value});
+            this.size += bytes;
+        }
+    }
+
+    /**
+     * Change the max size of the dynamic table.
+     * @param limit New max size
+     */
+    void resize(final int limit) {
+        this.max = limit;
+        this.evict(limit);
+    }
+
+    /**
+     * Size of an entry.
+     * @param name Name
+     * @param value Value
+     * @return Size in octets
+     */
+    static int size(final String name, final String value) {
+        // @checkstyle MagicNumber (1 line)
+        return name.length() + value.length() + 32;
+    }
+
+    /**
+     * Evict the oldest entries until the table fits.
+     * @param limit Size to fit into
+     */
+    private void evict(final int limit) {
+        while (this.size > limit && !this.entries.isEmpty()) {
+            final String[] entry = this.entries.removeLast();
+            this.size -= HpackTable.size(entry[0], entry[1]);
+        }
+    }
+
+    /**
+     * Entry of the dynamic table.
+     * @param index Index, from one
+     * @return Name and value
+     * @throws IOException If there is no such entry
+     */
+    private String[] dynamic(final int index) throws IOException {
+        final int pos = index - HpackTable.STATICS - 1;
+        if (pos < 0 || pos >= this.entries.size()) {
+            throw new IOException(
+                String.format("HPACK index %d is out of table", index)
+            );
+        }
+        final Iterator<String[]> iter = this.entries.iterator();
+        for (int idx = 0; idx < pos; ++idx) {
+            iter.next();
+        }
+        return iter.next();
+    }
+
+    /**
+     * Key of a name with value.
+     * @param name Name
+     * @param value Value
+     * @return Key
+     */
+    private static String key(final String name, final String value) {
+        return String.join("\n", name, value);
+    }
+
+    /**
+     * Make the map of static names.
+     * @return Map
+     */
+    private static Map<String, Integer> names() {
+        final Map<String, Integer> map = new HashMap<>(0);
+        for (int idx = HpackTable.STATIC.length - 2; idx >= 0; idx -= 2) {
+            map.put(HpackTable.STATIC[idx], idx / 2 + 1);
+        }
+        return map;
+    }
+
+    /**
+     * Make the map of static names with values.
+     * @return Map
+     */
+    private static Map<String, Integer> pairs() {
+        final Map<String, Integer> map = new HashMap<>(0);
+        for (int idx = 0; idx < HpackTable.STATIC.length; idx += 2) {
+            if (!HpackTable.STATIC[idx + 1].isEmpty()) {
+                map.put(
+                    HpackTable.key(
+                        HpackTable.STATIC[idx], HpackTable.STATIC[idx + 1]
+                    ),
+                    idx / 2 + 1
+                );
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Huffman code of HPACK.
+ *
+ * <p>The code of RFC 7541, appendix B, is canonical: codes of the same
+ * length go one after another in the order of symbols, and each length
+ * starts where the previous one ended, shifted left. So the lengths are
+ * all that is kept here, the codes are restored from them.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+final class Huffman {
+
+    /**
+     * Lengths of codes of all symbols, the last one is EOS.
+     */
+    private static final int[] LENGTHS = {
+        13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28,
+        28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+        6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6,
+        5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+        13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7,
+        7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+        15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5,
+        6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+        20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23,
+        24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+        22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23,
+        21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+        26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25,
+        19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+        20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23,
+        26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26,
+        30,
+    };
+
+    /**
+     * The longest code.
+     */
+    private static final int LONGEST = 30;
+
+    /**
+     * End of string symbol.
+     */
+    private static final int EOS = 256;
+
+    /**
+     * Codes of all symbols.
+     */
+    private static final int[] CODES = new int[Huffman.LENGTHS.length];
+
+    /**
+     * Symbols, ordered by length of their codes.
+     */
+    private static final int[] SYMBOLS = new int[Huffman.LENGTHS.length];
+
+    /**
+     * The first code of each length.
+     */
+    private static final int[] FIRST = new int[Huffman.LONGEST + 1];
+
+    /**
+     * How many codes of each length there are.
+     */
+    private static final int[] COUNT = new int[Huffman.LONGEST + 1];
+
+    /**
+     * Position in {@link #SYMBOLS} of the first symbol of each length.
+     */
+    private static final int[] OFFSET = new int[Huffman.LONGEST + 1];
+
+    static {
+        int code = 0;
+        int pos = 0;
+        for (int len = 1; len <= Huffman.LONGEST; ++len) {
+            Huffman.FIRST[len] = code;
+            Huffman.OFFSET[len] = pos;
+            for (int sym = 0; sym < Huffman.LENGTHS.length; ++sym) {
+                if (Huffman.LENGTHS[sym] == len) {
+                    Huffman.CODES[sym] = code;
+                    Huffman.SYMBOLS[pos] = sym;
+                    ++code;
+                    ++pos;
+                }
+            }
+            Huffman.COUNT[len] = pos - Huffman.OFFSET[len];
+            code <<= 1;
+        }
+    }
+
+    /**
+     * Decode a string.
+     * @param src Source
+     * @param off Where the string starts in it
+     * @param len How many bytes it takes
+     * @return Decoded string
+     * @throws IOException If the code is broken
+     * @checkstyle MagicNumber (50 lines)
+     */
+    String decode(final byte[] src, final int off, final int len)
+        throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(len * 2);
+        int code = 0;
+        int bits = 0;
+        for (int idx = off; idx < off + len; ++idx) {
+            for (int bit = 7; bit >= 0; --bit) {
+                code = code << 1 | src[idx] >> bit & 1;
+                ++bits;
+                final int rel = code - Huffman.FIRST[bits];
+                if (rel >= 0 && rel < Huffman.COUNT[bits]) {
+                    final int sym = Huffman.SYMBOLS[Huffman.OFFSET[bits] + rel];
+                    if (sym == Huffman.EOS) {
+                        throw new IOException("EOS in Huffman code");
+                    }
+                    out.write(sym);
+                    code = 0;
+                    bits = 0;
+                } else if (bits == Huffman.LONGEST) {
+                    throw new IOException("broken Huffman code");
+                }
+            }
+        }
+        if (bits > 7 || code != (1 << bits) - 1) {
+            throw new IOException("broken padding of Huffman code");
+        }
+        return new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Encode a string.
+     * @param src Octets of the string
+     * @return Code
+     * @checkstyle MagicNumber (30 lines)
+     */
+    byte[] encode(final byte[] src) {
+        final byte[] out = new byte[this.length(src)];
+        long acc = 0L;
+        int bits = 0;
+        int pos = 0;
+        for (final byte octet : src) {
+            final int sym = octet & 0xFF;
+            acc = acc << Huffman.LENGTHS[sym] | (long) Huffman.CODES[sym];
+            bits += Huffman.LENGTHS[sym];
+            while (bits >= 8) {
+                bits -= 8;
+                out[pos] = (byte) (acc >> bits);
+                ++pos;
+            }
+        }
+        if (bits > 0) {
+            out[pos] = (byte) (acc << 8 - bits | 0xFF >> bits);
+        }
+        return out;
+    }
+
+    /**
+     * Length of the code of a string.
+     * @param src Octets of the string
+     * @return Length in bytes
+     * @checkstyle MagicNumber (10 lines)
+     */
+    int length(final byte[] src) {
+        long bits = 0L;
+        for (final byte octet : src) {
+            bits += (long) Huffman.LENGTHS[octet & 0xFF];
+        }
+        return (int) ((bits + 7L) / 8L);
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection of {@link FtNio}, seen by the back as a socket.
+ *
+ * <p>While the connection is parked in the selector, the incoming bytes
+ * are collected into a buffer, until the head of the request is complete.
+ * If the wire has bytes to write, like those of a TLS handshake, which
+ * the channel didn't take, the selector waits for it to become writable
+ * as well.
+ * Then the channel is switched to blocking mode and the socket goes
+ * to the back. Its input stream returns the collected bytes first and
+ * then reads the channel. Closing any of the streams doesn't close
+ * the channel, but returns the connection to the selector. Every
+ * handoff is a new lease: streams taken during an earlier lease can't
+ * return the connection once it went to the back again.
+ *
+ * <p>The class is mutable and thread-safe, as long as it is owned either
+ * by the selector or by the back, but not by both.
+ *
+ * @since 2.0
+ */
+@SuppressWarnings("PMD.AvoidUsingVolatile")
+final class NioSocket extends Socket {
+
+    /**
+     * Maximum size of the head to collect.
+     */
+    private static final int MAX = 64 << 10;
+
+    /**
+     * Initial size of the buffer.
+     */
+    private static final int INITIAL = 4 << 10;
+
+    /**
+     * The channel.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Transport over the channel.
+     */
+    private final Wire wire;
+
+    /**
+     * Selector to wake up on return.
+     */
+    private final Selector selector;
+
+    /**
+     * Queue to return the connection to.
+     */
+    private final Queue<NioSocket> parked;
+
+    /**
+     * Number of the lease the back currently holds, zero if parked.
+     */
+    private final AtomicLong owned;
+
+    /**
+     * Number of the last lease.
+     */
+    private volatile long leases;
+
+    /**
+     * Bytes collected from the channel, in write mode while parked and
+     * in read mode while owned by the back.
+     */
+    private volatile ByteBuffer buffer;
+
+    /**
+     * Position in the buffer where the search for the end of head stopped.
+     */
+    private volatile int scanned;
+
+    /**
+     * When the connection was active last time.
+     */
+    private volatile long touched;
+
+    /**
+     * Ctor.
+     * @param chnl Channel, in non-blocking mode
+     * @param slctr Selector
+     * @param queue Queue to return the connection to
+     * @throws IOException If fails
+     */
+    NioSocket(final SocketChannel chnl, final Selector slctr,
+        final Queue<NioSocket> queue) throws IOException {
+        this(chnl, new Wire.Plain(chnl), slctr, queue);
+    }
+
+    /**
+     * Ctor.
+     * @param chnl Channel, in non-blocking mode
+     * @param wre Transport over the channel
+     * @param slctr Selector
+     * @param queue Queue to return the connection to
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    NioSocket(final SocketChannel chnl, final Wire wre, final Selector slctr,
+        final Queue<NioSocket> queue) throws IOException {
+        super();
+        chnl.configureBlocking(false);
+        this.channel = chnl;
+        this.wire = wre;
+        this.selector = slctr;
+        this.parked = queue;
+        this.owned = new AtomicLong();
+        this.buffer = ByteBuffer.allocate(NioSocket.INITIAL);
+        this.touched = System.currentTimeMillis();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new NioSocket.Input(this.wire.input(), this.owned.get());
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return new NioSocket.Output(this.wire.output(), this.owned.get());
+    }
+
+    @Override
+    public SocketChannel getChannel() {
+        return this.wire.channel();
+    }
+
+    @Override
+    public InetAddress getInetAddress() {
+        return this.channel.socket().getInetAddress();
+    }
+
+    @Override
+    public InetAddress getLocalAddress() {
+        return this.channel.socket().getLocalAddress();
+    }
+
+    @Override
+    public int getPort() {
+        return this.channel.socket().getPort();
+    }
+
+    @Override
+    public int getLocalPort() {
+        return this.channel.socket().getLocalPort();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return !this.channel.isOpen();
+    }
+
+    @Override
+    public void close() {
+        this.shutdown();
+    }
+
+    /**
+     * Register in the selector and wait for the next request.
+     * @param slctr Selector
+     * @throws IOException If fails
+     */
+    void park(final Selector slctr) throws IOException {
+        this.touched = System.currentTimeMillis();
+        this.channel.register(slctr, this.interest(), this);
+    }
+
+    /**
+     * Read what is available in the channel, closing the connection
+     * if it is broken.
+     * @return TRUE if the head of the request is complete
+     */
+    boolean fill() {
+        if (!this.buffer.hasRemaining()) {
+            final ByteBuffer bigger = ByteBuffer.allocate(
+                Math.min(this.buffer.capacity() << 1, NioSocket.MAX)
+            );
+            this.buffer.flip();
+            bigger.put(this.buffer);
+            this.buffer = bigger;
+        }
+        int read;
+        try {
+            read = this.wire.read(this.buffer);
+        } catch (final IOException ex) {
+            read = -1;
+        }
+        if (read < 0) {
+            this.shutdown();
+        } else {
+            this.touched = System.currentTimeMillis();
+            final SelectionKey key = this.channel.keyFor(this.selector);
+            if (key != null && key.isValid()) {
+                key.interestOps(this.interest());
+            }
+        }
+        return read >= 0 && this.complete();
+    }
+
+    /**
+     * Is the head of the request complete in the buffer?
+     * @return TRUE if it is, or if the buffer can't grow any more
+     */
+    boolean complete() {
+        final int end = this.buffer.position();
+        boolean found = end >= NioSocket.MAX;
+        for (int pos = Math.max(this.scanned - 3, 0); pos < end - 3; ++pos) {
+            if (this.buffer.get(pos) == '\r'
+                && this.buffer.get(pos + 1) == '\n'
+                && this.buffer.get(pos + 2) == '\r'
+                && this.buffer.get(pos + 3) == '\n') {
+                found = true;
+                break;
+            }
+        }
+        this.scanned = end;
+        return found;
+    }
+
+    /**
+     * How long has it been idle?
+     * @param now Current time
+     * @return Milliseconds
+     */
+    long idle(final long now) {
+        return now - this.touched;
+    }
+
+    /**
+     * Prepare the connection to be used by the back.
+     * @throws IOException If fails
+     */
+    void handoff() throws IOException {
+        this.channel.configureBlocking(true);
+        this.buffer.flip();
+        this.leases += 1L;
+        this.owned.set(this.leases);
+    }
+
+    /**
+     * Close the connection for good.
+     */
+    void shutdown() {
+        try {
+            this.wire.close();
+        } catch (final IOException ignored) {
+        }
+    }
+
+    /**
+     * Events of the channel to wait for in the selector.
+     * @return Operations, reading and, if the wire has bytes waiting,
+     *  writing
+     */
+    private int interest() {
+        int ops = SelectionKey.OP_READ;
+        if (this.wire.pending()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        return ops;
+    }
+
+    /**
+     * Return the connection to the selector, if the back still holds
+     * the lease.
+     * @param lease Number of the lease
+     */
+    private void release(final long lease) {
+        if (lease > 0L && this.owned.compareAndSet(lease, 0L)) {
+            this.buffer.compact();
+            this.scanned = 0;
+            try {
+                this.channel.configureBlocking(false);
+                this.parked.add(this);
+                this.selector.wakeup();
+            } catch (final IOException ex) {
+                this.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Input stream that reads the collected bytes first.
+     * @since 2.0
+     */
+    private final class Input extends InputStream {
+        /**
+         * Stream of the channel.
+         */
+        private final InputStream origin;
+
+        /**
+         * Number of the lease.
+         */
+        private final long lease;
+
+        /**
+         * Ctor.
+         * @param stream Stream of the channel
+         * @param num Number of the lease
+         */
+        Input(final InputStream stream, final long num) {
+            super();
+            this.origin = stream;
+            this.lease = num;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int data;
+            if (NioSocket.this.buffer.hasRemaining()) {
+                data = NioSocket.this.buffer.get() & 0xff;
+            } else {
+                data = this.origin.read();
+            }
+            return data;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len)
+            throws IOException {
+            final int read;
+            final ByteBuffer head = NioSocket.this.buffer;
+            if (len == 0) {
+                read = 0;
+            } else if (head.hasRemaining()) {
+                read = Math.min(len, head.remaining());
+                head.get(buf, off, read);
+            } else {
+                read = this.origin.read(buf, off, len);
+            }
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            final int rest = NioSocket.this.buffer.remaining();
+            final int available;
+            if (rest > 0) {
+                available = rest;
+            } else {
+                available = this.origin.available();
+            }
+            return available;
+        }
+
+        @Override
+        public void close() {
+            NioSocket.this.release(this.lease);
+        }
+    }
+
+    /**
+     * Output stream that returns the connection on close.
+     * @since 2.0
+     */
+    private final class Output extends FilterOutputStream {
+        /**
+         * Number of the lease.
+         */
+        private final long lease;
+
+        /**
+         * Ctor.
+         * @param stream Stream of the channel
+         * @param num Number of the lease
+         */
+        Output(final OutputStream stream, final long num) {
+            super(stream);
+            this.lease = num;
+        }
+
+        @Override
+        public void write(final byte[] buf, final int off, final int len)
+            throws IOException {
+            this.out.write(buf, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.flush();
+            NioSocket.this.release(this.lease);
+        }
+    }
+}
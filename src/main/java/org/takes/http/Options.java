@@ -28,6 +28,8 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -36,6 +38,7 @@ import java.util.regex.Pattern;
 import lombok.EqualsAndHashCode;
 import org.cactoos.io.ReaderOf;
 import org.cactoos.io.WriterTo;
+import org.takes.misc.Opt;
 
 /**
  * Command line options.
@@ -111,6 +114,22 @@ final class Options {
         return socket;
     }
 
+    /**
+     * Get the Unix domain socket to listen to, instead of a port.
+     * @return Path of the socket, if {@code --socket} is set
+     * @since 2.0
+     */
+    public Opt<Path> unix() {
+        final String path = this.map.get("socket");
+        final Opt<Path> unix;
+        if (path == null) {
+            unix = new Opt.Empty<>();
+        } else {
+            unix = new Opt.Single<>(Paths.get(path));
+        }
+        return unix;
+    }
+
     /**
      * Are we in hit-refresh mode?
      * @return TRUE if this mode is ON
@@ -137,12 +156,23 @@ final class Options {
      * @return Threads
      */
     public int threads() {
-        return Integer.parseInt(
-            this.map.getOrDefault(
-                "threads",
-                String.valueOf(Runtime.getRuntime().availableProcessors() << 2)
-            )
+        final String dflt = String.valueOf(
+            Runtime.getRuntime().availableProcessors() << 2
         );
+        String threads = this.map.getOrDefault("threads", dflt);
+        if (this.virtual()) {
+            threads = dflt;
+        }
+        return Integer.parseInt(threads);
+    }
+
+    /**
+     * Shall we run every connection in its own virtual thread?
+     * @return TRUE if {@code --threads=virtual} is set
+     * @since 2.0
+     */
+    public boolean virtual() {
+        return "virtual".equals(this.map.get("threads"));
     }
 
     /**
@@ -158,6 +188,25 @@ final class Options {
         );
     }
 
+    /**
+     * How long to keep an idle connection open, in milliseconds.
+     * @return Timeout, zero if connections are not kept open
+     * @since 2.0
+     */
+    public int keepAlive() {
+        return Integer.parseInt(this.map.getOrDefault("keep-alive", "0"));
+    }
+
+    /**
+     * How long to wait for connections to close on shutdown, in
+     * milliseconds.
+     * @return Deadline, zero if the server doesn't drain its connections
+     * @since 2.0
+     */
+    public long drain() {
+        return Long.parseLong(this.map.getOrDefault("drain", "0"));
+    }
+
     /**
      * Convert the provided arguments into a Map.
      * @param args Arguments to parse.
@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Socket whose first bytes were already peeked at.
+ *
+ * <p>It gives the stream that keeps the peeked bytes, instead of the
+ * input of the socket, and delegates everything else to the socket.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+final class PeekedSocket extends Socket {
+
+    /**
+     * Original socket.
+     */
+    private final Socket origin;
+
+    /**
+     * Input, with peeked bytes.
+     */
+    private final InputStream input;
+
+    /**
+     * Ctor.
+     * @param socket Original socket
+     * @param stream Input with peeked bytes
+     */
+    PeekedSocket(final Socket socket, final InputStream stream) {
+        super();
+        this.origin = socket;
+        this.input = stream;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return this.input;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        return this.origin.getOutputStream();
+    }
+
+    @Override
+    public SocketChannel getChannel() {
+        return null;
+    }
+
+    @Override
+    public InetAddress getInetAddress() {
+        return this.origin.getInetAddress();
+    }
+
+    @Override
+    public InetAddress getLocalAddress() {
+        return this.origin.getLocalAddress();
+    }
+
+    @Override
+    public int getPort() {
+        return this.origin.getPort();
+    }
+
+    @Override
+    public int getLocalPort() {
+        return this.origin.getLocalPort();
+    }
+
+    @Override
+    public SocketAddress getRemoteSocketAddress() {
+        return this.origin.getRemoteSocketAddress();
+    }
+
+    @Override
+    public SocketAddress getLocalSocketAddress() {
+        return this.origin.getLocalSocketAddress();
+    }
+
+    @Override
+    public int getSoTimeout() throws SocketException {
+        return this.origin.getSoTimeout();
+    }
+
+    @Override
+    public void setSoTimeout(final int timeout) throws SocketException {
+        this.origin.setSoTimeout(timeout);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.origin.isConnected();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.origin.isClosed();
+    }
+
+    @Override
+    public void shutdownInput() throws IOException {
+        this.origin.shutdownInput();
+    }
+
+    @Override
+    public void shutdownOutput() throws IOException {
+        this.origin.shutdownOutput();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.origin.close();
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.net.Socket;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Timeouts of the phases of an HTTP connection.
+ *
+ * <p>There are four of them, all in milliseconds, where zero means
+ * no timeout: how long the head of a request may take to arrive, how long
+ * its body may take, how long a keep-alive connection may stay idle
+ * between requests, and how long a request may be served, from the end
+ * of its head to the end of the response. A head, a body or a request
+ * that is too slow meets the {@link Expiry}, which closes the connection
+ * by default; an idle connection is always closed.
+ *
+ * <p>They are used by {@link BkBasic}. The timeouts are kept in a
+ * {@link Wheel}, which may be shared with other timeouts, like those of
+ * {@link BkTimeable}.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode
+public final class Timeouts {
+
+    /**
+     * How long the head of a request may take, in milliseconds.
+     */
+    private final long head;
+
+    /**
+     * How long the body of a request may take, in milliseconds.
+     */
+    private final long body;
+
+    /**
+     * How long a connection may stay idle, in milliseconds.
+     */
+    private final long idle;
+
+    /**
+     * How long a request may be served, in milliseconds.
+     */
+    private final long latency;
+
+    /**
+     * What to do with a slow head or body.
+     */
+    private final Expiry expiry;
+
+    /**
+     * The wheel.
+     */
+    private final Wheel wheel;
+
+    /**
+     * Ctor, without timeouts.
+     */
+    public Timeouts() {
+        this(0L);
+    }
+
+    /**
+     * Ctor.
+     * @param msec How long a keep-alive connection may stay idle
+     */
+    public Timeouts(final long msec) {
+        this(0L, 0L, msec);
+    }
+
+    /**
+     * Ctor.
+     * @param hmsec How long the head of a request may take
+     * @param bmsec How long the body of a request may take
+     * @param imsec How long a keep-alive connection may stay idle
+     */
+    public Timeouts(final long hmsec, final long bmsec, final long imsec) {
+        this(hmsec, bmsec, imsec, new Expiry.Close(), new Wheel());
+    }
+
+    /**
+     * Ctor.
+     * @param hmsec How long the head of a request may take
+     * @param bmsec How long the body of a request may take
+     * @param imsec How long a keep-alive connection may stay idle
+     * @param exp What to do with a slow head or body
+     * @param whl Wheel to keep the timeouts in
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public Timeouts(final long hmsec, final long bmsec, final long imsec,
+        final Expiry exp, final Wheel whl) {
+        this(hmsec, bmsec, imsec, 0L, exp, whl);
+    }
+
+    /**
+     * Ctor.
+     * @param hmsec How long the head of a request may take
+     * @param bmsec How long the body of a request may take
+     * @param imsec How long a keep-alive connection may stay idle
+     * @param lmsec How long a request may be served
+     * @param exp What to do with a slow head, body or request
+     * @param whl Wheel to keep the timeouts in
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public Timeouts(final long hmsec, final long bmsec, final long imsec,
+        final long lmsec, final Expiry exp, final Wheel whl) {
+        this.head = hmsec;
+        this.body = bmsec;
+        this.idle = imsec;
+        this.latency = lmsec;
+        this.expiry = exp;
+        this.wheel = whl;
+    }
+
+    /**
+     * Start waiting for the head of a request.
+     * @param socket The connection
+     * @return Timeout, to cancel when the head is there
+     */
+    public Wheel.Timeout head(final Socket socket) {
+        return this.schedule(this.head, this.expiry, socket);
+    }
+
+    /**
+     * Start waiting for the body of a request.
+     * @param socket The connection
+     * @return Timeout, to cancel when the body is there
+     */
+    public Wheel.Timeout body(final Socket socket) {
+        return this.schedule(this.body, this.expiry, socket);
+    }
+
+    /**
+     * Start serving a request, after its head.
+     * @param socket The connection
+     * @return Timeout, to cancel when the response is sent
+     */
+    public Wheel.Timeout serve(final Socket socket) {
+        return this.schedule(this.latency, this.expiry, socket);
+    }
+
+    /**
+     * Start waiting for the next request in a keep-alive connection.
+     * @param socket The connection
+     * @return Timeout, to cancel when the request starts coming
+     */
+    public Wheel.Timeout idle(final Socket socket) {
+        return this.schedule(this.idle, new Expiry.Close(), socket);
+    }
+
+    /**
+     * Do connections wait for the next request?
+     * @return TRUE if they do
+     */
+    public boolean keepAlive() {
+        return this.idle > 0L;
+    }
+
+    /**
+     * Schedule an expiry.
+     * @param msec Timeout, zero or {@link Long#MAX_VALUE} for none
+     * @param exp What to do when it is out
+     * @param socket The connection
+     * @return Timeout, to cancel in this thread
+     */
+    private Wheel.Timeout schedule(final long msec, final Expiry exp,
+        final Socket socket) {
+        final Wheel.Timeout timeout;
+        if (msec > 0L && msec < Long.MAX_VALUE) {
+            timeout = new Guard(exp, Thread.currentThread(), socket)
+                .schedule(this.wheel, msec);
+        } else {
+            timeout = Wheel.Timeout.NEVER;
+        }
+        return timeout;
+    }
+}
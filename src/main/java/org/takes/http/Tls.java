@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSessionContext;
+import lombok.EqualsAndHashCode;
+
+/**
+ * TLS configuration of a secure front.
+ *
+ * <p>It holds the {@link SSLContext} and decides which protocols and
+ * cipher suites are enabled, in which order, and how many sessions the
+ * server remembers and how long, so that returning clients resume them
+ * without full handshakes. By default TLS 1.3 and TLS 1.2 are enabled,
+ * with AEAD cipher suites only, in the order of the server:
+ *
+ * <pre> final SSLContext context = SSLContext.getInstance("TLS");
+ * context.init(keys.getKeyManagers(), null, null);
+ * new FtSecure(new BkSafe(new BkBasic(take)), 443, new Tls(context))
+ *   .start(Exit.NEVER);</pre>
+ *
+ * <p>Session tickets of TLS 1.3 are issued by JSSE itself, which
+ * rotates their keys; it may be turned off with the
+ * {@code jdk.tls.server.enableSessionTicketExtension} system property.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode
+public final class Tls {
+
+    /**
+     * Protocols enabled by default, the newest first.
+     */
+    private static final String[] PROTOCOLS = {"TLSv1.3", "TLSv1.2"};
+
+    /**
+     * AEAD cipher suites enabled by default, the preferred first.
+     */
+    private static final String[] CIPHERS = {
+        "TLS_AES_128_GCM_SHA256",
+        "TLS_CHACHA20_POLY1305_SHA256",
+        "TLS_AES_256_GCM_SHA384",
+        "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256",
+        "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256",
+        "TLS_ECDHE_ECDSA_WITH_CHACHA20_POLY1305_SHA256",
+        "TLS_ECDHE_RSA_WITH_CHACHA20_POLY1305_SHA256",
+        "TLS_ECDHE_ECDSA_WITH_AES_256_GCM_SHA384",
+        "TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384",
+    };
+
+    /**
+     * SSL context.
+     */
+    private final SSLContext context;
+
+    /**
+     * How many sessions to cache.
+     */
+    private final int cache;
+
+    /**
+     * How long to cache sessions, in seconds.
+     */
+    private final int lifetime;
+
+    /**
+     * Protocols to enable, if supported.
+     */
+    private final String[] protocols;
+
+    /**
+     * Cipher suites to enable, if supported, the preferred first.
+     */
+    private final String[] ciphers;
+
+    /**
+     * Ctor, with the default SSL context.
+     * @throws IOException If there is no default context
+     */
+    public Tls() throws IOException {
+        this(Tls.byDefault());
+    }
+
+    /**
+     * Ctor, with twenty thousand sessions cached for a day.
+     * @param ctx SSL context, initialized
+     */
+    public Tls(final SSLContext ctx) {
+        // @checkstyle MagicNumber (1 line)
+        this(ctx, 20_000, 86_400, Tls.PROTOCOLS, Tls.CIPHERS);
+    }
+
+    /**
+     * Ctor.
+     * @param ctx SSL context, initialized
+     * @param size How many sessions to cache, zero for no limit
+     * @param seconds How long to cache sessions, zero for no limit
+     * @param prtcls Protocols to enable, if supported
+     * @param chprs Cipher suites to enable, if supported, the preferred
+     *  first
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public Tls(final SSLContext ctx, final int size, final int seconds,
+        final String[] prtcls, final String[] chprs) {
+        this.context = ctx;
+        this.cache = size;
+        this.lifetime = seconds;
+        this.protocols = prtcls.clone();
+        this.ciphers = chprs.clone();
+    }
+
+    /**
+     * Open a listening socket.
+     * @param port Port
+     * @return Socket, not bound if the port is negative
+     * @throws IOException If fails
+     */
+    public ServerSocket listen(final int port) throws IOException {
+        final SSLServerSocket server;
+        if (port < 0) {
+            server = (SSLServerSocket) this.context.getServerSocketFactory()
+                .createServerSocket();
+        } else {
+            server = (SSLServerSocket) this.context.getServerSocketFactory()
+                .createServerSocket(port);
+        }
+        server.setSSLParameters(this.parameters());
+        return server;
+    }
+
+    /**
+     * Make an engine for a connection, on the server side.
+     * @return Engine
+     */
+    public SSLEngine engine() {
+        final SSLEngine engine = this.context.createSSLEngine();
+        engine.setUseClientMode(false);
+        engine.setSSLParameters(this.parameters());
+        return engine;
+    }
+
+    /**
+     * Parameters of connections, with the protocols and cipher suites
+     * supported by the context.
+     *
+     * <p>It also sets up the session cache of the context.
+     * @return Parameters
+     */
+    public SSLParameters parameters() {
+        final SSLSessionContext sessions =
+            this.context.getServerSessionContext();
+        sessions.setSessionCacheSize(this.cache);
+        sessions.setSessionTimeout(this.lifetime);
+        final SSLParameters supported =
+            this.context.getSupportedSSLParameters();
+        final SSLParameters params = this.context.getDefaultSSLParameters();
+        final String[] prtcls = Tls.filter(
+            this.protocols, supported.getProtocols()
+        );
+        if (prtcls.length > 0) {
+            params.setProtocols(prtcls);
+        }
+        final String[] suites = Tls.filter(
+            this.ciphers, supported.getCipherSuites()
+        );
+        if (suites.length > 0) {
+            params.setCipherSuites(suites);
+        }
+        params.setUseCipherSuitesOrder(true);
+        return params;
+    }
+
+    /**
+     * The wanted names which are supported, in the wanted order.
+     * @param wanted Wanted names
+     * @param supported Supported names
+     * @return Names
+     */
+    private static String[] filter(final String[] wanted,
+        final String... supported) {
+        final Set<String> known = new HashSet<>(Arrays.asList(supported));
+        return Arrays.stream(wanted)
+            .filter(known::contains)
+            .toArray(String[]::new);
+    }
+
+    /**
+     * The default SSL context.
+     * @return Context
+     * @throws IOException If there is none
+     */
+    private static SSLContext byDefault() throws IOException {
+        try {
+            return SSLContext.getDefault();
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+    }
+}
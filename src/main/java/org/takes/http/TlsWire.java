@@ -0,0 +1,535 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import org.takes.misc.Buffers;
+
+/**
+ * TLS over the channel of a connection of {@link FtNio}, made by
+ * {@link SSLEngine}.
+ *
+ * <p>The handshake goes on in the selector, as the bytes arrive, so the
+ * connection reaches the back only when the head of its first request
+ * is complete and decrypted, like a plain one. Encrypted and decrypted
+ * bytes are kept in direct buffers of {@link Buffers#SHARED}, which are
+ * taken only while there are bytes in them, so parked connections
+ * hold none.
+ *
+ * <p>Nagle's algorithm is turned off, since TLS records of small writes
+ * would wait for delayed acknowledgements of the peer.
+ *
+ * <p>Delegated tasks of the engine run in the thread which meets them,
+ * which is the selector during the handshake. Handshake messages are
+ * written from the selector too; if the channel can't take them at once,
+ * the rest is {@link #pending()} and the handshake goes on when the
+ * selector finds the channel writable.
+ *
+ * <p>The class is mutable and thread-safe: one thread may read while
+ * another one writes.
+ *
+ * @since 2.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+final class TlsWire implements Wire {
+
+    /**
+     * Nothing to send.
+     */
+    private static final ByteBuffer EMPTY =
+        ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    /**
+     * The channel.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The engine.
+     */
+    private final SSLEngine engine;
+
+    /**
+     * Lock of reading.
+     */
+    private final Object reading;
+
+    /**
+     * Lock of writing.
+     */
+    private final Object writing;
+
+    /**
+     * Encrypted bytes received, in write mode, or NULL if there are none.
+     */
+    private ByteBuffer incoming;
+
+    /**
+     * Decrypted bytes not read yet, in read mode, or NULL if there
+     * are none.
+     */
+    private ByteBuffer plain;
+
+    /**
+     * Encrypted bytes the channel didn't take yet, in read mode, or NULL
+     * if there are none.
+     */
+    private ByteBuffer outgoing;
+
+    /**
+     * Ctor.
+     * @param chnl The channel
+     * @param eng Engine in server mode
+     * @throws IOException If fails
+     */
+    TlsWire(final SocketChannel chnl, final SSLEngine eng)
+        throws IOException {
+        this.channel = chnl;
+        this.engine = eng;
+        this.reading = new Object();
+        this.writing = new Object();
+        chnl.socket().setTcpNoDelay(true);
+        this.engine.beginHandshake();
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        synchronized (this.reading) {
+            int count = this.take(dst);
+            if (count == 0 && dst.hasRemaining()) {
+                final int got = this.receive();
+                this.unwrap();
+                count = this.take(dst);
+                if (count == 0 && (got < 0 || this.engine.isInboundDone())) {
+                    count = -1;
+                }
+            }
+            return count;
+        }
+    }
+
+    @Override
+    public InputStream input() {
+        return new TlsWire.Input();
+    }
+
+    @Override
+    public OutputStream output() {
+        return new TlsWire.Output();
+    }
+
+    @Override
+    public SocketChannel channel() {
+        return null;
+    }
+
+    @Override
+    public boolean pending() {
+        synchronized (this.writing) {
+            return this.outgoing != null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (this.writing) {
+                this.engine.closeOutbound();
+                final ByteBuffer out = Buffers.SHARED.direct(this.packet());
+                try {
+                    this.engine.wrap(TlsWire.EMPTY, out);
+                    out.flip();
+                    this.channel.write(out);
+                } finally {
+                    Buffers.SHARED.free(out);
+                }
+            }
+        } catch (final IOException ignored) {
+        } finally {
+            this.channel.close();
+            synchronized (this.writing) {
+                this.outgoing = TlsWire.free(this.outgoing);
+            }
+            synchronized (this.reading) {
+                this.incoming = TlsWire.free(this.incoming);
+                this.plain = TlsWire.free(this.plain);
+            }
+        }
+    }
+
+    /**
+     * Read decrypted bytes, blocking until there are some.
+     * @param buf Where to put them
+     * @param off Offset in the buffer
+     * @param len Max bytes to read
+     * @return How many bytes were read, or -1 at the end of the stream
+     * @throws IOException If fails
+     */
+    private int read(final byte[] buf, final int off, final int len)
+        throws IOException {
+        synchronized (this.reading) {
+            int count = 0;
+            while (count == 0 && len > 0) {
+                count = this.take(buf, off, len);
+                if (count > 0) {
+                    break;
+                }
+                if (this.engine.isInboundDone()) {
+                    count = -1;
+                } else if (this.receive() < 0) {
+                    this.unwrap();
+                    count = this.take(buf, off, len);
+                    if (count == 0) {
+                        count = -1;
+                    }
+                } else {
+                    this.unwrap();
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * How many decrypted bytes may be read without blocking.
+     * @return Bytes
+     */
+    private int available() {
+        synchronized (this.reading) {
+            int ready = 0;
+            if (this.plain != null) {
+                ready = this.plain.remaining();
+            }
+            return ready;
+        }
+    }
+
+    /**
+     * Move decrypted bytes to the buffer.
+     * @param dst Where to put them
+     * @return How many were moved
+     */
+    private int take(final ByteBuffer dst) {
+        int count = 0;
+        if (this.plain != null) {
+            count = Math.min(dst.remaining(), this.plain.remaining());
+            final ByteBuffer part = this.plain.duplicate();
+            part.limit(part.position() + count);
+            dst.put(part);
+            this.plain.position(this.plain.position() + count);
+            this.forget();
+        }
+        return count;
+    }
+
+    /**
+     * Move decrypted bytes to the array.
+     * @param buf Where to put them
+     * @param off Offset in the array
+     * @param len Max bytes to move
+     * @return How many were moved
+     */
+    private int take(final byte[] buf, final int off, final int len) {
+        int count = 0;
+        if (this.plain != null) {
+            count = Math.min(len, this.plain.remaining());
+            this.plain.get(buf, off, count);
+            this.forget();
+        }
+        return count;
+    }
+
+    /**
+     * Read encrypted bytes from the channel.
+     * @return How many were read, or -1 at the end of the stream
+     * @throws IOException If fails
+     */
+    private int receive() throws IOException {
+        if (this.incoming == null) {
+            this.incoming = Buffers.SHARED.direct(this.packet());
+        } else if (!this.incoming.hasRemaining()) {
+            this.incoming = TlsWire.grow(
+                this.incoming, this.incoming.capacity() + this.packet()
+            );
+        }
+        final int got = this.channel.read(this.incoming);
+        this.forget();
+        return got;
+    }
+
+    /**
+     * Make the handshake and decrypt the bytes received, as far
+     * as possible.
+     * @throws IOException If fails
+     */
+    private void unwrap() throws IOException {
+        this.flush();
+        boolean more = true;
+        while (more) {
+            final SSLEngineResult.HandshakeStatus status =
+                this.engine.getHandshakeStatus();
+            if (status == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                this.tasks();
+            } else if (status == SSLEngineResult.HandshakeStatus.NEED_WRAP
+                && !this.engine.isOutboundDone()) {
+                more = this.send(TlsWire.EMPTY);
+            } else {
+                more = this.step();
+            }
+        }
+    }
+
+    /**
+     * Decrypt one record, if it's received in full.
+     * @return TRUE if it makes sense to go on
+     * @throws IOException If fails
+     */
+    private boolean step() throws IOException {
+        boolean more = false;
+        if (this.incoming != null) {
+            this.incoming.flip();
+            final ByteBuffer out = this.room();
+            final SSLEngineResult result;
+            try {
+                result = this.engine.unwrap(this.incoming, out);
+            } finally {
+                this.incoming.compact();
+                out.flip();
+                this.plain = out;
+            }
+            if (result.getStatus() == SSLEngineResult.Status.OK) {
+                more = result.bytesConsumed() > 0
+                    || result.bytesProduced() > 0;
+            } else if (result.getStatus()
+                == SSLEngineResult.Status.BUFFER_UNDERFLOW
+                && this.incoming.capacity() < this.packet()) {
+                this.incoming = TlsWire.grow(this.incoming, this.packet());
+            }
+            this.forget();
+        }
+        return more;
+    }
+
+    /**
+     * Buffer of decrypted bytes, in write mode, with room for a record.
+     * @return Buffer
+     */
+    private ByteBuffer room() {
+        final int app = this.engine.getSession().getApplicationBufferSize();
+        final ByteBuffer buffer;
+        if (this.plain == null) {
+            buffer = Buffers.SHARED.direct(app);
+        } else {
+            this.plain.compact();
+            if (this.plain.remaining() < app) {
+                buffer = TlsWire.grow(this.plain, this.plain.position() + app);
+            } else {
+                buffer = this.plain;
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Encrypt the bytes and write them all to the channel.
+     *
+     * <p>In non-blocking mode the channel may not take all of them; then
+     * the rest waits in {@link #outgoing} for the channel to become
+     * writable, and nothing more is encrypted until it's written.
+     * @param src Bytes to send
+     * @return TRUE if all of them were written
+     * @throws IOException If fails
+     */
+    private boolean send(final ByteBuffer src) throws IOException {
+        synchronized (this.writing) {
+            boolean sent = this.flush();
+            ByteBuffer out = Buffers.SHARED.direct(this.packet());
+            try {
+                while (sent) {
+                    out.clear();
+                    final SSLEngineResult result = this.engine.wrap(src, out);
+                    if (result.getStatus()
+                        == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                        final int size = out.capacity() << 1;
+                        Buffers.SHARED.free(out);
+                        out = Buffers.SHARED.direct(size);
+                        continue;
+                    }
+                    out.flip();
+                    this.channel.write(out);
+                    if (out.hasRemaining()) {
+                        this.outgoing = out;
+                        out = null;
+                        sent = false;
+                    }
+                    if (result.getStatus() == SSLEngineResult.Status.CLOSED
+                        && src.hasRemaining()) {
+                        throw new SSLException("TLS connection is closed");
+                    }
+                    if (result.getHandshakeStatus()
+                        == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                        this.tasks();
+                    }
+                    if (!src.hasRemaining()
+                        || result.getStatus()
+                        == SSLEngineResult.Status.CLOSED) {
+                        break;
+                    }
+                }
+            } finally {
+                TlsWire.free(out);
+            }
+            return sent;
+        }
+    }
+
+    /**
+     * Write the encrypted bytes the channel didn't take before.
+     * @return TRUE if there are none left
+     * @throws IOException If fails
+     */
+    private boolean flush() throws IOException {
+        synchronized (this.writing) {
+            if (this.outgoing != null) {
+                this.channel.write(this.outgoing);
+                if (!this.outgoing.hasRemaining()) {
+                    this.outgoing = TlsWire.free(this.outgoing);
+                }
+            }
+            return this.outgoing == null;
+        }
+    }
+
+    /**
+     * Run delegated tasks of the engine.
+     */
+    private void tasks() {
+        while (true) {
+            final Runnable task = this.engine.getDelegatedTask();
+            if (task == null) {
+                break;
+            }
+            task.run();
+        }
+    }
+
+    /**
+     * Give back the buffers which have no bytes.
+     */
+    private void forget() {
+        if (this.incoming != null && this.incoming.position() == 0) {
+            this.incoming = TlsWire.free(this.incoming);
+        }
+        if (this.plain != null && !this.plain.hasRemaining()) {
+            this.plain = TlsWire.free(this.plain);
+        }
+    }
+
+    /**
+     * Size of the largest record.
+     * @return Bytes
+     */
+    private int packet() {
+        return this.engine.getSession().getPacketBufferSize();
+    }
+
+    /**
+     * Move the bytes into a bigger buffer.
+     * @param buffer Buffer in write mode
+     * @param size Size needed
+     * @return Bigger buffer in write mode
+     */
+    private static ByteBuffer grow(final ByteBuffer buffer, final int size) {
+        final ByteBuffer bigger = Buffers.SHARED.direct(size);
+        buffer.flip();
+        bigger.put(buffer);
+        Buffers.SHARED.free(buffer);
+        return bigger;
+    }
+
+    /**
+     * Give the buffer back, if any.
+     * @param buffer Buffer or NULL
+     * @return Always NULL
+     */
+    private static ByteBuffer free(final ByteBuffer buffer) {
+        if (buffer != null) {
+            Buffers.SHARED.free(buffer);
+        }
+        return null;
+    }
+
+    /**
+     * Decrypted input.
+     * @since 2.0
+     */
+    private final class Input extends InputStream {
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            final int data;
+            if (this.read(one, 0, 1) < 0) {
+                data = -1;
+            } else {
+                data = one[0] & 0xFF;
+            }
+            return data;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len)
+            throws IOException {
+            return TlsWire.this.read(buf, off, len);
+        }
+
+        @Override
+        public int available() {
+            return TlsWire.this.available();
+        }
+    }
+
+    /**
+     * Encrypted output.
+     * @since 2.0
+     */
+    private final class Output extends OutputStream {
+        @Override
+        public void write(final int data) throws IOException {
+            this.write(new byte[] {(byte) data}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] buf, final int off, final int len)
+            throws IOException {
+            TlsWire.this.send(ByteBuffer.wrap(buf, off, len));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.util.Set;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Options of listening and accepted sockets.
+ *
+ * <p>The size of the backlog, {@code TCP_NODELAY} and the sizes of
+ * socket buffers; zero sizes leave the defaults of the platform:
+ *
+ * <pre> new FtMulti(back, 8080, 16, new Tuning(4096, true, 0, 0))</pre>
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode
+public final class Tuning {
+
+    /**
+     * Backlog of listening sockets.
+     */
+    private final int backlog;
+
+    /**
+     * Set TCP_NODELAY on accepted sockets?
+     */
+    private final boolean nodelay;
+
+    /**
+     * Size of receive buffers, or zero.
+     */
+    private final int rcvbuf;
+
+    /**
+     * Size of send buffers, or zero.
+     */
+    private final int sndbuf;
+
+    /**
+     * Ctor, with the defaults of {@link ServerSocket}.
+     */
+    public Tuning() {
+        // @checkstyle MagicNumber (1 line)
+        this(50, false, 0, 0);
+    }
+
+    /**
+     * Ctor.
+     * @param queue Backlog of listening sockets
+     * @param delay Set TCP_NODELAY on accepted sockets
+     * @param receive Size of receive buffers, zero for the default
+     * @param send Size of send buffers, zero for the default
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public Tuning(final int queue, final boolean delay, final int receive,
+        final int send) {
+        this.backlog = queue;
+        this.nodelay = delay;
+        this.rcvbuf = receive;
+        this.sndbuf = send;
+    }
+
+    /**
+     * Open a listening socket.
+     * @param address Address to bind to
+     * @param share Set {@code SO_REUSEPORT}, if the platform supports it
+     * @return Bound socket
+     * @throws IOException If fails
+     */
+    public ServerSocket listen(final InetSocketAddress address,
+        final boolean share) throws IOException {
+        final ServerSocket server = new ServerSocket();
+        try {
+            server.setReuseAddress(true);
+            if (this.rcvbuf > 0) {
+                server.setReceiveBufferSize(this.rcvbuf);
+            }
+            if (share && !Tuning.reusePort(server)) {
+                throw new IOException("SO_REUSEPORT is not supported");
+            }
+            server.bind(address, this.backlog);
+        } catch (final IOException ex) {
+            server.close();
+            throw ex;
+        }
+        return server;
+    }
+
+    /**
+     * Apply the options to an accepted socket.
+     * @param socket The socket
+     * @return The same socket
+     * @throws IOException If fails
+     */
+    public Socket apply(final Socket socket) throws IOException {
+        if (this.nodelay) {
+            socket.setTcpNoDelay(true);
+        }
+        if (this.rcvbuf > 0) {
+            socket.setReceiveBufferSize(this.rcvbuf);
+        }
+        if (this.sndbuf > 0) {
+            socket.setSendBufferSize(this.sndbuf);
+        }
+        return socket;
+    }
+
+    /**
+     * Does the platform let many sockets listen to the same port?
+     * @return TRUE if {@code SO_REUSEPORT} is supported
+     */
+    public static boolean sharing() {
+        boolean supported;
+        try (ServerSocket server = new ServerSocket()) {
+            supported = Tuning.reusePort(server);
+        } catch (final IOException ex) {
+            supported = false;
+        }
+        return supported;
+    }
+
+    /**
+     * Set {@code SO_REUSEPORT}, which is known since Java 9 only, so
+     * it is looked for by reflection.
+     * @param server Unbound socket
+     * @return TRUE if set
+     */
+    private static boolean reusePort(final ServerSocket server) {
+        boolean set = false;
+        try {
+            final Object option = StandardSocketOptions.class
+                .getField("SO_REUSEPORT").get(null);
+            final Set<?> options = (Set<?>) ServerSocket.class
+                .getMethod("supportedOptions").invoke(server);
+            if (options.contains(option)) {
+                ServerSocket.class
+                    .getMethod("setOption", SocketOption.class, Object.class)
+                    .invoke(server, option, Boolean.TRUE);
+                set = true;
+            }
+        } catch (final ReflectiveOperationException ex) {
+            set = false;
+        }
+        return set;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Connection of {@link FtUnix}, seen by the back as a socket.
+ *
+ * <p>A Unix domain socket has no IP addresses and ports, so
+ * {@link #getInetAddress()} and {@link #getLocalAddress()} return NULL
+ * and the ports are -1. Its streams read and write the channel
+ * directly, so one thread may read while another one writes. The input
+ * reads ahead, as much as the channel has, so that
+ * {@link InputStream#available()} tells how many bytes already arrived,
+ * like a TCP socket does; {@link org.takes.rq.RqLive} depends on it.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @since 2.0
+ */
+final class UnixSocket extends Socket {
+
+    /**
+     * Size of the read-ahead buffer.
+     */
+    private static final int AHEAD = 8192;
+
+    /**
+     * The channel, in blocking mode.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Input of the channel.
+     */
+    private final InputStream input;
+
+    /**
+     * Output to the channel.
+     */
+    private final OutputStream output;
+
+    /**
+     * Ctor.
+     * @param chnl The channel, in blocking mode
+     */
+    UnixSocket(final SocketChannel chnl) {
+        super();
+        this.channel = chnl;
+        this.input = new UnixSocket.Input();
+        this.output = new UnixSocket.Output();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return this.input;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return this.output;
+    }
+
+    @Override
+    public SocketChannel getChannel() {
+        return this.channel;
+    }
+
+    @Override
+    public InetAddress getInetAddress() {
+        return null;
+    }
+
+    @Override
+    public InetAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public int getPort() {
+        return -1;
+    }
+
+    @Override
+    public int getLocalPort() {
+        return -1;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.channel.isConnected();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return !this.channel.isOpen();
+    }
+
+    @Override
+    public void shutdownInput() throws IOException {
+        this.channel.shutdownInput();
+    }
+
+    @Override
+    public void shutdownOutput() throws IOException {
+        this.channel.shutdownOutput();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Input of the channel, reading ahead.
+     * @since 2.0
+     */
+    private final class Input extends InputStream {
+
+        /**
+         * Bytes read from the channel but not yet from the stream,
+         * in read mode.
+         */
+        private final ByteBuffer ahead;
+
+        /**
+         * Ctor.
+         */
+        Input() {
+            super();
+            this.ahead = ByteBuffer.allocate(UnixSocket.AHEAD);
+            this.ahead.flip();
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            final int data;
+            if (this.read(one, 0, 1) < 0) {
+                data = -1;
+            } else {
+                data = one[0] & 0xFF;
+            }
+            return data;
+        }
+
+        @Override
+        public synchronized int read(final byte[] buf, final int off,
+            final int len) throws IOException {
+            final int read;
+            if (len == 0) {
+                read = 0;
+            } else if (this.ahead.hasRemaining()) {
+                read = this.take(buf, off, len);
+            } else if (len >= this.ahead.capacity()) {
+                read = UnixSocket.this.channel.read(
+                    ByteBuffer.wrap(buf, off, len)
+                );
+            } else {
+                this.ahead.clear();
+                final int got = UnixSocket.this.channel.read(this.ahead);
+                this.ahead.flip();
+                if (got < 0) {
+                    read = -1;
+                } else {
+                    read = this.take(buf, off, len);
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public synchronized int available() {
+            return this.ahead.remaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            UnixSocket.this.close();
+        }
+
+        /**
+         * Take bytes read ahead.
+         * @param buf Where to put them
+         * @param off Offset in the buffer
+         * @param len Maximum of bytes to take
+         * @return How many were taken
+         */
+        private int take(final byte[] buf, final int off, final int len) {
+            final int size = Math.min(len, this.ahead.remaining());
+            this.ahead.get(buf, off, size);
+            return size;
+        }
+    }
+
+    /**
+     * Output to the channel.
+     * @since 2.0
+     */
+    private final class Output extends OutputStream {
+        @Override
+        public void write(final int data) throws IOException {
+            this.write(new byte[] {(byte) data}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] buf, final int off, final int len)
+            throws IOException {
+            final ByteBuffer src = ByteBuffer.wrap(buf, off, len);
+            while (src.hasRemaining()) {
+                UnixSocket.this.channel.write(src);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            UnixSocket.this.close();
+        }
+    }
+}
@@ -0,0 +1,448 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel.
+ *
+ * <p>Timeouts are hashed by their deadline into the buckets of a wheel
+ * that turns one bucket per tick, so that both scheduling and cancelling
+ * take constant time, no matter how many timeouts are pending. A timeout
+ * never fires before its deadline and usually not later than one tick
+ * after it.
+ *
+ * <p>The wheel is driven by a daemon thread, which is started with the
+ * first timeout and stops after a second without any timeouts pending,
+ * so an unused wheel costs nothing. Tasks run in that thread one after
+ * another and must be short; exceptions they throw are ignored.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @since 2.0
+ */
+@SuppressWarnings(
+    {
+        "PMD.DoNotUseThreads",
+        "PMD.AvoidUsingVolatile",
+        "PMD.TooManyMethods"
+    }
+)
+public final class Wheel {
+
+    /**
+     * How long the thread waits for new timeouts before it stops, in nanos.
+     */
+    private static final long LINGER = TimeUnit.SECONDS.toNanos(1L);
+
+    /**
+     * Length of one tick, in nanoseconds.
+     */
+    private final long tick;
+
+    /**
+     * First timeouts of the buckets.
+     */
+    private final Wheel.Node[] heads;
+
+    /**
+     * Last timeouts of the buckets.
+     */
+    private final Wheel.Node[] tails;
+
+    /**
+     * Timeouts scheduled, but not yet put into buckets.
+     */
+    private final Queue<Wheel.Node> added;
+
+    /**
+     * Timeouts cancelled, but not yet taken out of buckets.
+     */
+    private final Queue<Wheel.Node> cancelled;
+
+    /**
+     * Timeouts neither expired nor taken out after cancel.
+     */
+    private final AtomicInteger pending;
+
+    /**
+     * Is the thread running?
+     */
+    private final AtomicBoolean running;
+
+    /**
+     * When the wheel was made, by {@link System#nanoTime()}.
+     */
+    private final long origin;
+
+    /**
+     * The thread, if it ever started.
+     */
+    private volatile Thread worker;
+
+    /**
+     * Ctor.
+     *
+     * <p>The wheel ticks every millisecond and turns around every four
+     * seconds.
+     */
+    public Wheel() {
+        // @checkstyle MagicNumber (1 line)
+        this(1L, 4096);
+    }
+
+    /**
+     * Ctor.
+     * @param msec Length of one tick, in milliseconds
+     * @param size How many buckets the wheel has
+     */
+    public Wheel(final long msec, final int size) {
+        if (msec <= 0L || size <= 0) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "tick %d and size %d of a wheel must be positive",
+                    msec, size
+                )
+            );
+        }
+        this.tick = TimeUnit.MILLISECONDS.toNanos(msec);
+        final int buckets = Integer.highestOneBit(size - 1) << 1;
+        this.heads = new Wheel.Node[Math.max(buckets, 1)];
+        this.tails = new Wheel.Node[this.heads.length];
+        this.added = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.pending = new AtomicInteger();
+        this.running = new AtomicBoolean();
+        this.origin = System.nanoTime();
+    }
+
+    /**
+     * Run the task once the time is out, unless cancelled earlier.
+     * @param msec Delay, in milliseconds
+     * @param task The task
+     * @return Timeout, to cancel it
+     */
+    public Wheel.Timeout schedule(final long msec, final Runnable task) {
+        final long delay = TimeUnit.MILLISECONDS.toNanos(Math.max(msec, 0L));
+        final long now = System.nanoTime() - this.origin;
+        long deadline = Long.MAX_VALUE;
+        if (delay < Long.MAX_VALUE - now) {
+            deadline = now + delay;
+        }
+        final Wheel.Node node = new Wheel.Node(this, deadline, task);
+        this.added.offer(node);
+        if (this.pending.getAndIncrement() == 0) {
+            if (this.running.compareAndSet(false, true)) {
+                this.start();
+            } else {
+                LockSupport.unpark(this.worker);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * How many timeouts are pending now.
+     * @return Number of timeouts
+     */
+    public int size() {
+        return this.pending.get();
+    }
+
+    /**
+     * Start the thread.
+     */
+    private void start() {
+        final Thread thread = new Thread(this::turn, "takes-wheel");
+        thread.setDaemon(true);
+        this.worker = thread;
+        thread.start();
+    }
+
+    /**
+     * Turn the wheel while timeouts are pending.
+     */
+    private void turn() {
+        long ticks = (System.nanoTime() - this.origin) / this.tick;
+        while (true) {
+            final long wait = this.origin + (ticks + 1L) * this.tick
+                - System.nanoTime();
+            if (wait > 0L) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            this.remove();
+            this.transfer(ticks);
+            this.expire(ticks);
+            ++ticks;
+            if (this.pending.get() == 0) {
+                if (!this.linger()) {
+                    break;
+                }
+                ticks = (System.nanoTime() - this.origin) / this.tick;
+            }
+        }
+    }
+
+    /**
+     * Wait for new timeouts, when there are none.
+     * @return TRUE if they came, FALSE if the thread must stop
+     */
+    private boolean linger() {
+        final long until = System.nanoTime() + Wheel.LINGER;
+        while (this.pending.get() == 0 && System.nanoTime() < until) {
+            LockSupport.parkNanos(this, until - System.nanoTime());
+        }
+        boolean more = this.pending.get() > 0;
+        if (!more) {
+            this.running.set(false);
+            more = this.pending.get() > 0
+                && this.running.compareAndSet(false, true);
+        }
+        return more;
+    }
+
+    /**
+     * Take cancelled timeouts out of their buckets.
+     */
+    private void remove() {
+        while (true) {
+            final Wheel.Node node = this.cancelled.poll();
+            if (node == null) {
+                break;
+            }
+            if (node.bucket >= 0) {
+                this.unlink(node);
+            }
+        }
+    }
+
+    /**
+     * Put new timeouts into buckets.
+     * @param ticks Current tick
+     */
+    private void transfer(final long ticks) {
+        while (true) {
+            final Wheel.Node node = this.added.poll();
+            if (node == null) {
+                break;
+            }
+            if (node.state.get() != Wheel.Node.WAITING) {
+                this.pending.decrementAndGet();
+                continue;
+            }
+            final long due = Math.max(node.deadline / this.tick, ticks);
+            node.rounds = (due - ticks) / this.heads.length;
+            node.bucket = this.bucket(due);
+            node.prev = this.tails[node.bucket];
+            if (node.prev == null) {
+                this.heads[node.bucket] = node;
+            } else {
+                node.prev.next = node;
+            }
+            this.tails[node.bucket] = node;
+        }
+    }
+
+    /**
+     * Expire timeouts of the bucket of this tick.
+     * @param ticks Current tick
+     */
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private void expire(final long ticks) {
+        Wheel.Node node = this.heads[this.bucket(ticks)];
+        while (node != null) {
+            final Wheel.Node next = node.next;
+            if (node.state.get() != Wheel.Node.WAITING) {
+                this.unlink(node);
+            } else if (node.rounds > 0L) {
+                --node.rounds;
+            } else if (node.state.compareAndSet(
+                Wheel.Node.WAITING, Wheel.Node.EXPIRED
+            )) {
+                this.unlink(node);
+                try {
+                    node.task.run();
+                    // @checkstyle IllegalCatchCheck (1 line)
+                } catch (final Throwable ignored) {
+                }
+            } else {
+                this.unlink(node);
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Bucket of a tick.
+     * @param ticks The tick
+     * @return Index of the bucket
+     */
+    private int bucket(final long ticks) {
+        return (int) (ticks & (long) (this.heads.length - 1));
+    }
+
+    /**
+     * Take a timeout out of its bucket.
+     * @param node The timeout
+     */
+    private void unlink(final Wheel.Node node) {
+        if (node.prev == null) {
+            this.heads[node.bucket] = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            this.tails[node.bucket] = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.bucket = -1;
+        this.pending.decrementAndGet();
+    }
+
+    /**
+     * Timeout scheduled in a wheel.
+     *
+     * @since 2.0
+     */
+    public interface Timeout {
+
+        /**
+         * Timeout that never fires.
+         */
+        Wheel.Timeout NEVER = new Wheel.Timeout() {
+            @Override
+            public boolean cancel() {
+                return true;
+            }
+        };
+
+        /**
+         * Cancel it.
+         * @return TRUE if the task will never run, FALSE if it already ran
+         *  or is running now
+         */
+        boolean cancel();
+    }
+
+    /**
+     * Timeout in a bucket of the wheel.
+     *
+     * <p>Only the thread of the wheel touches its links, rounds and
+     * bucket; other threads only change its state.
+     *
+     * @since 2.0
+     */
+    private static final class Node implements Wheel.Timeout {
+
+        /**
+         * State of a timeout waiting for its deadline.
+         */
+        private static final int WAITING = 0;
+
+        /**
+         * State of a cancelled timeout.
+         */
+        private static final int CANCELLED = 1;
+
+        /**
+         * State of an expired timeout.
+         */
+        private static final int EXPIRED = 2;
+
+        /**
+         * The wheel.
+         */
+        private final Wheel wheel;
+
+        /**
+         * Deadline, in nanoseconds since the wheel was made.
+         */
+        private final long deadline;
+
+        /**
+         * The task.
+         */
+        private final Runnable task;
+
+        /**
+         * State.
+         */
+        private final AtomicInteger state;
+
+        /**
+         * Full turns of the wheel left before the deadline.
+         */
+        private long rounds;
+
+        /**
+         * Bucket it is in, or -1.
+         */
+        private int bucket;
+
+        /**
+         * Previous timeout in the bucket.
+         */
+        private Wheel.Node prev;
+
+        /**
+         * Next timeout in the bucket.
+         */
+        private Wheel.Node next;
+
+        /**
+         * Ctor.
+         * @param whl The wheel
+         * @param when Deadline
+         * @param tsk The task
+         */
+        Node(final Wheel whl, final long when, final Runnable tsk) {
+            this.wheel = whl;
+            this.deadline = when;
+            this.task = tsk;
+            this.state = new AtomicInteger(Wheel.Node.WAITING);
+            this.bucket = -1;
+        }
+
+        @Override
+        public boolean cancel() {
+            final boolean done = this.state.compareAndSet(
+                Wheel.Node.WAITING, Wheel.Node.CANCELLED
+            );
+            if (done) {
+                this.wheel.cancelled.offer(this);
+            }
+            return done || this.state.get() == Wheel.Node.CANCELLED;
+        }
+    }
+}
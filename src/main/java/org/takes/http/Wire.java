@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Transport of a connection of {@link FtNio}, between the channel and
+ * the bytes of HTTP.
+ *
+ * <p>While the connection is parked in the selector, the channel is in
+ * non-blocking mode and the front reads through {@link #read(ByteBuffer)};
+ * while the back owns the connection, the channel is in blocking mode
+ * and the back uses the streams.
+ *
+ * @since 2.0
+ */
+interface Wire {
+
+    /**
+     * Read what is available without blocking.
+     * @param dst Where to put the bytes
+     * @return How many bytes were read, or -1 at the end of the stream
+     * @throws IOException If fails
+     */
+    int read(ByteBuffer dst) throws IOException;
+
+    /**
+     * Stream to read from, in blocking mode.
+     * @return Stream
+     * @throws IOException If fails
+     */
+    InputStream input() throws IOException;
+
+    /**
+     * Stream to write to, in blocking mode.
+     * @return Stream
+     * @throws IOException If fails
+     */
+    OutputStream output() throws IOException;
+
+    /**
+     * Channel which the back may write to directly, bypassing the
+     * output stream, for example to transfer files.
+     * @return Channel or NULL if all bytes must go through the stream
+     */
+    SocketChannel channel();
+
+    /**
+     * Are there bytes waiting for the channel to become writable?
+     *
+     * <p>They may be left by {@link #read(ByteBuffer)} in non-blocking
+     * mode, for example messages of a handshake; the next read writes
+     * them first.
+     * @return TRUE if there are
+     */
+    boolean pending();
+
+    /**
+     * Close the connection for good.
+     * @throws IOException If fails
+     */
+    void close() throws IOException;
+
+    /**
+     * Bytes of the channel as they are.
+     * @since 2.0
+     */
+    final class Plain implements Wire {
+        /**
+         * The channel.
+         */
+        private final SocketChannel channel;
+
+        /**
+         * Ctor.
+         * @param chnl The channel
+         */
+        Plain(final SocketChannel chnl) {
+            this.channel = chnl;
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+            return this.channel.read(dst);
+        }
+
+        @Override
+        public InputStream input() throws IOException {
+            return this.channel.socket().getInputStream();
+        }
+
+        @Override
+        public OutputStream output() throws IOException {
+            return this.channel.socket().getOutputStream();
+        }
+
+        @Override
+        public SocketChannel channel() {
+            return this.channel;
+        }
+
+        @Override
+        public boolean pending() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,562 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.misc;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of I/O buffers.
+ *
+ * <p>Buffers come in size classes, powers of two from 512 bytes to
+ * 64 KB; a buffer taken is at least as big as asked, and a bigger
+ * request gets a fresh buffer, which is never pooled. Free buffers of
+ * each class are kept in lock-free slots, split into stripes by thread,
+ * so that threads rarely touch the same slots. When the stripe of a
+ * thread is empty, a new buffer is made; when it is full, the buffer
+ * given back is left to the garbage collector. Heap arrays and direct
+ * byte buffers are pooled separately: the arrays are for copying streams,
+ * the direct buffers are for channels, such as TLS connections of
+ * {@link org.takes.http.FtNio}.
+ *
+ * <p>A buffer must be given back only once, and must not be used after
+ * that. Buffers that are never given back are not a problem, they are
+ * just not reused. With leak detection on, the pool remembers where
+ * every buffer was taken and reports those collected by the garbage
+ * collector without being given back. It is meant for tests, since it
+ * makes the pool much slower: {@link #SHARED} turns it on when the
+ * system property {@code takes.buffers.leaks} is {@code true}, and the
+ * tests of Takes fail every test class that leaks.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @since 2.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class Buffers {
+
+    /**
+     * The pool used by the I/O classes of Takes.
+     */
+    public static final Buffers SHARED = new Buffers(
+        Boolean.getBoolean("takes.buffers.leaks")
+    );
+
+    /**
+     * Log2 of the smallest size class.
+     */
+    private static final int MIN = 9;
+
+    /**
+     * Log2 of the largest size class.
+     */
+    private static final int MAX = 16;
+
+    /**
+     * Free buffers per stripe in every size class.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Free heap arrays, by size class.
+     */
+    private final List<AtomicReferenceArray<byte[]>> arrays;
+
+    /**
+     * Free direct buffers, by size class.
+     */
+    private final List<AtomicReferenceArray<ByteBuffer>> directs;
+
+    /**
+     * Number of stripes, a power of two.
+     */
+    private final int stripes;
+
+    /**
+     * Taken buffers that were free in the pool.
+     */
+    private final LongAdder hits;
+
+    /**
+     * Taken buffers that had to be made.
+     */
+    private final LongAdder misses;
+
+    /**
+     * Given back buffers that didn't fit into the pool.
+     */
+    private final LongAdder drops;
+
+    /**
+     * Leak detector, if on.
+     */
+    private final Opt<Buffers.Leaks> leaks;
+
+    /**
+     * Ctor, without leak detection.
+     */
+    public Buffers() {
+        this(false);
+    }
+
+    /**
+     * Ctor.
+     * @param detect Detect leaks?
+     */
+    public Buffers(final boolean detect) {
+        this(
+            Integer.highestOneBit(
+                Runtime.getRuntime().availableProcessors() * 2 - 1
+            ) << 1,
+            detect
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param count Number of stripes, rounded up to a power of two
+     * @param detect Detect leaks?
+     */
+    public Buffers(final int count, final boolean detect) {
+        this.stripes = Math.max(Integer.highestOneBit(count - 1) << 1, 1);
+        this.arrays = new ArrayList<>(Buffers.MAX - Buffers.MIN + 1);
+        this.directs = new ArrayList<>(Buffers.MAX - Buffers.MIN + 1);
+        for (int cls = Buffers.MIN; cls <= Buffers.MAX; ++cls) {
+            this.arrays.add(
+                new AtomicReferenceArray<>(this.stripes * Buffers.DEPTH)
+            );
+            this.directs.add(
+                new AtomicReferenceArray<>(this.stripes * Buffers.DEPTH)
+            );
+        }
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.drops = new LongAdder();
+        if (detect) {
+            this.leaks = new Opt.Single<>(new Buffers.Leaks());
+        } else {
+            this.leaks = new Opt.Empty<>();
+        }
+    }
+
+    /**
+     * Take a heap array.
+     * @param size How many bytes are needed, at least
+     * @return Array, with garbage from its earlier use
+     */
+    public byte[] array(final int size) {
+        final int cls = Buffers.sizeClass(size);
+        byte[] array = null;
+        if (cls >= 0) {
+            array = this.poll(this.arrays.get(cls));
+        }
+        if (array == null) {
+            this.misses.increment();
+            array = new byte[Math.max(Buffers.capacity(cls), size)];
+        } else {
+            this.hits.increment();
+        }
+        if (this.leaks.has()) {
+            this.leaks.get().taken(array);
+        }
+        return array;
+    }
+
+    /**
+     * Give a heap array back.
+     * @param array Array taken from this pool
+     */
+    public void free(final byte[] array) {
+        if (this.leaks.has()) {
+            this.leaks.get().given(array);
+        }
+        final int cls = Buffers.sizeClass(array.length);
+        if (cls < 0 || Buffers.capacity(cls) != array.length
+            || !this.offer(this.arrays.get(cls), array)) {
+            this.drops.increment();
+        }
+    }
+
+    /**
+     * Take a direct buffer.
+     * @param size How many bytes are needed, at least
+     * @return Buffer, cleared, with garbage from its earlier use
+     */
+    public ByteBuffer direct(final int size) {
+        final int cls = Buffers.sizeClass(size);
+        ByteBuffer buffer = null;
+        if (cls >= 0) {
+            buffer = this.poll(this.directs.get(cls));
+        }
+        if (buffer == null) {
+            this.misses.increment();
+            buffer = ByteBuffer.allocateDirect(
+                Math.max(Buffers.capacity(cls), size)
+            );
+        } else {
+            this.hits.increment();
+            buffer.clear();
+        }
+        if (this.leaks.has()) {
+            this.leaks.get().taken(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Give a direct buffer back.
+     * @param buffer Buffer taken from this pool
+     */
+    public void free(final ByteBuffer buffer) {
+        if (this.leaks.has()) {
+            this.leaks.get().given(buffer);
+        }
+        final int cls = Buffers.sizeClass(buffer.capacity());
+        if (!buffer.isDirect() || cls < 0
+            || Buffers.capacity(cls) != buffer.capacity()
+            || !this.offer(this.directs.get(cls), buffer)) {
+            this.drops.increment();
+        }
+    }
+
+    /**
+     * How many buffers were taken from the pool, without making them.
+     * @return Number of buffers
+     */
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * How many buffers had to be made.
+     * @return Number of buffers
+     */
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * How many buffers given back were left to the garbage collector,
+     * because the pool was full or they were of a wrong size.
+     * @return Number of buffers
+     */
+    public long drops() {
+        return this.drops.sum();
+    }
+
+    /**
+     * Buffers collected by the garbage collector without being given back.
+     *
+     * <p>Every leak is reported once, as an exception with the stack trace
+     * of the place where the buffer was taken. Nothing is reported if leak
+     * detection is off.
+     *
+     * @return Leaks found since the last call
+     */
+    public Collection<Throwable> leaks() {
+        final Collection<Throwable> found;
+        if (this.leaks.has()) {
+            found = this.leaks.get().found();
+        } else {
+            found = new ArrayList<>(0);
+        }
+        return found;
+    }
+
+    /**
+     * Take a free buffer from the stripe of this thread.
+     * @param slots Slots of a size class
+     * @param <T> Type of buffers
+     * @return Buffer or NULL if there are none
+     */
+    private <T> T poll(final AtomicReferenceArray<T> slots) {
+        final int start = this.stripe();
+        T found = null;
+        for (int idx = start; idx < start + Buffers.DEPTH; ++idx) {
+            final T item = slots.get(idx);
+            if (item != null && slots.compareAndSet(idx, item, null)) {
+                found = item;
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Put a free buffer into the stripe of this thread.
+     * @param slots Slots of a size class
+     * @param item The buffer
+     * @param <T> Type of buffers
+     * @return TRUE if there was room for it
+     */
+    private <T> boolean offer(final AtomicReferenceArray<T> slots,
+        final T item) {
+        final int start = this.stripe();
+        boolean done = false;
+        for (int idx = start; idx < start + Buffers.DEPTH; ++idx) {
+            if (slots.get(idx) == null
+                && slots.compareAndSet(idx, null, item)) {
+                done = true;
+                break;
+            }
+        }
+        return done;
+    }
+
+    /**
+     * First slot of the stripe of this thread.
+     * @return Index of the slot
+     */
+    private int stripe() {
+        return ((int) Thread.currentThread().getId() & this.stripes - 1)
+            * Buffers.DEPTH;
+    }
+
+    /**
+     * Size class of a buffer.
+     * @param size Size of the buffer
+     * @return Index of the class, or -1 if it is too big to pool
+     */
+    private static int sizeClass(final int size) {
+        final int cls;
+        if (size > 1 << Buffers.MAX) {
+            cls = -1;
+        } else if (size <= 1 << Buffers.MIN) {
+            cls = 0;
+        } else {
+            cls = Integer.SIZE - Integer.numberOfLeadingZeros(size - 1)
+                - Buffers.MIN;
+        }
+        return cls;
+    }
+
+    /**
+     * Capacity of buffers of a size class.
+     * @param cls Index of the class, or -1
+     * @return Bytes, zero for -1
+     */
+    private static int capacity(final int cls) {
+        final int capacity;
+        if (cls < 0) {
+            capacity = 0;
+        } else {
+            capacity = 1 << cls + Buffers.MIN;
+        }
+        return capacity;
+    }
+
+    /**
+     * Size of a buffer.
+     * @param buffer Array or direct buffer
+     * @return Bytes
+     */
+    private static int size(final Object buffer) {
+        final int size;
+        if (buffer instanceof byte[]) {
+            size = ((byte[]) buffer).length;
+        } else {
+            size = ((ByteBuffer) buffer).capacity();
+        }
+        return size;
+    }
+
+    /**
+     * Leak detector.
+     *
+     * <p>Every buffer taken gets a weak reference, which the garbage
+     * collector enqueues if the buffer is collected before it is given
+     * back.
+     *
+     * @since 2.0
+     */
+    private static final class Leaks {
+
+        /**
+         * References to buffers taken, by identity hash codes of buffers.
+         */
+        private final Map<Integer, Collection<Buffers.Track>> taken;
+
+        /**
+         * References to buffers collected.
+         */
+        private final ReferenceQueue<Object> collected;
+
+        /**
+         * Leaks found, but not reported yet.
+         */
+        private final ConcurrentLinkedQueue<Throwable> found;
+
+        /**
+         * Ctor.
+         */
+        Leaks() {
+            this.taken = new ConcurrentHashMap<>(0);
+            this.collected = new ReferenceQueue<>();
+            this.found = new ConcurrentLinkedQueue<>();
+        }
+
+        /**
+         * A buffer is taken.
+         * @param buffer The buffer
+         */
+        void taken(final Object buffer) {
+            this.collect();
+            final Buffers.Track track = new Buffers.Track(
+                buffer, this.collected
+            );
+            this.taken.compute(
+                track.hash,
+                (hash, tracks) -> {
+                    Collection<Buffers.Track> all = tracks;
+                    if (all == null) {
+                        all = new ArrayList<>(1);
+                    }
+                    all.add(track);
+                    return all;
+                }
+            );
+        }
+
+        /**
+         * A buffer is given back.
+         * @param buffer The buffer
+         */
+        void given(final Object buffer) {
+            this.taken.computeIfPresent(
+                System.identityHashCode(buffer),
+                (hash, tracks) -> {
+                    final Iterator<Buffers.Track> iter = tracks.iterator();
+                    while (iter.hasNext()) {
+                        final Buffers.Track track = iter.next();
+                        if (track.get() == buffer) {
+                            iter.remove();
+                            track.clear();
+                            break;
+                        }
+                    }
+                    return Buffers.Leaks.nonEmpty(tracks);
+                }
+            );
+        }
+
+        /**
+         * Leaks found since the last call.
+         * @return Stack traces of places where they were taken
+         */
+        Collection<Throwable> found() {
+            this.collect();
+            final Collection<Throwable> all = new ArrayList<>(0);
+            while (true) {
+                final Throwable leak = this.found.poll();
+                if (leak == null) {
+                    break;
+                }
+                all.add(leak);
+            }
+            return all;
+        }
+
+        /**
+         * Find buffers collected without being given back.
+         */
+        private void collect() {
+            while (true) {
+                final Reference<?> ref = this.collected.poll();
+                if (ref == null) {
+                    break;
+                }
+                final Buffers.Track track = (Buffers.Track) ref;
+                this.taken.computeIfPresent(
+                    track.hash,
+                    (hash, tracks) -> {
+                        if (tracks.remove(track)) {
+                            this.found.add(track.trace);
+                        }
+                        return Buffers.Leaks.nonEmpty(tracks);
+                    }
+                );
+            }
+        }
+
+        /**
+         * The collection, unless it is empty.
+         * @param tracks Collection of references
+         * @return The same collection or NULL, to remove it from the map
+         */
+        private static Collection<Buffers.Track> nonEmpty(
+            final Collection<Buffers.Track> tracks) {
+            Collection<Buffers.Track> same = tracks;
+            if (tracks.isEmpty()) {
+                same = null;
+            }
+            return same;
+        }
+    }
+
+    /**
+     * Weak reference to a buffer taken.
+     *
+     * @since 2.0
+     */
+    private static final class Track extends WeakReference<Object> {
+
+        /**
+         * Identity hash code of the buffer.
+         */
+        private final int hash;
+
+        /**
+         * Where it was taken.
+         */
+        private final Throwable trace;
+
+        /**
+         * Ctor.
+         * @param buffer The buffer
+         * @param queue Queue of collected buffers
+         */
+        Track(final Object buffer, final ReferenceQueue<Object> queue) {
+            super(buffer, queue);
+            this.hash = System.identityHashCode(buffer);
+            this.trace = new IllegalStateException(
+                String.format(
+                    "%s of %d bytes was never given back to the pool",
+                    buffer.getClass().getSimpleName(),
+                    Buffers.size(buffer)
+                )
+            );
+        }
+    }
+}
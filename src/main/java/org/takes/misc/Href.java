@@ -29,18 +29,29 @@ import java.net.URISyntaxException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.regex.Pattern;
+import org.cactoos.Scalar;
+import org.cactoos.scalar.Solid;
+import org.cactoos.scalar.Unchecked;
 import org.cactoos.text.FormattedText;
 
 /**
  * HTTP URI/HREF.
  *
+ * <p>The text is split into parts as is, without {@link URI}, unless
+ * it has characters not allowed in a URI, which are encoded first.
+ * The query is split into params only when they are needed, and their
+ * values are decoded only when they are asked for. To change a few
+ * params at once, use {@link #builder()}, which copies them once,
+ * instead of {@link #with(Object, Object)} and {@link #without(Object)},
+ * which copy them on every call.
+ *
  * <p>The class is immutable and thread-safe.
  * @since 0.7
  */
@@ -54,19 +65,24 @@ import org.cactoos.text.FormattedText;
 public final class Href implements CharSequence {
 
     /**
-     * Pattern matching trailing slash.
+     * Characters allowed in a URI as they are, besides letters and digits.
+     */
+    private static final String LEGAL = "-._~!$&'()*+,;=:@/?";
+
+    /**
+     * Characters that {@link URLEncoder} keeps, besides letters and digits.
      */
-    private static final Pattern TRAILING_SLASH = Pattern.compile("/$");
+    private static final String SAFE = ".-*_";
 
     /**
      * URI (without query and fragment parts).
      */
-    private final URI uri;
+    private final String uri;
 
     /**
-     * Params.
+     * Params, by decoded names, with values not decoded.
      */
-    private final SortedMap<String, List<String>> params;
+    private final Scalar<SortedMap<String, List<String>>> params;
 
     /**
      * Fragment.
@@ -85,16 +101,19 @@ public final class Href implements CharSequence {
      * @param txt Text of the link
      */
     public Href(final CharSequence txt) {
-        this(Href.createUri(txt.toString()));
+        this(Href.split(Href.createUri(txt.toString())));
     }
 
     /**
      * Ctor.
-     * @param link The link
+     * @param parts URI, query and fragment, the last two maybe NULL
      */
-    private Href(final URI link) {
-        this(Href.createBare(link), Href.asMap(link.getRawQuery()),
-            Href.readFragment(link));
+    private Href(final String[] parts) {
+        this(
+            parts[0],
+            new Solid<>(() -> Href.asMap(parts[1])),
+            Href.readFragment(parts[2])
+        );
     }
 
     /**
@@ -103,8 +122,8 @@ public final class Href implements CharSequence {
      * @param map Map of params
      * @param frgmnt Fragment part
      */
-    private Href(final URI link,
-        final SortedMap<String, List<String>> map,
+    private Href(final String link,
+        final Scalar<SortedMap<String, List<String>>> map,
         final Opt<String> frgmnt) {
         this.uri = link;
         this.params = map;
@@ -129,21 +148,20 @@ public final class Href implements CharSequence {
     @Override
     public String toString() {
         final StringBuilder text = new StringBuilder(this.bare());
-        if (!this.params.isEmpty()) {
-            boolean first = true;
-            for (final Map.Entry<String, List<String>> ent
-                : this.params.entrySet()) {
-                for (final String value : ent.getValue()) {
-                    if (first) {
-                        text.append('?');
-                        first = false;
-                    } else {
-                        text.append('&');
-                    }
-                    text.append(Href.encode(ent.getKey()));
-                    if (!value.isEmpty()) {
-                        text.append('=').append(Href.encode(value));
-                    }
+        boolean first = true;
+        for (final Map.Entry<String, List<String>> ent
+            : this.map().entrySet()) {
+            for (final String raw : ent.getValue()) {
+                if (first) {
+                    text.append('?');
+                    first = false;
+                } else {
+                    text.append('&');
+                }
+                text.append(Href.encode(ent.getKey()));
+                final String value = Href.decode(raw);
+                if (!value.isEmpty()) {
+                    text.append('=').append(Href.encode(value));
                 }
             }
         }
@@ -160,7 +178,14 @@ public final class Href implements CharSequence {
      * @since 0.9
      */
     public String path() {
-        return this.uri.getPath();
+        final String path = this.uri.substring(Href.start(this.uri));
+        final String decoded;
+        if (path.indexOf('%') < 0) {
+            decoded = path;
+        } else {
+            decoded = Href.unescape(path);
+        }
+        return decoded;
     }
 
     /**
@@ -169,11 +194,14 @@ public final class Href implements CharSequence {
      * @since 0.14
      */
     public String bare() {
-        final StringBuilder text = new StringBuilder(this.uri.toString());
-        if (this.uri.getPath().isEmpty()) {
-            text.append('/');
+        final String bare;
+        if (Href.start(this.uri) == this.uri.length()) {
+            bare = new StringBuilder(this.uri.length() + 1)
+                .append(this.uri).append('/').toString();
+        } else {
+            bare = this.uri;
         }
-        return text.toString();
+        return bare;
     }
 
     /**
@@ -183,20 +211,25 @@ public final class Href implements CharSequence {
      * @since 0.9
      */
     public Iterable<String> param(final Object key) {
-        final List<String> values = this.params.getOrDefault(
+        final SortedMap<String, List<String>> map = this.map();
+        final List<String> raw = map.getOrDefault(
             key.toString(),
             Collections.emptyList()
         );
         final Iterable<String> iter;
-        if (values.isEmpty()) {
+        if (raw.isEmpty()) {
             iter = new VerboseIterable<>(
                 Collections.emptyList(),
                 new FormattedText(
                     "there are no URI params by name \"%s\" among %d others",
-                    key, this.params.size()
+                    key, map.size()
                 )
             );
         } else {
+            final List<String> values = new ArrayList<>(raw.size());
+            for (final String value : raw) {
+                values.add(Href.decode(value));
+            }
             iter = new VerboseIterable<>(
                 values,
                 new FormattedText(
@@ -214,15 +247,13 @@ public final class Href implements CharSequence {
      * @return New HREF
      */
     public Href path(final Object suffix) {
+        final StringBuilder text = new StringBuilder(this.uri);
+        if (text.length() > 0 && text.charAt(text.length() - 1) == '/') {
+            text.setLength(text.length() - 1);
+        }
         return new Href(
-            URI.create(
-                new StringBuilder(
-                    Href.TRAILING_SLASH.matcher(this.uri.toString())
-                        .replaceAll("")
-                )
-                .append('/')
-                .append(Href.encode(suffix.toString())).toString()
-            ),
+            text.append('/').append(Href.encode(suffix.toString()))
+                .toString(),
             this.params,
             this.fragment
         );
@@ -235,12 +266,7 @@ public final class Href implements CharSequence {
      * @return New HREF
      */
     public Href with(final Object key, final Object value) {
-        final SortedMap<String, List<String>> map = new TreeMap<>(this.params);
-        if (!map.containsKey(key.toString())) {
-            map.put(key.toString(), new LinkedList<>());
-        }
-        map.get(key.toString()).add(value.toString());
-        return new Href(this.uri, map, this.fragment);
+        return this.builder().with(key, value).build();
     }
 
     /**
@@ -249,9 +275,24 @@ public final class Href implements CharSequence {
      * @return New HREF
      */
     public Href without(final Object key) {
-        final SortedMap<String, List<String>> map = new TreeMap<>(this.params);
-        map.remove(key.toString());
-        return new Href(this.uri, map, this.fragment);
+        return this.builder().without(key).build();
+    }
+
+    /**
+     * Builder of a new HREF, with other params.
+     * @return Builder
+     * @since 2.0
+     */
+    public Href.Builder builder() {
+        return new Href.Builder(this.uri, this.map(), this.fragment);
+    }
+
+    /**
+     * Params.
+     * @return Map of them
+     */
+    private SortedMap<String, List<String>> map() {
+        return new Unchecked<>(this.params).value();
     }
 
     /**
@@ -260,13 +301,26 @@ public final class Href implements CharSequence {
      * @return Encoded
      */
     private static String encode(final String txt) {
-        try {
-            return URLEncoder.encode(
-                txt, Charset.defaultCharset().name()
-            );
-        } catch (final UnsupportedEncodingException ex) {
-            throw new IllegalStateException(ex);
+        boolean safe = true;
+        for (int idx = 0; safe && idx < txt.length(); ++idx) {
+            final char chr = txt.charAt(idx);
+            // @checkstyle MagicNumber (1 line)
+            safe = chr < 128 && (Character.isLetterOrDigit(chr)
+                || Href.SAFE.indexOf(chr) >= 0);
+        }
+        final String encoded;
+        if (safe) {
+            encoded = txt;
+        } else {
+            try {
+                encoded = URLEncoder.encode(
+                    txt, Charset.defaultCharset().name()
+                );
+            } catch (final UnsupportedEncodingException ex) {
+                throw new IllegalStateException(ex);
+            }
         }
+        return encoded;
     }
 
     /**
@@ -275,110 +329,327 @@ public final class Href implements CharSequence {
      * @return Decoded
      */
     private static String decode(final String txt) {
-        try {
-            return URLDecoder.decode(
-                txt, Charset.defaultCharset().name()
-            );
-        } catch (final UnsupportedEncodingException ex) {
-            throw new IllegalStateException(ex);
+        final String decoded;
+        if (txt.indexOf('%') < 0 && txt.indexOf('+') < 0) {
+            decoded = txt;
+        } else {
+            try {
+                decoded = URLDecoder.decode(
+                    txt, Charset.defaultCharset().name()
+                );
+            } catch (final UnsupportedEncodingException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Decode escaped octets in the path, as {@link URI#getPath()} does.
+     * @param path The path, with escaped octets
+     * @return Decoded path
+     */
+    private static String unescape(final String path) {
+        final StringBuilder text = new StringBuilder(path.length());
+        final byte[] bytes = new byte[path.length() / 3];
+        int idx = 0;
+        while (idx < path.length()) {
+            if (path.charAt(idx) == '%') {
+                int len = 0;
+                while (idx < path.length() && path.charAt(idx) == '%') {
+                    bytes[len] = (byte) Integer.parseInt(
+                        // @checkstyle MagicNumber (1 line)
+                        path.substring(idx + 1, idx + 3), 16
+                    );
+                    ++len;
+                    idx += 3;
+                }
+                text.append(new String(bytes, 0, len, StandardCharsets.UTF_8));
+            } else {
+                text.append(path.charAt(idx));
+                ++idx;
+            }
         }
+        return text.toString();
     }
 
     /**
      * Parses the specified content to create the corresponding {@code URI}
-     * instance. In case of an {@code URISyntaxException}, it will automatically
+     * text. In case of an {@code URISyntaxException}, it will automatically
      * encode the character that causes the issue then it will try again
      * if it is possible otherwise an {@code IllegalArgumentException} will
-     * be thrown.
+     * be thrown. The text that has only characters allowed in a URI is
+     * not parsed.
      * @param txt The content to parse
-     * @return The {@code URI} corresponding to the specified content.
+     * @return The text of the {@code URI} corresponding to the content
      * @throws IllegalArgumentException in case the content could not be parsed
      * @throws IllegalStateException in case an invalid character could not be
      *  encoded properly.
      */
-    private static URI createUri(final String txt) {
-        URI result;
-        try {
-            result = new URI(txt);
-        } catch (final URISyntaxException ex) {
-            final int index = ex.getIndex();
-            if (index == -1) {
-                throw new IllegalArgumentException(ex.getMessage(), ex);
+    private static String createUri(final String txt) {
+        String result;
+        if (Href.legal(txt)) {
+            result = txt;
+        } else {
+            try {
+                result = new URI(txt).toString();
+            } catch (final URISyntaxException ex) {
+                final int index = ex.getIndex();
+                if (index == -1) {
+                    throw new IllegalArgumentException(ex.getMessage(), ex);
+                }
+                final StringBuilder value = new StringBuilder(txt);
+                value.replace(
+                    index,
+                    index + 1,
+                    Href.encode(value.substring(index, index + 1))
+                );
+                result = Href.createUri(value.toString());
             }
-            final StringBuilder value = new StringBuilder(txt);
-            value.replace(
-                index,
-                index + 1,
-                Href.encode(value.substring(index, index + 1))
-            );
-            result = Href.createUri(value.toString());
         }
         return result;
     }
 
+    /**
+     * Does the text have only characters allowed in a URI, in their
+     * places?
+     * @param txt The text
+     * @return TRUE if it may be used without parsing
+     */
+    private static boolean legal(final String txt) {
+        int first = 0;
+        while (first < txt.length() && ":/?#".indexOf(txt.charAt(first)) < 0) {
+            ++first;
+        }
+        boolean legal = first == txt.length() || txt.charAt(first) != ':'
+            || Href.scheme(txt) == first;
+        boolean hash = false;
+        for (int idx = 0; legal && idx < txt.length(); ++idx) {
+            final char chr = txt.charAt(idx);
+            if (chr == '%') {
+                legal = idx + 2 < txt.length()
+                    // @checkstyle MagicNumber (2 lines)
+                    && Character.digit(txt.charAt(idx + 1), 16) >= 0
+                    && Character.digit(txt.charAt(idx + 2), 16) >= 0;
+            } else if (chr == '#') {
+                legal = !hash;
+                hash = true;
+            } else {
+                // @checkstyle MagicNumber (1 line)
+                legal = chr < 128 && (Character.isLetterOrDigit(chr)
+                    || Href.LEGAL.indexOf(chr) >= 0);
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Position of the colon after the scheme.
+     * @param txt The text
+     * @return Position or -1 if there is no scheme
+     */
+    private static int scheme(final String txt) {
+        int idx = 0;
+        while (idx < txt.length()) {
+            final char chr = txt.charAt(idx);
+            // @checkstyle MagicNumber (1 line)
+            if (chr >= 128 || !Character.isLetter(chr) && (idx == 0
+                || !Character.isDigit(chr) && "+-.".indexOf(chr) < 0)) {
+                break;
+            }
+            ++idx;
+        }
+        final int colon;
+        if (idx > 0 && idx < txt.length() && txt.charAt(idx) == ':') {
+            colon = idx;
+        } else {
+            colon = -1;
+        }
+        return colon;
+    }
+
+    /**
+     * Position of the path, after the scheme and the authority.
+     * @param txt The URI, without query and fragment
+     * @return Position
+     */
+    private static int start(final String txt) {
+        int start = Href.scheme(txt) + 1;
+        if (txt.startsWith("//", start)) {
+            start = txt.indexOf('/', start + 2);
+            if (start < 0) {
+                start = txt.length();
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Split the link into URI, query and fragment.
+     * @param link The link
+     * @return Parts, the query and the fragment are NULL if absent
+     */
+    private static String[] split(final String link) {
+        final String[] parts = new String[3];
+        String rest = link;
+        final int hash = rest.indexOf('#');
+        if (hash >= 0) {
+            parts[2] = rest.substring(hash + 1);
+            rest = rest.substring(0, hash);
+        }
+        final int quest = rest.indexOf('?');
+        if (quest >= 0) {
+            parts[1] = rest.substring(quest + 1);
+            rest = rest.substring(0, quest);
+        }
+        parts[0] = rest;
+        return parts;
+    }
+
     /**
      * Convert the provided query into a Map.
-     * @param query The query to parse.
-     * @return A map containing all the query arguments and their values.
+     * @param query The query to parse, maybe NULL
+     * @return A map of the names of all the query arguments to their
+     *  values, not decoded
      */
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     private static SortedMap<String, List<String>> asMap(final String query) {
         final SortedMap<String, List<String>> params = new TreeMap<>();
         if (query != null) {
             for (final String pair : query.split("&")) {
-                final String[] parts = pair.split("=", 2);
-                final String key = Href.decode(parts[0]);
+                final int equals = pair.indexOf('=');
+                final String key;
                 final String value;
-                if (parts.length > 1) {
-                    value = Href.decode(parts[1]);
-                } else {
+                if (equals < 0) {
+                    key = Href.decode(pair);
                     value = "";
+                } else {
+                    key = Href.decode(pair.substring(0, equals));
+                    value = pair.substring(equals + 1);
                 }
-                if (!params.containsKey(key)) {
-                    params.put(key, new LinkedList<>());
-                }
-                params.get(key).add(value);
+                params.computeIfAbsent(key, name -> new ArrayList<>(1))
+                    .add(value);
             }
         }
-        return params;
+        return Collections.unmodifiableSortedMap(params);
     }
 
     /**
-     * Remove query and fragment parts from the provided URI and
-     *   return the resulting URI.
-     * @param link The link from which parts need to be removed.
-     * @return The URI corresponding to the same provided URI but without
-     *  query and fragment parts.
+     * Read fragment part.
+     * @param raw The fragment, or NULL if there is no fragment
+     * @return Opt with fragment or empty if there is no fragment.
      */
-    private static URI createBare(final URI link) {
-        final URI uri;
-        if (link.getRawQuery() == null && link.getRawFragment() == null) {
-            uri = link;
+    private static Opt<String> readFragment(final String raw) {
+        final Opt<String> fragment;
+        if (raw == null) {
+            fragment = new Opt.Empty<>();
         } else {
-            final String href = link.toString();
-            final int idx;
-            if (link.getRawQuery() == null) {
-                idx = href.indexOf('#');
-            } else {
-                idx = href.indexOf('?');
-            }
-            uri = URI.create(href.substring(0, idx));
+            fragment = new Opt.Single<>(raw);
         }
-        return uri;
+        return fragment;
     }
 
     /**
-     * Read fragment part from the given URI.
-     * @param link The link from which the fragment needs to be returned.
-     * @return Opt with fragment or empty if there is no fragment.
+     * Builder of an HREF with other params.
+     *
+     * <p>The params are copied once, on the first change, and not on
+     * every change, as {@link Href#with(Object, Object)} and
+     * {@link Href#without(Object)} do:
+     *
+     * <pre> final Href next = href.builder()
+     *   .without("page")
+     *   .with("page", 2)
+     *   .with("sort", "name")
+     *   .build();</pre>
+     *
+     * <p>The class is mutable and NOT thread-safe.
+     * @since 2.0
      */
-    private static Opt<String> readFragment(final URI link) {
-        final Opt<String> fragment;
-        if (link.getRawFragment() == null) {
-            fragment = new Opt.Empty<>();
-        } else {
-            fragment = new Opt.Single<>(link.getRawFragment());
+    public static final class Builder {
+
+        /**
+         * URI (without query and fragment parts).
+         */
+        private final String uri;
+
+        /**
+         * Fragment.
+         */
+        private final Opt<String> fragment;
+
+        /**
+         * Params, by decoded names, with values not decoded.
+         */
+        private SortedMap<String, List<String>> params;
+
+        /**
+         * Are the params copied, so they may be changed?
+         */
+        private boolean own;
+
+        /**
+         * Ctor.
+         * @param link The link
+         * @param map Map of params, which is not changed
+         * @param frgmnt Fragment part
+         */
+        Builder(final String link, final SortedMap<String, List<String>> map,
+            final Opt<String> frgmnt) {
+            this.uri = link;
+            this.params = map;
+            this.fragment = frgmnt;
+        }
+
+        /**
+         * Add this extra param.
+         * @param key Key of the param
+         * @param value The value
+         * @return This builder
+         */
+        public Href.Builder with(final Object key, final Object value) {
+            this.copy();
+            this.params.computeIfAbsent(
+                key.toString(), name -> new ArrayList<>(1)
+            ).add(Href.encode(value.toString()));
+            return this;
+        }
+
+        /**
+         * Without this query param.
+         * @param key Key of the param
+         * @return This builder
+         */
+        public Href.Builder without(final Object key) {
+            if (this.params.containsKey(key.toString())) {
+                this.copy();
+                this.params.remove(key.toString());
+            }
+            return this;
+        }
+
+        /**
+         * Build the HREF.
+         * @return New HREF
+         */
+        public Href build() {
+            final SortedMap<String, List<String>> map =
+                Collections.unmodifiableSortedMap(this.params);
+            this.own = false;
+            return new Href(this.uri, () -> map, this.fragment);
+        }
+
+        /**
+         * Copy the params, unless they are copied already.
+         */
+        private void copy() {
+            if (!this.own) {
+                final SortedMap<String, List<String>> map = new TreeMap<>();
+                for (final Map.Entry<String, List<String>> ent
+                    : this.params.entrySet()) {
+                    map.put(ent.getKey(), new ArrayList<>(ent.getValue()));
+                }
+                this.params = map;
+                this.own = true;
+            }
         }
-        return fragment;
     }
 }
@@ -23,45 +23,72 @@
  */
 package org.takes.rq;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.Charset;
-import org.cactoos.Text;
-import org.cactoos.scalar.Ternary;
-import org.cactoos.scalar.Unchecked;
-import org.cactoos.text.Sub;
-import org.cactoos.text.TextOf;
-import org.cactoos.text.Trimmed;
-import org.cactoos.text.UncheckedText;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.takes.HttpException;
 
 /**
  * Input stream from chunked coded http request body.
  *
+ * <p>The chunk data is read in bulk, straight into the buffer of the
+ * caller, across as many chunks as are already available. If the
+ * stream supports {@link InputStream#mark(int)}, like
+ * {@link java.io.BufferedInputStream} does, the chunk-size lines are
+ * read in bulk too and the stream is then reset to the first byte
+ * after the line, so nothing after the last chunk is lost for the
+ * next request on the same connection. Otherwise, they are read byte
+ * by byte.
+ *
+ * <p>A line may not be longer than 8 KB, a chunk extension longer
+ * than 1 KB, and all the trailers together longer than 8 KB; such
+ * a body is refused with HTTP status 400. The trailers are available
+ * through {@link #trailers()}, once the last chunk is read.
+ *
+ * <p>The class is NOT thread-safe.
+ *
  * @since 0.31.2
  * @checkstyle LineLengthCheck (1 lines)
- * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
- * @link <a href="https://www.w3.org/Protocols/rfc2616/rfc2616-sec3.html#sec3.6.1">Chunked Transfer Coding</a>
+ * @link <a href="https://tools.ietf.org/html/rfc7230#section-4.1">Chunked Transfer Coding</a>
  */
 final class ChunkedInputStream extends InputStream {
 
+    /**
+     * Maximum length of a line, without its CRLF.
+     */
+    private static final int LINE = 8192;
+
+    /**
+     * Maximum length of a chunk extension.
+     */
+    private static final int EXTENSION = 1024;
+
     /**
      * The inputstream that we're wrapping.
      */
     private final InputStream origin;
 
     /**
-     * The chunk size.
+     * Buffer of the current line, with its CRLF.
+     */
+    private final byte[] line;
+
+    /**
+     * Trailers, when the last chunk is read.
      */
-    private int size;
+    private final List<String> trailing;
 
     /**
-     * The current position within the current chunk.
+     * How many bytes of the current chunk are not read yet.
      */
-    private int pos;
+    private int left;
 
     /**
-     * True if we'are at the beginning of stream.
+     * True if we're at the beginning of stream.
      */
     private boolean bof;
 
@@ -76,21 +103,26 @@ final class ChunkedInputStream extends InputStream {
      */
     ChunkedInputStream(final InputStream stream) {
         super();
-        this.bof = true;
         this.origin = stream;
+        this.line = new byte[ChunkedInputStream.LINE + 2];
+        this.trailing = new ArrayList<>(0);
+        this.bof = true;
     }
 
     @Override
     public int read() throws IOException {
-        if (!this.eof && this.pos >= this.size) {
+        if (!this.eof && this.left == 0) {
             this.nextChunk();
         }
         final int result;
         if (this.eof) {
             result = -1;
         } else {
-            ++this.pos;
             result = this.origin.read();
+            if (result < 0) {
+                throw ChunkedInputStream.ended();
+            }
+            --this.left;
         }
         return result;
     }
@@ -98,238 +130,263 @@ final class ChunkedInputStream extends InputStream {
     @Override
     public int read(final byte[] buf, final int off, final int len)
         throws IOException {
-        if (!this.eof && this.pos >= this.size) {
-            this.nextChunk();
+        int total = 0;
+        while (total < len && !this.eof
+            && (total == 0 || this.origin.available() > 0)) {
+            if (this.left == 0) {
+                this.nextChunk();
+            } else {
+                final int read = this.origin.read(
+                    buf, off + total, Math.min(len - total, this.left)
+                );
+                if (read < 0) {
+                    throw ChunkedInputStream.ended();
+                }
+                total += read;
+                this.left -= read;
+            }
         }
         final int result;
-        if (this.eof) {
+        if (total == 0 && this.eof && len > 0) {
             result = -1;
         } else {
-            final int shift = Math.min(len, this.size - this.pos);
-            final int count = this.origin.read(buf, off, shift);
-            this.pos += count;
-            if (shift == len) {
-                result = len;
-            } else {
-                result = shift + this.read(buf, off + shift, len - shift);
-            }
+            result = total;
         }
         return result;
     }
 
     @Override
-    public int read(final byte[] buf) throws IOException {
-        return this.read(buf, 0, buf.length);
+    public int available() throws IOException {
+        final int available;
+        if (this.eof) {
+            available = 0;
+        } else {
+            available = Math.min(this.left, this.origin.available());
+        }
+        return available;
     }
 
     /**
-     * Read the CRLF terminator.
-     * @throws IOException If an IO error occurs.
+     * Trailers, sent after the last chunk.
+     * @return Header lines, empty until the last chunk is read
      */
-    private void readCrlf() throws IOException {
-        final int crsymbol = this.origin.read();
-        final int lfsymbol = this.origin.read();
-        if (crsymbol != '\r' || lfsymbol != '\n') {
-            throw new IOException(
-                String.format(
-                    "%s %d%s%d",
-                    "CRLF expected at end of chunk: ",
-                    crsymbol,
-                    "/",
-                    lfsymbol
-                )
-            );
-        }
+    List<String> trailers() {
+        return Collections.unmodifiableList(this.trailing);
     }
 
     /**
-     * Read the next chunk.
+     * Read the next chunk-size line, and the trailers after the last
+     * chunk.
      * @throws IOException If an IO error occurs.
      */
     private void nextChunk() throws IOException {
-        if (!this.bof) {
-            this.readCrlf();
+        if (!this.bof && this.readLine(0) != 0) {
+            throw ChunkedInputStream.bad("CRLF expected at end of chunk");
         }
-        this.size = ChunkedInputStream.chunkSize(this.origin);
+        final int len = this.readLine(ChunkedInputStream.LINE);
+        if (len < 0) {
+            throw ChunkedInputStream.ended();
+        }
+        this.left = this.chunkSize(len);
         this.bof = false;
-        this.pos = 0;
-        if (this.size == 0) {
+        if (this.left == 0) {
             this.eof = true;
+            this.readTrailers();
         }
     }
 
     /**
-     * Expects the stream to start with a chunksize in hex with optional
-     * comments after a semicolon. The line must end with a CRLF: "a3; some
-     * comment\r\n" Positions the stream at the start of the next line.
-     * @param stream The new input stream.
-     * @return The chunk size as integer
-     * @throws IOException when the chunk size could not be parsed
+     * Parse the chunk size in hex, with optional extensions after
+     * a semicolon, like in "a3; name=value".
+     * @param len Length of the line
+     * @return The chunk size
+     * @throws IOException If the chunk size could not be parsed
      */
-    private static int chunkSize(final InputStream stream)
-        throws IOException {
-        final ByteArrayOutputStream baos = ChunkedInputStream.sizeLine(stream);
-        final String data = baos.toString(Charset.defaultCharset().name());
-        final int separator = data.indexOf(';');
-        final Text number = new Trimmed(
-            new Unchecked<>(
-                new Ternary<>(
-                    separator > 0,
-                    new Sub(data, 0, separator),
-                    new TextOf(data)
-                )
-            ).value()
-        );
-        try {
-            // @checkstyle MagicNumberCheck (10 lines)
-            return Integer.parseInt(
-                new UncheckedText(
-                    number
-                ).asString(),
-                16
-            );
-        } catch (final NumberFormatException ex) {
-            throw new IOException(
-                String.format(
-                    "Bad chunk size: %s",
-                    baos.toString(Charset.defaultCharset().name())
-                ),
-                ex
-            );
+    private int chunkSize(final int len) throws IOException {
+        int idx = this.blanks(0, len);
+        final int start = idx;
+        long size = 0L;
+        for (; idx < len; ++idx) {
+            // @checkstyle MagicNumber (1 line)
+            final int digit = Character.digit(this.line[idx], 16);
+            if (digit < 0) {
+                break;
+            }
+            // @checkstyle MagicNumber (1 line)
+            size = (size << 4) + digit;
+            if (size > Integer.MAX_VALUE) {
+                throw this.badSize(len);
+            }
+        }
+        if (idx == start) {
+            throw this.badSize(len);
+        }
+        idx = this.blanks(idx, len);
+        if (idx < len && this.line[idx] != ';') {
+            throw this.badSize(len);
         }
+        if (len - idx - 1 > ChunkedInputStream.EXTENSION) {
+            throw ChunkedInputStream.bad("Chunk extension is too long");
+        }
+        return (int) size;
     }
 
     /**
-     * Possible states of FSM that used to find chunk size.
+     * Read the trailers, until an empty line or the end of the stream.
+     * @throws IOException If an IO error occurs.
      */
-    private enum State {
-        /**
-         * Normal.
-         */
-        NORMAL,
-        /**
-         * If \r was scanned.
-         */
-        R,
-        /**
-         * Inside quoted string.
-         */
-        QUOTED_STRING,
-        /**
-         * End.
-         */
-        END;
+    private void readTrailers() throws IOException {
+        int total = 0;
+        for (int len = this.readLine(ChunkedInputStream.LINE); len > 0;
+            len = this.readLine(ChunkedInputStream.LINE)) {
+            total += len;
+            if (total > ChunkedInputStream.LINE) {
+                throw ChunkedInputStream.bad("Trailers are too long");
+            }
+            final String trailer = new String(
+                this.line, 0, len, StandardCharsets.ISO_8859_1
+            );
+            if (trailer.indexOf(':') <= 0) {
+                throw ChunkedInputStream.bad(
+                    String.format("Bad trailer: %s", trailer)
+                );
+            }
+            this.trailing.add(trailer);
+        }
     }
 
     /**
-     * Extract line with chunk size from stream.
-     * @param stream Input stream.
-     * @return Line with chunk size.
-     * @throws IOException If fails.
+     * Read the next line into the buffer.
+     * @param max Maximum length of the line, without its CRLF
+     * @return Length of the line, without its CRLF, or -1 if the stream
+     *  ended before it
+     * @throws IOException If an IO error occurs.
      */
-    private static ByteArrayOutputStream sizeLine(final InputStream stream)
-        throws IOException {
-        State state = State.NORMAL;
-        final ByteArrayOutputStream result = new ByteArrayOutputStream();
-        while (state != State.END) {
-            state = next(stream, state, result);
+    private int readLine(final int max) throws IOException {
+        final int end;
+        if (this.origin.markSupported()) {
+            end = this.bulk(max + 2);
+        } else {
+            end = this.bytes(max + 2);
         }
-        return result;
+        int len = end;
+        if (len > 0 && this.line[len - 1] == '\r') {
+            --len;
+        }
+        return len;
     }
 
     /**
-     * Get next state for FSM.
-     * @param stream Input stream.
-     * @param state Current state.
-     * @param line Current chunk size line.
-     * @return New state.
-     * @throws IOException If fails.
+     * Read the next line in bulk and return the stream to the first
+     * byte after it.
+     * @param max Maximum length of the line, with its CRLF
+     * @return Position of LF, or -1 if the stream ended before the line
+     * @throws IOException If an IO error occurs.
      */
-    private static State next(final InputStream stream, final State state,
-        final ByteArrayOutputStream line) throws IOException {
-        final int next = stream.read();
-        if (next == -1) {
-            throw new IOException("chunked stream ended unexpectedly");
-        }
-        final State result;
-        switch (state) {
-            case NORMAL:
-                result = nextNormal(state, line, next);
+    private int bulk(final int max) throws IOException {
+        this.origin.mark(max);
+        int got = 0;
+        int end = -1;
+        while (end < 0) {
+            if (got == max) {
+                throw ChunkedInputStream.bad("Line is too long");
+            }
+            final int read = this.origin.read(this.line, got, max - got);
+            if (read < 0) {
                 break;
-            case R:
-                if (next == '\n') {
-                    result = State.END;
-                } else {
-                    throw new IOException(
-                        String.format(
-                            "%s%s",
-                            "Protocol violation: Unexpected",
-                            " single newline character in chunk size"
-                        )
-                    );
+            }
+            for (int idx = got; idx < got + read; ++idx) {
+                if (this.line[idx] == '\n') {
+                    end = idx;
+                    break;
                 }
-                break;
-            case QUOTED_STRING:
-                result = nextQuoted(stream, state, line, next);
-                break;
-            default:
-                throw new IllegalStateException("Bad state");
+            }
+            got += read;
         }
-        return result;
+        this.origin.reset();
+        if (end < 0 && got > 0) {
+            throw ChunkedInputStream.ended();
+        }
+        long skip = end + 1L;
+        while (skip > 0L) {
+            final long skipped = this.origin.skip(skip);
+            if (skipped <= 0L) {
+                throw ChunkedInputStream.ended();
+            }
+            skip -= skipped;
+        }
+        return end;
     }
 
     /**
-     * Maintain next symbol for current state = State.NORMAL.
-     * @param state Current state.
-     * @param line Current chunk size line.
-     * @param next Next symbol.
-     * @return New state.
+     * Read the next line byte by byte.
+     * @param max Maximum length of the line, with its CRLF
+     * @return Position of LF, or -1 if the stream ended before the line
+     * @throws IOException If an IO error occurs.
      */
-    private static State nextNormal(final State state,
-        final ByteArrayOutputStream line, final int next) {
-        final State result;
-        switch (next) {
-            case '\r':
-                result = State.R;
-                break;
-            case '\"':
-                result = State.QUOTED_STRING;
-                break;
-            default:
-                result = state;
-                line.write(next);
+    private int bytes(final int max) throws IOException {
+        int end = 0;
+        for (int data = this.origin.read(); data != '\n';
+            data = this.origin.read()) {
+            if (data < 0 && end == 0) {
+                end = -1;
                 break;
+            }
+            if (data < 0) {
+                throw ChunkedInputStream.ended();
+            }
+            if (end == max - 1) {
+                throw ChunkedInputStream.bad("Line is too long");
+            }
+            this.line[end] = (byte) data;
+            ++end;
         }
-        return result;
+        return end;
     }
 
     /**
-     * Maintain next symbol for current state = State.QUOTED_STRING.
-     * @param stream Input stream.
-     * @param state Current state.
-     * @param line Current chunk size line.
-     * @param next Next symbol.
-     * @return New state.
-     * @throws IOException If fails.
-     * @checkstyle ParameterNumberCheck (3 lines)
+     * Skip spaces and tabs in the line.
+     * @param from Where to start
+     * @param len Length of the line
+     * @return Position of the first other byte
      */
-    private static State nextQuoted(final InputStream stream, final State state,
-        final ByteArrayOutputStream line, final int next)
-        throws IOException {
-        final State result;
-        switch (next) {
-            case '\\':
-                result = state;
-                line.write(stream.read());
-                break;
-            case '\"':
-                result = State.NORMAL;
-                break;
-            default:
-                result = state;
-                line.write(next);
-                break;
+    private int blanks(final int from, final int len) {
+        int idx = from;
+        while (idx < len && (this.line[idx] == ' ' || this.line[idx] == '\t')) {
+            ++idx;
         }
-        return result;
+        return idx;
+    }
+
+    /**
+     * The exception about a bad chunk size.
+     * @param len Length of the line
+     * @return Exception
+     */
+    private HttpException badSize(final int len) {
+        return ChunkedInputStream.bad(
+            String.format(
+                "Bad chunk size: %s",
+                new String(this.line, 0, len, StandardCharsets.ISO_8859_1)
+            )
+        );
+    }
+
+    /**
+     * The exception about a broken body.
+     * @param msg Message
+     * @return Exception
+     */
+    private static HttpException bad(final String msg) {
+        return new HttpException(HttpURLConnection.HTTP_BAD_REQUEST, msg);
+    }
+
+    /**
+     * The exception about the end of the stream before the end of
+     * the body.
+     * @return Exception
+     */
+    private static IOException ended() {
+        return new IOException("chunked stream ended unexpectedly");
     }
 }
@@ -0,0 +1,227 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rq;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.MatchResult;
+import org.cactoos.Scalar;
+import org.cactoos.scalar.IoChecked;
+import org.cactoos.scalar.Solid;
+import org.takes.HttpException;
+import org.takes.misc.Href;
+
+/**
+ * Head of a request, parsed once.
+ *
+ * <p>This is what {@link RqIndexed} returns from its {@code head()}.
+ * Decorators that don't change the head pass it through as is, so
+ * {@link RqHeaders.Base} and {@link RqRequestLine.Base} find it and
+ * don't parse the lines again. The names and the values of headers
+ * are kept in two arrays, in the order of lines, and a header is
+ * found by a scan of the names, without lowering the key. The HREF
+ * of the request is made once too, by the first {@link RqHref.Base}.
+ *
+ * <p>Broken lines are not reported until a header is requested,
+ * exactly as {@link RqHeaders.Base} does it without the index.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+final class HeadIndex implements Iterable<String> {
+
+    /**
+     * All lines of the head.
+     */
+    private final List<String> lines;
+
+    /**
+     * Lowered names of headers, one per line after the first one.
+     */
+    private final String[] keys;
+
+    /**
+     * Trimmed values of headers, one per line after the first one.
+     */
+    private final String[] values;
+
+    /**
+     * Unique names of headers.
+     */
+    private final Set<String> unique;
+
+    /**
+     * Why the head is broken, or empty if it is not.
+     */
+    private final String error;
+
+    /**
+     * Request-Line, matched once.
+     */
+    private final Scalar<MatchResult> line;
+
+    /**
+     * HREF, once it's made.
+     */
+    private final AtomicReference<Href> link;
+
+    /**
+     * Ctor.
+     * @param head Lines of the head
+     */
+    HeadIndex(final Iterable<String> head) {
+        final List<String> all = new ArrayList<>(16);
+        for (final String txt : head) {
+            all.add(txt);
+        }
+        this.lines = Collections.unmodifiableList(all);
+        final int size = Math.max(all.size() - 1, 0);
+        this.keys = new String[size];
+        this.values = new String[size];
+        final Set<String> names = new LinkedHashSet<>(size << 1);
+        String broken = "";
+        if (all.isEmpty()) {
+            broken =
+                "a valid request must contain at least one line in the head";
+        }
+        for (int idx = 0; idx < size; ++idx) {
+            final String txt = all.get(idx + 1);
+            final int colon = txt.indexOf(':');
+            if (colon < 0) {
+                if (broken.isEmpty()) {
+                    broken = String.format("invalid HTTP header: \"%s\"", txt);
+                }
+                this.keys[idx] = "";
+                this.values[idx] = "";
+                continue;
+            }
+            this.keys[idx] = txt.substring(0, colon).trim()
+                .toLowerCase(Locale.ENGLISH);
+            this.values[idx] = txt.substring(colon + 1).trim();
+            names.add(this.keys[idx]);
+        }
+        this.unique = Collections.unmodifiableSet(names);
+        this.error = broken;
+        this.line = new Solid<>(
+            () -> RqRequestLine.Base.matcher(this.first()).toMatchResult()
+        );
+        this.link = new AtomicReference<>();
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return this.lines.iterator();
+    }
+
+    /**
+     * Values of the header.
+     * @param key Name of the header, in any case
+     * @return Values, in the order of lines, maybe empty
+     * @throws IOException If the head is broken
+     */
+    public List<String> header(final CharSequence key) throws IOException {
+        this.validate();
+        final String name = key.toString();
+        List<String> found = Collections.emptyList();
+        for (int idx = 0; idx < this.keys.length; ++idx) {
+            if (this.keys[idx].equalsIgnoreCase(name)) {
+                if (found.isEmpty()) {
+                    found = new ArrayList<>(1);
+                }
+                found.add(this.values[idx]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Lowered names of all headers.
+     * @return Names
+     * @throws IOException If the head is broken
+     */
+    public Set<String> names() throws IOException {
+        this.validate();
+        return this.unique;
+    }
+
+    /**
+     * Request-Line, matched against the pattern of
+     * {@link RqRequestLine.Base}.
+     * @return Match result
+     * @throws IOException If the Request-Line is absent or invalid
+     */
+    public MatchResult requestLine() throws IOException {
+        return new IoChecked<>(this.line).value();
+    }
+
+    /**
+     * HREF of the request, made only once.
+     * @param make How to make it
+     * @return HREF
+     * @throws IOException If fails to make it
+     */
+    public Href href(final Scalar<Href> make) throws IOException {
+        if (this.link.get() == null) {
+            this.link.compareAndSet(null, new IoChecked<>(make).value());
+        }
+        return this.link.get();
+    }
+
+    /**
+     * The first line.
+     * @return The line
+     * @throws HttpException If there are no lines at all
+     */
+    private String first() throws HttpException {
+        if (this.lines.isEmpty()) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                "HTTP Request should have Request-Line"
+            );
+        }
+        return this.lines.get(0);
+    }
+
+    /**
+     * Make sure the head is not broken.
+     * @throws HttpException If it is
+     */
+    private void validate() throws HttpException {
+        if (!this.error.isEmpty()) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                this.error
+            );
+        }
+    }
+}
@@ -26,13 +26,22 @@ package org.takes.rq;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 import lombok.EqualsAndHashCode;
+import org.cactoos.Scalar;
+import org.cactoos.scalar.IoChecked;
+import org.cactoos.scalar.Solid;
 import org.takes.Request;
+import org.takes.misc.Opt;
 
 /**
  * Request decorator that limits its body, according to
  * the chunk sizes when it is a chunked Transfer-Encoding.
  *
+ * <p>The trailers, sent after the last chunk, are added to the head,
+ * once the body is read to its end.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.15
@@ -46,26 +55,76 @@ public final class RqChunk extends RqWrap {
      * @param req Original request
      */
     public RqChunk(final Request req) {
+        this(req, new Solid<>(() -> RqChunk.chunked(req)));
+    }
+
+    /**
+     * Ctor.
+     * @param req Original request
+     * @param chunked Decoder of the body, if it's chunked
+     */
+    private RqChunk(final Request req,
+        final Scalar<Opt<ChunkedInputStream>> chunked) {
         super(
             new RequestOf(
-                req::head,
-                () -> RqChunk.cap(req)
+                () -> RqChunk.head(req, new IoChecked<>(chunked).value()),
+                () -> RqChunk.cap(req, new IoChecked<>(chunked).value())
             )
         );
     }
 
     /**
-     * Cap the steam.
+     * Decoder of the body, if it's chunked.
      * @param req Request
-     * @return Stream with a cap
+     * @return Decoder or nothing
      * @throws IOException If fails
      */
-    private static InputStream cap(final Request req) throws IOException {
+    private static Opt<ChunkedInputStream> chunked(final Request req)
+        throws IOException {
         final Iterator<String> hdr = new RqHeaders.Base(req)
             .header("Transfer-Encoding").iterator();
-        final InputStream result;
+        final Opt<ChunkedInputStream> result;
         if (hdr.hasNext() && "chunked".equalsIgnoreCase(hdr.next())) {
-            result = new ChunkedInputStream(req.body());
+            result = new Opt.Single<>(new ChunkedInputStream(req.body()));
+        } else {
+            result = new Opt.Empty<>();
+        }
+        return result;
+    }
+
+    /**
+     * The head, with the trailers.
+     * @param req Request
+     * @param chunked Decoder of the body, if it's chunked
+     * @return Head lines
+     * @throws IOException If fails
+     */
+    private static Iterable<String> head(final Request req,
+        final Opt<ChunkedInputStream> chunked) throws IOException {
+        final Iterable<String> head;
+        if (chunked.has() && !chunked.get().trailers().isEmpty()) {
+            final List<String> lines = new LinkedList<>();
+            req.head().forEach(lines::add);
+            lines.addAll(chunked.get().trailers());
+            head = lines;
+        } else {
+            head = req.head();
+        }
+        return head;
+    }
+
+    /**
+     * Cap the steam.
+     * @param req Request
+     * @param chunked Decoder of the body, if it's chunked
+     * @return Stream with a cap
+     * @throws IOException If fails
+     */
+    private static InputStream cap(final Request req,
+        final Opt<ChunkedInputStream> chunked) throws IOException {
+        final InputStream result;
+        if (chunked.has()) {
+            result = chunked.get();
         } else {
             result = req.body();
         }
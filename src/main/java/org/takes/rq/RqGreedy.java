@@ -48,6 +48,21 @@ public final class RqGreedy extends RqWrap {
         super(RqGreedy.consume(req));
     }
 
+    /**
+     * Ctor, keeping not more than {@code memory} bytes of the body on
+     * the heap and the rest in a memory-mapped temporary file.
+     * @param req Original request
+     * @param memory How many bytes to keep on the heap, at most
+     * @param max Maximum size of the body, bigger ones are refused with 413
+     * @throws IOException If fails
+     * @see RqSpooled
+     * @since 2.0
+     */
+    public RqGreedy(final Request req, final int memory, final long max)
+        throws IOException {
+        super(new RqSpooled(req, memory, max));
+    }
+
     /**
      * Consume the request.
      * @param req Request
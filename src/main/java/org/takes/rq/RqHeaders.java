@@ -92,12 +92,22 @@ public interface RqHeaders extends Request {
         @Override
         public List<String> header(final CharSequence key)
             throws IOException {
-            final List<String> values = this.map().getOrDefault(
-                new UncheckedText(
-                    new Lowered(key.toString())
-                ).asString(),
-                Collections.emptyList()
-            );
+            final Iterable<String> head = this.head();
+            final List<String> values;
+            final Set<String> names;
+            if (head instanceof HeadIndex) {
+                values = ((HeadIndex) head).header(key);
+                names = ((HeadIndex) head).names();
+            } else {
+                final Map<String, List<String>> map = RqHeaders.Base.map(head);
+                values = map.getOrDefault(
+                    new UncheckedText(
+                        new Lowered(key.toString())
+                    ).asString(),
+                    Collections.emptyList()
+                );
+                names = map.keySet();
+            }
             final List<String> list;
             if (values.isEmpty()) {
                 list = new VerboseList<>(
@@ -106,8 +116,8 @@ public interface RqHeaders extends Request {
                         // @checkstyle LineLengthCheck (1 line)
                         "there are no headers by name \"%s\" among %d others: %s",
                         key,
-                        this.map().size(),
-                        this.map().keySet()
+                        names.size(),
+                        names
                     )
                 );
             } else {
@@ -126,18 +136,27 @@ public interface RqHeaders extends Request {
 
         @Override
         public Set<String> names() throws IOException {
-            return this.map().keySet();
+            final Iterable<String> head = this.head();
+            final Set<String> names;
+            if (head instanceof HeadIndex) {
+                names = ((HeadIndex) head).names();
+            } else {
+                names = RqHeaders.Base.map(head).keySet();
+            }
+            return names;
         }
 
         /**
          * Parse them all in a map.
          *
+         * @param lines Lines of the head
          * @return Map of them
          * @throws IOException If fails
          */
         @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
-        private Map<String, List<String>> map() throws IOException {
-            final Iterator<String> head = this.head().iterator();
+        private static Map<String, List<String>> map(
+            final Iterable<String> lines) throws IOException {
+            final Iterator<String> head = lines.iterator();
             if (!head.hasNext()) {
                 throw new HttpException(
                     HttpURLConnection.HTTP_BAD_REQUEST,
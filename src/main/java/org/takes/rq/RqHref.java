@@ -29,10 +29,6 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.util.Iterator;
 import lombok.EqualsAndHashCode;
-import org.cactoos.Text;
-import org.cactoos.text.TextOf;
-import org.cactoos.text.Trimmed;
-import org.cactoos.text.UncheckedText;
 import org.takes.HttpException;
 import org.takes.Request;
 import org.takes.misc.Href;
@@ -71,30 +67,44 @@ public interface RqHref extends Request {
 
         @Override
         public Href href() throws IOException {
-            final String uri = new RqRequestLine.Base(this).uri();
-            final Iterator<String> hosts = new RqHeaders.Base(this)
+            final Iterable<String> head = this.head();
+            final Href href;
+            if (head instanceof HeadIndex) {
+                href = ((HeadIndex) head).href(() -> Base.parse(this));
+            } else {
+                href = Base.parse(this);
+            }
+            return href;
+        }
+
+        /**
+         * Make HREF of the request.
+         * @param req The request
+         * @return HREF
+         * @throws IOException If fails
+         */
+        private static Href parse(final Request req) throws IOException {
+            final String uri = new RqRequestLine.Base(req).uri();
+            final Iterator<String> hosts = new RqHeaders.Base(req)
                 .header("host").iterator();
-            final Iterator<String> protos = new RqHeaders.Base(this)
+            final Iterator<String> protos = new RqHeaders.Base(req)
                 .header("x-forwarded-proto").iterator();
-            final Text host;
+            final String host;
             if (hosts.hasNext()) {
-                host = new Trimmed(new TextOf(hosts.next()));
+                host = hosts.next().trim();
             } else {
-                host = new TextOf("localhost");
+                host = "localhost";
             }
-            final Text proto;
+            final String proto;
             if (protos.hasNext()) {
-                proto = new Trimmed(new TextOf(protos.next()));
+                proto = protos.next().trim();
             } else {
-                proto = new TextOf("http");
+                proto = "http";
             }
             return new Href(
-                String.format(
-                    "%s://%s%s",
-                    new UncheckedText(proto).asString(),
-                    new UncheckedText(host).asString(),
-                    uri
-                )
+                new StringBuilder(
+                    proto.length() + host.length() + uri.length() + 3
+                ).append(proto).append("://").append(host).append(uri)
             );
         }
     }
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rq;
+
+import lombok.EqualsAndHashCode;
+import org.cactoos.scalar.IoChecked;
+import org.cactoos.scalar.Solid;
+import org.takes.Request;
+
+/**
+ * Request with its head parsed only once.
+ *
+ * <p>The head is read from the original request on the first call
+ * and indexed. {@link RqHeaders.Base}, {@link RqRequestLine.Base} and
+ * everything built on top of them, like {@link RqHref.Base},
+ * {@link RqMethod.Base} or
+ * {@link org.takes.facets.cookies.RqCookies.Base}, use the index
+ * instead of parsing the head on every call. Decorators that change
+ * the head, like {@link RqWithHeader}, hide the index, so put this one
+ * on top of them.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode(callSuper = true)
+public final class RqIndexed extends RqWrap {
+
+    /**
+     * Ctor.
+     * @param req Original request
+     */
+    public RqIndexed(final Request req) {
+        super(
+            new RequestOf(
+                new IoChecked<>(
+                    new Solid<>(() -> RqIndexed.index(req.head()))
+                )::value,
+                req::body
+            )
+        );
+    }
+
+    /**
+     * Index the head, unless it is indexed already.
+     * @param head The head
+     * @return Index
+     */
+    private static HeadIndex index(final Iterable<String> head) {
+        final HeadIndex index;
+        if (head instanceof HeadIndex) {
+            index = (HeadIndex) head;
+        } else {
+            index = new HeadIndex(head);
+        }
+        return index;
+    }
+}
@@ -23,31 +23,44 @@
  */
 package org.takes.rq;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
-import java.util.Collection;
-import java.util.LinkedList;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.EqualsAndHashCode;
-import org.cactoos.text.FormattedText;
-import org.cactoos.text.TextOf;
-import org.cactoos.text.UncheckedText;
 import org.takes.HttpException;
 import org.takes.Request;
-import org.takes.misc.Opt;
+import org.takes.misc.Buffers;
 
 /**
  * Live request.
  *
+ * <p>The head is parsed in a single pass, without any allocations
+ * per byte. If the stream supports {@link InputStream#mark(int)}, like
+ * {@link java.io.BufferedInputStream} does, the head is read in chunks
+ * and the stream is then reset to the first byte after the head,
+ * so the same stream may be used for the next request on the same
+ * connection. Otherwise, the bytes are read one by one.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
- * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 @EqualsAndHashCode(callSuper = true)
 public final class RqLive extends RqWrap {
 
+    /**
+     * Initial capacity of the line buffer.
+     */
+    private static final int LINE = 512;
+
+    /**
+     * Size of the chunk to read at once.
+     */
+    private static final int CHUNK = 4096;
+
     /**
      * Ctor.
      * @param input Input stream
@@ -59,134 +72,208 @@ public final class RqLive extends RqWrap {
 
     /**
      * Parse input stream.
+     *
+     * <p>Lines that start with a space or a tab are folded into the
+     * previous line. The head ends with an empty line, with the end
+     * of the stream, or when the stream has no more bytes available
+     * in the middle of a line.
+     *
      * @param input Input stream
      * @return Request
      * @throws IOException If fails
-     * @checkstyle ExecutableStatementCountCheck (100 lines)
+     * @checkstyle CyclomaticComplexityCheck (70 lines)
      */
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     private static Request parse(final InputStream input) throws IOException {
-        boolean eof = true;
-        final Collection<String> head = new LinkedList<>();
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Opt<Integer> data = new Opt.Empty<>();
-        data = RqLive.data(input, data, false);
-        while (data.get() > 0) {
-            eof = false;
-            if (data.get() == '\r') {
-                RqLive.checkLineFeed(input, baos, head.size() + 1);
-                if (baos.size() == 0) {
-                    break;
+        final RqLive.Bytes bytes = new RqLive.Bytes(input);
+        byte[] line = Buffers.SHARED.array(RqLive.LINE);
+        try {
+            final List<String> head = new ArrayList<>(16);
+            int len = 0;
+            int data = bytes.read();
+            if (data <= 0) {
+                throw new IOException("empty request");
+            }
+            while (data > 0) {
+                if (data == '\r') {
+                    if (bytes.read() != '\n') {
+                        throw new HttpException(
+                            HttpURLConnection.HTTP_BAD_REQUEST,
+                            String.format(
+                                // @checkstyle LineLengthCheck (1 line)
+                                "there is no LF after CR in header, line #%d: \"%s\"",
+                                head.size() + 1,
+                                RqLive.text(line, len)
+                            )
+                        );
+                    }
+                    if (len == 0) {
+                        break;
+                    }
+                    data = bytes.read();
+                    if (data != ' ' && data != '\t') {
+                        head.add(RqLive.text(line, len));
+                        len = 0;
+                    }
+                    continue;
+                }
+                // @checkstyle MagicNumber (1 line)
+                if ((data > 0x7f || data < 0x20) && data != '\t') {
+                    throw new HttpException(
+                        HttpURLConnection.HTTP_BAD_REQUEST,
+                        String.format(
+                            // @checkstyle LineLengthCheck (1 line)
+                            "illegal character 0x%02X in HTTP header line #%d: \"%s\"",
+                            data,
+                            head.size() + 1,
+                            RqLive.text(line, len)
+                        )
+                    );
                 }
-                data = new Opt.Single<>(input.read());
-                final Opt<String> header = RqLive.newHeader(data, baos);
-                if (header.has()) {
-                    head.add(header.get());
+                if (len == line.length) {
+                    final byte[] longer = Buffers.SHARED.array(len << 1);
+                    System.arraycopy(line, 0, longer, 0, len);
+                    Buffers.SHARED.free(line);
+                    line = longer;
                 }
-                data = RqLive.data(input, data, false);
-                continue;
+                line[len] = (byte) data;
+                ++len;
+                data = bytes.available();
             }
-            baos.write(RqLive.legalCharacter(data, baos, head.size() + 1));
-            data = RqLive.data(input, new Opt.Empty<>(), true);
+            bytes.rewind();
+            return new RequestOf(head, input);
+        } finally {
+            Buffers.SHARED.free(line);
+            bytes.free();
         }
-        if (eof) {
-            throw new IOException("empty request");
-        }
-        return new RequestOf(head, input);
     }
 
     /**
-     * Checks whether or not the next byte to read is a Line Feed.
-     * <p><i>Please note that this method assumes that the previous byte read
-     * was a Carriage Return.</i>
-     * @param input The input stream to read
-     * @param baos Current read header
-     * @param position Header line number
-     * @throws IOException If the next byte is not a Line Feed as expected
+     * Make a text out of the bytes of a line.
+     *
+     * <p>Only ASCII characters and tabs get into the line, so
+     * ISO-8859-1 decodes it exactly as UTF-8 would, only faster.
+     *
+     * @param line Bytes of the line
+     * @param len How many of them are used
+     * @return Text
      */
-    private static void checkLineFeed(final InputStream input,
-        final ByteArrayOutputStream baos, final Integer position)
-        throws IOException {
-        if (input.read() != '\n') {
-            throw new HttpException(
-                HttpURLConnection.HTTP_BAD_REQUEST,
-                new FormattedText(
-                    "there is no LF after CR in header, line #%d: \"%s\"",
-                    position,
-                    new TextOf(baos.toByteArray())
-                ).toString()
-            );
-        }
+    private static String text(final byte[] line, final int len) {
+        return new String(line, 0, len, StandardCharsets.ISO_8859_1);
     }
 
     /**
-     * Builds current read header.
-     * @param data Current read character
-     * @param baos Current read header
-     * @return Read header
+     * Bytes of the head, read from the stream.
+     *
+     * @since 2.0
      */
-    private static Opt<String> newHeader(final Opt<Integer> data,
-        final ByteArrayOutputStream baos) {
-        Opt<String> header = new Opt.Empty<>();
-        if (data.get() != ' ' && data.get() != '\t') {
-            header = new Opt.Single<>(
-                new UncheckedText(
-                    new TextOf(
-                        baos.toByteArray()
-                    )
-                ).asString()
-            );
-            baos.reset();
+    private static final class Bytes {
+
+        /**
+         * The stream.
+         */
+        private final InputStream input;
+
+        /**
+         * The chunk, empty if the stream doesn't support marks.
+         */
+        private final byte[] chunk;
+
+        /**
+         * Position of the next byte in the chunk.
+         */
+        private int pos;
+
+        /**
+         * How many bytes are there in the chunk.
+         */
+        private int lim;
+
+        /**
+         * How many bytes were taken from the stream before the chunk.
+         */
+        private long before;
+
+        /**
+         * Ctor.
+         * @param stream The stream
+         */
+        Bytes(final InputStream stream) {
+            this.input = stream;
+            if (stream.markSupported()) {
+                stream.mark(Integer.MAX_VALUE);
+                this.chunk = Buffers.SHARED.array(RqLive.CHUNK);
+            } else {
+                this.chunk = new byte[0];
+            }
         }
-        return header;
-    }
 
-    /**
-     * Returns a legal character based n the read character.
-     * @param data Character read
-     * @param baos Byte stream containing read header
-     * @param position Header line number
-     * @return A legal character
-     * @throws IOException if character is illegal
-     */
-    private static Integer legalCharacter(final Opt<Integer> data,
-        final ByteArrayOutputStream baos, final Integer position)
-        throws IOException {
-        // @checkstyle MagicNumber (1 line)
-        if ((data.get() > 0x7f || data.get() < 0x20)
-            && data.get() != '\t') {
-            throw new HttpException(
-                HttpURLConnection.HTTP_BAD_REQUEST,
-                String.format(
-                    "illegal character 0x%02X in HTTP header line #%d: \"%s\"",
-                    data.get(),
-                    position,
-                    new TextOf(baos.toByteArray())
-                )
-            );
+        /**
+         * Read the next byte, waiting for it if necessary.
+         * @return The byte or -1 at the end of the stream
+         * @throws IOException If fails
+         */
+        int read() throws IOException {
+            final int data;
+            if (this.pos < this.lim) {
+                data = this.chunk[this.pos] & 0xff;
+                ++this.pos;
+            } else if (this.chunk.length == 0) {
+                data = this.input.read();
+            } else {
+                this.before += this.lim;
+                this.pos = 0;
+                this.lim = Math.max(this.input.read(this.chunk), 0);
+                if (this.lim == 0) {
+                    data = -1;
+                } else {
+                    data = this.read();
+                }
+            }
+            return data;
         }
-        return data.get();
-    }
 
-    /**
-     * Obtains new byte if hasn't.
-     * @param input Stream
-     * @param data Empty or current data
-     * @param available Indicates whether or not it should check first if there
-     *  are available bytes
-     * @return Next or current data
-     * @throws IOException if input.read() fails
-     */
-    private static Opt<Integer> data(final InputStream input,
-        final Opt<Integer> data, final boolean available) throws IOException {
-        final Opt<Integer> ret;
-        if (data.has()) {
-            ret = data;
-        } else if (available && input.available() <= 0) {
-            ret = new Opt.Single<>(-1);
-        } else {
-            ret = new Opt.Single<>(input.read());
+        /**
+         * Read the next byte, only if it is already available.
+         * @return The byte or -1 if nothing is available
+         * @throws IOException If fails
+         */
+        int available() throws IOException {
+            final int data;
+            if (this.pos < this.lim || this.input.available() > 0) {
+                data = this.read();
+            } else {
+                data = -1;
+            }
+            return data;
+        }
+
+        /**
+         * Return the stream to the first byte after the head and drop
+         * the mark, so the stream doesn't keep the body in its buffer.
+         * @throws IOException If fails
+         */
+        void rewind() throws IOException {
+            if (this.chunk.length > 0) {
+                this.input.reset();
+                long left = this.before + this.pos;
+                while (left > 0) {
+                    final long skipped = this.input.skip(left);
+                    if (skipped <= 0) {
+                        throw new IOException("can't skip the head");
+                    }
+                    left -= skipped;
+                }
+                this.input.mark(0);
+            }
+        }
+
+        /**
+         * Give the chunk back to the pool.
+         */
+        void free() {
+            if (this.chunk.length > 0) {
+                Buffers.SHARED.free(this.chunk);
+            }
         }
-        return ret;
     }
 }
@@ -68,4 +68,35 @@ public final class RqOnce extends RqWrap {
             )
         );
     }
+
+    /**
+     * Ctor, keeping the body as bytes, not more than {@code memory} of
+     * them on the heap and the rest in a memory-mapped temporary file.
+     * @param req Original request
+     * @param memory How many bytes to keep on the heap, at most
+     * @param max Maximum size of the body, bigger ones are refused with 413
+     * @see RqSpooled
+     * @since 2.0
+     */
+    public RqOnce(final Request req, final int memory, final long max) {
+        super(RqOnce.spooled(req, memory, max));
+    }
+
+    /**
+     * Request with the body spooled on the first call.
+     * @param req Original request
+     * @param memory How many bytes to keep on the heap, at most
+     * @param max Maximum size of the body
+     * @return New request
+     */
+    private static Request spooled(final Request req, final int memory,
+        final long max) {
+        final Scalar<Request> spool = new Sticky<>(
+            () -> new RqSpooled(req, memory, max)
+        );
+        return new RequestOf(
+            new IoChecked<>(new Sticky<>(req::head))::value,
+            () -> new IoChecked<>(spool).value().body()
+        );
+    }
 }
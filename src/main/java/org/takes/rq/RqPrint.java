@@ -37,6 +37,7 @@ import org.cactoos.scalar.LengthOf;
 import org.cactoos.text.Sticky;
 import org.cactoos.text.TextOf;
 import org.takes.Request;
+import org.takes.misc.Buffers;
 
 /**
  * Request decorator, to print it all.
@@ -140,13 +141,17 @@ public final class RqPrint extends RqWrap implements Text {
     public void printBody(final OutputStream output) throws IOException {
         final InputStream input = new RqChunk(new RqLengthAware(this)).body();
         //@checkstyle MagicNumberCheck (1 line)
-        final byte[] buf = new byte[4096];
-        while (true) {
-            final int bytes = input.read(buf);
-            if (bytes < 0) {
-                break;
+        final byte[] buf = Buffers.SHARED.array(4096);
+        try {
+            while (true) {
+                final int bytes = input.read(buf);
+                if (bytes < 0) {
+                    break;
+                }
+                output.write(buf, 0, bytes);
             }
-            output.write(buf, 0, bytes);
+        } finally {
+            Buffers.SHARED.free(buf);
         }
     }
 
@@ -25,6 +25,7 @@ package org.takes.rq;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import lombok.EqualsAndHashCode;
@@ -137,7 +138,14 @@ public interface RqRequestLine extends Request {
 
         @Override
         public String header() throws IOException {
-            return RqRequestLine.Base.validated(this.line());
+            final Iterable<String> head = this.head();
+            final String line;
+            if (head instanceof HeadIndex) {
+                line = ((HeadIndex) head).requestLine().group();
+            } else {
+                line = RqRequestLine.Base.validated(this.line());
+            }
+            return line;
         }
 
         @Override
@@ -163,8 +171,15 @@ public interface RqRequestLine extends Request {
          */
         private String token(final Token token)
             throws IOException {
+            final Iterable<String> head = this.head();
+            final MatchResult result;
+            if (head instanceof HeadIndex) {
+                result = ((HeadIndex) head).requestLine();
+            } else {
+                result = RqRequestLine.Base.matcher(this.line());
+            }
             return RqRequestLine.Base.trimmed(
-                RqRequestLine.Base.matcher(this.line()).group(token.value),
+                result.group(token.value),
                 token
             );
         }
@@ -193,7 +208,7 @@ public interface RqRequestLine extends Request {
          * @return Matcher that can be used to extract tokens
          * @throws HttpException If fails
          */
-        private static Matcher matcher(final String line)
+        static Matcher matcher(final String line)
             throws HttpException {
             final Matcher matcher = PATTERN.matcher(line);
             if (!matcher.matches()) {
@@ -0,0 +1,340 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rq;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.misc.Buffers;
+
+/**
+ * Request decorator that reads the body once and keeps it, in memory
+ * while it's small and in a memory-mapped temporary file when it's
+ * bigger.
+ *
+ * <p>The body may be read again and again: every call to
+ * {@link #body()} gives a new stream over the same bytes, without
+ * copying them. Up to the threshold, 64 KB by default, the bytes are
+ * on the heap; beyond it, they are written to a temporary file, which
+ * is mapped to memory and deleted at once, so nothing is left on the
+ * disk and the heap doesn't grow. A body bigger than the maximum,
+ * 64 MB by default, either by its {@code Content-Length} or by what
+ * actually arrives, is refused with HTTP status 413 before it's all
+ * read.
+ *
+ * <pre> new TkFork(
+ *   new FkRegex("/upload", (Take) req -> {
+ *     final Request body = new RqSpooled(req, 65_536, 10_000_000L);
+ *     ...
+ *   })
+ * );</pre>
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode(callSuper = true)
+public final class RqSpooled extends RqWrap {
+
+    /**
+     * How many bytes to keep on the heap, by default.
+     */
+    private static final int MEMORY = 64 << 10;
+
+    /**
+     * Maximum size of the body, by default.
+     */
+    private static final long MAX = 64L << 20;
+
+    /**
+     * Ctor.
+     * @param req Original request
+     * @throws IOException If fails or if the body is too big
+     */
+    public RqSpooled(final Request req) throws IOException {
+        this(req, RqSpooled.MEMORY, RqSpooled.MAX);
+    }
+
+    /**
+     * Ctor.
+     * @param req Original request
+     * @param memory How many bytes to keep on the heap, at most
+     * @param max Maximum size of the body, up to 2 GB
+     * @throws IOException If fails or if the body is too big
+     */
+    public RqSpooled(final Request req, final int memory, final long max)
+        throws IOException {
+        super(
+            RqSpooled.spool(
+                req, memory, Math.min(max, (long) Integer.MAX_VALUE)
+            )
+        );
+    }
+
+    /**
+     * Read the body and keep it.
+     * @param req Original request
+     * @param memory How many bytes to keep on the heap
+     * @param max Maximum size of the body
+     * @return New request
+     * @throws IOException If fails
+     */
+    private static Request spool(final Request req, final int memory,
+        final long max) throws IOException {
+        final List<String> length = new RqHeaders.Base(req)
+            .header("Content-Length");
+        if (!length.isEmpty() && RqSpooled.number(length.get(0)) > max) {
+            throw RqSpooled.tooBig(max);
+        }
+        // @checkstyle MagicNumber (1 line)
+        final byte[] chunk = Buffers.SHARED.array(8192);
+        final ByteBuffer body;
+        try (InputStream input = req.body();
+            RqSpooled.Spool spool = new RqSpooled.Spool(memory, max)) {
+            for (int read = input.read(chunk); read >= 0;
+                read = input.read(chunk)) {
+                spool.write(chunk, read);
+            }
+            body = spool.buffer();
+        } finally {
+            Buffers.SHARED.free(chunk);
+        }
+        return new RequestOf(
+            req::head,
+            () -> new RqSpooled.Stream(body.duplicate())
+        );
+    }
+
+    /**
+     * Parse the number in the header.
+     * @param header The header
+     * @return The number or zero if it's not a number
+     */
+    private static long number(final String header) {
+        long num;
+        try {
+            num = Long.parseLong(header.trim());
+        } catch (final NumberFormatException ex) {
+            num = 0L;
+        }
+        return num;
+    }
+
+    /**
+     * The exception about a too big body.
+     * @param max Maximum size of the body
+     * @return Exception
+     */
+    private static HttpException tooBig(final long max) {
+        return new HttpException(
+            HttpURLConnection.HTTP_ENTITY_TOO_LARGE,
+            String.format("the body is bigger than %d bytes", max)
+        );
+    }
+
+    /**
+     * Storage of the body, while it's read.
+     * @since 2.0
+     */
+    private static final class Spool implements AutoCloseable {
+
+        /**
+         * How many bytes to keep on the heap.
+         */
+        private final int memory;
+
+        /**
+         * Maximum size of the body.
+         */
+        private final long max;
+
+        /**
+         * Bytes on the heap.
+         */
+        private byte[] heap;
+
+        /**
+         * How many bytes are there.
+         */
+        private long size;
+
+        /**
+         * The file, or NULL while the bytes are on the heap.
+         */
+        private FileChannel file;
+
+        /**
+         * Ctor.
+         * @param mem How many bytes to keep on the heap
+         * @param most Maximum size of the body
+         */
+        Spool(final int mem, final long most) {
+            this.memory = mem;
+            this.max = most;
+            this.heap = new byte[0];
+        }
+
+        /**
+         * Add bytes.
+         * @param buf The bytes
+         * @param len How many of them
+         * @throws IOException If fails or if the body is too big
+         */
+        void write(final byte[] buf, final int len) throws IOException {
+            if (this.size + len > this.max) {
+                throw RqSpooled.tooBig(this.max);
+            }
+            if (this.file == null && this.size + len > this.memory) {
+                this.file = FileChannel.open(
+                    Files.createTempFile(RqSpooled.class.getName(), ".tmp"),
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE
+                );
+                this.flush(ByteBuffer.wrap(this.heap, 0, (int) this.size));
+                this.heap = new byte[0];
+            }
+            if (this.file == null) {
+                if (this.size + len > this.heap.length) {
+                    this.heap = Arrays.copyOf(
+                        this.heap,
+                        (int) Math.min(
+                            Math.max(this.heap.length * 2L, this.size + len),
+                            this.memory
+                        )
+                    );
+                }
+                System.arraycopy(buf, 0, this.heap, (int) this.size, len);
+            } else {
+                this.flush(ByteBuffer.wrap(buf, 0, len));
+            }
+            this.size += len;
+        }
+
+        /**
+         * The bytes written.
+         * @return Read-only buffer with them
+         * @throws IOException If fails
+         */
+        ByteBuffer buffer() throws IOException {
+            final ByteBuffer buffer;
+            if (this.file == null) {
+                buffer = ByteBuffer.wrap(this.heap, 0, (int) this.size)
+                    .asReadOnlyBuffer();
+            } else {
+                buffer = this.file.map(
+                    FileChannel.MapMode.READ_ONLY, 0L, this.size
+                );
+            }
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.file != null) {
+                this.file.close();
+            }
+        }
+
+        /**
+         * Write all the bytes to the file.
+         * @param bytes The bytes
+         * @throws IOException If fails
+         */
+        private void flush(final ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                this.file.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Input stream of a byte buffer.
+     * @since 2.0
+     */
+    private static final class Stream extends InputStream {
+
+        /**
+         * The buffer.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Ctor.
+         * @param buf The buffer, which this stream may move
+         */
+        Stream(final ByteBuffer buf) {
+            super();
+            this.buffer = buf;
+        }
+
+        @Override
+        public int read() {
+            final int data;
+            if (this.buffer.hasRemaining()) {
+                data = this.buffer.get() & 0xff;
+            } else {
+                data = -1;
+            }
+            return data;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len) {
+            final int read;
+            if (len == 0) {
+                read = 0;
+            } else if (this.buffer.hasRemaining()) {
+                read = Math.min(len, this.buffer.remaining());
+                this.buffer.get(buf, off, read);
+            } else {
+                read = -1;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long num) {
+            final int skip = (int) Math.max(
+                0L, Math.min(num, (long) this.buffer.remaining())
+            );
+            this.buffer.position(this.buffer.position() + skip);
+            return skip;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+}
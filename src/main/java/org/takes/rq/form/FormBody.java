@@ -0,0 +1,352 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rq.form;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.misc.Opt;
+import org.takes.rq.RqHeaders;
+
+/**
+ * Body of an {@code application/x-www-form-urlencoded} request,
+ * parsed right in its bytes.
+ *
+ * <p>The body is read into one array, as long as it's not bigger than
+ * the limit, and split by {@code &} and {@code =} without copying:
+ * names are decoded at once, since they are needed to find the
+ * values, and values are decoded only when asked for. Percent
+ * escapes and pluses are decoded byte by byte, into the charset
+ * given, and the text is made only once, when it's ready.
+ *
+ * <p>The class is not thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode
+final class FormBody {
+
+    /**
+     * The request.
+     */
+    private final Request req;
+
+    /**
+     * The charset.
+     */
+    private final Charset charset;
+
+    /**
+     * Maximum number of fields.
+     */
+    private final int fields;
+
+    /**
+     * Maximum size of the body, in bytes.
+     */
+    private final int size;
+
+    /**
+     * Ctor.
+     * @param request The request
+     * @param chrst The charset
+     * @param max Maximum number of fields
+     * @param bytes Maximum size of the body
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    FormBody(final Request request, final Charset chrst, final int max,
+        final int bytes) {
+        this.req = request;
+        this.charset = chrst;
+        this.fields = max;
+        this.size = bytes;
+    }
+
+    /**
+     * Read and parse the body.
+     * @return Values by their names, in lower case
+     * @throws IOException If fails
+     */
+    Map<String, List<FormBody.Value>> map() throws IOException {
+        final byte[] body = this.read();
+        final Map<String, List<FormBody.Value>> map = new HashMap<>(16);
+        int count = 0;
+        int start = 0;
+        while (start < body.length) {
+            int end = start;
+            int equals = -1;
+            while (end < body.length && body[end] != '&') {
+                if (equals < 0 && body[end] == '=') {
+                    equals = end;
+                }
+                ++end;
+            }
+            if (end > start) {
+                if (equals < 0) {
+                    throw new HttpException(
+                        HttpURLConnection.HTTP_BAD_REQUEST,
+                        String.format(
+                            "invalid form body pair: %s",
+                            new String(body, start, end - start, this.charset)
+                        )
+                    );
+                }
+                ++count;
+                if (count > this.fields) {
+                    throw new HttpException(
+                        HttpURLConnection.HTTP_ENTITY_TOO_LARGE,
+                        String.format(
+                            "there are more than %d fields in the form",
+                            this.fields
+                        )
+                    );
+                }
+                map.computeIfAbsent(
+                    FormBody.decode(body, start, equals, this.charset)
+                        .toLowerCase(Locale.ENGLISH),
+                    key -> new LinkedList<>()
+                ).add(new FormBody.Value(body, equals + 1, end, this.charset));
+            }
+            start = end + 1;
+        }
+        return map;
+    }
+
+    /**
+     * Read the body, not more than the limit.
+     * @return Bytes of the body
+     * @throws IOException If fails
+     */
+    private byte[] read() throws IOException {
+        final Opt<String> length = this.length();
+        long expected = 4096L;
+        if (length.has()) {
+            try {
+                expected = Long.parseLong(length.get().trim());
+            } catch (final NumberFormatException ex) {
+                expected = 4096L;
+            }
+        }
+        byte[] body = new byte[this.capped(Math.max(expected, 1L))];
+        int len = 0;
+        try (InputStream input = this.req.body()) {
+            for (int read = input.read(body, len, body.length - len);
+                read >= 0; read = input.read(body, len, body.length - len)) {
+                len += read;
+                if (len > this.size) {
+                    throw new HttpException(
+                        HttpURLConnection.HTTP_ENTITY_TOO_LARGE,
+                        String.format(
+                            "the form is bigger than %d bytes", this.size
+                        )
+                    );
+                }
+                if (len == body.length) {
+                    body = Arrays.copyOf(body, this.capped(body.length * 2L));
+                }
+            }
+        }
+        return Arrays.copyOf(body, len);
+    }
+
+    /**
+     * Size of the array for the body, just big enough to see that
+     * the body is bigger than the limit.
+     * @param wanted The size wanted
+     * @return The size allowed
+     */
+    private int capped(final long wanted) {
+        // @checkstyle MagicNumber (1 line)
+        return (int) Math.min(
+            wanted, Math.min(this.size + 1L, Integer.MAX_VALUE - 8L)
+        );
+    }
+
+    /**
+     * The Content-Length header, if any.
+     * @return Its value
+     * @throws IOException If fails
+     */
+    private Opt<String> length() throws IOException {
+        final List<String> values = new RqHeaders.Base(this.req)
+            .header("Content-Length");
+        final Opt<String> length;
+        if (values.isEmpty()) {
+            length = new Opt.Empty<>();
+        } else {
+            length = new Opt.Single<>(values.get(0));
+        }
+        return length;
+    }
+
+    /**
+     * Decode bytes of a name or a value.
+     * @param bytes The bytes
+     * @param from Where they start
+     * @param upto Where they end
+     * @param charset The charset
+     * @return Text
+     * @throws HttpException If an escape is broken
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private static String decode(final byte[] bytes, final int from,
+        final int upto, final Charset charset) throws HttpException {
+        int plain = from;
+        while (plain < upto && bytes[plain] != '%' && bytes[plain] != '+') {
+            ++plain;
+        }
+        final String text;
+        if (plain == upto) {
+            text = new String(bytes, from, upto - from, charset);
+        } else {
+            final byte[] decoded = new byte[upto - from];
+            int len = plain - from;
+            System.arraycopy(bytes, from, decoded, 0, len);
+            for (int idx = plain; idx < upto; ++idx) {
+                final byte data = bytes[idx];
+                if (data == '+') {
+                    decoded[len] = ' ';
+                } else if (data == '%') {
+                    decoded[len] = FormBody.escape(bytes, idx, upto);
+                    idx += 2;
+                } else {
+                    decoded[len] = data;
+                }
+                ++len;
+            }
+            text = new String(decoded, 0, len, charset);
+        }
+        return text;
+    }
+
+    /**
+     * Decode a percent escape.
+     * @param bytes The bytes
+     * @param pos Position of the percent sign
+     * @param upto Where the bytes end
+     * @return The byte
+     * @throws HttpException If the escape is broken
+     */
+    private static byte escape(final byte[] bytes, final int pos,
+        final int upto) throws HttpException {
+        int high = -1;
+        int low = -1;
+        if (pos + 2 < upto) {
+            high = Character.digit(bytes[pos + 1], 16);
+            low = Character.digit(bytes[pos + 2], 16);
+        }
+        if (high < 0 || low < 0) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                String.format(
+                    "broken escape in the form: \"%s\"",
+                    new String(
+                        bytes, pos, Math.min(3, upto - pos),
+                        StandardCharsets.ISO_8859_1
+                    )
+                )
+            );
+        }
+        return (byte) (high << 4 | low);
+    }
+
+    /**
+     * Value of a field, decoded once, when asked for.
+     * @since 2.0
+     */
+    static final class Value {
+
+        /**
+         * The body.
+         */
+        private final byte[] body;
+
+        /**
+         * Where the value starts.
+         */
+        private final int start;
+
+        /**
+         * Where the value ends.
+         */
+        private final int end;
+
+        /**
+         * The charset.
+         */
+        private final Charset charset;
+
+        /**
+         * The text, once decoded, or NULL.
+         */
+        private String text;
+
+        /**
+         * Ctor.
+         * @param bytes The body
+         * @param from Where the value starts
+         * @param upto Where the value ends
+         * @param chrst The charset
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        Value(final byte[] bytes, final int from, final int upto,
+            final Charset chrst) {
+            this.body = bytes;
+            this.start = from;
+            this.end = upto;
+            this.charset = chrst;
+        }
+
+        /**
+         * Decode the value, without whitespace around it.
+         * @return Text
+         * @throws HttpException If an escape is broken
+         */
+        String text() throws HttpException {
+            if (this.text == null) {
+                int from = this.start;
+                int upto = this.end;
+                while (from < upto && (this.body[from] & 0xff) <= ' ') {
+                    ++from;
+                }
+                while (upto > from && (this.body[upto - 1] & 0xff) <= ' ') {
+                    --upto;
+                }
+                this.text = FormBody.decode(this.body, from, upto, this.charset);
+            }
+            return this.text;
+        }
+    }
+}
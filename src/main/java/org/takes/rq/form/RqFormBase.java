@@ -24,70 +24,96 @@
 package org.takes.rq.form;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
-import java.net.URLDecoder;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import lombok.EqualsAndHashCode;
-import org.cactoos.Text;
 import org.cactoos.text.FormattedText;
-import org.cactoos.text.Lowered;
-import org.cactoos.text.TextOf;
-import org.cactoos.text.Trimmed;
-import org.cactoos.text.UncheckedText;
-import org.takes.HttpException;
 import org.takes.Request;
 import org.takes.misc.VerboseIterable;
 import org.takes.rq.RqForm;
-import org.takes.rq.RqPrint;
 import org.takes.rq.RqWrap;
 
 /**
  * Base implementation of {@link RqForm}.
+ *
+ * <p>The body is parsed once, when a parameter is asked for the first
+ * time, in the charset given, UTF-8 by default. Names are case
+ * insensitive; values are decoded when their parameter is asked for.
+ * A body bigger than the limit or with more fields than allowed is
+ * refused with HTTP status 413.
+ *
  * @since 0.33
- * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
-@SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
 @EqualsAndHashCode(callSuper = true)
 public final class RqFormBase extends RqWrap implements RqForm {
 
     /**
-     * Request.
+     * Maximum number of fields, by default.
+     */
+    private static final int FIELDS = 10_000;
+
+    /**
+     * Maximum size of the body in bytes, by default.
      */
-    private final Request req;
+    private static final int SIZE = 8 << 20;
+
+    /**
+     * The body.
+     */
+    private final FormBody body;
 
     /**
      * Saved map.
      */
-    private final List<Map<String, List<String>>> saved;
+    private final List<Map<String, List<FormBody.Value>>> saved;
 
     /**
      * Ctor.
      * @param request Original request
      */
     public RqFormBase(final Request request) {
+        this(request, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ctor.
+     * @param request Original request
+     * @param charset Charset of the form
+     */
+    public RqFormBase(final Request request, final Charset charset) {
+        this(request, charset, RqFormBase.FIELDS, RqFormBase.SIZE);
+    }
+
+    /**
+     * Ctor.
+     * @param request Original request
+     * @param charset Charset of the form
+     * @param fields Maximum number of fields
+     * @param size Maximum size of the body, in bytes
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public RqFormBase(final Request request, final Charset charset,
+        final int fields, final int size) {
         super(request);
         this.saved = new CopyOnWriteArrayList<>();
-        this.req = request;
+        this.body = new FormBody(request, charset, fields, size);
     }
 
     @Override
     public Iterable<String> param(final CharSequence key)
         throws IOException {
-        final List<String> values = this.map().getOrDefault(
-            new UncheckedText(
-                new Lowered(key.toString())
-            ).asString(),
+        final List<FormBody.Value> found = this.map().getOrDefault(
+            key.toString().toLowerCase(Locale.ENGLISH),
             Collections.emptyList()
         );
         final Iterable<String> iter;
-        if (values.isEmpty()) {
+        if (found.isEmpty()) {
             iter = new VerboseIterable<>(
                 Collections.emptyList(),
                 new FormattedText(
@@ -96,6 +122,10 @@ public final class RqFormBase extends RqWrap implements RqForm {
                 )
             );
         } else {
+            final List<String> values = new ArrayList<>(found.size());
+            for (final FormBody.Value value : found) {
+                values.add(value.text());
+            }
             iter = new VerboseIterable<>(
                 values,
                 new FormattedText(
@@ -112,67 +142,15 @@ public final class RqFormBase extends RqWrap implements RqForm {
         return this.map().keySet();
     }
 
-    /**
-     * Decode from URL.
-     * @param txt Text
-     * @return Decoded
-     */
-    private static String decode(final Text txt) {
-        try {
-            return URLDecoder.decode(
-                new UncheckedText(txt).asString(),
-                Charset.defaultCharset().name()
-            );
-        } catch (final UnsupportedEncodingException ex) {
-            throw new IllegalStateException(ex);
-        }
-    }
-
     /**
      * Create map of request parameters.
-     * @return Parameters map or empty map in case of error.
+     * @return Parameters map
      * @throws IOException If something fails reading or parsing body
      */
-    private Map<String, List<String>> map() throws IOException {
+    private Map<String, List<FormBody.Value>> map() throws IOException {
         if (this.saved.isEmpty()) {
-            this.saved.add(this.freshMap());
+            this.saved.add(this.body.map());
         }
         return this.saved.get(0);
     }
-
-    /**
-     * Create map of request parameter.
-     * @return Parameters map or empty map in case of error.
-     * @throws IOException If something fails reading or parsing body
-     */
-    private Map<String, List<String>> freshMap() throws IOException {
-        final String body = new RqPrint(this.req).printBody();
-        final Map<String, List<String>> map = new HashMap<>(1);
-        // @checkstyle MultipleStringLiteralsCheck (1 line)
-        for (final String pair : body.split("&")) {
-            if (pair.isEmpty()) {
-                continue;
-            }
-            // @checkstyle MultipleStringLiteralsCheck (1 line)
-            final String[] parts = pair.split("=", 2);
-            if (parts.length < 2) {
-                throw new HttpException(
-                    HttpURLConnection.HTTP_BAD_REQUEST,
-                    String.format(
-                        "invalid form body pair: %s", pair
-                    )
-                );
-            }
-            final String key = RqFormBase.decode(new Lowered(parts[0]));
-            if (!map.containsKey(key)) {
-                map.put(key, new LinkedList<>());
-            }
-            map.get(key).add(
-                RqFormBase.decode(
-                    new Trimmed(new TextOf(parts[1]))
-                )
-            );
-        }
-        return map;
-    }
 }
@@ -0,0 +1,422 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rq.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import org.takes.HttpException;
+import org.takes.misc.Buffers;
+
+/**
+ * Body of a multipart request, split by its boundaries.
+ *
+ * <p>The body is read into a pooled buffer, where delimiters, that is
+ * CRLF, two dashes and the boundary, are looked for with the
+ * Boyer-Moore-Horspool algorithm. Bytes before the next delimiter are
+ * the data of the current part and may be taken without copying them
+ * anywhere else; only the tail of the buffer, shorter than a delimiter,
+ * is kept for the next read from the stream.
+ *
+ * <p>The buffer starts with a CRLF of its own, so that the first
+ * boundary, which has no CRLF before it, is found like all the others
+ * and the preamble, if any, is skipped like data.
+ *
+ * <p>The class is not thread-safe.
+ *
+ * @since 2.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+final class MtInput {
+
+    /**
+     * Size of the buffer.
+     */
+    private static final int SIZE = 8192;
+
+    /**
+     * The stream.
+     */
+    private final InputStream origin;
+
+    /**
+     * The delimiter, CRLF, two dashes and the boundary.
+     */
+    private final byte[] delimiter;
+
+    /**
+     * How far to move the delimiter along, by the last byte under it.
+     */
+    private final int[] shift;
+
+    /**
+     * The buffer, or NULL when given back to the pool.
+     */
+    private byte[] buffer;
+
+    /**
+     * Position of the next byte in the buffer.
+     */
+    private int pos;
+
+    /**
+     * How many bytes are there in the buffer.
+     */
+    private int lim;
+
+    /**
+     * End of the bytes known to be data of the current part.
+     */
+    private int edge;
+
+    /**
+     * Does a delimiter start at the edge?
+     */
+    private boolean hit;
+
+    /**
+     * Is the end of the stream reached?
+     */
+    private boolean eof;
+
+    /**
+     * How many parts have begun.
+     */
+    private int parts;
+
+    /**
+     * Ctor.
+     * @param stream The stream
+     * @param boundary The boundary
+     */
+    MtInput(final InputStream stream, final String boundary) {
+        this.origin = stream;
+        this.delimiter = String.format("\r\n--%s", boundary)
+            .getBytes(StandardCharsets.ISO_8859_1);
+        this.shift = new int[256];
+        final int last = this.delimiter.length - 1;
+        Arrays.fill(this.shift, this.delimiter.length);
+        for (int idx = 0; idx < last; ++idx) {
+            this.shift[this.delimiter[idx] & 0xff] = last - idx;
+        }
+        this.buffer = Buffers.SHARED.array(MtInput.SIZE);
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.lim = 2;
+    }
+
+    /**
+     * Skip the rest of the current part, or the preamble, and the
+     * delimiter after it.
+     * @return TRUE if one more part follows, FALSE if the body ended
+     * @throws IOException If fails
+     */
+    boolean next() throws IOException {
+        while (this.ready() > 0) {
+            this.pos = this.edge;
+        }
+        boolean more = false;
+        if (this.hit) {
+            this.pos += this.delimiter.length;
+            this.edge = this.pos;
+            this.hit = false;
+            more = this.after();
+        }
+        if (more) {
+            ++this.parts;
+        } else {
+            this.close();
+        }
+        return more;
+    }
+
+    /**
+     * Read the head of the part, up to an empty line or, if the part
+     * has no body, up to the delimiter.
+     * @return Lines of the head
+     * @throws IOException If fails
+     */
+    List<String> head() throws IOException {
+        final List<String> lines = new LinkedList<>();
+        boolean more = true;
+        while (more) {
+            final int end = this.eol();
+            if (end == this.pos) {
+                this.pos += 2;
+                more = false;
+            } else {
+                lines.add(
+                    new String(
+                        this.buffer, this.pos, end - this.pos,
+                        StandardCharsets.UTF_8
+                    )
+                );
+                this.pos = end;
+                this.need(this.delimiter.length);
+                more = !this.delimited();
+                if (more) {
+                    this.pos += 2;
+                }
+            }
+        }
+        this.edge = this.pos;
+        return lines;
+    }
+
+    /**
+     * Number of the current part.
+     * @return Number, starting with one
+     */
+    int part() {
+        return this.parts;
+    }
+
+    /**
+     * How many bytes of the current part may be taken now, waiting
+     * for them if necessary.
+     * @return Number of bytes, zero at the end of the part
+     * @throws IOException If fails
+     */
+    int ready() throws IOException {
+        while (this.buffer != null && this.edge == this.pos && !this.hit
+            && !(this.eof && this.pos == this.lim)) {
+            final int found = this.search();
+            if (found >= 0) {
+                this.edge = found;
+                this.hit = true;
+            } else if (this.eof) {
+                this.edge = this.lim;
+            } else {
+                this.edge = Math.max(
+                    this.pos, this.lim - this.delimiter.length + 1
+                );
+                if (this.edge == this.pos) {
+                    this.fill();
+                }
+            }
+        }
+        return this.edge - this.pos;
+    }
+
+    /**
+     * How many bytes of the current part may be taken without waiting.
+     * @return Number of bytes
+     */
+    int available() {
+        return this.edge - this.pos;
+    }
+
+    /**
+     * Take bytes of the current part.
+     * @param buf Where to put them
+     * @param off Offset in it
+     * @param len Maximum of bytes to take
+     * @return How many were taken, or -1 at the end of the part
+     * @throws IOException If fails
+     */
+    int read(final byte[] buf, final int off, final int len)
+        throws IOException {
+        final int ready = this.ready();
+        final int read;
+        if (ready == 0) {
+            read = -1;
+        } else {
+            read = Math.min(len, ready);
+            System.arraycopy(this.buffer, this.pos, buf, off, read);
+            this.pos += read;
+        }
+        return read;
+    }
+
+    /**
+     * Give the buffer back to the pool.
+     */
+    void close() {
+        if (this.buffer != null) {
+            Buffers.SHARED.free(this.buffer);
+            this.buffer = null;
+            this.pos = 0;
+            this.lim = 0;
+            this.edge = 0;
+            this.hit = false;
+        }
+    }
+
+    /**
+     * Read what follows a delimiter: two dashes after the last one,
+     * or optional spaces and a CRLF before the next part.
+     * @return TRUE if a part follows
+     * @throws IOException If fails
+     */
+    private boolean after() throws IOException {
+        this.need(2);
+        boolean more = false;
+        if (this.lim - this.pos >= 2 && !this.at('-', '-')) {
+            while (this.need(1) && (this.at(' ') || this.at('\t'))) {
+                ++this.pos;
+            }
+            this.need(2);
+            if (!this.at('\r', '\n')) {
+                throw new HttpException(
+                    HttpURLConnection.HTTP_BAD_REQUEST,
+                    "no CRLF after the boundary of a multipart part"
+                );
+            }
+            this.pos += 2;
+            this.edge = this.pos;
+            more = this.need(1);
+        }
+        return more;
+    }
+
+    /**
+     * Find the end of the next line of the head, reading more if
+     * necessary.
+     * @return Position of its CRLF
+     * @throws IOException If fails
+     */
+    private int eol() throws IOException {
+        int end = this.crlf();
+        while (end < 0) {
+            if (this.pos == 0 && this.lim == this.buffer.length) {
+                throw new HttpException(
+                    HttpURLConnection.HTTP_BAD_REQUEST,
+                    "a header of a multipart part is too long"
+                );
+            }
+            if (this.eof) {
+                throw new HttpException(
+                    HttpURLConnection.HTTP_BAD_REQUEST,
+                    "the head of a multipart part is not finished"
+                );
+            }
+            this.fill();
+            end = this.crlf();
+        }
+        return end;
+    }
+
+    /**
+     * Does the delimiter start at the position?
+     * @return TRUE if it does
+     */
+    private boolean delimited() {
+        boolean yes = this.lim - this.pos >= this.delimiter.length;
+        for (int idx = 0; yes && idx < this.delimiter.length; ++idx) {
+            yes = this.buffer[this.pos + idx] == this.delimiter[idx];
+        }
+        return yes;
+    }
+
+    /**
+     * Find the next CRLF in the buffer.
+     * @return Its position or -1
+     */
+    private int crlf() {
+        int found = -1;
+        for (int idx = this.pos; idx < this.lim - 1; ++idx) {
+            if (this.buffer[idx] == '\r' && this.buffer[idx + 1] == '\n') {
+                found = idx;
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find the delimiter among the bytes in the buffer.
+     * @return Its position or -1
+     */
+    private int search() {
+        final int last = this.delimiter.length - 1;
+        int at = this.pos;
+        int found = -1;
+        while (found < 0 && at + last < this.lim) {
+            int idx = last;
+            while (idx >= 0 && this.buffer[at + idx] == this.delimiter[idx]) {
+                --idx;
+            }
+            if (idx < 0) {
+                found = at;
+            } else {
+                at += this.shift[this.buffer[at + last] & 0xff];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Are these bytes next in the buffer?
+     * @param bytes The bytes
+     * @return TRUE if they are
+     */
+    private boolean at(final char... bytes) {
+        boolean yes = this.lim - this.pos >= bytes.length;
+        for (int idx = 0; yes && idx < bytes.length; ++idx) {
+            yes = this.buffer[this.pos + idx] == bytes[idx];
+        }
+        return yes;
+    }
+
+    /**
+     * Read until the buffer has enough bytes or the stream ends.
+     * @param count How many bytes are needed
+     * @return TRUE if they are there
+     * @throws IOException If fails
+     */
+    private boolean need(final int count) throws IOException {
+        while (this.lim - this.pos < count && !this.eof) {
+            this.fill();
+        }
+        return this.lim - this.pos >= count;
+    }
+
+    /**
+     * Move the bytes left to the beginning of the buffer and read
+     * more from the stream after them.
+     * @throws IOException If fails
+     */
+    private void fill() throws IOException {
+        if (this.pos > 0) {
+            System.arraycopy(
+                this.buffer, this.pos, this.buffer, 0, this.lim - this.pos
+            );
+            this.lim -= this.pos;
+            this.edge -= this.pos;
+            this.pos = 0;
+        }
+        final int read = this.origin.read(
+            this.buffer, this.lim, this.buffer.length - this.lim
+        );
+        if (read < 0) {
+            this.eof = true;
+        } else {
+            this.lim += read;
+        }
+    }
+}
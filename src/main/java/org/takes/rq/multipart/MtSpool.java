@@ -0,0 +1,204 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rq.multipart;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import org.takes.Request;
+import org.takes.rq.RqLive;
+import org.takes.rq.RqMultipart;
+import org.takes.rq.RqWithHeader;
+
+/**
+ * Storage of a part, in memory while it's small and in a temporary
+ * file when it grows bigger.
+ *
+ * <p>The part is written to it with its head, as a request, and then
+ * taken back with {@link #request()}. If that never happens,
+ * {@link #close()} deletes the file. The body of a part in memory can't
+ * be read after it is closed, like the body of a part in a file.
+ *
+ * <p>The class is not thread-safe.
+ *
+ * @since 2.0
+ */
+final class MtSpool extends OutputStream {
+
+    /**
+     * How many bytes to keep in memory, at most.
+     */
+    private final int memory;
+
+    /**
+     * Bytes in memory.
+     */
+    private final ByteArrayOutputStream bytes;
+
+    /**
+     * The file, or NULL while in memory.
+     */
+    private File file;
+
+    /**
+     * Output to the file, or NULL.
+     */
+    private OutputStream output;
+
+    /**
+     * Is the part taken back as a request?
+     */
+    private boolean taken;
+
+    /**
+     * Ctor.
+     * @param max How many bytes to keep in memory, at most
+     */
+    MtSpool(final int max) {
+        super();
+        this.memory = max;
+        this.bytes = new ByteArrayOutputStream();
+    }
+
+    @Override
+    public void write(final int data) throws IOException {
+        this.write(new byte[] {(byte) data}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] buf, final int off, final int len)
+        throws IOException {
+        if (this.output == null
+            && this.bytes.size() + (long) len > this.memory) {
+            this.file = File.createTempFile(
+                RqMultipart.class.getName(), ".tmp"
+            );
+            this.output = Files.newOutputStream(this.file.toPath());
+            this.bytes.writeTo(this.output);
+            this.bytes.reset();
+        }
+        if (this.output == null) {
+            this.bytes.write(buf, off, len);
+        } else {
+            this.output.write(buf, off, len);
+        }
+    }
+
+    /**
+     * Take the part back, as a request.
+     * @return The request, with Content-Length of all the bytes written
+     * @throws IOException If fails
+     */
+    Request request() throws IOException {
+        final Request req;
+        if (this.output == null) {
+            req = new RqWithHeader(
+                new RqLive(new MtSpool.Memory(this.bytes.toByteArray())),
+                "Content-Length",
+                String.valueOf(this.bytes.size())
+            );
+        } else {
+            this.output.close();
+            req = new RqTemp(this.file);
+        }
+        this.taken = true;
+        return req;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.output != null && !this.taken) {
+            try {
+                this.output.close();
+            } finally {
+                Files.deleteIfExists(this.file.toPath());
+            }
+        }
+    }
+
+    /**
+     * Part in memory.
+     * @since 2.0
+     */
+    private static final class Memory extends FilterInputStream {
+
+        /**
+         * Is it closed?
+         */
+        private volatile boolean closed;
+
+        /**
+         * Ctor.
+         * @param data The part
+         */
+        Memory(final byte[] data) {
+            super(new ByteArrayInputStream(data));
+        }
+
+        @Override
+        public int read() throws IOException {
+            this.check();
+            return super.read();
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len)
+            throws IOException {
+            this.check();
+            return super.read(buf, off, len);
+        }
+
+        @Override
+        public long skip(final long count) throws IOException {
+            this.check();
+            return super.skip(count);
+        }
+
+        @Override
+        public int available() throws IOException {
+            this.check();
+            return super.available();
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+
+        /**
+         * Fail if closed.
+         * @throws IOException If closed
+         */
+        private void check() throws IOException {
+            if (this.closed) {
+                throw new ClosedChannelException();
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rq.multipart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.misc.Opt;
+import org.takes.rq.RequestOf;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqLengthAware;
+
+/**
+ * Parts of a {@code multipart/form-data} request, one by one, in the
+ * order they come, read from the body while it streams in.
+ *
+ * <p>Nothing is stored: the body of a part is read straight from the
+ * body of the request, up to the next boundary, so a large upload may
+ * go right where it belongs, without temporary files:
+ *
+ * <pre> try (MtStream parts = new MtStream(req)) {
+ *   for (Opt&lt;Request&gt; part = parts.next(); part.has();
+ *     part = parts.next()) {
+ *     // read the head and the body of part.get()
+ *   }
+ * }</pre>
+ *
+ * <p>The head of a part starts with the first line of the request, so
+ * that {@link RqHeaders} and the like understand it. The next call to
+ * {@link #next()} skips what is left of the current part, and its body
+ * ends. {@link #close()} gives the buffer back to the pool, if the
+ * parts are not read to the end. For random access to the parts by
+ * their names, see {@link RqMtBase}.
+ *
+ * <p>The class is not thread-safe.
+ *
+ * @since 2.0
+ */
+public final class MtStream implements Closeable {
+
+    /**
+     * Pattern to get boundary from header.
+     */
+    private static final Pattern BOUNDARY = Pattern.compile(
+        ".*[^a-z]boundary=(\"([^\"]+)\"|[^;]+).*"
+    );
+
+    /**
+     * Original request.
+     */
+    private final Request origin;
+
+    /**
+     * The body, or NULL until the first part is asked for.
+     */
+    private MtInput input;
+
+    /**
+     * Ctor.
+     * @param req Original request
+     */
+    public MtStream(final Request req) {
+        this.origin = req;
+    }
+
+    /**
+     * Get the next part.
+     *
+     * <p>A body without parts is not a valid multipart body, so there
+     * is at least one.
+     *
+     * @return The part or nothing after the last one
+     * @throws IOException If fails
+     */
+    public Opt<Request> next() throws IOException {
+        final boolean first = this.input == null;
+        if (first) {
+            this.input = new MtInput(
+                new RqLengthAware(this.origin).body(),
+                MtStream.boundary(this.origin)
+            );
+        }
+        final boolean more = this.input.next();
+        if (first && !more) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                "there are no parts in the multipart body"
+            );
+        }
+        final Opt<Request> part;
+        if (more) {
+            final List<String> head = this.input.head();
+            head.add(0, this.origin.head().iterator().next());
+            part = new Opt.Single<>(
+                new RequestOf(head, new MtStream.Part(this.input))
+            );
+        } else {
+            part = new Opt.Empty<>();
+        }
+        return part;
+    }
+
+    @Override
+    public void close() {
+        if (this.input != null) {
+            this.input.close();
+        }
+    }
+
+    /**
+     * Find the boundary in the Content-Type header.
+     * @param req The request
+     * @return The boundary
+     * @throws IOException If it's not there
+     */
+    private static String boundary(final Request req) throws IOException {
+        final String header = new RqHeaders.Smart(req).single("Content-Type");
+        if (!header.toLowerCase(Locale.ENGLISH)
+            .startsWith("multipart/form-data")) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                String.format(
+                    // @checkstyle LineLength (1 line)
+                    "RqMtBase can only parse multipart/form-data, while Content-Type specifies a different type: \"%s\"",
+                    header
+                )
+            );
+        }
+        final Matcher matcher = MtStream.BOUNDARY.matcher(header);
+        if (!matcher.matches()) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_BAD_REQUEST,
+                String.format(
+                    "boundary is not specified in Content-Type header: \"%s\"",
+                    header
+                )
+            );
+        }
+        final String boundary;
+        if (matcher.group(2) == null) {
+            boundary = matcher.group(1).trim();
+        } else {
+            boundary = matcher.group(2);
+        }
+        return boundary;
+    }
+
+    /**
+     * Body of a part.
+     * @since 2.0
+     */
+    private static final class Part extends InputStream {
+
+        /**
+         * The body of the request.
+         */
+        private final MtInput body;
+
+        /**
+         * Number of the part.
+         */
+        private final int number;
+
+        /**
+         * Ctor.
+         * @param input The body of the request
+         */
+        Part(final MtInput input) {
+            super();
+            this.body = input;
+            this.number = input.part();
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            final int data;
+            if (this.read(one, 0, 1) < 0) {
+                data = -1;
+            } else {
+                data = one[0] & 0xFF;
+            }
+            return data;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len)
+            throws IOException {
+            final int read;
+            if (this.body.part() != this.number) {
+                read = -1;
+            } else if (len == 0) {
+                read = 0;
+            } else {
+                read = this.body.read(buf, off, len);
+            }
+            return read;
+        }
+
+        @Override
+        public int available() {
+            final int available;
+            if (this.body.part() == this.number) {
+                available = this.body.available();
+            } else {
+                available = 0;
+            }
+            return available;
+        }
+    }
+}
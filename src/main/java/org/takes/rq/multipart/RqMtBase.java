@@ -23,18 +23,12 @@
  */
 package org.takes.rq.multipart;
 
-import java.io.File;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.WritableByteChannel;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -43,17 +37,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import org.cactoos.scalar.Unchecked;
 import org.cactoos.text.FormattedText;
 import org.cactoos.text.Lowered;
-import org.cactoos.text.StartsWith;
-import org.cactoos.text.TextOf;
 import org.cactoos.text.UncheckedText;
 import org.takes.HttpException;
 import org.takes.Request;
+import org.takes.misc.Buffers;
+import org.takes.misc.Opt;
 import org.takes.misc.VerboseIterable;
 import org.takes.rq.RqHeaders;
-import org.takes.rq.RqLengthAware;
 import org.takes.rq.RqMultipart;
 
 /**
@@ -63,31 +55,25 @@ import org.takes.rq.RqMultipart;
  * <p>For {@code application/x-www-form-urlencoded}
  * format use {@link org.takes.rq.RqForm}.
  *
- * <p>It is highly recommended to use {@link org.takes.rq.RqGreedy}
- * decorator before passing request to this class.
+ * <p>The parts are read with {@link MtStream} and kept, so that they
+ * may be found by their names: the small ones in memory and the ones
+ * bigger than the threshold, 64 KB by default, in temporary files,
+ * which are deleted when their bodies are closed. To read big uploads
+ * without storing them, use {@link MtStream} directly.
  *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.33
  * @see <a href="http://www.w3.org/TR/html401/interact/forms.html">
  *  Forms in HTML</a>
- * @see org.takes.rq.RqGreedy
- * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 @lombok.EqualsAndHashCode(of = "origin")
-@SuppressWarnings("PMD.ExcessiveImports")
 public final class RqMtBase implements RqMultipart {
-    /**
-     * The encoding used to create the request.
-     */
-    private static final Charset ENCODING = Charset.forName("UTF-8");
 
     /**
-     * Pattern to get boundary from header.
+     * How many bytes of a part to keep in memory, by default.
      */
-    private static final Pattern BOUNDARY = Pattern.compile(
-        ".*[^a-z]boundary=([^;]+).*"
-    );
+    private static final int MEMORY = 65_536;
 
     /**
      * Pattern to get name from header.
@@ -99,7 +85,7 @@ public final class RqMtBase implements RqMultipart {
     /**
      * Carriage return constant.
      */
-    private static final String CRLF = "\r\n";
+    private static final byte[] CRLF = {'\r', '\n'};
 
     /**
      * Map of params and values.
@@ -107,23 +93,23 @@ public final class RqMtBase implements RqMultipart {
     private final Map<String, List<Request>> map;
 
     /**
-     * Internal buffer.
-     */
-    private final ByteBuffer buffer;
-
-    /**
-     * InputStream based on request body.
+     * Original request.
      */
-    private final InputStream stream;
+    private final Request origin;
 
     /**
-     * Original request.
+     * Ctor.
+     * @param req Original request
+     * @throws IOException If fails
      */
-    private final Request origin;
+    public RqMtBase(final Request req) throws IOException {
+        this(req, RqMtBase.MEMORY);
+    }
 
     /**
      * Ctor.
      * @param req Original request
+     * @param memory How many bytes of a part to keep in memory, at most
      * @throws IOException If fails
      * @todo #950:30m Remove code from this ctor, leaving only
      *  initialization. Currently this constructor access body
@@ -131,16 +117,10 @@ public final class RqMtBase implements RqMultipart {
      *  composition of multiple request, as it can be seen in
      *  {@link RqMtFake}. When this task is done, remove
      *  explicit lazy evaluation for RqMtFake.
-     * @checkstyle ExecutableStatementCountCheck (2 lines)
      */
-    public RqMtBase(final Request req) throws IOException {
+    public RqMtBase(final Request req, final int memory) throws IOException {
         this.origin = req;
-        this.stream = new RqLengthAware(req).body();
-        this.buffer = ByteBuffer.allocate(
-            // @checkstyle MagicNumberCheck (1 line)
-            Math.min(8192, this.stream.available())
-        );
-        this.map = this.requests(req);
+        this.map = RqMtBase.asMap(RqMtBase.requests(req, memory));
     }
 
     @Override
@@ -188,100 +168,51 @@ public final class RqMtBase implements RqMultipart {
     }
 
     /**
-     * Build a request for each part of the origin request.
+     * Store every part of the origin request.
      * @param req Origin request
-     * @return The requests map that use the part name as a map key
+     * @param memory How many bytes of a part to keep in memory
+     * @return The parts, as requests
      * @throws IOException If fails
      */
-    private Map<String, List<Request>> requests(
-        final Request req) throws IOException {
-        final String header = new RqHeaders.Smart(req).single("Content-Type");
-        final Unchecked<Boolean> multipart = new Unchecked<>(
-            new StartsWith(
-                new Lowered(header),
-                new TextOf("multipart/form-data")
-            )
-        );
-        if (!multipart.value()) {
-            throw new HttpException(
-                HttpURLConnection.HTTP_BAD_REQUEST,
-                String.format(
-                    // @checkstyle LineLength (1 line)
-                    "RqMtBase can only parse multipart/form-data, while Content-Type specifies a different type: \"%s\"",
-                    header
-                )
-            );
-        }
-        final Matcher matcher = RqMtBase.BOUNDARY.matcher(header);
-        if (!matcher.matches()) {
-            throw new HttpException(
-                HttpURLConnection.HTTP_BAD_REQUEST,
-                String.format(
-                    "boundary is not specified in Content-Type header: \"%s\"",
-                    header
-                )
-            );
-        }
-        final ReadableByteChannel body = Channels.newChannel(this.stream);
-        if (body.read(this.buffer) < 0) {
-            throw new HttpException(
-                HttpURLConnection.HTTP_BAD_REQUEST,
-                "failed to read the request body"
-            );
-        }
-        final byte[] boundary = String.format(
-            "%s--%s", RqMtBase.CRLF, matcher.group(1)
-        ).getBytes(RqMtBase.ENCODING);
-        this.buffer.flip();
-        this.buffer.position(boundary.length - 2);
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private static Collection<Request> requests(final Request req,
+        final int memory) throws IOException {
         final Collection<Request> requests = new LinkedList<>();
-        while (this.buffer.hasRemaining()) {
-            final byte data = this.buffer.get();
-            if (data == '-') {
-                break;
+        // @checkstyle MagicNumber (1 line)
+        final byte[] buffer = Buffers.SHARED.array(8192);
+        try (MtStream parts = new MtStream(req)) {
+            for (Opt<Request> part = parts.next(); part.has();
+                part = parts.next()) {
+                try (MtSpool spool = new MtSpool(memory)) {
+                    RqMtBase.copy(part.get(), spool, buffer);
+                    requests.add(spool.request());
+                }
             }
-            this.buffer.position(this.buffer.position() + 1);
-            requests.add(this.make(boundary, body));
+        } finally {
+            Buffers.SHARED.free(buffer);
         }
-        return RqMtBase.asMap(requests);
+        return requests;
     }
 
     /**
-     * Make a request.
-     *  Scans the origin request until the boundary reached. Caches
-     *  the  content into a temporary file and returns it as a new request.
-     * @param boundary Boundary
-     * @param body Origin request body
-     * @return Request
+     * Write a part with its head.
+     * @param part The part
+     * @param output Where to write it
+     * @param buffer Buffer to copy with
      * @throws IOException If fails
      */
-    private Request make(final byte[] boundary,
-        final ReadableByteChannel body) throws IOException {
-        final File file = File.createTempFile(
-            RqMultipart.class.getName(), ".tmp"
-        );
-        try (WritableByteChannel channel = Files.newByteChannel(
-            file.toPath(),
-            StandardOpenOption.READ,
-            StandardOpenOption.WRITE
-        )
-        ) {
-            channel.write(
-                ByteBuffer.wrap(
-                    this.head().iterator().next().getBytes(RqMtBase.ENCODING)
-                )
-            );
-            channel.write(
-                ByteBuffer.wrap(RqMtBase.CRLF.getBytes(RqMtBase.ENCODING))
-            );
-            new CopyBytesUntilBoundary(
-                channel,
-                boundary,
-                body,
-                this.buffer
-            ).copy();
+    private static void copy(final Request part, final OutputStream output,
+        final byte[] buffer) throws IOException {
+        for (final String line : part.head()) {
+            output.write(line.getBytes(StandardCharsets.UTF_8));
+            output.write(RqMtBase.CRLF);
+        }
+        output.write(RqMtBase.CRLF);
+        final InputStream input = part.body();
+        for (int len = input.read(buffer); len >= 0;
+            len = input.read(buffer)) {
+            output.write(buffer, 0, len);
         }
-        return new RqTemp(file);
     }
 
     /**
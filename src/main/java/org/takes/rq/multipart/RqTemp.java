@@ -23,6 +23,7 @@
  */
 package org.takes.rq.multipart;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -52,9 +53,11 @@ final class RqTemp extends RqWrap {
         super(
             new RqWithHeader(
                 new RqLive(
-                    new TempInputStream(
-                        Files.newInputStream(file.toPath()),
-                        file
+                    new BufferedInputStream(
+                        new TempInputStream(
+                            Files.newInputStream(file.toPath()),
+                            file
+                        )
                     )
                 ),
                 "Content-Length",
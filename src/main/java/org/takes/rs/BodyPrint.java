@@ -29,6 +29,7 @@ import java.io.InputStream;
 import org.cactoos.Text;
 import org.cactoos.text.TextOf;
 import org.takes.Response;
+import org.takes.misc.Buffers;
 
 /**
  * Response body decorator that can print an entire body response in HTTP
@@ -57,9 +58,9 @@ public final class BodyPrint implements Body, Text {
     @Override
     public String asString() throws IOException {
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        // @checkstyle MagicNumber (1 line)
-        final byte[] buf = new byte[4096];
         final InputStream body = this.response.body();
+        // @checkstyle MagicNumber (1 line)
+        final byte[] buf = Buffers.SHARED.array(4096);
         try {
             while (true) {
                 final int bts = body.read(buf);
@@ -69,6 +70,7 @@ public final class BodyPrint implements Body, Text {
                 baos.write(buf, 0, bts);
             }
         } finally {
+            Buffers.SHARED.free(buf);
             baos.flush();
         }
         return new TextOf(baos.toByteArray()).toString();
@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output stream that codes the bytes in chunks, for HTTP body.
+ *
+ * <p>Bytes are collected in a buffer and sent as a chunk when the buffer
+ * is full or when the stream is flushed. {@link #finish()} sends the
+ * last, empty, chunk and leaves the underlying stream open, so that
+ * the next response can go through the same connection.
+ *
+ * <p>The class is NOT thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle LineLengthCheck (1 lines)
+ * @link <a href="https://www.rfc-editor.org/rfc/rfc9112#section-7.1">Chunked Transfer Coding</a>
+ */
+final class ChunkedOutputStream extends OutputStream {
+
+    /**
+     * HTTP End Of Line.
+     */
+    private static final byte[] EOL = {'\r', '\n'};
+
+    /**
+     * The last chunk and the empty trailer.
+     */
+    private static final byte[] LAST = {'0', '\r', '\n', '\r', '\n'};
+
+    /**
+     * The stream that we're wrapping.
+     */
+    private final OutputStream origin;
+
+    /**
+     * Bytes of the next chunk.
+     */
+    private final byte[] buffer;
+
+    /**
+     * How many bytes are there in the buffer.
+     */
+    private int count;
+
+    /**
+     * Ctor.
+     * @param stream The raw output stream
+     */
+    ChunkedOutputStream(final OutputStream stream) {
+        // @checkstyle MagicNumber (1 line)
+        this(stream, 8192);
+    }
+
+    /**
+     * Ctor.
+     * @param stream The raw output stream
+     * @param size Maximum size of a chunk
+     */
+    ChunkedOutputStream(final OutputStream stream, final int size) {
+        super();
+        this.origin = stream;
+        this.buffer = new byte[size];
+    }
+
+    @Override
+    public void write(final int data) throws IOException {
+        if (this.count == this.buffer.length) {
+            this.drain();
+        }
+        this.buffer[this.count] = (byte) data;
+        ++this.count;
+    }
+
+    @Override
+    public void write(final byte[] data, final int off, final int len)
+        throws IOException {
+        if (len >= this.buffer.length) {
+            this.drain();
+            this.chunk(data, off, len);
+        } else {
+            if (len > this.buffer.length - this.count) {
+                this.drain();
+            }
+            System.arraycopy(data, off, this.buffer, this.count, len);
+            this.count += len;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.drain();
+        this.origin.flush();
+    }
+
+    /**
+     * Send what is left and the last chunk, without closing the stream.
+     * @throws IOException If fails
+     */
+    public void finish() throws IOException {
+        this.drain();
+        this.origin.write(ChunkedOutputStream.LAST);
+        this.origin.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.finish();
+        this.origin.close();
+    }
+
+    /**
+     * Send the buffer as a chunk, if it's not empty.
+     * @throws IOException If fails
+     */
+    private void drain() throws IOException {
+        if (this.count > 0) {
+            this.chunk(this.buffer, 0, this.count);
+            this.count = 0;
+        }
+    }
+
+    /**
+     * Send a chunk.
+     * @param data Bytes
+     * @param off Offset
+     * @param len Length, more than zero
+     * @throws IOException If fails
+     */
+    private void chunk(final byte[] data, final int off, final int len)
+        throws IOException {
+        this.origin.write(
+            Integer.toHexString(len).getBytes(StandardCharsets.US_ASCII)
+        );
+        this.origin.write(ChunkedOutputStream.EOL);
+        this.origin.write(data, off, len);
+        this.origin.write(ChunkedOutputStream.EOL);
+    }
+}
@@ -33,6 +33,7 @@ import java.util.zip.GZIPOutputStream;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.takes.Response;
+import org.takes.misc.Buffers;
 
 /**
  * Response compressed with GZIP, according to RFC 1952.
@@ -105,7 +106,7 @@ public final class RsGzip implements Response {
         throws IOException {
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
         // @checkstyle MagicNumberCheck (1 line)
-        final byte[] buf = new byte[4096];
+        final byte[] buf = Buffers.SHARED.array(4096);
         final OutputStream gzip = new GZIPOutputStream(baos);
         try {
             while (true) {
@@ -116,6 +117,7 @@ public final class RsGzip implements Response {
                 gzip.write(buf, 0, len);
             }
         } finally {
+            Buffers.SHARED.free(buf);
             gzip.close();
             input.close();
         }
@@ -23,6 +23,16 @@
  */
 package org.takes.rs;
 
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.cactoos.Bytes;
@@ -32,10 +42,26 @@ import org.cactoos.text.Joined;
 import org.cactoos.text.Sticky;
 import org.cactoos.text.TextOf;
 import org.takes.Response;
+import org.takes.misc.Buffers;
 
 /**
  * Response decorator that can print an entire response in HTTP format.
  *
+ * <p>Use {@link #print(OutputStream)} when the response goes to a socket
+ * or any other stream: the head is written line by line and the body
+ * is copied as raw bytes, without building a {@link String} in memory.
+ * A body that is a {@link FileInputStream}, for example the one made
+ * by {@link RsWithBody#RsWithBody(Response, java.nio.file.Path)}, or
+ * a {@link SliceInputStream} of it, is transferred from its
+ * {@link FileChannel} to the channel behind the stream, which is done
+ * by the operating system (sendfile) when the channel is a socket
+ * channel.
+ *
+ * <p>Use {@link #printChunked(OutputStream)} when the length of the body
+ * is not known and the client understands HTTP/1.1: the body goes out
+ * in chunks, as soon as they are ready, instead of being collected in
+ * memory to count its length.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
@@ -44,6 +70,16 @@ import org.takes.Response;
 @EqualsAndHashCode(callSuper = true)
 public final class RsPrint extends RsWrap implements Text, Bytes {
 
+    /**
+     * HTTP End Of Line.
+     */
+    private static final byte[] EOL = {'\r', '\n'};
+
+    /**
+     * Size of the buffer used to copy the body.
+     */
+    private static final int BUFSIZE = 8192;
+
     /**
      * Head print representation.
      */
@@ -77,4 +113,201 @@ public final class RsPrint extends RsWrap implements Text, Bytes {
     public byte[] asBytes() throws Exception {
         return new BytesOf(this.asString()).asBytes();
     }
+
+    /**
+     * Print it all, head and body, to the output stream.
+     * @param output Output stream
+     * @throws IOException If fails
+     */
+    public void print(final OutputStream output) throws IOException {
+        this.print(output, Channels.newChannel(output));
+    }
+
+    /**
+     * Print it all, head and body, to the output stream, or, if the body
+     * is a file, directly to the channel behind it.
+     * @param output Output stream
+     * @param channel Channel the output stream writes to
+     * @throws IOException If fails
+     * @since 2.0
+     */
+    public void print(final OutputStream output,
+        final WritableByteChannel channel) throws IOException {
+        this.printHead(output);
+        this.printBody(output, channel);
+    }
+
+    /**
+     * Print the head, including the empty line that separates it
+     * from the body.
+     * @param output Output stream
+     * @throws IOException If fails
+     */
+    public void printHead(final OutputStream output) throws IOException {
+        for (final String line : this.head()) {
+            output.write(line.getBytes(StandardCharsets.UTF_8));
+            output.write(RsPrint.EOL);
+        }
+        output.write(RsPrint.EOL);
+    }
+
+    /**
+     * Copy the body to the output stream, through a buffer.
+     * @param output Output stream
+     * @throws IOException If fails
+     */
+    public void printBody(final OutputStream output) throws IOException {
+        this.printBody(output, Channels.newChannel(output));
+    }
+
+    /**
+     * Copy the body to the output stream, or, if the body is a file,
+     * transfer it directly to the channel behind the stream.
+     * @param output Output stream
+     * @param channel Channel the output stream writes to
+     * @throws IOException If fails
+     * @since 2.0
+     */
+    public void printBody(final OutputStream output,
+        final WritableByteChannel channel) throws IOException {
+        try (InputStream body = this.body()) {
+            if (body instanceof FileInputStream) {
+                output.flush();
+                final FileChannel file = ((FileInputStream) body).getChannel();
+                RsPrint.transfer(file, file.position(), file.size(), channel);
+            } else if (body instanceof SliceInputStream) {
+                output.flush();
+                if (!((SliceInputStream) body).transfer(channel)) {
+                    RsPrint.copy(body, output);
+                }
+            } else {
+                RsPrint.copy(body, output);
+            }
+        }
+    }
+
+    /**
+     * Print it all, with the body coded in chunks.
+     *
+     * <p>The head gets {@code Transfer-Encoding: chunked}. The output
+     * is flushed every time the body has no more bytes available
+     * right away, so the client gets the beginning of the body while
+     * the rest is still being made. The output is not closed.
+     *
+     * <p>The body is opened before the head is printed. If it fails on
+     * the way, the exception goes up and the last chunk is not printed,
+     * so the client can't take the body for a complete one.
+     *
+     * @param output Output stream
+     * @throws IOException If fails
+     * @since 2.0
+     */
+    public void printChunked(final OutputStream output) throws IOException {
+        try (InputStream body = this.body()) {
+            new RsPrint(
+                new RsWithHeader(this, "Transfer-Encoding", "chunked")
+            ).printHead(output);
+            final ChunkedOutputStream chunked = new ChunkedOutputStream(
+                output
+            );
+            final byte[] buf = Buffers.SHARED.array(RsPrint.BUFSIZE);
+            try {
+                while (true) {
+                    final int bytes = body.read(buf);
+                    if (bytes < 0) {
+                        break;
+                    }
+                    chunked.write(buf, 0, bytes);
+                    if (body.available() <= 0) {
+                        chunked.flush();
+                    }
+                }
+            } finally {
+                Buffers.SHARED.free(buf);
+            }
+            chunked.finish();
+        }
+    }
+
+    /**
+     * Copy the stream through a buffer.
+     * @param input Input stream
+     * @param output Output stream
+     * @throws IOException If fails
+     */
+    private static void copy(final InputStream input,
+        final OutputStream output) throws IOException {
+        final byte[] buf = Buffers.SHARED.array(RsPrint.BUFSIZE);
+        try {
+            while (true) {
+                final int bytes = input.read(buf);
+                if (bytes < 0) {
+                    break;
+                }
+                output.write(buf, 0, bytes);
+            }
+        } finally {
+            Buffers.SHARED.free(buf);
+        }
+    }
+
+    /**
+     * Transfer a part of the file to the channel.
+     *
+     * <p>If the file can't be transferred any further, the rest of it is
+     * copied through a buffer.
+     * @param file File channel
+     * @param start Position to start from
+     * @param end Position to stop at
+     * @param target Target channel
+     * @throws IOException If fails
+     */
+    static void transfer(final FileChannel file, final long start,
+        final long end, final WritableByteChannel target) throws IOException {
+        long pos = start;
+        while (pos < end) {
+            final long done = file.transferTo(pos, end - pos, target);
+            if (done <= 0L) {
+                RsPrint.copy(file, pos, end, target);
+                break;
+            }
+            pos += done;
+        }
+    }
+
+    /**
+     * Copy a part of the file to the channel through a buffer.
+     * @param file File channel
+     * @param start Position to start from
+     * @param end Position to stop at
+     * @param target Target channel
+     * @throws IOException If fails, or if the file is shorter
+     */
+    private static void copy(final FileChannel file, final long start,
+        final long end, final WritableByteChannel target) throws IOException {
+        final byte[] array = Buffers.SHARED.array(RsPrint.BUFSIZE);
+        try {
+            final ByteBuffer buf = ByteBuffer.wrap(array);
+            long pos = start;
+            while (pos < end) {
+                buf.clear();
+                buf.limit((int) Math.min((long) array.length, end - pos));
+                final int read = file.read(buf, pos);
+                if (read < 0) {
+                    throw new EOFException(
+                        String.format(
+                            "The file ended at %d, before %d", pos, end
+                        )
+                    );
+                }
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    target.write(buf);
+                }
+                pos += (long) read;
+            }
+        } finally {
+            Buffers.SHARED.free(array);
+        }
+    }
 }
@@ -23,12 +23,16 @@
  */
 package org.takes.rs;
 
+import java.io.FileInputStream;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.cactoos.Scalar;
 import org.cactoos.bytes.BytesOf;
 import org.cactoos.bytes.UncheckedBytes;
 import org.takes.Response;
@@ -84,6 +88,15 @@ public final class RsWithBody extends RsWrap {
         this(new RsWithStatus(HttpURLConnection.HTTP_OK), url);
     }
 
+    /**
+     * Constructs a {@code RsWithBody} with the content of the file as body.
+     * @param file File with body
+     * @since 2.0
+     */
+    public RsWithBody(final Path file) {
+        this(new RsWithStatus(HttpURLConnection.HTTP_OK), file);
+    }
+
     /**
      * Constructs a {@code RsWithBody} with the specified response and body. The
      * body will be encoded into UTF-8 by default.
@@ -133,6 +146,25 @@ public final class RsWithBody extends RsWrap {
         this(res, new Body.Stream(body));
     }
 
+    /**
+     * Constructs a {@code RsWithBody} with the content of the file as body.
+     *
+     * <p>The length of the body is taken from the file system, without
+     * reading the file. The body is a {@link FileInputStream}, which
+     * {@link RsPrint} sends straight from its channel.
+     *
+     * @param res Original response
+     * @param file File with body
+     * @since 2.0
+     */
+    public RsWithBody(final Response res, final Path file) {
+        this(
+            res,
+            () -> Files.size(file),
+            () -> new FileInputStream(file.toFile())
+        );
+    }
+
     /**
      * Constructs a {@code RsWithBody} with the specified response and body
      * content.
@@ -140,6 +172,18 @@ public final class RsWithBody extends RsWrap {
      * @param body The content of the body
      */
     RsWithBody(final Response res, final Body body) {
+        this(res, () -> (long) body.length(), body::stream);
+    }
+
+    /**
+     * Constructs a {@code RsWithBody} with the specified response, length
+     * and body.
+     * @param res Original response
+     * @param length Length of the body
+     * @param body The body
+     */
+    private RsWithBody(final Response res, final Scalar<Long> length,
+        final Scalar<InputStream> body) {
         super(
             new ResponseOf(
                 () -> {
@@ -147,10 +191,10 @@ public final class RsWithBody extends RsWrap {
                     return new RsWithHeader(
                         new RsWithoutHeader(res, header),
                         header,
-                        Integer.toString(body.length())
+                        Long.toString(length.value())
                     ).head();
                 },
-                body::stream
+                body
             )
         );
     }
@@ -0,0 +1,174 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Input stream with a slice of the original stream.
+ *
+ * <p>The stream skips {@code offset} bytes of the original stream, before
+ * the first read, and then reads not more than {@code length} bytes.
+ * When the original stream is a {@link FileInputStream}, skipping is
+ * a seek in the file and {@link RsPrint} transfers the slice directly
+ * from the file channel.
+ *
+ * <p>The class is NOT thread-safe.
+ *
+ * @since 2.0
+ */
+public final class SliceInputStream extends InputStream {
+
+    /**
+     * Original stream.
+     */
+    private final InputStream origin;
+
+    /**
+     * Bytes to skip before the first read.
+     */
+    private long offset;
+
+    /**
+     * More bytes to read.
+     */
+    private long more;
+
+    /**
+     * Ctor.
+     * @param stream Original stream
+     * @param skip Bytes to skip, from the current position of the stream
+     * @param length Max length of the slice
+     */
+    public SliceInputStream(final InputStream stream, final long skip,
+        final long length) {
+        super();
+        this.origin = stream;
+        this.offset = skip;
+        this.more = length;
+    }
+
+    @Override
+    public int available() throws IOException {
+        this.seek();
+        return (int) Math.min(
+            (long) this.origin.available(),
+            Math.min(this.more, (long) Integer.MAX_VALUE)
+        );
+    }
+
+    @Override
+    public int read() throws IOException {
+        this.seek();
+        final int data;
+        if (this.more <= 0L) {
+            data = -1;
+        } else {
+            data = this.origin.read();
+            --this.more;
+        }
+        return data;
+    }
+
+    @Override
+    public int read(final byte[] buf, final int off, final int len)
+        throws IOException {
+        this.seek();
+        final int read;
+        if (this.more <= 0L) {
+            read = -1;
+        } else {
+            read = this.origin.read(
+                buf, off, (int) Math.min((long) len, this.more)
+            );
+            if (read > 0) {
+                this.more -= (long) read;
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.origin.close();
+    }
+
+    /**
+     * Transfer the slice to the channel, if the original stream is a file.
+     * @param target Target channel
+     * @return TRUE if transferred, FALSE if it's not a file
+     * @throws IOException If fails, or if the file is shorter than
+     *  the slice
+     */
+    boolean transfer(final WritableByteChannel target) throws IOException {
+        final boolean file = this.origin instanceof FileInputStream;
+        if (file) {
+            final FileChannel channel =
+                ((FileInputStream) this.origin).getChannel();
+            final long start = channel.position() + this.offset;
+            if (channel.size() - start < this.more) {
+                throw new EOFException(
+                    String.format(
+                        "The file has %d bytes, not enough for %d after %d",
+                        channel.size(), this.more, start
+                    )
+                );
+            }
+            final long end = start + this.more;
+            RsPrint.transfer(channel, start, end, target);
+            channel.position(end);
+            this.offset = 0L;
+            this.more = 0L;
+        }
+        return file;
+    }
+
+    /**
+     * Skip the bytes before the slice, if not yet.
+     * @throws IOException If fails
+     */
+    private void seek() throws IOException {
+        while (this.offset > 0L) {
+            final long skipped = this.origin.skip(this.offset);
+            if (skipped <= 0L) {
+                if (this.origin.read() < 0) {
+                    throw new EOFException(
+                        String.format(
+                            "the stream ended %d bytes before the slice",
+                            this.offset
+                        )
+                    );
+                }
+                --this.offset;
+            } else {
+                this.offset -= skipped;
+            }
+        }
+    }
+}
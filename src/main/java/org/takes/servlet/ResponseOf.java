@@ -24,7 +24,6 @@
 package org.takes.servlet;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpCookie;
 import java.util.Iterator;
@@ -40,6 +39,7 @@ import org.cactoos.text.Trimmed;
 import org.cactoos.text.UncheckedText;
 import org.takes.Response;
 import org.takes.misc.Equality;
+import org.takes.rs.RsPrint;
 
 /**
  * Takes response as servlet response.
@@ -48,11 +48,6 @@ import org.takes.misc.Equality;
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 final class ResponseOf {
-    /**
-     * Buffer size.
-     */
-    private static final int BUFSIZE = 8192;
-
     /**
      * Http response first line head pattern.
      */
@@ -87,15 +82,8 @@ final class ResponseOf {
             while (head.hasNext()) {
                 ResponseOf.applyHeader(sresp, head.next());
             }
-            try (
-                InputStream body = this.rsp.body();
-                OutputStream out = sresp.getOutputStream()
-            ) {
-                final byte[] buff = new byte[ResponseOf.BUFSIZE];
-                // @checkstyle LineLengthCheck (1 line)
-                for (int read = body.read(buff); read >= 0; read = body.read(buff)) {
-                    out.write(buff);
-                }
+            try (OutputStream out = sresp.getOutputStream()) {
+                new RsPrint(this.rsp).printBody(out);
             }
         } else {
             throw new IOException("Invalid response: response code not found");
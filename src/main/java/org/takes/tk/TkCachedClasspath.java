@@ -0,0 +1,623 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.facets.fork.FkEncoding;
+import org.takes.facets.fork.RsFork;
+import org.takes.rq.RqHref;
+import org.takes.rs.ResponseOf;
+import org.takes.rs.RsWithHeaders;
+import org.takes.rs.RsWithStatus;
+
+/**
+ * Take reading resources from classpath, with an in-memory cache.
+ *
+ * <p>It works like {@link TkClasspath}, but keeps the resources it has
+ * already read in a cache of direct (off-heap) byte buffers, limited by
+ * their total size. When the cache is full, the least recently used
+ * resources are evicted. Every resource is kept together with its
+ * GZIP-compressed variant, if it's smaller, a strong {@code ETag} made of
+ * the content, and {@code Content-Type} guessed by its name. The variant
+ * is picked according to {@code Accept-Encoding} of the request, nothing
+ * is compressed per request:
+ *
+ * <pre> new TkCachedClasspath("/www", 16L << 20);</pre>
+ *
+ * <p>Resources larger than the cache are not cached, but served
+ * as {@link TkClasspath} does; their size is checked before they are
+ * read, if the classpath knows it, and they are never read into the
+ * cache again. When many requests miss the same resource at once, only
+ * one of them reads it. Conditional and range requests are
+ * supported, see {@link TkConditional} and {@link TkRange}.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@ToString(of = "prefix")
+@EqualsAndHashCode(of = "prefix")
+public final class TkCachedClasspath implements Take {
+
+    /**
+     * Default size of the cache, in bytes.
+     */
+    private static final long CAPACITY = 16L << 20;
+
+    /**
+     * Content types of common web resources, by extension.
+     */
+    private static final Map<String, String> TYPES =
+        TkCachedClasspath.types();
+
+    /**
+     * Prefix of resources.
+     */
+    private final String prefix;
+
+    /**
+     * Maximum total size of cached buffers, in bytes.
+     */
+    private final long capacity;
+
+    /**
+     * Cached resources, in access order.
+     */
+    private final Map<String, TkCachedClasspath.Entry> entries;
+
+    /**
+     * Names of resources being read, with their locks.
+     */
+    private final ConcurrentMap<String, Object> loading;
+
+    /**
+     * Names of resources that don't fit into the cache.
+     */
+    private final Set<String> large;
+
+    /**
+     * Total size of cached buffers, in bytes.
+     */
+    private final AtomicLong size;
+
+    /**
+     * Requests served from the cache.
+     */
+    private final AtomicLong hit;
+
+    /**
+     * Requests that had to read the classpath.
+     */
+    private final AtomicLong miss;
+
+    /**
+     * Resources evicted from the cache.
+     */
+    private final AtomicLong evicted;
+
+    /**
+     * Take that serves the resources.
+     */
+    private final Take origin;
+
+    /**
+     * Ctor.
+     * @param pfx Prefix of resources
+     */
+    public TkCachedClasspath(final String pfx) {
+        this(pfx, TkCachedClasspath.CAPACITY);
+    }
+
+    /**
+     * Ctor.
+     * @param pfx Prefix of resources
+     * @param max Maximum total size of cached resources, in bytes
+     */
+    public TkCachedClasspath(final String pfx, final long max) {
+        this.prefix = pfx;
+        this.capacity = max;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.loading = new ConcurrentHashMap<>(0);
+        this.large = ConcurrentHashMap.newKeySet();
+        this.size = new AtomicLong();
+        this.hit = new AtomicLong();
+        this.miss = new AtomicLong();
+        this.evicted = new AtomicLong();
+        this.origin = new TkConditional(
+            new TkRange(
+                new Take() {
+                    @Override
+                    public Response act(final Request req) throws Exception {
+                        return TkCachedClasspath.this.response(req);
+                    }
+                }
+            )
+        );
+    }
+
+    @Override
+    public Response act(final Request req) throws Exception {
+        return this.origin.act(req);
+    }
+
+    /**
+     * How many requests were served from the cache.
+     * @return Total hits
+     */
+    public long hits() {
+        return this.hit.get();
+    }
+
+    /**
+     * How many requests had to read the classpath.
+     * @return Total misses
+     */
+    public long misses() {
+        return this.miss.get();
+    }
+
+    /**
+     * How many resources were evicted from the cache.
+     * @return Total evictions
+     */
+    public long evictions() {
+        return this.evicted.get();
+    }
+
+    /**
+     * Make a response for the request.
+     * @param req Request
+     * @return Response
+     * @throws Exception If fails
+     */
+    private Response response(final Request req) throws Exception {
+        final String name = String.format(
+            "%s%s", this.prefix, new RqHref.Base(req).href().path()
+        );
+        TkCachedClasspath.Entry entry = this.cached(name);
+        if (entry == null) {
+            entry = this.load(name);
+        } else {
+            this.hit.incrementAndGet();
+        }
+        final Response response;
+        if (entry == null) {
+            response = new TkClasspath(this.prefix).act(req);
+        } else {
+            response = entry.response(req);
+        }
+        return response;
+    }
+
+    /**
+     * Find the resource in the cache.
+     * @param name Name of the resource
+     * @return Entry or NULL if it's not there
+     */
+    private TkCachedClasspath.Entry cached(final String name) {
+        synchronized (this.entries) {
+            return this.entries.get(name);
+        }
+    }
+
+    /**
+     * Read the resource and put it into the cache, if it fits.
+     *
+     * <p>Only one request reads the resource, the others that miss it at
+     * the same time wait and take it from the cache. A resource that
+     * doesn't fit is remembered and never read again.
+     *
+     * @param name Name of the resource
+     * @return Entry or NULL if it doesn't fit
+     * @throws IOException If fails
+     */
+    private TkCachedClasspath.Entry load(final String name)
+        throws IOException {
+        final Object lock = this.loading.computeIfAbsent(
+            name, key -> new Object()
+        );
+        try {
+            synchronized (lock) {
+                TkCachedClasspath.Entry entry = this.cached(name);
+                if (entry == null) {
+                    this.miss.incrementAndGet();
+                    if (!this.large.contains(name)) {
+                        entry = this.read(name);
+                    }
+                } else {
+                    this.hit.incrementAndGet();
+                }
+                return entry;
+            }
+        } finally {
+            this.loading.remove(name, lock);
+        }
+    }
+
+    /**
+     * Read the resource from the classpath, unless it's too large.
+     * @param name Name of the resource
+     * @return Entry or NULL if it doesn't fit
+     * @throws IOException If fails
+     */
+    private TkCachedClasspath.Entry read(final String name)
+        throws IOException {
+        final URL url = TkCachedClasspath.class.getResource(name);
+        if (url == null) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_NOT_FOUND,
+                String.format("%s not found in classpath", name)
+            );
+        }
+        final URLConnection conn = url.openConnection();
+        final byte[] plain;
+        try (InputStream input = conn.getInputStream()) {
+            if (conn.getContentLengthLong() > this.capacity) {
+                plain = null;
+            } else {
+                plain = TkCachedClasspath.read(input, this.capacity);
+            }
+        }
+        final TkCachedClasspath.Entry result;
+        if (plain == null) {
+            this.large.add(name);
+            result = null;
+        } else {
+            final TkCachedClasspath.Entry entry =
+                new TkCachedClasspath.Entry(name, plain);
+            if (entry.size() > this.capacity) {
+                this.large.add(name);
+                result = null;
+            } else {
+                synchronized (this.entries) {
+                    final TkCachedClasspath.Entry before =
+                        this.entries.put(name, entry);
+                    if (before != null) {
+                        this.size.addAndGet(-before.size());
+                    }
+                    this.size.addAndGet(entry.size());
+                    this.evict();
+                }
+                result = entry;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evict the least recently used entries, until the cache fits.
+     */
+    private void evict() {
+        final Iterator<TkCachedClasspath.Entry> eldest =
+            this.entries.values().iterator();
+        while (this.size.get() > this.capacity && eldest.hasNext()) {
+            this.size.addAndGet(-eldest.next().size());
+            eldest.remove();
+            this.evicted.incrementAndGet();
+        }
+    }
+
+    /**
+     * Read the stream to the end, unless it's too long.
+     * @param input Stream
+     * @param max Maximum number of bytes to read
+     * @return Bytes or NULL if there are more of them than the maximum
+     * @throws IOException If fails
+     */
+    private static byte[] read(final InputStream input, final long max)
+        throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // @checkstyle MagicNumberCheck (1 line)
+        final byte[] buf = new byte[8192];
+        while (baos.size() <= max) {
+            final int len = input.read(buf);
+            if (len < 0) {
+                break;
+            }
+            baos.write(buf, 0, len);
+        }
+        final byte[] bytes;
+        if (baos.size() > max) {
+            bytes = null;
+        } else {
+            bytes = baos.toByteArray();
+        }
+        return bytes;
+    }
+
+    /**
+     * Make content types of common web resources.
+     * @return Map of extensions and types
+     */
+    private static Map<String, String> types() {
+        final Map<String, String> map = new HashMap<>(0);
+        map.put("css", "text/css");
+        map.put("js", "application/javascript");
+        map.put("json", "application/json");
+        map.put("html", "text/html");
+        map.put("txt", "text/plain");
+        map.put("xml", "application/xml");
+        map.put("xsl", "application/xml");
+        map.put("svg", "image/svg+xml");
+        map.put("png", "image/png");
+        map.put("jpg", "image/jpeg");
+        map.put("gif", "image/gif");
+        map.put("ico", "image/x-icon");
+        map.put("woff", "font/woff");
+        map.put("woff2", "font/woff2");
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Cached resource.
+     * @since 2.0
+     */
+    private static final class Entry {
+        /**
+         * Plain content.
+         */
+        private final ByteBuffer plain;
+
+        /**
+         * Compressed content or NULL, if compression doesn't help.
+         */
+        private final ByteBuffer gzip;
+
+        /**
+         * Entity tag of the plain content.
+         */
+        private final String tag;
+
+        /**
+         * Content type.
+         */
+        private final String type;
+
+        /**
+         * Ctor.
+         * @param name Name of the resource
+         * @param bytes Content
+         * @throws IOException If fails
+         */
+        Entry(final String name, final byte[] bytes) throws IOException {
+            this.plain = TkCachedClasspath.Entry.direct(bytes);
+            final byte[] zipped = TkCachedClasspath.Entry.compress(bytes);
+            if (zipped.length < bytes.length) {
+                this.gzip = TkCachedClasspath.Entry.direct(zipped);
+            } else {
+                this.gzip = null;
+            }
+            this.tag = TkCachedClasspath.Entry.digest(bytes);
+            final String guess = URLConnection.guessContentTypeFromName(name);
+            final String ext = name.substring(name.lastIndexOf('.') + 1)
+                .toLowerCase(Locale.ENGLISH);
+            if (TkCachedClasspath.TYPES.containsKey(ext)) {
+                this.type = TkCachedClasspath.TYPES.get(ext);
+            } else if (guess == null) {
+                this.type = "application/octet-stream";
+            } else {
+                this.type = guess;
+            }
+        }
+
+        /**
+         * Total size of buffers.
+         * @return Bytes
+         */
+        long size() {
+            long total = (long) this.plain.capacity();
+            if (this.gzip != null) {
+                total += (long) this.gzip.capacity();
+            }
+            return total;
+        }
+
+        /**
+         * Make a response, picking the variant by the request.
+         * @param req Request
+         * @return Response
+         * @throws IOException If fails
+         */
+        Response response(final Request req) throws IOException {
+            final Response response;
+            final Response identity = this.variant(
+                this.plain, String.format("\"%s\"", this.tag)
+            );
+            if (this.gzip == null) {
+                response = identity;
+            } else {
+                response = new RsFork(
+                    req,
+                    new FkEncoding(
+                        "gzip",
+                        new RsWithHeaders(
+                            this.variant(
+                                this.gzip,
+                                String.format("\"%s-gzip\"", this.tag)
+                            ),
+                            "Content-Encoding: gzip",
+                            "Vary: Accept-Encoding"
+                        )
+                    ),
+                    new FkEncoding(
+                        "",
+                        new RsWithHeaders(identity, "Vary: Accept-Encoding")
+                    )
+                );
+            }
+            return response;
+        }
+
+        /**
+         * Make a response with one of the variants.
+         * @param buffer Content
+         * @param etag Entity tag of it
+         * @return Response
+         */
+        private Response variant(final ByteBuffer buffer, final String etag) {
+            return new ResponseOf(
+                () -> new RsWithHeaders(
+                    new RsWithStatus(HttpURLConnection.HTTP_OK),
+                    String.format("Content-Type: %s", this.type),
+                    String.format("Content-Length: %d", buffer.capacity()),
+                    String.format("ETag: %s", etag)
+                ).head(),
+                () -> new TkCachedClasspath.BufferInputStream(
+                    buffer.duplicate()
+                )
+            );
+        }
+
+        /**
+         * Copy bytes to a direct buffer.
+         * @param bytes Bytes
+         * @return Read-only buffer
+         */
+        private static ByteBuffer direct(final byte[] bytes) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes);
+            buffer.flip();
+            return buffer.asReadOnlyBuffer();
+        }
+
+        /**
+         * Compress bytes with GZIP.
+         * @param bytes Bytes
+         * @return Compressed bytes
+         * @throws IOException If fails
+         */
+        private static byte[] compress(final byte[] bytes) throws IOException {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (OutputStream gzip = new GZIPOutputStream(baos)) {
+                gzip.write(bytes);
+            }
+            return baos.toByteArray();
+        }
+
+        /**
+         * Make a digest of the content.
+         * @param bytes Bytes
+         * @return Hex digest
+         */
+        private static String digest(final byte[] bytes) {
+            final byte[] hash;
+            try {
+                hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            } catch (final NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+            final StringBuilder hex = new StringBuilder(hash.length << 1);
+            for (final byte bte : hash) {
+                hex.append(String.format("%02x", bte));
+            }
+            return hex.toString();
+        }
+    }
+
+    /**
+     * Input stream of a byte buffer.
+     * @since 2.0
+     */
+    private static final class BufferInputStream extends InputStream {
+        /**
+         * The buffer.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Ctor.
+         * @param buf The buffer, which this stream may move
+         */
+        BufferInputStream(final ByteBuffer buf) {
+            super();
+            this.buffer = buf;
+        }
+
+        @Override
+        public int read() {
+            final int data;
+            if (this.buffer.hasRemaining()) {
+                data = this.buffer.get() & 0xff;
+            } else {
+                data = -1;
+            }
+            return data;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len) {
+            final int read;
+            if (len == 0) {
+                read = 0;
+            } else if (this.buffer.hasRemaining()) {
+                read = Math.min(len, this.buffer.remaining());
+                this.buffer.get(buf, off, read);
+            } else {
+                read = -1;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long num) {
+            final int skip = (int) Math.max(
+                0L, Math.min(num, (long) this.buffer.remaining())
+            );
+            this.buffer.position(this.buffer.position() + skip);
+            return skip;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+}
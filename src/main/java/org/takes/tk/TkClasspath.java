@@ -23,9 +23,14 @@
  */
 package org.takes.tk;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.net.JarURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.jar.JarEntry;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.takes.HttpException;
@@ -33,7 +38,11 @@ import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
 import org.takes.rq.RqHref;
+import org.takes.rs.ResponseOf;
 import org.takes.rs.RsWithBody;
+import org.takes.rs.RsWithHeader;
+import org.takes.rs.RsWithHeaders;
+import org.takes.rs.RsWithStatus;
 
 /**
  * Take reading resources from classpath.
@@ -52,6 +61,13 @@ import org.takes.rs.RsWithBody;
  * <p>If such a resource is not found, {@link org.takes.HttpException}
  * will be thrown.
  *
+ * <p>When the resource is a file or an entry of a JAR, its
+ * {@code Content-Length}, {@code Last-Modified} and {@code ETag} are taken
+ * from the metadata, without reading it, and conditional and range
+ * requests are supported, see {@link TkConditional} and {@link TkRange}.
+ * Mind that a range of a compressed JAR entry is still read from the
+ * beginning of the entry.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
@@ -85,24 +101,65 @@ public final class TkClasspath extends TkWrap {
      */
     public TkClasspath(final String prefix) {
         super(
-            new Take() {
-                @Override
-                public Response act(final Request request) throws IOException {
-                    final String name = String.format(
-                        "%s%s", prefix, new RqHref.Base(request).href().path()
-                    );
-                    final InputStream input = this.getClass()
-                        .getResourceAsStream(name);
-                    if (input == null) {
-                        throw new HttpException(
-                            HttpURLConnection.HTTP_NOT_FOUND,
-                            String.format("%s not found in classpath", name)
-                        );
+            new TkConditional(
+                new TkRange(
+                    new Take() {
+                        @Override
+                        public Response act(final Request request)
+                            throws IOException {
+                            return TkClasspath.response(
+                                String.format(
+                                    "%s%s", prefix,
+                                    new RqHref.Base(request).href().path()
+                                )
+                            );
+                        }
                     }
-                    return new RsWithBody(input);
-                }
-            }
+                )
+            )
         );
     }
 
+    /**
+     * Make a response with the resource.
+     * @param name Name of the resource
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response response(final String name) throws IOException {
+        final URL url = TkClasspath.class.getResource(name);
+        if (url == null) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_NOT_FOUND,
+                String.format("%s not found in classpath", name)
+            );
+        }
+        final Response response;
+        final URLConnection conn = url.openConnection();
+        if ("file".equals(url.getProtocol())) {
+            final File file = new File(URI.create(url.toString()));
+            response = new RsWithHeaders(
+                new RsWithBody(file.toPath()),
+                new Validators(file.length(), file.lastModified()).headers()
+            );
+        } else if (conn instanceof JarURLConnection
+            && ((JarURLConnection) conn).getJarEntry().getSize() >= 0L) {
+            final JarEntry entry = ((JarURLConnection) conn).getJarEntry();
+            response = new RsWithHeaders(
+                new ResponseOf(
+                    () -> new RsWithHeader(
+                        new RsWithStatus(HttpURLConnection.HTTP_OK),
+                        "Content-Length",
+                        Long.toString(entry.getSize())
+                    ).head(),
+                    conn::getInputStream
+                ),
+                new Validators(entry.getSize(), entry.getTime()).headers()
+            );
+        } else {
+            response = new RsWithBody(conn.getInputStream());
+        }
+        return response;
+    }
+
 }
@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.rq.RqHeaders;
+import org.takes.rs.RsEmpty;
+import org.takes.rs.RsWithHeaders;
+import org.takes.rs.RsWithStatus;
+
+/**
+ * Take that answers conditional GET requests with {@code 304 Not Modified}.
+ *
+ * <p>When the request has {@code If-None-Match} header and the response
+ * has the same {@code ETag}, or the request has {@code If-Modified-Since}
+ * header and the response has {@code Last-Modified} not later than that,
+ * the body of the response is not sent, for example:
+ *
+ * <pre> new TkConditional(new TkFiles("/tmp"));</pre>
+ *
+ * <p>{@code If-Modified-Since} is ignored when {@code If-None-Match}
+ * is present, as RFC 7232 requires. The body of the original response
+ * is never opened in case of {@code 304}, so it works best with
+ * responses that make {@code ETag} and {@code Last-Modified} without
+ * reading the body, like the ones of {@link TkFiles} and
+ * {@link TkClasspath}.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public final class TkConditional extends TkWrap {
+
+    /**
+     * Ctor.
+     * @param take Original take
+     */
+    public TkConditional(final Take take) {
+        super(
+            new Take() {
+                @Override
+                public Response act(final Request req) throws Exception {
+                    final Response response = take.act(req);
+                    final Response result;
+                    if (TkConditional.fresh(req, response)) {
+                        result = new RsWithStatus(
+                            new RsWithHeaders(
+                                new RsEmpty(),
+                                TkConditional.validators(response)
+                            ),
+                            HttpURLConnection.HTTP_NOT_MODIFIED
+                        );
+                    } else {
+                        result = response;
+                    }
+                    return result;
+                }
+            }
+        );
+    }
+
+    /**
+     * Does the client already have this version of the response?
+     * @param req Request
+     * @param response Response
+     * @return TRUE if the client's copy is fresh
+     * @throws Exception If fails
+     */
+    private static boolean fresh(final Request req, final Response response)
+        throws Exception {
+        final RqHeaders.Smart headers = new RqHeaders.Smart(req);
+        final String match = headers.single("If-None-Match", "");
+        final String since = headers.single("If-Modified-Since", "");
+        boolean fresh = false;
+        if ((!match.isEmpty() || !since.isEmpty())
+            && Validators.status(response) == HttpURLConnection.HTTP_OK) {
+            if (match.isEmpty()) {
+                final String modified = Validators.header(
+                    response, "Last-Modified"
+                );
+                final long time = Validators.time(since);
+                fresh = !modified.isEmpty() && time >= 0L
+                    && Validators.time(modified) <= time;
+            } else {
+                fresh = TkConditional.matches(
+                    match, Validators.header(response, "ETag")
+                );
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Validator headers of the response, to repeat them in {@code 304}.
+     * @param response Response
+     * @return Headers
+     * @throws IOException If fails
+     */
+    private static Collection<String> validators(final Response response)
+        throws IOException {
+        final Collection<String> headers = new ArrayList<>(2);
+        for (final String name : new String[] {"ETag", "Last-Modified"}) {
+            final String value = Validators.header(response, name);
+            if (!value.isEmpty()) {
+                headers.add(String.format("%s: %s", name, value));
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Does the list of entity tags match the tag (weak comparison)?
+     * @param list List of entity tags, from {@code If-None-Match}
+     * @param tag Entity tag of the response
+     * @return TRUE if matches
+     */
+    private static boolean matches(final String list, final String tag) {
+        boolean matches = false;
+        if (!tag.isEmpty()) {
+            final String mine = TkConditional.opaque(tag);
+            final Iterator<String> tags =
+                Arrays.asList(list.split(",")).iterator();
+            while (tags.hasNext() && !matches) {
+                final String next = tags.next().trim();
+                matches = "*".equals(next)
+                    || TkConditional.opaque(next).equals(mine);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Opaque part of the entity tag, without the weakness indicator.
+     * @param tag Entity tag
+     * @return Opaque tag
+     */
+    private static String opaque(final String tag) {
+        final String opaque;
+        if (tag.startsWith("W/")) {
+            opaque = tag.substring(2);
+        } else {
+            opaque = tag;
+        }
+        return opaque;
+    }
+}
@@ -26,7 +26,6 @@ package org.takes.tk;
 import java.io.File;
 import java.io.IOException;
 import java.net.HttpURLConnection;
-import java.nio.file.Files;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.takes.HttpException;
@@ -35,6 +34,7 @@ import org.takes.Response;
 import org.takes.Take;
 import org.takes.rq.RqHref;
 import org.takes.rs.RsWithBody;
+import org.takes.rs.RsWithHeaders;
 
 /**
  * Take reading resources from directory.
@@ -53,6 +53,12 @@ import org.takes.rs.RsWithBody;
  * <p>If such a resource is not found, {@link org.takes.HttpException}
  * will be thrown.
  *
+ * <p>{@code Content-Length}, {@code Last-Modified} and {@code ETag} headers
+ * are taken from the file system, without reading the file. The body
+ * is sent straight from the file channel, see
+ * {@link org.takes.rs.RsPrint}. Conditional and range requests are
+ * supported, see {@link TkConditional} and {@link TkRange}.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
@@ -75,23 +81,43 @@ public final class TkFiles extends TkWrap {
      */
     public TkFiles(final File base) {
         super(
-            new Take() {
-                @Override
-                public Response act(final Request request) throws IOException {
-                    final File file = new File(
-                        base, new RqHref.Base(request).href().path()
-                    );
-                    if (!file.exists()) {
-                        throw new HttpException(
-                            HttpURLConnection.HTTP_NOT_FOUND,
-                            String.format(
-                                "%s not found", file.getAbsolutePath()
-                            )
-                        );
+            new TkConditional(
+                new TkRange(
+                    new Take() {
+                        @Override
+                        public Response act(final Request request)
+                            throws IOException {
+                            return TkFiles.response(base, request);
+                        }
                     }
-                    return new RsWithBody(Files.newInputStream(file.toPath()));
-                }
-            }
+                )
+            )
+        );
+    }
+
+    /**
+     * Make a response with the requested file.
+     * @param base Base directory
+     * @param request Request
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response response(final File base, final Request request)
+        throws IOException {
+        final File file = new File(
+            base, new RqHref.Base(request).href().path()
+        );
+        if (!file.exists()) {
+            throw new HttpException(
+                HttpURLConnection.HTTP_NOT_FOUND,
+                String.format(
+                    "%s not found", file.getAbsolutePath()
+                )
+            );
+        }
+        return new RsWithHeaders(
+            new RsWithBody(file.toPath()),
+            new Validators(file.length(), file.lastModified()).headers()
         );
     }
 
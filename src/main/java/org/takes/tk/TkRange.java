@@ -0,0 +1,397 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqMethod;
+import org.takes.rs.ResponseOf;
+import org.takes.rs.RsEmpty;
+import org.takes.rs.RsWithHeader;
+import org.takes.rs.RsWithHeaders;
+import org.takes.rs.RsWithStatus;
+import org.takes.rs.RsWithoutHeader;
+import org.takes.rs.SliceInputStream;
+
+/**
+ * Take that answers {@code Range} requests with {@code 206 Partial Content}.
+ *
+ * <p>Only {@code GET} requests are served in parts and only when the
+ * original response is {@code 200 OK} with {@code Content-Length}, for
+ * example:
+ *
+ * <pre> new TkRange(new TkFiles("/tmp"));</pre>
+ *
+ * <p>A single range is sent as a slice of the original body, which is
+ * a seek when the body is a file, see {@link SliceInputStream}. Many ranges
+ * are sorted, merged when they overlap, and sent as
+ * {@code multipart/byteranges}. When none of the ranges is satisfiable,
+ * the response is {@code 416 Range Not Satisfiable}. A {@code Range} with
+ * wrong syntax or with {@code If-Range} that doesn't match {@code ETag}
+ * or {@code Last-Modified} of the response is ignored and the entire
+ * response is sent.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public final class TkRange extends TkWrap {
+
+    /**
+     * HTTP status Range Not Satisfiable.
+     */
+    private static final int NOT_SATISFIABLE = 416;
+
+    /**
+     * Content-Length header.
+     */
+    private static final String LENGTH = "Content-Length";
+
+    /**
+     * Content-Type header.
+     */
+    private static final String TYPE = "Content-Type";
+
+    /**
+     * Ctor.
+     * @param take Original take
+     */
+    public TkRange(final Take take) {
+        super(
+            new Take() {
+                @Override
+                public Response act(final Request req) throws Exception {
+                    return TkRange.ranged(req, take.act(req));
+                }
+            }
+        );
+    }
+
+    /**
+     * Make a response with the requested range.
+     * @param req Request
+     * @param response Full response
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response ranged(final Request req,
+        final Response response) throws IOException {
+        final String length = Validators.header(response, TkRange.LENGTH);
+        Response result = response;
+        if (RqMethod.GET.equals(new RqMethod.Base(req).method())
+            && Validators.status(response) == HttpURLConnection.HTTP_OK
+            && length.matches("\\d+")) {
+            result = new RsWithHeader(response, "Accept-Ranges", "bytes");
+            final RqHeaders.Smart headers = new RqHeaders.Smart(req);
+            final String range = headers.single("Range", "");
+            final String cond = headers.single("If-Range", "");
+            if (!range.isEmpty()
+                && (cond.isEmpty() || TkRange.same(cond, response))) {
+                final long total = Long.parseLong(length);
+                final List<long[]> ranges = TkRange.parse(range, total);
+                if (ranges == null) {
+                    result = response;
+                } else if (ranges.isEmpty()) {
+                    result = new RsWithStatus(
+                        new RsWithHeaders(
+                            new RsEmpty(),
+                            String.format("Content-Range: bytes */%d", total),
+                            "Content-Length: 0"
+                        ),
+                        TkRange.NOT_SATISFIABLE,
+                        "Range Not Satisfiable"
+                    );
+                } else if (ranges.size() == 1) {
+                    result = TkRange.single(response, ranges.get(0), total);
+                } else {
+                    result = TkRange.multiple(response, ranges, total);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Make a response with one range.
+     * @param response Full response
+     * @param range Range, first and last byte
+     * @param total Total length
+     * @return Response
+     */
+    private static Response single(final Response response,
+        final long[] range, final long total) {
+        final long len = range[1] - range[0] + 1L;
+        return new RsWithStatus(
+            new ResponseOf(
+                () -> new RsWithHeaders(
+                    new RsWithoutHeader(response, TkRange.LENGTH),
+                    String.format(
+                        "Content-Range: bytes %d-%d/%d",
+                        range[0], range[1], total
+                    ),
+                    String.format("%s: %d", TkRange.LENGTH, len)
+                ).head(),
+                () -> new SliceInputStream(response.body(), range[0], len)
+            ),
+            HttpURLConnection.HTTP_PARTIAL
+        );
+    }
+
+    /**
+     * Make a multipart response with many ranges.
+     * @param response Full response
+     * @param ranges Ranges, sorted and not overlapping
+     * @param total Total length
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response multiple(final Response response,
+        final List<long[]> ranges, final long total) throws IOException {
+        final String boundary = UUID.randomUUID().toString().replace("-", "");
+        final String type = Validators.header(response, TkRange.TYPE);
+        final List<byte[]> parts = new ArrayList<>(ranges.size() + 1);
+        long length = 0L;
+        for (final long[] range : ranges) {
+            final StringBuilder part = new StringBuilder(0);
+            if (!parts.isEmpty()) {
+                part.append("\r\n");
+            }
+            part.append("--").append(boundary).append("\r\n");
+            if (!type.isEmpty()) {
+                part.append(TkRange.TYPE).append(": ")
+                    .append(type).append("\r\n");
+            }
+            part.append(
+                String.format(
+                    "Content-Range: bytes %d-%d/%d\r\n\r\n",
+                    range[0], range[1], total
+                )
+            );
+            final byte[] bytes = part.toString()
+                .getBytes(StandardCharsets.UTF_8);
+            parts.add(bytes);
+            length += (long) bytes.length + range[1] - range[0] + 1L;
+        }
+        final byte[] last = String.format("\r\n--%s--\r\n", boundary)
+            .getBytes(StandardCharsets.UTF_8);
+        parts.add(last);
+        length += (long) last.length;
+        final long size = length;
+        return new RsWithStatus(
+            new ResponseOf(
+                () -> new RsWithHeaders(
+                    new RsWithoutHeader(
+                        new RsWithoutHeader(response, TkRange.LENGTH),
+                        TkRange.TYPE
+                    ),
+                    String.format(
+                        "%s: multipart/byteranges; boundary=%s",
+                        TkRange.TYPE, boundary
+                    ),
+                    String.format("%s: %d", TkRange.LENGTH, size)
+                ).head(),
+                () -> TkRange.body(response.body(), ranges, parts)
+            ),
+            HttpURLConnection.HTTP_PARTIAL
+        );
+    }
+
+    /**
+     * Make a multipart body.
+     * @param origin Original body
+     * @param ranges Ranges, sorted and not overlapping
+     * @param parts Heads of the parts and the closing boundary
+     * @return Body
+     */
+    private static InputStream body(final InputStream origin,
+        final List<long[]> ranges, final List<byte[]> parts) {
+        final InputStream shared = new FilterInputStream(origin) {
+            @Override
+            public void close() {
+                // the original stream is closed by the multipart body
+            }
+        };
+        final List<InputStream> streams = new ArrayList<>(parts.size() << 1);
+        long pos = 0L;
+        for (int idx = 0; idx < ranges.size(); ++idx) {
+            final long[] range = ranges.get(idx);
+            streams.add(new ByteArrayInputStream(parts.get(idx)));
+            streams.add(
+                new SliceInputStream(
+                    shared, range[0] - pos, range[1] - range[0] + 1L
+                )
+            );
+            pos = range[1] + 1L;
+        }
+        streams.add(new ByteArrayInputStream(parts.get(parts.size() - 1)));
+        return new SequenceInputStream(Collections.enumeration(streams)) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    origin.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Parse the ranges.
+     * @param header The value of {@code Range} header
+     * @param total Total length of the body
+     * @return Satisfiable ranges, sorted and merged, or NULL if the
+     *  header is not valid
+     * @checkstyle CyclomaticComplexityCheck (50 lines)
+     */
+    @SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull")
+    private static List<long[]> parse(final String header, final long total) {
+        final String prefix = "bytes=";
+        List<long[]> ranges = null;
+        if (header.toLowerCase(Locale.ENGLISH).startsWith(prefix)) {
+            ranges = new ArrayList<>(1);
+            for (final String spec
+                : header.substring(prefix.length()).split(",")) {
+                final long[] range = TkRange.range(spec.trim(), total);
+                if (range == null) {
+                    ranges = null;
+                    break;
+                }
+                if (range.length > 0) {
+                    ranges.add(range);
+                }
+            }
+        }
+        if (ranges != null) {
+            ranges = TkRange.merged(ranges);
+        }
+        return ranges;
+    }
+
+    /**
+     * Parse one range.
+     * @param spec Range spec, like {@code 0-99}, {@code 100-}
+     *  or {@code -100}
+     * @param total Total length of the body
+     * @return First and last byte, empty array if not satisfiable, or NULL
+     *  if the spec is not valid
+     */
+    @SuppressWarnings("PMD.ReturnEmptyArrayRatherThanNull")
+    private static long[] range(final String spec, final long total) {
+        long[] range = null;
+        final int dash = spec.indexOf('-');
+        final String first = spec.substring(0, Math.max(dash, 0));
+        final String last = spec.substring(dash + 1);
+        if (dash < 0 || !first.matches("\\d{0,18}")
+            || !last.matches("\\d{0,18}")
+            || first.isEmpty() && last.isEmpty()) {
+            range = null;
+        } else if (first.isEmpty()) {
+            final long suffix = Long.parseLong(last);
+            if (suffix == 0L || total == 0L) {
+                range = new long[0];
+            } else {
+                range = new long[] {
+                    Math.max(0L, total - suffix), total - 1L,
+                };
+            }
+        } else {
+            final long start = Long.parseLong(first);
+            long end = total - 1L;
+            if (!last.isEmpty()) {
+                end = Math.min(Long.parseLong(last), end);
+            }
+            if (!last.isEmpty() && Long.parseLong(last) < start) {
+                range = null;
+            } else if (start >= total) {
+                range = new long[0];
+            } else {
+                range = new long[] {start, end};
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Sort ranges and merge the overlapping and adjacent ones.
+     * @param ranges Ranges
+     * @return Merged ranges
+     */
+    private static List<long[]> merged(final List<long[]> ranges) {
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        final List<long[]> merged = new ArrayList<>(ranges.size());
+        for (final long[] range : ranges) {
+            final long[] prev;
+            if (merged.isEmpty()) {
+                prev = null;
+            } else {
+                prev = merged.get(merged.size() - 1);
+            }
+            if (prev != null && range[0] <= prev[1] + 1L) {
+                prev[1] = Math.max(prev[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Does {@code If-Range} match the response?
+     * @param cond The value of {@code If-Range}
+     * @param response Response
+     * @return TRUE if it matches, by strong comparison
+     * @throws IOException If fails
+     */
+    private static boolean same(final String cond, final Response response)
+        throws IOException {
+        final boolean same;
+        if (cond.startsWith("\"")) {
+            same = cond.equals(Validators.header(response, "ETag"));
+        } else {
+            same = cond.equals(Validators.header(response, "Last-Modified"));
+        }
+        return same;
+    }
+}
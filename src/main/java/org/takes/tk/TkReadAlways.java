@@ -28,6 +28,7 @@ import lombok.ToString;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
+import org.takes.rq.RqSpooled;
 
 /**
  * A Take decorator which reads and ignores the request body.
@@ -53,6 +54,19 @@ public final class TkReadAlways implements Take {
         this.origin = take;
     }
 
+    /**
+     * Ctor, reading the body before the take and letting it read the
+     * body as many times as it wants.
+     * @param take Original take
+     * @param memory How many bytes to keep on the heap, at most
+     * @param max Maximum size of the body, bigger ones are refused with 413
+     * @see RqSpooled
+     * @since 2.0
+     */
+    public TkReadAlways(final Take take, final int memory, final long max) {
+        this(req -> take.act(new RqSpooled(req, memory, max)));
+    }
+
     @Override
     public Response act(final Request req) throws Exception {
         final Response res = this.origin.act(req);
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.net.HttpURLConnection;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.cactoos.Scalar;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.rs.RsText;
+import org.takes.rs.RsWithStatus;
+
+/**
+ * Take that reports readiness of the server, for health checks of
+ * load balancers.
+ *
+ * <p>It answers "200 OK" while the server is ready and
+ * "503 Service Unavailable" when it's not, for example while
+ * it drains its connections before shutdown:
+ *
+ * <pre> new TkFork(
+ *   new FkRegex("/ready", new TkReady(drain::ready)),
+ *   new FkRegex("/", take)
+ * )</pre>
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public final class TkReady extends TkWrap {
+
+    /**
+     * Ctor.
+     * @param ready Is the server ready?
+     */
+    public TkReady(final Scalar<Boolean> ready) {
+        super(
+            new Take() {
+                @Override
+                public Response act(final Request req) throws Exception {
+                    final Response rsp;
+                    if (ready.value()) {
+                        rsp = new RsText("ready");
+                    } else {
+                        rsp = new RsWithStatus(
+                            new RsText("not ready"),
+                            HttpURLConnection.HTTP_UNAVAILABLE
+                        );
+                    }
+                    return rsp;
+                }
+            }
+        );
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.Locale;
+import org.takes.Head;
+
+/**
+ * Validators of a static resource: {@code Last-Modified} and {@code ETag}.
+ *
+ * <p>Both of them are made of the metadata of the resource, its length
+ * and the time of the last modification, so the resource doesn't have to
+ * be read in order to make them.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+final class Validators {
+
+    /**
+     * Format of dates in HTTP headers.
+     */
+    private static final DateTimeFormatter HTTP_DATE =
+        DateTimeFormatter.ofPattern(
+            "EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH
+        ).withZone(ZoneOffset.UTC);
+
+    /**
+     * Length of the resource.
+     */
+    private final long length;
+
+    /**
+     * Time of the last modification, in milliseconds.
+     */
+    private final long modified;
+
+    /**
+     * Ctor.
+     * @param len Length of the resource
+     * @param time Time of the last modification, in milliseconds
+     */
+    Validators(final long len, final long time) {
+        this.length = len;
+        this.modified = time;
+    }
+
+    /**
+     * Make the headers.
+     * @return Headers
+     */
+    String[] headers() {
+        return new String[] {
+            String.format(
+                "Last-Modified: %s",
+                Validators.HTTP_DATE.format(
+                    Instant.ofEpochMilli(this.modified)
+                )
+            ),
+            String.format("ETag: \"%x-%x\"", this.modified, this.length),
+        };
+    }
+
+    /**
+     * Parse HTTP date.
+     * @param date The date, as in {@code If-Modified-Since} header
+     * @return Milliseconds or -1 if the date is not valid
+     */
+    static long time(final String date) {
+        long time;
+        try {
+            time = Instant.from(Validators.HTTP_DATE.parse(date.trim()))
+                .toEpochMilli();
+        } catch (final DateTimeParseException ex) {
+            time = -1L;
+        }
+        return time;
+    }
+
+    /**
+     * Find the value of the header in the response head.
+     * @param head Head
+     * @param name Header name
+     * @return Value or empty string if there is no such header
+     * @throws IOException If fails
+     */
+    static String header(final Head head, final String name)
+        throws IOException {
+        final Iterator<String> lines = head.head().iterator();
+        String value = "";
+        if (lines.hasNext()) {
+            lines.next();
+        }
+        while (lines.hasNext()) {
+            final String line = lines.next();
+            final int colon = line.indexOf(':');
+            if (colon == name.length()
+                && line.regionMatches(true, 0, name, 0, colon)) {
+                value = line.substring(colon + 1).trim();
+                break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Status code of the response.
+     * @param head Head
+     * @return Status code
+     * @throws IOException If fails
+     */
+    static int status(final Head head) throws IOException {
+        final Iterator<String> lines = head.head().iterator();
+        int status = 0;
+        if (lines.hasNext()) {
+            final String[] parts = lines.next().split(" ", 3);
+            if (parts.length > 1 && parts[1].matches("\\d{3}")) {
+                status = Integer.parseInt(parts[1]);
+            }
+        }
+        return status;
+    }
+}
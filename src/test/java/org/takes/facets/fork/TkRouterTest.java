@@ -0,0 +1,253 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.facets.fork;
+
+import com.jcabi.log.Logger;
+import java.util.ArrayList;
+import java.util.List;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.rq.RqFake;
+import org.takes.rs.BodyPrint;
+import org.takes.rs.RsText;
+
+/**
+ * Test case for {@link TkRouter}.
+ * @since 2.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+final class TkRouterTest {
+
+    /**
+     * TkRouter can route by literal paths.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void routesByLiteralPath() throws Exception {
+        final Take take = new TkRouter(
+            new FkRoute("/", "root"),
+            new FkRoute("/robots.txt", "robots"),
+            new FkRoute("/a/b", "deep")
+        );
+        MatcherAssert.assertThat(
+            TkRouterTest.text(take, "/?x=1"),
+            Matchers.equalTo("root")
+        );
+        MatcherAssert.assertThat(
+            TkRouterTest.text(take, "/Robots.TXT"),
+            Matchers.equalTo("robots")
+        );
+        MatcherAssert.assertThat(
+            TkRouterTest.text(take, "/a/b/"),
+            Matchers.equalTo("deep")
+        );
+    }
+
+    /**
+     * TkRouter can capture parameters as named groups.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void capturesParameters() throws Exception {
+        MatcherAssert.assertThat(
+            TkRouterTest.text(
+                new TkRouter(
+                    new FkRoute("/u/{id}", "user"),
+                    new FkRoute(
+                        "/u/{id}/posts/{post}",
+                        new TkRegex() {
+                            @Override
+                            public Response act(final RqRegex req) {
+                                return new RsText(
+                                    String.format(
+                                        "%s:%s",
+                                        req.matcher().group("id"),
+                                        req.matcher().group(2)
+                                    )
+                                );
+                            }
+                        }
+                    )
+                ),
+                "/u/Jeff/posts/42"
+            ),
+            Matchers.equalTo("Jeff:42")
+        );
+    }
+
+    /**
+     * TkRouter can pick the first matching route.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void picksFirstMatchingRoute() throws Exception {
+        final Take take = new TkRouter(
+            new FkRoute("/u/me", "me"),
+            new FkRoute("/u/{id}", "user"),
+            new FkRoute("/u/(admin|root)", "regex"),
+            new FkRoute("/u/[a-z]+/x", "before"),
+            new FkRoute("/u/{id}/x", "after")
+        );
+        MatcherAssert.assertThat(
+            TkRouterTest.text(take, "/u/me"),
+            Matchers.equalTo("me")
+        );
+        MatcherAssert.assertThat(
+            TkRouterTest.text(take, "/u/admin"),
+            Matchers.equalTo("user")
+        );
+        MatcherAssert.assertThat(
+            TkRouterTest.text(take, "/u/abc/x"),
+            Matchers.equalTo("before")
+        );
+        MatcherAssert.assertThat(
+            TkRouterTest.text(take, "/u/123/x"),
+            Matchers.equalTo("after")
+        );
+    }
+
+    /**
+     * TkRouter can fall back to regular expressions.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void fallsBackToRegularExpressions() throws Exception {
+        MatcherAssert.assertThat(
+            TkRouterTest.text(
+                new TkRouter(
+                    new FkRoute("/home", "home"),
+                    new FkRoute(
+                        "/file(/.*)",
+                        new TkRegex() {
+                            @Override
+                            public Response act(final RqRegex req) {
+                                return new RsText(req.matcher().group(1));
+                            }
+                        }
+                    )
+                ),
+                "/file/a/b.txt"
+            ),
+            Matchers.equalTo("/a/b.txt")
+        );
+    }
+
+    /**
+     * TkRouter can throw 404 if nothing matches.
+     */
+    @Test
+    void throwsNotFound() {
+        final Take take = new TkRouter(
+            new FkRoute("/u/{id}", "user"),
+            new FkRoute("/x+", "regex")
+        );
+        for (final String path : new String[] {"/u", "/u//", "/u/1/2", "/y"}) {
+            MatcherAssert.assertThat(
+                Assertions.assertThrows(
+                    HttpException.class,
+                    () -> take.act(new RqFake("GET", path))
+                ).code(),
+                // @checkstyle MagicNumber (1 line)
+                Matchers.equalTo(404)
+            );
+        }
+    }
+
+    /**
+     * TkRouter can find a route among many faster than TkFork.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void routesFasterThanFork() throws Exception {
+        final int total = 2000;
+        for (final int size : new int[] {10, 100, 1000}) {
+            final List<FkRoute> routes = new ArrayList<>(size);
+            final List<Fork> forks = new ArrayList<>(size);
+            for (int idx = 0; idx < size; ++idx) {
+                routes.add(
+                    new FkRoute(String.format("/r%d/items/{id}", idx), "ok")
+                );
+                forks.add(
+                    new FkRegex(String.format("/r%d/items/([^/]+)", idx), "ok")
+                );
+            }
+            final Request req = new RqFake(
+                "GET", String.format("/r%d/items/5", size - 1)
+            );
+            final long router = TkRouterTest.nanos(
+                new TkRouter(routes), req, total
+            );
+            final long fork = TkRouterTest.nanos(
+                new TkFork(forks), req, total
+            );
+            Logger.info(
+                this, "%d routes: %d ns in TkRouter, %d ns in TkFork",
+                size, router, fork
+            );
+            if (size >= 100) {
+                MatcherAssert.assertThat(router, Matchers.lessThan(fork));
+            }
+        }
+    }
+
+    /**
+     * Measure the average time of a request.
+     * @param take Take
+     * @param req Request
+     * @param total How many times to run
+     * @return Nanoseconds per request
+     * @throws Exception If fails
+     */
+    private static long nanos(final Take take, final Request req,
+        final int total) throws Exception {
+        for (int idx = 0; idx < total; ++idx) {
+            take.act(req);
+        }
+        final long start = System.nanoTime();
+        for (int idx = 0; idx < total; ++idx) {
+            take.act(req);
+        }
+        return (System.nanoTime() - start) / total;
+    }
+
+    /**
+     * Route the request and print the body.
+     * @param take Take
+     * @param uri URI of the request
+     * @return Body
+     * @throws Exception If fails
+     */
+    private static String text(final Take take, final String uri)
+        throws Exception {
+        return new BodyPrint(take.act(new RqFake("GET", uri))).asString();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Admission}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class AdmissionTest {
+
+    /**
+     * Admission can let in not more than the limit.
+     */
+    @Test
+    void letsInUpToLimit() {
+        final Admission admission = new Admission(2, 100L);
+        MatcherAssert.assertThat(admission.enter(), Matchers.is(true));
+        MatcherAssert.assertThat(admission.enter(), Matchers.is(true));
+        MatcherAssert.assertThat(admission.enter(), Matchers.is(false));
+        admission.abandon();
+        MatcherAssert.assertThat(admission.enter(), Matchers.is(true));
+        MatcherAssert.assertThat(admission.served(), Matchers.is(2));
+    }
+
+    /**
+     * Admission can shrink the limit when connections are slow, and
+     * grow it back when they are fast.
+     */
+    @Test
+    void adaptsLimitToLatency() {
+        final Admission admission = new Admission(2, 10, 10, 100L);
+        final long slow = TimeUnit.SECONDS.toNanos(1L);
+        admission.enter();
+        admission.leave(slow);
+        MatcherAssert.assertThat(admission.limit(), Matchers.is(9));
+        admission.enter();
+        admission.leave(slow);
+        MatcherAssert.assertThat(
+            "decreased more than once per target period",
+            admission.limit(), Matchers.is(9)
+        );
+        for (int idx = 0; idx < 9; ++idx) {
+            admission.enter();
+        }
+        admission.leave(1L);
+        MatcherAssert.assertThat(admission.limit(), Matchers.is(10));
+        MatcherAssert.assertThat(admission.changes(), Matchers.is(2L));
+    }
+
+    /**
+     * Admission can count connections that don't fit into the queue.
+     */
+    @Test
+    void countsRejections() {
+        final Admission admission = new Admission(1, 1, 1, 100L);
+        MatcherAssert.assertThat(
+            admission.queue(new Socket()), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            admission.queue(new Socket()), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(admission.queued(), Matchers.is(1));
+        MatcherAssert.assertThat(admission.rejected(), Matchers.is(1L));
+    }
+}
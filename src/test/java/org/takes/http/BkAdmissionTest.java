@@ -0,0 +1,174 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.cactoos.text.TextOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.takes.rs.RsText;
+
+/**
+ * Test case for {@link BkAdmission}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class BkAdmissionTest {
+
+    /**
+     * Request which closes the connection.
+     */
+    private static final byte[] REQUEST =
+        "GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * BkAdmission can queue connections over the limit and reject the
+     * ones which don't fit into the queue.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void rejectsConnectionsOverQueue() throws Exception {
+        final Admission admission = new Admission(1, 1, 1, 10_000L);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Back back = new BkAdmission(
+            new BkSafe(
+                new BkBasic(
+                    req -> {
+                        started.countDown();
+                        release.await(10L, TimeUnit.SECONDS);
+                        return new RsText("served");
+                    }
+                )
+            ),
+            admission, 7
+        );
+        try (ServerSocket server = new ServerSocket(0);
+            Socket first = BkAdmissionTest.connect(server, back);
+            Socket second = BkAdmissionTest.connect(server, back);
+            Socket third = BkAdmissionTest.connect(server, back)) {
+            started.await(10L, TimeUnit.SECONDS);
+            MatcherAssert.assertThat(admission.served(), Matchers.is(1));
+            MatcherAssert.assertThat(admission.queued(), Matchers.is(1));
+            MatcherAssert.assertThat(admission.rejected(), Matchers.is(1L));
+            MatcherAssert.assertThat(
+                new TextOf(third.getInputStream()).asString(),
+                Matchers.allOf(
+                    Matchers.startsWith("HTTP/1.1 503 "),
+                    Matchers.containsString("Retry-After: 7\r\n")
+                )
+            );
+            release.countDown();
+            MatcherAssert.assertThat(
+                new TextOf(first.getInputStream()).asString(),
+                Matchers.endsWith("served")
+            );
+            MatcherAssert.assertThat(
+                new TextOf(second.getInputStream()).asString(),
+                Matchers.endsWith("served")
+            );
+        }
+    }
+
+    /**
+     * BkAdmission can deliver the rejection to a client which goes on
+     * sending the body of its request and reads the answer later.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void deliversRejectionBeforeClosing() throws Exception {
+        final Admission admission = new Admission(1, 1, 1, 10_000L);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Back back = new BkAdmission(
+            new BkSafe(
+                new BkBasic(
+                    req -> {
+                        release.await(10L, TimeUnit.SECONDS);
+                        return new RsText("served");
+                    }
+                )
+            ),
+            admission
+        );
+        final byte[] body = new byte[64 << 10];
+        try (ServerSocket server = new ServerSocket(0);
+            Socket first = BkAdmissionTest.connect(server, back);
+            Socket second = BkAdmissionTest.connect(server, back);
+            Socket third = new Socket(
+                server.getInetAddress(), server.getLocalPort()
+            )) {
+            third.setSoTimeout(10_000);
+            third.getOutputStream().write(
+                String.format(
+                    "POST / HTTP/1.1\r\nHost: x\r\nContent-Length: %d\r\n\r\n",
+                    body.length << 1
+                ).getBytes(StandardCharsets.US_ASCII)
+            );
+            back.accept(server.accept());
+            Thread.sleep(100L);
+            third.getOutputStream().write(body);
+            Thread.sleep(100L);
+            third.getOutputStream().write(body);
+            Thread.sleep(100L);
+            MatcherAssert.assertThat(
+                new TextOf(third.getInputStream()).asString(),
+                Matchers.startsWith("HTTP/1.1 503 ")
+            );
+            release.countDown();
+            MatcherAssert.assertThat(
+                new TextOf(first.getInputStream()).asString(),
+                Matchers.endsWith("served")
+            );
+            MatcherAssert.assertThat(
+                new TextOf(second.getInputStream()).asString(),
+                Matchers.endsWith("served")
+            );
+        }
+    }
+
+    /**
+     * Connect to the server and give the connection to the back.
+     * @param server Server socket
+     * @param back The back
+     * @return Client socket
+     * @throws IOException If fails
+     */
+    private static Socket connect(final ServerSocket server, final Back back)
+        throws IOException {
+        final Socket socket = new Socket(
+            server.getInetAddress(), server.getLocalPort()
+        );
+        socket.setSoTimeout(10_000);
+        socket.getOutputStream().write(BkAdmissionTest.REQUEST);
+        back.accept(server.accept());
+        return socket;
+    }
+}
@@ -25,6 +25,7 @@ package org.takes.http;
 
 import com.jcabi.http.request.JdkRequest;
 import com.jcabi.http.response.RestResponse;
+import com.jcabi.log.Logger;
 import com.jcabi.matchers.RegexMatchers;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -34,25 +35,31 @@ import java.net.HttpURLConnection;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.concurrent.atomic.AtomicReference;
 import org.cactoos.bytes.BytesOf;
 import org.cactoos.text.Joined;
+import org.cactoos.text.TextOf;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.llorllale.cactoos.matchers.Assertion;
 import org.llorllale.cactoos.matchers.TextHasString;
 import org.takes.Request;
+import org.takes.Take;
 import org.takes.facets.fork.FkRegex;
 import org.takes.facets.fork.TkFork;
 import org.takes.misc.Href;
 import org.takes.rq.RqFake;
 import org.takes.rq.RqHeaders;
+import org.takes.rq.RqHref;
 import org.takes.rq.RqPrint;
 import org.takes.rq.RqSocket;
 import org.takes.rs.ResponseOf;
+import org.takes.rs.RsText;
 import org.takes.tk.TkText;
 
 /**
@@ -433,6 +440,591 @@ import org.takes.tk.TkText;
         ).affirm();
     }
 
+    /**
+     * BkBasic can send a body of unknown length in chunks to HTTP/1.1.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sendsBodyOfUnknownLengthInChunks() throws Exception {
+        final MkSocket socket = new MkSocket(
+            new ByteArrayInputStream(
+                "GET / HTTP/1.1\r\nHost: a\r\n\r\n"
+                    .getBytes(StandardCharsets.UTF_8)
+            )
+        );
+        new BkBasic(
+            req -> new ResponseOf(
+                () -> Collections.singletonList("HTTP/1.1 200 OK"),
+                () -> new ByteArrayInputStream(
+                    "streamed".getBytes(StandardCharsets.UTF_8)
+                )
+            )
+        ).accept(socket);
+        MatcherAssert.assertThat(
+            socket.bufferedOutput().toString(),
+            Matchers.endsWith(
+                new Joined(
+                    BkBasicTest.CRLF,
+                    "Transfer-Encoding: chunked",
+                    "",
+                    "8",
+                    "streamed",
+                    "0",
+                    "",
+                    ""
+                ).asString()
+            )
+        );
+    }
+
+    /**
+     * BkBasic can send a body of unknown length as is to HTTP/1.0.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sendsBodyAsIsToOldClients() throws Exception {
+        final MkSocket socket = new MkSocket(
+            new ByteArrayInputStream(
+                "GET / HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.UTF_8)
+            )
+        );
+        new BkBasic(
+            req -> new ResponseOf(
+                () -> Collections.singletonList("HTTP/1.1 200 OK"),
+                () -> new ByteArrayInputStream(
+                    "plain".getBytes(StandardCharsets.UTF_8)
+                )
+            )
+        ).accept(socket);
+        MatcherAssert.assertThat(
+            socket.bufferedOutput().toString(),
+            Matchers.allOf(
+                Matchers.not(Matchers.containsString("chunked")),
+                Matchers.endsWith("\r\n\r\nplain")
+            )
+        );
+    }
+
+    /**
+     * BkBasic can serve pipelined requests in order, skipping the bodies
+     * the take didn't read.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void servesPipelinedRequestsInOrder() throws Exception {
+        final MkSocket socket = new MkSocket(
+            new ByteArrayInputStream(
+                new Joined(
+                    BkBasicTest.CRLF,
+                    "POST /first HTTP/1.1",
+                    BkBasicTest.HOST,
+                    "Content-Length: 5",
+                    "",
+                    "helloGET /second HTTP/1.1",
+                    BkBasicTest.HOST,
+                    "",
+                    ""
+                ).asString().getBytes(StandardCharsets.UTF_8)
+            )
+        );
+        new BkBasic(
+            req -> new RsText(new RqHref.Base(req).href().path())
+        ).accept(socket);
+        MatcherAssert.assertThat(
+            socket.bufferedOutput().toString(),
+            Matchers.allOf(
+                RegexMatchers.containsPattern("(?s)/first.*/second"),
+                Matchers.not(Matchers.containsString("400"))
+            )
+        );
+    }
+
+    /**
+     * BkBasic can keep the connection open until the next request arrives.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keepsConnectionForNextRequest() throws Exception {
+        final String text = "Hello again!";
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread thread = BkBasicTest.serve(
+                // @checkstyle MagicNumber (1 line)
+                server, new BkBasic(new TkText(text), 60_000, 2)
+            );
+            try (Socket socket = new Socket(
+                server.getInetAddress(), server.getLocalPort()
+            )) {
+                // @checkstyle MagicNumber (1 line)
+                socket.setSoTimeout(10_000);
+                final String request = new Joined(
+                    BkBasicTest.CRLF, "GET / HTTP/1.1", BkBasicTest.HOST, "", ""
+                ).asString();
+                socket.getOutputStream().write(request.getBytes());
+                final InputStream input = socket.getInputStream();
+                final ByteArrayOutputStream output =
+                    new ByteArrayOutputStream();
+                // @checkstyle MagicNumber (1 line)
+                final byte[] buffer = new byte[4096];
+                while (!output.toString().contains(text)) {
+                    output.write(buffer, 0, input.read(buffer));
+                }
+                socket.getOutputStream().write(request.getBytes());
+                for (
+                    int count = input.read(buffer); count != -1;
+                    count = input.read(buffer)
+                ) {
+                    output.write(buffer, 0, count);
+                }
+                MatcherAssert.assertThat(
+                    output.toString(),
+                    Matchers.allOf(
+                        RegexMatchers.containsPattern(
+                            String.format("(?s)%s.*%s", text, text)
+                        ),
+                        Matchers.containsString("Connection: close")
+                    )
+                );
+            }
+            thread.join();
+        }
+    }
+
+    /**
+     * BkBasic can answer HEAD without a body and serve the next request
+     * in the same connection.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void answersHeadWithoutBody() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread thread = BkBasicTest.serve(
+                server,
+                new BkBasic(
+                    req -> new ResponseOf(
+                        () -> Collections.singletonList("HTTP/1.1 200 OK"),
+                        () -> new ByteArrayInputStream(
+                            "body".getBytes(StandardCharsets.UTF_8)
+                        )
+                    ),
+                    // @checkstyle MagicNumber (1 line)
+                    60_000, 100
+                )
+            );
+            try (Socket socket = new Socket(
+                server.getInetAddress(), server.getLocalPort()
+            )) {
+                // @checkstyle MagicNumber (1 line)
+                socket.setSoTimeout(10_000);
+                socket.getOutputStream().write(
+                    new Joined(
+                        BkBasicTest.CRLF,
+                        "HEAD / HTTP/1.1",
+                        BkBasicTest.HOST,
+                        "",
+                        "GET / HTTP/1.1",
+                        BkBasicTest.HOST,
+                        "Connection: close",
+                        "",
+                        ""
+                    ).asString().getBytes()
+                );
+                MatcherAssert.assertThat(
+                    new TextOf(socket.getInputStream()).asString(),
+                    RegexMatchers.containsPattern(
+                        // @checkstyle LineLengthCheck (1 line)
+                        "(?s)\\AHTTP/1.1 200 OK\r\n\r\nHTTP/1.1 200 OK\r\n.*body"
+                    )
+                );
+            }
+            thread.join();
+        }
+    }
+
+    /**
+     * BkBasic can answer with a clean failure when the take fails to make
+     * the body of its response.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void failsCleanlyWhenBodyFails() throws Exception {
+        MatcherAssert.assertThat(
+            BkBasicTest.answer(
+                req -> new ResponseOf(
+                    () -> Collections.singletonList("HTTP/1.1 200 OK"),
+                    () -> {
+                        throw new IOException("no body");
+                    }
+                )
+            ),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 500 Internal Server Error"),
+                Matchers.not(Matchers.containsString("200 OK"))
+            )
+        );
+    }
+
+    /**
+     * BkBasic can close the connection without another response when the
+     * body fails after the head went out.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void closesWhenBodyBreaks() throws Exception {
+        MatcherAssert.assertThat(
+            BkBasicTest.answer(
+                req -> new ResponseOf(
+                    () -> Collections.singletonList("HTTP/1.1 200 OK"),
+                    () -> new InputStream() {
+                        private int sent;
+
+                        @Override
+                        public int read() throws IOException {
+                            this.sent += 1;
+                            if (this.sent > 3) {
+                                throw new IOException("broken body");
+                            }
+                            return 'x';
+                        }
+                    }
+                )
+            ),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 200 OK"),
+                Matchers.not(Matchers.containsString("500")),
+                Matchers.not(Matchers.endsWith("0\r\n\r\n"))
+            )
+        );
+    }
+
+    /**
+     * BkBasic can close the connection at once when the client asks to.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void closesConnectionWhenAsked() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread thread = BkBasicTest.serve(
+                // @checkstyle MagicNumber (1 line)
+                server, new BkBasic(new TkText("bye"), 60_000, 100)
+            );
+            try (Socket socket = new Socket(
+                server.getInetAddress(), server.getLocalPort()
+            )) {
+                // @checkstyle MagicNumber (1 line)
+                socket.setSoTimeout(10_000);
+                socket.getOutputStream().write(
+                    new Joined(
+                        BkBasicTest.CRLF,
+                        "GET / HTTP/1.1",
+                        BkBasicTest.HOST,
+                        "Connection: close",
+                        "",
+                        ""
+                    ).asString().getBytes()
+                );
+                MatcherAssert.assertThat(
+                    new TextOf(socket.getInputStream()).asString(),
+                    Matchers.endsWith("bye")
+                );
+            }
+            thread.join();
+        }
+    }
+
+    /**
+     * BkBasic can answer a client that sends the head of its request
+     * too slowly.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void answersSlowHeadWithTimeout() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread thread = BkBasicTest.serve(
+                server,
+                new BkSafe(
+                    new BkBasic(
+                        new TkText("never"),
+                        new Timeouts(
+                            // @checkstyle MagicNumber (1 line)
+                            200L, 0L, 0L,
+                            new Expiry.Reply(
+                                HttpURLConnection.HTTP_CLIENT_TIMEOUT
+                            ),
+                            new Wheel()
+                        ),
+                        Integer.MAX_VALUE
+                    )
+                )
+            );
+            try (Socket socket = new Socket(
+                server.getInetAddress(), server.getLocalPort()
+            )) {
+                // @checkstyle MagicNumber (1 line)
+                socket.setSoTimeout(10_000);
+                socket.getOutputStream().write(
+                    new Joined(
+                        BkBasicTest.CRLF, "GET / HTTP/1.1", BkBasicTest.HOST, ""
+                    ).asString().getBytes()
+                );
+                MatcherAssert.assertThat(
+                    new TextOf(socket.getInputStream()).asString(),
+                    Matchers.allOf(
+                        Matchers.startsWith("HTTP/1.1 408 "),
+                        Matchers.not(Matchers.containsString("never"))
+                    )
+                );
+            }
+            thread.join();
+        }
+    }
+
+    /**
+     * BkBasic can limit the time of serving each request, not counting
+     * the time the connection waits for the next one.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void limitsLatencyOfEachRequest() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread thread = BkBasicTest.serve(
+                server,
+                new BkBasic(
+                    req -> {
+                        // @checkstyle MagicNumber (1 line)
+                        long pause = 10L;
+                        final String path = new RqHref.Base(req).href().path();
+                        if ("/slow".equals(path)) {
+                            // @checkstyle MagicNumber (1 line)
+                            pause = 5000L;
+                        }
+                        String text;
+                        try {
+                            Thread.sleep(pause);
+                            text = "done";
+                        } catch (final InterruptedException ex) {
+                            text = "interrupted";
+                        }
+                        return new RsText(text);
+                    },
+                    new Timeouts(
+                        // @checkstyle MagicNumber (1 line)
+                        0L, 0L, 5000L, 300L, new Expiry.Interrupt(), new Wheel()
+                    ),
+                    Integer.MAX_VALUE
+                )
+            );
+            try (Socket socket = new Socket(
+                server.getInetAddress(), server.getLocalPort()
+            )) {
+                // @checkstyle MagicNumber (1 line)
+                socket.setSoTimeout(10_000);
+                final String get = new Joined(
+                    BkBasicTest.CRLF, "GET /fast HTTP/1.1", BkBasicTest.HOST,
+                    "", ""
+                ).asString();
+                socket.getOutputStream().write(get.getBytes());
+                // @checkstyle MagicNumber (1 line)
+                Thread.sleep(500L);
+                socket.getOutputStream().write(
+                    new Joined(
+                        "", get,
+                        new Joined(
+                            BkBasicTest.CRLF, "GET /slow HTTP/1.1",
+                            BkBasicTest.HOST, "Connection: close", "", ""
+                        ).asString()
+                    ).asString().getBytes()
+                );
+                MatcherAssert.assertThat(
+                    new TextOf(socket.getInputStream()).asString(),
+                    RegexMatchers.containsPattern(
+                        "(?s)\\r\\ndone.*\\r\\ndone.*\\r\\ninterrupted\\z"
+                    )
+                );
+            }
+            thread.join();
+        }
+    }
+
+    /**
+     * BkBasic can close the connection instead of skipping a large body
+     * the take didn't read.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void closesInsteadOfSkippingLargeBody() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread thread = BkBasicTest.serve(
+                server,
+                // @checkstyle MagicNumber (1 line)
+                new BkBasic(new TkText("rejected"), 60_000, 100)
+            );
+            try (Socket socket = new Socket(
+                server.getInetAddress(), server.getLocalPort()
+            )) {
+                // @checkstyle MagicNumber (1 line)
+                socket.setSoTimeout(10_000);
+                socket.getOutputStream().write(
+                    new Joined(
+                        BkBasicTest.CRLF, "POST / HTTP/1.1", BkBasicTest.HOST,
+                        "Content-Length: 1073741824", "", ""
+                    ).asString().getBytes()
+                );
+                MatcherAssert.assertThat(
+                    new TextOf(socket.getInputStream()).asString(),
+                    Matchers.endsWith("rejected")
+                );
+            }
+            thread.join();
+        }
+    }
+
+    /**
+     * BkBasic can close a keep-alive connection that stays idle too long.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void closesIdleConnection() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread thread = BkBasicTest.serve(
+                server,
+                // @checkstyle MagicNumber (1 line)
+                new BkBasic(new TkText("idle"), 300, Integer.MAX_VALUE)
+            );
+            try (Socket socket = new Socket(
+                server.getInetAddress(), server.getLocalPort()
+            )) {
+                // @checkstyle MagicNumber (1 line)
+                socket.setSoTimeout(10_000);
+                socket.getOutputStream().write(
+                    new Joined(
+                        BkBasicTest.CRLF, "GET / HTTP/1.1", BkBasicTest.HOST,
+                        "", ""
+                    ).asString().getBytes()
+                );
+                final String response = new TextOf(
+                    socket.getInputStream()
+                ).asString();
+                MatcherAssert.assertThat(
+                    response,
+                    Matchers.allOf(
+                        Matchers.endsWith("idle"),
+                        Matchers.not(Matchers.containsString("Connection:"))
+                    )
+                );
+            }
+            thread.join();
+        }
+    }
+
+    /**
+     * BkBasic can serve requests faster when connections are reused.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void servesFasterWithKeepAlive() throws Exception {
+        new FtRemote(
+            new BkParallel(
+                // @checkstyle MagicNumber (1 line)
+                new BkBasic(new TkText("ok"), 5000, Integer.MAX_VALUE)
+            )
+        ).exec(
+            home -> {
+                final int total = 2000;
+                BkBasicTest.rate(home, total, false);
+                final long reused = BkBasicTest.rate(home, total, false);
+                final long closed = BkBasicTest.rate(home, total, true);
+                Logger.info(
+                    this,
+                    "%d requests/sec with keep-alive, %d without",
+                    reused, closed
+                );
+                MatcherAssert.assertThat(
+                    reused, Matchers.greaterThan(closed)
+                );
+            }
+        );
+    }
+
+    /**
+     * Send one request over a keep-alive connection and read what comes
+     * back until the connection is closed.
+     * @param take Take
+     * @return All the bytes received
+     * @throws Exception If fails
+     */
+    private static String answer(final Take take) throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread thread = BkBasicTest.serve(
+                // @checkstyle MagicNumber (1 line)
+                server, new BkBasic(take, 60_000, 100)
+            );
+            final String answer;
+            try (Socket socket = new Socket(
+                server.getInetAddress(), server.getLocalPort()
+            )) {
+                // @checkstyle MagicNumber (1 line)
+                socket.setSoTimeout(10_000);
+                socket.getOutputStream().write(
+                    new Joined(
+                        BkBasicTest.CRLF, "GET / HTTP/1.1", BkBasicTest.HOST,
+                        "", ""
+                    ).asString().getBytes()
+                );
+                answer = new TextOf(socket.getInputStream()).asString();
+            }
+            thread.join();
+            return answer;
+        }
+    }
+
+    /**
+     * Accept one connection in a background thread.
+     * @param server Server socket
+     * @param back Back to accept it
+     * @return Thread started
+     */
+    private static Thread serve(final ServerSocket server, final Back back) {
+        final Thread thread = new Thread(
+            () -> {
+                try {
+                    back.accept(server.accept());
+                } catch (final IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        );
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Send GET requests one after another and measure their rate.
+     * @param home URI of the server
+     * @param total How many requests to send
+     * @param close Shall every request close its connection?
+     * @return Requests per second
+     * @throws IOException If fails
+     */
+    private static long rate(final URI home, final int total,
+        final boolean close) throws IOException {
+        final long start = System.nanoTime();
+        for (int idx = 0; idx < total; ++idx) {
+            final HttpURLConnection conn =
+                (HttpURLConnection) home.toURL().openConnection();
+            if (close) {
+                conn.setRequestProperty("Connection", "close");
+            }
+            try (InputStream body = conn.getInputStream()) {
+                while (body.read() >= 0) {
+                    continue;
+                }
+            }
+        }
+        // @checkstyle MagicNumber (1 line)
+        return total * 1_000_000_000L / (System.nanoTime() - start);
+    }
+
     /**
      * Creates Socket mock for reuse.
      *
@@ -0,0 +1,385 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import com.jcabi.http.request.JdkRequest;
+import com.jcabi.http.response.RestResponse;
+import com.jcabi.log.Logger;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.takes.Take;
+import org.takes.facets.fork.FkRegex;
+import org.takes.facets.fork.TkFork;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqHref;
+import org.takes.rq.RqPrint;
+import org.takes.rs.RsText;
+import org.takes.tk.TkText;
+
+/**
+ * Test case for {@link BkHttp2}.
+ * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class BkHttp2Test {
+
+    /**
+     * BkHttp2 can answer a client that knows it speaks HTTP/2.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void answersPriorKnowledgeClient() throws Exception {
+        new FtRemote(
+            new BkParallel(
+                new BkHttp2(
+                    req -> new RsText(
+                        String.format(
+                            "%s at %s",
+                            new RqHref.Base(req).href().path(),
+                            new RqHeaders.Smart(req).single("host")
+                        )
+                    )
+                )
+            )
+        ).exec(
+            home -> {
+                try (Socket socket = BkHttp2Test.socket(home)) {
+                    final H2Client client = new H2Client(socket);
+                    client.preface();
+                    client.request(1, "GET", "/hello");
+                    client.await(1);
+                    MatcherAssert.assertThat(
+                        client.status(1), Matchers.equalTo("200")
+                    );
+                    MatcherAssert.assertThat(
+                        client.header(1, "content-type"),
+                        Matchers.startsWith("text/plain")
+                    );
+                    MatcherAssert.assertThat(
+                        client.body(1), Matchers.equalTo("/hello at localhost")
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * BkHttp2 can answer streams of one connection in parallel.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void multiplexesStreams() throws Exception {
+        final CountDownLatch fast = new CountDownLatch(1);
+        new FtRemote(
+            new BkParallel(
+                new BkHttp2(
+                    new TkFork(
+                        new FkRegex(
+                            "/slow",
+                            (Take) req -> {
+                                fast.await(10L, TimeUnit.SECONDS);
+                                return new RsText("slow");
+                            }
+                        ),
+                        new FkRegex(
+                            "/fast",
+                            new TkText("fast")
+                        )
+                    )
+                )
+            )
+        ).exec(
+            home -> {
+                try (Socket socket = BkHttp2Test.socket(home)) {
+                    final H2Client client = new H2Client(socket);
+                    client.preface();
+                    client.request(1, "GET", "/slow");
+                    client.request(3, "GET", "/fast");
+                    client.await(3);
+                    fast.countDown();
+                    client.await(1);
+                    MatcherAssert.assertThat(
+                        client.ended(), Matchers.contains(3, 1)
+                    );
+                    MatcherAssert.assertThat(
+                        client.body(1), Matchers.equalTo("slow")
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * BkHttp2 can send no more than the window of the client allows.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void respectsFlowControl() throws Exception {
+        final String text = "0123456789abcdefghijklmnopqrstuvwxyz";
+        new FtRemote(
+            new BkParallel(new BkHttp2(req -> new RsText(text)))
+        ).exec(
+            home -> {
+                try (Socket socket = BkHttp2Test.socket(home)) {
+                    final H2Client client = new H2Client(socket);
+                    client.preface(4, 10);
+                    client.request(1, "GET", "/");
+                    client.await(1, 10);
+                    socket.setSoTimeout(500);
+                    boolean more = true;
+                    try {
+                        client.read();
+                    } catch (final SocketTimeoutException ex) {
+                        more = false;
+                    }
+                    MatcherAssert.assertThat(more, Matchers.is(false));
+                    socket.setSoTimeout(0);
+                    client.frame(8, 0, 1, new byte[] {0, 0, 0, 100});
+                    client.await(1);
+                    MatcherAssert.assertThat(
+                        client.body(1), Matchers.equalTo(text)
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * BkHttp2 can read the body of a request in DATA frames.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void readsBodyOfRequest() throws Exception {
+        new FtRemote(
+            new BkParallel(
+                new BkHttp2(req -> new RsText(new RqPrint(req).printBody()))
+            )
+        ).exec(
+            home -> {
+                try (Socket socket = BkHttp2Test.socket(home)) {
+                    final H2Client client = new H2Client(socket);
+                    client.preface();
+                    client.frame(
+                        1, 0x4, 1,
+                        new HpackEncoder(4096).encode(
+                            Arrays.asList(
+                                new AbstractMap.SimpleEntry<>(
+                                    ":method", "POST"
+                                ),
+                                new AbstractMap.SimpleEntry<>(
+                                    ":scheme", "http"
+                                ),
+                                new AbstractMap.SimpleEntry<>(
+                                    ":path", "/"
+                                )
+                            )
+                        )
+                    );
+                    TimeUnit.MILLISECONDS.sleep(100L);
+                    client.frame(
+                        0, 0, 1, "Hello, ".getBytes(StandardCharsets.UTF_8)
+                    );
+                    client.frame(
+                        0, 1, 1, "world!".getBytes(StandardCharsets.UTF_8)
+                    );
+                    client.await(1);
+                    MatcherAssert.assertThat(
+                        client.body(1), Matchers.equalTo("Hello, world!")
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * BkHttp2 can upgrade an HTTP/1.1 connection to h2c.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void upgradesHttpOneConnection() throws Exception {
+        new FtRemote(
+            new BkParallel(
+                new BkHttp2(
+                    req -> new RsText(new RqHref.Base(req).href().path())
+                )
+            )
+        ).exec(
+            home -> {
+                try (Socket socket = BkHttp2Test.socket(home)) {
+                    socket.getOutputStream().write(
+                        String.join(
+                            "\r\n",
+                            "GET /upgraded HTTP/1.1",
+                            "Host: localhost",
+                            "Connection: Upgrade, HTTP2-Settings",
+                            "Upgrade: h2c",
+                            "HTTP2-Settings: AAMAAABkAAQAAP__",
+                            "",
+                            ""
+                        ).getBytes(StandardCharsets.ISO_8859_1)
+                    );
+                    MatcherAssert.assertThat(
+                        BkHttp2Test.head(socket.getInputStream()),
+                        Matchers.startsWith("HTTP/1.1 101 ")
+                    );
+                    final H2Client client = new H2Client(socket);
+                    client.preface();
+                    client.request(3, "GET", "/next");
+                    client.await(1);
+                    client.await(3);
+                    MatcherAssert.assertThat(
+                        client.body(1), Matchers.equalTo("/upgraded")
+                    );
+                    MatcherAssert.assertThat(
+                        client.body(3), Matchers.equalTo("/next")
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * BkHttp2 can leave other HTTP/1.1 connections to BkBasic.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void servesHttpOneAsBefore() throws Exception {
+        new FtRemote(
+            new BkParallel(new BkHttp2(req -> new RsText("old school")))
+        ).exec(
+            home -> new JdkRequest(home)
+                .fetch()
+                .as(RestResponse.class)
+                .assertStatus(HttpURLConnection.HTTP_OK)
+                .assertBody(Matchers.equalTo("old school"))
+        );
+    }
+
+    /**
+     * BkHttp2 can answer PING.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void answersPing() throws Exception {
+        new FtRemote(
+            new BkParallel(new BkHttp2(req -> new RsText("pong")))
+        ).exec(
+            home -> {
+                try (Socket socket = BkHttp2Test.socket(home)) {
+                    final H2Client client = new H2Client(socket);
+                    client.preface();
+                    client.frame(6, 0, 0, new byte[8]);
+                    client.request(1, "GET", "/");
+                    client.await(1);
+                    MatcherAssert.assertThat(
+                        client.others(), Matchers.hasItem(6)
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * BkHttp2 can serve many requests in one connection, in parallel
+     * streams.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void servesManyStreamsFast() throws Exception {
+        new FtRemote(
+            new BkParallel(new BkHttp2(req -> new RsText("fast")))
+        ).exec(
+            home -> {
+                try (Socket socket = BkHttp2Test.socket(home)) {
+                    final H2Client client = new H2Client(socket);
+                    client.preface();
+                    final int total = 10_000;
+                    final int batch = 50;
+                    final long start = System.nanoTime();
+                    for (int idx = 0; idx < total; idx += batch) {
+                        for (int num = idx; num < idx + batch; ++num) {
+                            client.request(num * 2 + 1, "GET", "/");
+                        }
+                        for (int num = idx; num < idx + batch; ++num) {
+                            client.await(num * 2 + 1);
+                        }
+                    }
+                    final long rate = total * 1_000_000_000L
+                        / (System.nanoTime() - start);
+                    Logger.info(
+                        this, "%d requests/sec in %d streams at a time",
+                        rate, batch
+                    );
+                    MatcherAssert.assertThat(
+                        client.body(total * 2 - 1), Matchers.equalTo("fast")
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * Connect to the server.
+     * @param home URI of the server
+     * @return Socket
+     * @throws IOException If fails
+     */
+    private static Socket socket(final URI home) throws IOException {
+        final Socket socket = new Socket(home.getHost(), home.getPort());
+        socket.setSoTimeout(10_000);
+        socket.setTcpNoDelay(true);
+        return socket;
+    }
+
+    /**
+     * Read a head of HTTP/1.1 response.
+     * @param input Input
+     * @return The head
+     * @throws IOException If fails
+     */
+    private static String head(final InputStream input)
+        throws IOException {
+        final ByteArrayOutputStream head = new ByteArrayOutputStream();
+        while (!head.toString("ISO-8859-1").endsWith("\r\n\r\n")) {
+            head.write(input.read());
+        }
+        return head.toString("ISO-8859-1");
+    }
+}
@@ -114,4 +114,40 @@ final class BkTimeableTest {
             throw new IllegalStateException(ex);
         }
     }
+
+    /**
+     * BkTimeable can answer with 503 when a connection is served too long.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void repliesWhenServedTooLong() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        new FtRemote(
+            new BkTimeable(
+                new BkSafe(
+                    new BkBasic(
+                        req -> {
+                            // @checkstyle MagicNumberCheck (1 line)
+                            done.await(10L, TimeUnit.SECONDS);
+                            return new RsText("late");
+                        }
+                    )
+                ),
+                // @checkstyle MagicNumberCheck (1 line)
+                100L,
+                new Expiry.Reply()
+            )
+        ).exec(
+            home -> {
+                try {
+                    new JdkRequest(home)
+                        .fetch()
+                        .as(RestResponse.class)
+                        .assertStatus(HttpURLConnection.HTTP_UNAVAILABLE);
+                } finally {
+                    done.countDown();
+                }
+            }
+        );
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import com.jcabi.http.request.JdkRequest;
+import com.jcabi.http.response.RestResponse;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.rs.RsText;
+import org.takes.tk.TkText;
+
+/**
+ * Test case for {@link BkVirtual}.
+ * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+final class BkVirtualTest {
+
+    /**
+     * BkVirtual can process requests.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void justWorks() throws Exception {
+        new FtRemote(new BkVirtual(new BkBasic(new TkText("virtual")), 2))
+            .exec(
+                new FtRemote.Script() {
+                    @Override
+                    public void exec(final URI home) throws IOException {
+                        for (int idx = 0; idx < 3; ++idx) {
+                            new JdkRequest(home)
+                                .fetch()
+                                .as(RestResponse.class)
+                                .assertStatus(HttpURLConnection.HTTP_OK)
+                                .assertBody(Matchers.equalTo("virtual"));
+                        }
+                    }
+                }
+            );
+    }
+
+    /**
+     * BkVirtual can serve many concurrent connections with blocking takes.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void servesManyBlockingRequests() throws Exception {
+        final int total = 1_000;
+        final Take take = new Take() {
+            @Override
+            public Response act(final Request req) throws Exception {
+                // @checkstyle MagicNumber (1 line)
+                TimeUnit.MILLISECONDS.sleep(200L);
+                return new RsText("slow");
+            }
+        };
+        final AtomicInteger success = new AtomicInteger();
+        final long start = System.currentTimeMillis();
+        new FtRemote(new BkVirtual(new BkBasic(take))).exec(
+            new FtRemote.Script() {
+                @Override
+                public void exec(final URI home) throws Exception {
+                    final ExecutorService clients =
+                        Executors.newFixedThreadPool(total);
+                    final CountDownLatch done = new CountDownLatch(total);
+                    for (int idx = 0; idx < total; ++idx) {
+                        clients.execute(
+                            new Runnable() {
+                                @Override
+                                public void run() {
+                                    try {
+                                        new JdkRequest(home)
+                                            .fetch()
+                                            .as(RestResponse.class)
+                                            .assertStatus(
+                                                HttpURLConnection.HTTP_OK
+                                            );
+                                        success.incrementAndGet();
+                                    } catch (final IOException ex) {
+                                        throw new IllegalStateException(ex);
+                                    } finally {
+                                        done.countDown();
+                                    }
+                                }
+                            }
+                        );
+                    }
+                    done.await(1L, TimeUnit.MINUTES);
+                    clients.shutdownNow();
+                }
+            }
+        );
+        final long msec = System.currentTimeMillis() - start;
+        MatcherAssert.assertThat(
+            String.format(
+                "%d requests in %d ms, %.1f req/s, virtual threads: %b",
+                total, msec, total * 1000.0 / msec, BkVirtual.supported()
+            ),
+            success.get(),
+            Matchers.equalTo(total)
+        );
+    }
+}
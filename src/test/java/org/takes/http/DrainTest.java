@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.cactoos.text.TextOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.takes.Take;
+import org.takes.rs.RsText;
+import org.takes.tk.TkText;
+
+/**
+ * Test case for {@link Drain}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class DrainTest {
+
+    /**
+     * Request of a keep-alive client.
+     */
+    private static final byte[] REQUEST =
+        "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(
+            StandardCharsets.US_ASCII
+        );
+
+    /**
+     * Drain can let requests in progress finish, telling their clients
+     * the connection is closed.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void finishesRequestsInProgress() throws Exception {
+        final Drain drain = new Drain(10_000L);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread front = DrainTest.start(
+                server, drain,
+                req -> {
+                    started.countDown();
+                    release.await(10L, TimeUnit.SECONDS);
+                    return new RsText("finished");
+                }
+            );
+            try (Socket socket = DrainTest.connect(server)) {
+                socket.getOutputStream().write(DrainTest.REQUEST);
+                started.await(10L, TimeUnit.SECONDS);
+                drain.begin();
+                MatcherAssert.assertThat(drain.ready(), Matchers.is(false));
+                release.countDown();
+                MatcherAssert.assertThat(
+                    new TextOf(socket.getInputStream()).asString(),
+                    Matchers.allOf(
+                        Matchers.containsString("Connection: close"),
+                        Matchers.endsWith("finished")
+                    )
+                );
+            }
+            front.join(10_000L);
+            MatcherAssert.assertThat(front.isAlive(), Matchers.is(false));
+            MatcherAssert.assertThat(
+                drain.duration(), Matchers.greaterThanOrEqualTo(0L)
+            );
+        }
+    }
+
+    /**
+     * Drain can close idle keep-alive connections without waiting for
+     * the deadline.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void closesIdleConnectionsAtOnce() throws Exception {
+        final Drain drain = new Drain(30_000L);
+        try (ServerSocket server = new ServerSocket(0)) {
+            final Thread front = DrainTest.start(
+                server, drain, new TkText("idle")
+            );
+            try (Socket socket = DrainTest.connect(server)) {
+                socket.getOutputStream().write(DrainTest.REQUEST);
+                final InputStream input = socket.getInputStream();
+                final ByteArrayOutputStream output =
+                    new ByteArrayOutputStream();
+                final byte[] buffer = new byte[4096];
+                while (!output.toString().endsWith("idle")) {
+                    output.write(buffer, 0, input.read(buffer));
+                }
+                final long start = System.nanoTime();
+                drain.begin();
+                MatcherAssert.assertThat(input.read(), Matchers.is(-1));
+                front.join(10_000L);
+                MatcherAssert.assertThat(
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    Matchers.lessThan(5_000L)
+                );
+            }
+            MatcherAssert.assertThat(front.isAlive(), Matchers.is(false));
+        }
+    }
+
+    /**
+     * Drain can close connections still in progress at the deadline.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void closesSlowConnectionsAtDeadline() throws Exception {
+        final Drain drain = new Drain(200L);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try (ServerSocket server = new ServerSocket(0)) {
+            DrainTest.start(
+                server, drain,
+                req -> {
+                    started.countDown();
+                    release.await(10L, TimeUnit.SECONDS);
+                    return new RsText("too late");
+                }
+            );
+            try (Socket socket = DrainTest.connect(server)) {
+                socket.getOutputStream().write(DrainTest.REQUEST);
+                started.await(10L, TimeUnit.SECONDS);
+                MatcherAssert.assertThat(drain.finish(), Matchers.is(false));
+                MatcherAssert.assertThat(
+                    drain.duration(), Matchers.greaterThanOrEqualTo(200L)
+                );
+                MatcherAssert.assertThat(
+                    socket.getInputStream().read(), Matchers.is(-1)
+                );
+            } finally {
+                release.countDown();
+            }
+        }
+    }
+
+    /**
+     * Start a front with the drain in a background thread.
+     * @param server Server socket
+     * @param drain The drain
+     * @param take The take
+     * @return Thread of the front
+     */
+    private static Thread start(final ServerSocket server, final Drain drain,
+        final Take take) {
+        final Thread thread = new Thread(
+            () -> {
+                try {
+                    new FtBasic(
+                        new BkParallel(
+                            new BkSafe(
+                                new BkBasic(
+                                    take, new Timeouts(60_000L), 100, drain
+                                )
+                            )
+                        ),
+                        server,
+                        drain
+                    ).start(Exit.NEVER);
+                } catch (final IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        );
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Connect to the server.
+     * @param server Server socket
+     * @return Client socket
+     * @throws IOException If fails
+     */
+    private static Socket connect(final ServerSocket server)
+        throws IOException {
+        final Socket socket = new Socket(
+            server.getInetAddress(), server.getLocalPort()
+        );
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.cactoos.text.TextOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.takes.tk.TkText;
+
+/**
+ * Test case for {@link FtMulti}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class FtMultiTest {
+
+    /**
+     * FtMulti can wait, instead of spinning, when accept() fails while
+     * the listening socket is open.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void backsOffWhenAcceptFails() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        try (ServerSocket server = new ServerSocket() {
+            @Override
+            public Socket accept() throws IOException {
+                calls.incrementAndGet();
+                throw new IOException("Too many open files");
+            }
+        }) {
+            final Thread thread = new Thread(
+                new FtMulti.Acceptor(
+                    server, socket -> { }, new Tuning()
+                )
+            );
+            thread.start();
+            TimeUnit.MILLISECONDS.sleep(500L);
+            thread.interrupt();
+            thread.join(10_000L);
+            MatcherAssert.assertThat(thread.isAlive(), Matchers.is(false));
+        }
+        MatcherAssert.assertThat(calls.get(), Matchers.lessThan(10));
+    }
+
+    /**
+     * FtMulti can serve connections accepted by many threads.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void servesConnectionsOfManyAcceptors() throws Exception {
+        final int port = FtMultiTest.port();
+        final AtomicInteger served = new AtomicInteger();
+        final Back back = new BkSafe(new BkBasic(new TkText("multi")));
+        final AtomicBoolean exit = new AtomicBoolean();
+        final Thread front = FtMultiTest.start(
+            new FtMulti(
+                socket -> {
+                    served.incrementAndGet();
+                    back.accept(socket);
+                },
+                port, 4, new Tuning(128, true, 0, 0)
+            ),
+            exit
+        );
+        try {
+            for (int idx = 0; idx < 20; ++idx) {
+                try (Socket socket = FtMultiTest.connect(port)) {
+                    socket.getOutputStream().write(
+                        "GET / HTTP/1.0\r\n\r\n".getBytes(
+                            StandardCharsets.US_ASCII
+                        )
+                    );
+                    MatcherAssert.assertThat(
+                        new TextOf(socket.getInputStream()).asString(),
+                        Matchers.endsWith("multi")
+                    );
+                }
+            }
+        } finally {
+            exit.set(true);
+            front.join(10_000L);
+        }
+        MatcherAssert.assertThat(served.get(), Matchers.is(20));
+        MatcherAssert.assertThat(front.isAlive(), Matchers.is(false));
+    }
+
+    /**
+     * FtMulti can accept short connections faster than FtBasic, when
+     * there are cores enough.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void acceptsFasterThanBasic() throws Exception {
+        final Back back = Socket::close;
+        final int basic = FtMultiTest.port();
+        final AtomicBoolean exit = new AtomicBoolean();
+        final ServerSocket server = new ServerSocket(basic);
+        final Thread first = FtMultiTest.start(
+            new FtBasic(back, server), exit
+        );
+        final long single = FtMultiTest.rate(basic);
+        exit.set(true);
+        first.join();
+        exit.set(false);
+        final int multi = FtMultiTest.port();
+        final Thread second = FtMultiTest.start(
+            new FtMulti(
+                back, multi, Runtime.getRuntime().availableProcessors(),
+                new Tuning(1024, true, 0, 0)
+            ),
+            exit
+        );
+        final long many = FtMultiTest.rate(multi);
+        exit.set(true);
+        second.join();
+        Logger.info(
+            this, "FtBasic: %d conn/sec, FtMulti: %d conn/sec, sharing: %b",
+            single, many, Tuning.sharing()
+        );
+        MatcherAssert.assertThat(many, Matchers.greaterThan(0L));
+    }
+
+    /**
+     * Measure how many connections a second the server accepts.
+     * @param port Port of the server
+     * @return Connections per second
+     * @throws Exception If fails
+     */
+    private static long rate(final int port) throws Exception {
+        final int clients = 8;
+        final int total = 1_000;
+        final ExecutorService svc = Executors.newFixedThreadPool(clients);
+        final List<Future<?>> futures = new ArrayList<>(clients);
+        final long start = System.nanoTime();
+        for (int client = 0; client < clients; ++client) {
+            futures.add(
+                svc.submit(
+                    () -> {
+                        for (int idx = 0; idx < total; ++idx) {
+                            try (Socket socket = FtMultiTest.connect(port)) {
+                                final InputStream input =
+                                    socket.getInputStream();
+                                MatcherAssert.assertThat(
+                                    input.read(), Matchers.is(-1)
+                                );
+                            }
+                        }
+                        return null;
+                    }
+                )
+            );
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        final long rate = clients * total * TimeUnit.SECONDS.toNanos(1L)
+            / (System.nanoTime() - start);
+        svc.shutdown();
+        return rate;
+    }
+
+    /**
+     * Start the front in a background thread.
+     * @param front The front
+     * @param exit Becomes TRUE when the front must stop
+     * @return The thread
+     */
+    private static Thread start(final Front front, final AtomicBoolean exit) {
+        final Thread thread = new Thread(
+            () -> {
+                try {
+                    front.start(exit::get);
+                } catch (final IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        );
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Connect to the server, waiting for it to start listening.
+     * @param port Port
+     * @return Client socket
+     * @throws Exception If fails
+     */
+    private static Socket connect(final int port) throws Exception {
+        Socket socket = null;
+        for (int attempt = 0; socket == null; ++attempt) {
+            try {
+                socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            } catch (final IOException ex) {
+                if (attempt > 100) {
+                    throw ex;
+                }
+                TimeUnit.MILLISECONDS.sleep(50L);
+            }
+        }
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    /**
+     * Find a free port.
+     * @return Port number
+     * @throws IOException If fails
+     */
+    private static int port() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
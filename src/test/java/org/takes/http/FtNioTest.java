@@ -0,0 +1,342 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import com.jcabi.http.request.JdkRequest;
+import com.jcabi.http.response.RestResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.takes.Take;
+import org.takes.facets.fork.FkRegex;
+import org.takes.facets.fork.TkFork;
+import org.takes.rq.RqPrint;
+import org.takes.rs.RsText;
+import org.takes.rs.RsWithBody;
+import org.takes.tk.TkText;
+
+/**
+ * Test case for {@link FtNio}.
+ * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+final class FtNioTest {
+
+    /**
+     * FtNio can work.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void justWorks() throws Exception {
+        FtNioTest.remote(
+            new TkFork(new FkRegex("/", "hello, nio!"))
+        ).exec(
+            new FtRemote.Script() {
+                @Override
+                public void exec(final URI home) throws IOException {
+                    new JdkRequest(home)
+                        .fetch()
+                        .as(RestResponse.class)
+                        .assertStatus(HttpURLConnection.HTTP_OK)
+                        .assertBody(Matchers.startsWith("hello"));
+                }
+            }
+        );
+    }
+
+    /**
+     * FtNio can serve many requests through one connection.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keepsConnectionAlive() throws Exception {
+        FtNioTest.remote(new TkText("alive")).exec(
+            new FtRemote.Script() {
+                @Override
+                public void exec(final URI home) throws Exception {
+                    try (Socket socket = new Socket(
+                        home.getHost(), home.getPort()
+                    )) {
+                        final OutputStream out = socket.getOutputStream();
+                        final InputStream input = socket.getInputStream();
+                        for (int idx = 0; idx < 3; ++idx) {
+                            out.write(
+                                "GET / HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(
+                                    StandardCharsets.UTF_8
+                                )
+                            );
+                            out.flush();
+                            MatcherAssert.assertThat(
+                                FtNioTest.response(input),
+                                Matchers.allOf(
+                                    Matchers.startsWith("HTTP/1.1 200"),
+                                    Matchers.endsWith("alive")
+                                )
+                            );
+                        }
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * FtNio can handle a request head that arrives in pieces.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void waitsForCompleteHead() throws Exception {
+        FtNioTest.remote(new TkText("complete")).exec(
+            new FtRemote.Script() {
+                @Override
+                public void exec(final URI home) throws Exception {
+                    try (Socket socket = new Socket(
+                        home.getHost(), home.getPort()
+                    )) {
+                        final OutputStream out = socket.getOutputStream();
+                        out.write("GET / HTTP/1.1\r\n".getBytes());
+                        out.flush();
+                        // @checkstyle MagicNumber (1 line)
+                        Thread.sleep(100L);
+                        out.write("Host: x\r\n\r\n".getBytes());
+                        out.flush();
+                        MatcherAssert.assertThat(
+                            FtNioTest.response(socket.getInputStream()),
+                            Matchers.endsWith("complete")
+                        );
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * FtNio can serve many requests through one secure connection.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keepsSecureConnectionAlive() throws Exception {
+        final SelfSigned cert = new SelfSigned();
+        FtNioTest.secure(new TkText("secure"), cert).exec(
+            home -> {
+                try (Socket socket = FtNioTest.connect(cert.client(), home)) {
+                    final OutputStream out = socket.getOutputStream();
+                    final InputStream input = socket.getInputStream();
+                    for (int idx = 0; idx < 3; ++idx) {
+                        out.write(
+                            "GET / HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(
+                                StandardCharsets.UTF_8
+                            )
+                        );
+                        out.flush();
+                        MatcherAssert.assertThat(
+                            FtNioTest.response(input),
+                            Matchers.allOf(
+                                Matchers.startsWith("HTTP/1.1 200"),
+                                Matchers.endsWith("secure")
+                            )
+                        );
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * FtNio can read and write secure bodies larger than a TLS record.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void echoesLargeSecureBody() throws Exception {
+        final SelfSigned cert = new SelfSigned();
+        final StringBuilder text = new StringBuilder(0);
+        // @checkstyle MagicNumber (1 line)
+        while (text.length() < 100_000) {
+            text.append("large TLS body; ");
+        }
+        final byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+        FtNioTest.secure(
+            req -> new RsText(new RqPrint(req).printBody()), cert
+        ).exec(
+            home -> {
+                try (Socket socket = FtNioTest.connect(cert.client(), home)) {
+                    final OutputStream out = socket.getOutputStream();
+                    for (int idx = 0; idx < 2; ++idx) {
+                        out.write(
+                            String.format(
+                                "POST / HTTP/1.1\r\nHost: x\r\n%s\r\n\r\n",
+                                String.format(
+                                    "Content-Length: %d", body.length
+                                )
+                            ).getBytes(StandardCharsets.UTF_8)
+                        );
+                        out.write(body);
+                        out.flush();
+                        MatcherAssert.assertThat(
+                            FtNioTest.response(socket.getInputStream()),
+                            Matchers.endsWith(text.toString())
+                        );
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * FtNio can send files through secure connections, encrypted.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void encryptsFiles() throws Exception {
+        final SelfSigned cert = new SelfSigned();
+        final File file = File.createTempFile("takes", ".txt");
+        file.deleteOnExit();
+        Files.write(
+            file.toPath(), "secret file".getBytes(StandardCharsets.UTF_8)
+        );
+        FtNioTest.secure(
+            req -> new RsWithBody(new FileInputStream(file)), cert
+        ).exec(
+            home -> {
+                try (Socket socket = FtNioTest.connect(cert.client(), home)) {
+                    socket.getOutputStream().write(
+                        "GET / HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(
+                            StandardCharsets.UTF_8
+                        )
+                    );
+                    MatcherAssert.assertThat(
+                        FtNioTest.response(socket.getInputStream()),
+                        Matchers.endsWith("secret file")
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * Make a remote secure front.
+     * @param take Take
+     * @param cert Certificate
+     * @return Remote
+     * @throws Exception If fails
+     */
+    private static FtRemote secure(final Take take, final SelfSigned cert)
+        throws Exception {
+        final ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.bind(new InetSocketAddress(0));
+        return new FtRemote(
+            new FtNio(
+                new BkParallel(new BkSafe(new BkBasic(take)), 2),
+                channel,
+                // @checkstyle MagicNumber (1 line)
+                60_000L,
+                new Tls(cert.server())
+            ),
+            channel.socket(),
+            false
+        );
+    }
+
+    /**
+     * Connect to the secure front.
+     * @param client Context of the client
+     * @param home URI of the front
+     * @return Socket, after the handshake
+     * @throws IOException If fails
+     */
+    private static Socket connect(final SSLContext client, final URI home)
+        throws IOException {
+        final SSLSocket socket = (SSLSocket) client.getSocketFactory()
+            .createSocket(home.getHost(), home.getPort());
+        // @checkstyle MagicNumber (1 line)
+        socket.setSoTimeout(10_000);
+        socket.startHandshake();
+        return socket;
+    }
+
+    /**
+     * Make a remote front.
+     * @param take Take
+     * @return Remote
+     * @throws IOException If fails
+     */
+    private static FtRemote remote(final Take take) throws IOException {
+        final ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.bind(new InetSocketAddress(0));
+        return new FtRemote(
+            new FtNio(
+                new BkParallel(new BkSafe(new BkBasic(take)), 2),
+                channel
+            ),
+            channel.socket(),
+            false
+        );
+    }
+
+    /**
+     * Read one response with Content-Length.
+     * @param input Input stream
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static String response(final InputStream input)
+        throws IOException {
+        final StringBuilder head = new StringBuilder(0);
+        while (head.indexOf("\r\n\r\n") < 0) {
+            final int data = input.read();
+            if (data < 0) {
+                throw new IOException("connection closed");
+            }
+            head.append((char) data);
+        }
+        final String text = head.toString();
+        final int start = text.indexOf("Content-Length: ");
+        final int length = Integer.parseInt(
+            text.substring(
+                start + "Content-Length: ".length(),
+                text.indexOf('\r', start)
+            )
+        );
+        final byte[] body = new byte[length];
+        int done = 0;
+        while (done < length) {
+            done += input.read(body, done, length - done);
+        }
+        return text.concat(new String(body, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import com.jcabi.log.Logger;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.cactoos.text.TextOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.takes.Take;
+import org.takes.rq.RqPrint;
+import org.takes.rs.RsText;
+import org.takes.tk.TkText;
+
+/**
+ * Test case for {@link FtUnix}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class FtUnixTest {
+
+    /**
+     * Request of a keep-alive client.
+     */
+    private static final byte[] REQUEST =
+        "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(
+            StandardCharsets.US_ASCII
+        );
+
+    /**
+     * Skip the tests on old JVMs.
+     */
+    @BeforeEach
+    void supported() {
+        Assumptions.assumeTrue(FtUnix.supported());
+    }
+
+    /**
+     * FtUnix can serve requests without IP addresses in them, and
+     * remove the socket file when it stops.
+     * @param temp Temporary directory
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void servesRequestsWithoutAddresses(@TempDir final Path temp)
+        throws Exception {
+        final Path path = temp.resolve("takes.sock");
+        final AtomicBoolean exit = new AtomicBoolean();
+        final Thread front = FtUnixTest.start(
+            path, req -> new RsText(new RqPrint(req).printHead()), exit
+        );
+        try (Socket socket = FtUnixTest.connect(path)) {
+            socket.getOutputStream().write(
+                "GET /uds HTTP/1.0\r\nHost: localhost\r\n\r\n".getBytes(
+                    StandardCharsets.US_ASCII
+                )
+            );
+            MatcherAssert.assertThat(
+                new TextOf(socket.getInputStream()).asString(),
+                Matchers.allOf(
+                    Matchers.startsWith("HTTP/1.1 200 OK"),
+                    Matchers.containsString("GET /uds HTTP/1.0"),
+                    Matchers.not(Matchers.containsString(BkBasic.REMOTEADDR)),
+                    Matchers.not(Matchers.containsString(BkBasic.LOCALADDR))
+                )
+            );
+        }
+        exit.set(true);
+        front.join(10_000L);
+        MatcherAssert.assertThat(front.isAlive(), Matchers.is(false));
+        MatcherAssert.assertThat(Files.exists(path), Matchers.is(false));
+    }
+
+    /**
+     * FtUnix can keep connections alive.
+     * @param temp Temporary directory
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keepsConnectionsAlive(@TempDir final Path temp) throws Exception {
+        final Path path = temp.resolve("alive.sock");
+        final AtomicBoolean exit = new AtomicBoolean();
+        final Thread front = FtUnixTest.start(
+            path, new TkText("alive"), exit
+        );
+        try (Socket socket = FtUnixTest.connect(path)) {
+            for (int idx = 0; idx < 3; ++idx) {
+                MatcherAssert.assertThat(
+                    FtUnixTest.exchange(socket, "alive"),
+                    Matchers.startsWith("HTTP/1.1 200 OK")
+                );
+            }
+        }
+        exit.set(true);
+        front.join(10_000L);
+    }
+
+    /**
+     * FtUnix can refuse to replace a regular file with its socket.
+     * @param temp Temporary directory
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keepsRegularFiles(@TempDir final Path temp) throws Exception {
+        final Path path = temp.resolve("data.txt");
+        Files.write(path, "data".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertThrows(
+            IOException.class,
+            () -> new FtUnix(new BkBasic(new TkText()), path).start(
+                Exit.NEVER
+            )
+        );
+        MatcherAssert.assertThat(
+            new String(Files.readAllBytes(path), StandardCharsets.UTF_8),
+            Matchers.equalTo("data")
+        );
+    }
+
+    /**
+     * FtUnix can refuse to take the socket of a running server.
+     * @param temp Temporary directory
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void refusesSocketInUse(@TempDir final Path temp) throws Exception {
+        final Path path = temp.resolve("busy.sock");
+        final AtomicBoolean exit = new AtomicBoolean();
+        final Thread front = FtUnixTest.start(path, new TkText("first"), exit);
+        Assertions.assertThrows(
+            BindException.class,
+            () -> new FtUnix(new BkBasic(new TkText("second")), path).start(
+                Exit.NEVER
+            )
+        );
+        try (Socket socket = FtUnixTest.connect(path)) {
+            MatcherAssert.assertThat(
+                FtUnixTest.exchange(socket, "first"),
+                Matchers.startsWith("HTTP/1.1 200 OK")
+            );
+        }
+        exit.set(true);
+        front.join(10_000L);
+    }
+
+    /**
+     * FtUnix can replace the socket file left by a server that is gone.
+     * @param temp Temporary directory
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void replacesStaleSocket(@TempDir final Path temp) throws Exception {
+        final Path path = temp.resolve("stale.sock");
+        try (ServerSocketChannel stale = FtUnix.open()) {
+            stale.bind(FtUnix.address(path));
+        }
+        MatcherAssert.assertThat(Files.exists(path), Matchers.is(true));
+        final AtomicBoolean exit = new AtomicBoolean();
+        final Thread front = FtUnixTest.start(path, new TkText("fresh"), exit);
+        try (Socket socket = FtUnixTest.connect(path)) {
+            MatcherAssert.assertThat(
+                FtUnixTest.exchange(socket, "fresh"),
+                Matchers.startsWith("HTTP/1.1 200 OK")
+            );
+        }
+        exit.set(true);
+        front.join(10_000L);
+    }
+
+    /**
+     * FtUnix can serve keep-alive requests faster than FtBasic over
+     * the loopback interface.
+     * @param temp Temporary directory
+     * @throws Exception If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void servesFasterThanLoopback(@TempDir final Path temp) throws Exception {
+        final AtomicBoolean exit = new AtomicBoolean();
+        final ServerSocket server = new ServerSocket(
+            0, 1024, InetAddress.getLoopbackAddress()
+        );
+        final Thread basic = FtUnixTest.thread(
+            new FtBasic(FtUnixTest.back(new TkText("hello")), server), exit
+        );
+        final long tcp = FtUnixTest.rate(
+            () -> {
+                final Socket socket = new Socket(
+                    server.getInetAddress(), server.getLocalPort()
+                );
+                socket.setTcpNoDelay(true);
+                return socket;
+            }
+        );
+        exit.set(true);
+        basic.join();
+        exit.set(false);
+        final Path path = temp.resolve("bench.sock");
+        final Thread unix = FtUnixTest.start(path, new TkText("hello"), exit);
+        final long uds = FtUnixTest.rate(() -> FtUnixTest.connect(path));
+        exit.set(true);
+        unix.join();
+        Logger.info(
+            this, "FtBasic over loopback: %d req/sec, FtUnix: %d req/sec",
+            tcp, uds
+        );
+        MatcherAssert.assertThat(uds, Matchers.greaterThan(0L));
+    }
+
+    /**
+     * Measure how many keep-alive requests a second the server answers.
+     * @param connect Opens a connection to the server
+     * @return Requests per second
+     * @throws Exception If fails
+     */
+    private static long rate(final Callable<Socket> connect) throws Exception {
+        final int clients = 8;
+        final int total = 5_000;
+        final ExecutorService svc = Executors.newFixedThreadPool(clients);
+        final List<Future<?>> futures = new ArrayList<>(clients);
+        final long start = System.nanoTime();
+        for (int client = 0; client < clients; ++client) {
+            futures.add(
+                svc.submit(
+                    () -> {
+                        try (Socket socket = connect.call()) {
+                            for (int idx = 0; idx < total; ++idx) {
+                                FtUnixTest.exchange(socket, "hello");
+                            }
+                        }
+                        return null;
+                    }
+                )
+            );
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        final long rate = clients * total * TimeUnit.SECONDS.toNanos(1L)
+            / (System.nanoTime() - start);
+        svc.shutdown();
+        return rate;
+    }
+
+    /**
+     * Send a keep-alive request and read the response.
+     * @param socket Connection
+     * @param body Expected body of the response
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static String exchange(final Socket socket, final String body)
+        throws IOException {
+        final OutputStream output = socket.getOutputStream();
+        output.write(FtUnixTest.REQUEST);
+        output.flush();
+        final InputStream input = socket.getInputStream();
+        final ByteArrayOutputStream response = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        while (!response.toString("UTF-8").endsWith(body)) {
+            final int len = input.read(buffer);
+            if (len < 0) {
+                throw new IOException("The connection is closed");
+            }
+            response.write(buffer, 0, len);
+        }
+        return response.toString("UTF-8");
+    }
+
+    /**
+     * Start the front on a Unix domain socket and wait for it to listen.
+     * @param path Path of the socket
+     * @param take The take
+     * @param exit Becomes TRUE when the front must stop
+     * @return The thread
+     * @throws InterruptedException If interrupted
+     */
+    private static Thread start(final Path path, final Take take,
+        final AtomicBoolean exit) throws InterruptedException {
+        final Thread thread = FtUnixTest.thread(
+            new FtUnix(FtUnixTest.back(take), path), exit
+        );
+        final long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        while (!FtUnixTest.listening(path) && until - System.nanoTime() > 0L) {
+            TimeUnit.MILLISECONDS.sleep(10L);
+        }
+        return thread;
+    }
+
+    /**
+     * Does a server accept connections on the socket?
+     * @param path Path of the socket
+     * @return TRUE if it does
+     */
+    private static boolean listening(final Path path) {
+        boolean yes;
+        try {
+            FtUnix.connect(path).close();
+            yes = true;
+        } catch (final IOException ex) {
+            yes = false;
+        }
+        return yes;
+    }
+
+    /**
+     * The back to serve the take with, keeping connections alive.
+     * @param take The take
+     * @return Back
+     */
+    private static Back back(final Take take) {
+        return new BkParallel(
+            new BkSafe(
+                new BkBasic(take, new Timeouts(60_000L), Integer.MAX_VALUE)
+            ),
+            16
+        );
+    }
+
+    /**
+     * Start the front in a background thread.
+     * @param front The front
+     * @param exit Becomes TRUE when the front must stop
+     * @return The thread
+     */
+    private static Thread thread(final Front front, final AtomicBoolean exit) {
+        final Thread thread = new Thread(
+            () -> {
+                try {
+                    front.start(exit::get);
+                } catch (final IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        );
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Connect to the Unix domain socket.
+     * @param path Path of the socket
+     * @return Client socket
+     * @throws IOException If fails
+     */
+    private static Socket connect(final Path path) throws IOException {
+        return new UnixSocket(FtUnix.connect(path));
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP/2 client, good enough for tests of {@link BkHttp2}.
+ *
+ * <p>It sends requests as HEADERS, reads frames, collects responses
+ * of streams and remembers the order in which they ended.
+ *
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class H2Client {
+
+    /**
+     * The socket.
+     */
+    private final Socket socket;
+
+    /**
+     * Input of the socket.
+     */
+    private final DataInputStream input;
+
+    /**
+     * HPACK encoder.
+     */
+    private final HpackEncoder encoder;
+
+    /**
+     * HPACK decoder.
+     */
+    private final HpackDecoder decoder;
+
+    /**
+     * Headers of responses, by stream.
+     */
+    private final Map<Integer, List<Map.Entry<String, String>>> heads;
+
+    /**
+     * Bodies of responses, by stream.
+     */
+    private final Map<Integer, ByteArrayOutputStream> bodies;
+
+    /**
+     * Streams in the order they ended.
+     */
+    private final List<Integer> ended;
+
+    /**
+     * Frames of other types received, as their types.
+     */
+    private final List<Integer> others;
+
+    /**
+     * Ctor.
+     * @param skt Socket
+     * @throws IOException If fails
+     */
+    H2Client(final Socket skt) throws IOException {
+        this.socket = skt;
+        this.input = new DataInputStream(skt.getInputStream());
+        this.encoder = new HpackEncoder(4096);
+        this.decoder = new HpackDecoder(4096, Integer.MAX_VALUE);
+        this.heads = new HashMap<>(0);
+        this.bodies = new HashMap<>(0);
+        this.ended = new ArrayList<>(0);
+        this.others = new ArrayList<>(0);
+    }
+
+    /**
+     * Send the preface and settings.
+     * @param settings Pairs of identifiers and values of settings
+     * @throws IOException If fails
+     */
+    void preface(final int... settings) throws IOException {
+        this.socket.getOutputStream().write(
+            "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n"
+                .getBytes(StandardCharsets.ISO_8859_1)
+        );
+        final byte[] payload = new byte[settings.length * 3];
+        for (int idx = 0; idx < settings.length; idx += 2) {
+            final int pos = idx * 3;
+            payload[pos + 1] = (byte) settings[idx];
+            payload[pos + 2] = (byte) (settings[idx + 1] >>> 24);
+            payload[pos + 3] = (byte) (settings[idx + 1] >>> 16);
+            payload[pos + 4] = (byte) (settings[idx + 1] >>> 8);
+            payload[pos + 5] = (byte) settings[idx + 1];
+        }
+        this.frame(4, 0, 0, payload);
+    }
+
+    /**
+     * Send a request without body.
+     * @param stream Stream
+     * @param method Method
+     * @param path Path
+     * @throws IOException If fails
+     */
+    void request(final int stream, final String method, final String path)
+        throws IOException {
+        this.frame(
+            1, 0x5, stream,
+            this.encoder.encode(
+                Arrays.asList(
+                    H2Client.header(":method", method),
+                    H2Client.header(":scheme", "http"),
+                    H2Client.header(":path", path),
+                    H2Client.header(":authority", "localhost")
+                )
+            )
+        );
+    }
+
+    /**
+     * Send a frame.
+     * @param type Type
+     * @param flags Flags
+     * @param stream Stream
+     * @param payload Payload
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    void frame(final int type, final int flags, final int stream,
+        final byte[] payload) throws IOException {
+        final OutputStream out = this.socket.getOutputStream();
+        out.write(
+            new byte[] {
+                (byte) (payload.length >>> 16),
+                (byte) (payload.length >>> 8),
+                (byte) payload.length,
+                (byte) type,
+                (byte) flags,
+                (byte) (stream >>> 24),
+                (byte) (stream >>> 16),
+                (byte) (stream >>> 8),
+                (byte) stream,
+            }
+        );
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * Read frames until the stream ends.
+     * @param stream Stream
+     * @throws IOException If fails
+     */
+    void await(final int stream) throws IOException {
+        while (!this.ended.contains(stream)) {
+            this.read();
+        }
+    }
+
+    /**
+     * Read frames until the body of the stream has this many bytes.
+     * @param stream Stream
+     * @param bytes How many bytes to wait for
+     * @throws IOException If fails
+     */
+    void await(final int stream, final int bytes) throws IOException {
+        while (this.body(stream).length() < bytes) {
+            this.read();
+        }
+    }
+
+    /**
+     * Status of a response.
+     * @param stream Stream
+     * @return Status
+     */
+    String status(final int stream) {
+        return this.header(stream, ":status");
+    }
+
+    /**
+     * Header of a response.
+     * @param stream Stream
+     * @param name Name of the header
+     * @return Value or empty string
+     */
+    String header(final int stream, final String name) {
+        String value = "";
+        for (final Map.Entry<String, String> header
+            : this.heads.getOrDefault(stream, new ArrayList<>(0))) {
+            if (header.getKey().equals(name)) {
+                value = header.getValue();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Body of a response.
+     * @param stream Stream
+     * @return Body so far
+     */
+    String body(final int stream) {
+        return new String(
+            this.bodies.computeIfAbsent(
+                stream, key -> new ByteArrayOutputStream()
+            ).toByteArray(),
+            StandardCharsets.UTF_8
+        );
+    }
+
+    /**
+     * Streams in the order they ended.
+     * @return Streams
+     */
+    List<Integer> ended() {
+        return this.ended;
+    }
+
+    /**
+     * Types of other frames received.
+     * @return Types
+     */
+    List<Integer> others() {
+        return this.others;
+    }
+
+    /**
+     * Read one frame, giving back connection credit for DATA.
+     * @throws IOException If fails
+     */
+    void read() throws IOException {
+        final byte[] head = new byte[9];
+        this.input.readFully(head);
+        final int length = (head[0] & 0xFF) << 16
+            | (head[1] & 0xFF) << 8 | head[2] & 0xFF;
+        final int type = head[3];
+        final int flags = head[4];
+        final int stream = (head[5] & 0x7F) << 24 | (head[6] & 0xFF) << 16
+            | (head[7] & 0xFF) << 8 | head[8] & 0xFF;
+        final byte[] payload = new byte[length];
+        this.input.readFully(payload);
+        if (type == 1) {
+            this.heads.put(stream, this.decoder.decode(payload));
+        } else if (type == 0) {
+            this.bodies.computeIfAbsent(
+                stream, key -> new ByteArrayOutputStream()
+            ).write(payload);
+            if (length > 0) {
+                this.frame(
+                    8, 0, 0,
+                    new byte[] {
+                        (byte) (length >>> 24),
+                        (byte) (length >>> 16),
+                        (byte) (length >>> 8),
+                        (byte) length,
+                    }
+                );
+            }
+        } else if (type == 4 && (flags & 1) == 0) {
+            this.frame(4, 1, 0, new byte[0]);
+        } else {
+            this.others.add(type);
+        }
+        if ((type == 0 || type == 1) && (flags & 1) != 0
+            || type == 3) {
+            this.ended.add(stream);
+        }
+    }
+
+    /**
+     * Make a header.
+     * @param name Name
+     * @param value Value
+     * @return Header
+     */
+    private static Map.Entry<String, String> header(final String name,
+        final String value) {
+        return new AbstractMap.SimpleImmutableEntry<>(name, value);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link HpackDecoder}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class HpackDecoderTest {
+
+    /**
+     * HpackDecoder can decode requests of RFC 7541, C.4, sharing the
+     * dynamic table between them.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void decodesSequenceOfRequests() throws Exception {
+        final HpackDecoder decoder = new HpackDecoder(4096, 16_384);
+        MatcherAssert.assertThat(
+            decoder.decode(
+                HpackDecoderTest.bytes(
+                    0x82, 0x86, 0x84, 0x41, 0x8c, 0xf1, 0xe3, 0xc2, 0xe5,
+                    0xf2, 0x3a, 0x6b, 0xa0, 0xab, 0x90, 0xf4, 0xff
+                )
+            ),
+            Matchers.contains(
+                HpackDecoderTest.header(":method", "GET"),
+                HpackDecoderTest.header(":scheme", "http"),
+                HpackDecoderTest.header(":path", "/"),
+                HpackDecoderTest.header(":authority", "www.example.com")
+            )
+        );
+        MatcherAssert.assertThat(
+            decoder.decode(
+                HpackDecoderTest.bytes(
+                    0x82, 0x86, 0x84, 0xbe, 0x58, 0x86, 0xa8, 0xeb, 0x10,
+                    0x64, 0x9c, 0xbf
+                )
+            ),
+            Matchers.contains(
+                HpackDecoderTest.header(":method", "GET"),
+                HpackDecoderTest.header(":scheme", "http"),
+                HpackDecoderTest.header(":path", "/"),
+                HpackDecoderTest.header(":authority", "www.example.com"),
+                HpackDecoderTest.header("cache-control", "no-cache")
+            )
+        );
+        MatcherAssert.assertThat(
+            decoder.decode(
+                HpackDecoderTest.bytes(
+                    0x82, 0x87, 0x85, 0xbf, 0x40, 0x88, 0x25, 0xa8, 0x49,
+                    0xe9, 0x5b, 0xa9, 0x7d, 0x7f, 0x89, 0x25, 0xa8, 0x49,
+                    0xe9, 0x5b, 0xb8, 0xe8, 0xb4, 0xbf
+                )
+            ),
+            Matchers.contains(
+                HpackDecoderTest.header(":method", "GET"),
+                HpackDecoderTest.header(":scheme", "https"),
+                HpackDecoderTest.header(":path", "/index.html"),
+                HpackDecoderTest.header(":authority", "www.example.com"),
+                HpackDecoderTest.header("custom-key", "custom-value")
+            )
+        );
+    }
+
+    /**
+     * HpackDecoder can decode what HpackEncoder encodes.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void decodesWhatEncoderMakes() throws Exception {
+        final HpackEncoder encoder = new HpackEncoder(4096);
+        final HpackDecoder decoder = new HpackDecoder(4096, 16_384);
+        final List<Map.Entry<String, String>> headers =
+            Arrays.asList(
+                HpackDecoderTest.header(":status", "200"),
+                HpackDecoderTest.header("content-type", "text/plain"),
+                HpackDecoderTest.header("x-request", "été"),
+                HpackDecoderTest.header("date", "Sat, 17 Oct 2026")
+            );
+        for (int idx = 0; idx < 3; ++idx) {
+            MatcherAssert.assertThat(
+                decoder.decode(encoder.encode(headers)),
+                Matchers.equalTo(headers)
+            );
+        }
+    }
+
+    /**
+     * HpackDecoder can reject an index out of both tables.
+     */
+    @Test
+    void rejectsUnknownIndex() {
+        Assertions.assertThrows(
+            IOException.class,
+            () -> new HpackDecoder(4096, 16_384).decode(
+                HpackDecoderTest.bytes(0xbe)
+            )
+        );
+    }
+
+    /**
+     * Make a header.
+     * @param name Name
+     * @param value Value
+     * @return Header
+     */
+    private static Map.Entry<String, String> header(final String name,
+        final String value) {
+        return new AbstractMap.SimpleImmutableEntry<>(name, value);
+    }
+
+    /**
+     * Make bytes.
+     * @param octets Octets as integers
+     * @return Bytes
+     */
+    private static byte[] bytes(final int... octets) {
+        final byte[] out = new byte[octets.length];
+        for (int idx = 0; idx < octets.length; ++idx) {
+            out[idx] = (byte) octets[idx];
+        }
+        return out;
+    }
+}
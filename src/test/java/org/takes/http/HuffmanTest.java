@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Huffman}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class HuffmanTest {
+
+    /**
+     * Huffman can encode a string as in RFC 7541, C.4.1.
+     */
+    @Test
+    void encodesAsInSpecification() {
+        MatcherAssert.assertThat(
+            new Huffman().encode(
+                "www.example.com".getBytes(StandardCharsets.US_ASCII)
+            ),
+            Matchers.equalTo(
+                HuffmanTest.bytes(
+                    0xf1, 0xe3, 0xc2, 0xe5, 0xf2, 0x3a,
+                    0x6b, 0xa0, 0xab, 0x90, 0xf4, 0xff
+                )
+            )
+        );
+    }
+
+    /**
+     * Huffman can decode every octet it encodes.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void decodesWhatItEncodes() throws Exception {
+        final byte[] all = new byte[256];
+        for (int idx = 0; idx < all.length; ++idx) {
+            all[idx] = (byte) idx;
+        }
+        final byte[] code = new Huffman().encode(all);
+        MatcherAssert.assertThat(
+            new Huffman().decode(code, 0, code.length)
+                .getBytes(StandardCharsets.ISO_8859_1),
+            Matchers.equalTo(all)
+        );
+    }
+
+    /**
+     * Huffman can reject padding that is not made of ones.
+     */
+    @Test
+    void rejectsBrokenPadding() {
+        final byte[] code = HuffmanTest.bytes(0xf1, 0xe0);
+        Assertions.assertThrows(
+            IOException.class,
+            () -> new Huffman().decode(code, 0, code.length)
+        );
+    }
+
+    /**
+     * Make bytes.
+     * @param octets Octets as integers
+     * @return Bytes
+     */
+    private static byte[] bytes(final int... octets) {
+        final byte[] out = new byte[octets.length];
+        for (int idx = 0; idx < octets.length; ++idx) {
+            out[idx] = (byte) octets[idx];
+        }
+        return out;
+    }
+}
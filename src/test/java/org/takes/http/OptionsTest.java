@@ -23,6 +23,7 @@
  */
 package org.takes.http;
 
+import java.nio.file.Paths;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
@@ -52,4 +53,33 @@ final class OptionsTest {
         );
     }
 
+    /**
+     * Options can understand the path of a Unix domain socket.
+     */
+    @Test
+    void understandsUnixSocket() {
+        MatcherAssert.assertThat(
+            new Options("--socket=/tmp/takes.sock").unix().get(),
+            Matchers.equalTo(Paths.get("/tmp/takes.sock"))
+        );
+        MatcherAssert.assertThat(
+            new Options("--port=80").unix().has(),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * Options can understand virtual threads.
+     */
+    @Test
+    void understandsVirtualThreads() {
+        MatcherAssert.assertThat(
+            new Options("--threads=virtual").virtual(),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            new Options("--threads=3").virtual(),
+            Matchers.is(false)
+        );
+    }
 }
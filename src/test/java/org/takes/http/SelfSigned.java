@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Self-signed certificate for localhost, generated by {@code keytool}.
+ * @since 2.0
+ */
+final class SelfSigned {
+
+    /**
+     * Password of the keystore.
+     */
+    private static final char[] PASSWORD = "takes-secret".toCharArray();
+
+    /**
+     * The keystore.
+     */
+    private final KeyStore store;
+
+    /**
+     * Ctor.
+     * @throws Exception If fails to generate
+     */
+    SelfSigned() throws Exception {
+        this.store = SelfSigned.generate();
+    }
+
+    /**
+     * Context of the server, with the key.
+     * @return Context
+     * @throws Exception If fails
+     */
+    SSLContext server() throws Exception {
+        final KeyManagerFactory keys = KeyManagerFactory.getInstance(
+            KeyManagerFactory.getDefaultAlgorithm()
+        );
+        keys.init(this.store, SelfSigned.PASSWORD);
+        final SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keys.getKeyManagers(), null, null);
+        return context;
+    }
+
+    /**
+     * Context of a client, trusting the certificate.
+     * @return Context
+     * @throws Exception If fails
+     */
+    SSLContext client() throws Exception {
+        final TrustManagerFactory trust = TrustManagerFactory.getInstance(
+            TrustManagerFactory.getDefaultAlgorithm()
+        );
+        trust.init(this.store);
+        final SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, trust.getTrustManagers(), null);
+        return context;
+    }
+
+    /**
+     * Generate a keystore with a key and a certificate.
+     * @return Keystore
+     * @throws Exception If fails
+     */
+    private static KeyStore generate() throws Exception {
+        final Path dir = Files.createTempDirectory("takes");
+        final Path file = dir.resolve("keystore.p12");
+        final String password = new String(SelfSigned.PASSWORD);
+        final Process process = new ProcessBuilder(
+            new File(
+                new File(System.getProperty("java.home"), "bin"), "keytool"
+            ).getPath(),
+            "-genkeypair", "-alias", "localhost",
+            "-keyalg", "EC", "-groupname", "secp256r1",
+            "-dname", "CN=localhost",
+            "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+            "-validity", "1",
+            "-storetype", "PKCS12",
+            "-keystore", file.toString(),
+            "-storepass", password, "-keypass", password
+        ).redirectErrorStream(true).start();
+        if (!process.waitFor(1L, TimeUnit.MINUTES)
+            || process.exitValue() != 0) {
+            throw new IOException("keytool failed to make a certificate");
+        }
+        final KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream input = Files.newInputStream(file)) {
+            store.load(input, SelfSigned.PASSWORD);
+        }
+        Files.delete(file);
+        Files.delete(dir);
+        return store;
+    }
+}
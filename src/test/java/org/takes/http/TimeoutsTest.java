@@ -0,0 +1,67 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Timeouts}.
+ * @since 2.0
+ */
+final class TimeoutsTest {
+
+    /**
+     * Timeouts can clear the interrupt flag of a thread once it is done
+     * with the connection.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void clearsInterruptWhenCancelled() throws Exception {
+        try (Socket socket = new Socket()) {
+            final Wheel.Timeout timeout = new Timeouts(
+                // @checkstyle MagicNumberCheck (1 line)
+                10L, 0L, 0L, new Expiry.Interrupt(), new Wheel()
+            ).head(socket);
+            final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+            while (!Thread.currentThread().isInterrupted()
+                && System.nanoTime() < end) {
+                Thread.yield();
+            }
+            MatcherAssert.assertThat(
+                "The timeout must have fired",
+                timeout.cancel(),
+                Matchers.is(false)
+            );
+            MatcherAssert.assertThat(
+                "The interrupt flag must be cleared",
+                Thread.interrupted(),
+                Matchers.is(false)
+            );
+        }
+    }
+}
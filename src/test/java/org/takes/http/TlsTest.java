@@ -0,0 +1,242 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import org.cactoos.text.TextOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.takes.tk.TkText;
+
+/**
+ * Test case for {@link Tls}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class TlsTest {
+
+    /**
+     * Tls can enable only the supported protocols and ciphers, in the
+     * wanted order.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void enablesSupportedProtocolsAndCiphers() throws Exception {
+        final SSLParameters params = new Tls(
+            SSLContext.getDefault(), 10, 60,
+            new String[] {"TLSv1.3", "TLSv0.9"},
+            new String[] {"TLS_UNKNOWN", "TLS_AES_256_GCM_SHA384"}
+        ).parameters();
+        MatcherAssert.assertThat(
+            Arrays.asList(params.getProtocols()), Matchers.contains("TLSv1.3")
+        );
+        MatcherAssert.assertThat(
+            Arrays.asList(params.getCipherSuites()),
+            Matchers.contains("TLS_AES_256_GCM_SHA384")
+        );
+        MatcherAssert.assertThat(
+            params.getUseCipherSuitesOrder(), Matchers.is(true)
+        );
+    }
+
+    /**
+     * FtSecure with Tls can serve requests and resume sessions.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void resumesSessions() throws Exception {
+        final ServerSocket server = new Tls().listen(0);
+        final Thread front = TlsTest.start(server, 1_000L);
+        try {
+            final SSLContext client = TlsTest.client();
+            final byte[] first = TlsTest.fetch(client, server, "TLSv1.2")
+                .getId();
+            MatcherAssert.assertThat(
+                TlsTest.fetch(client, server, "TLSv1.2").getId(),
+                Matchers.equalTo(first)
+            );
+        } finally {
+            server.close();
+            front.join(10_000L);
+        }
+    }
+
+    /**
+     * FtSecure with Tls can disconnect clients which don't finish their
+     * handshakes in time, without blocking the others.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void dropsSlowHandshakes() throws Exception {
+        final ServerSocket server = new Tls().listen(0);
+        final Thread front = TlsTest.start(server, 200L);
+        try (Socket silent = new Socket(
+            server.getInetAddress(), server.getLocalPort()
+        )) {
+            silent.setSoTimeout(10_000);
+            TlsTest.fetch(TlsTest.client(), server, "TLSv1.3");
+            final long start = System.nanoTime();
+            final InputStream input = silent.getInputStream();
+            while (input.read() >= 0) {
+                MatcherAssert.assertThat(
+                    "not closed in time",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    Matchers.lessThan(5_000L)
+                );
+            }
+            MatcherAssert.assertThat(
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                Matchers.lessThan(5_000L)
+            );
+        } finally {
+            server.close();
+            front.join(10_000L);
+        }
+    }
+
+    /**
+     * Tls can make handshakes quickly, and faster when sessions are
+     * resumed.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void makesHandshakesQuickly() throws Exception {
+        final ServerSocket server = new Tls().listen(0);
+        final Thread front = TlsTest.start(server, 10_000L);
+        try {
+            final int total = 500;
+            for (final String protocol : new String[] {"TLSv1.3", "TLSv1.2"}) {
+                final SSLContext client = TlsTest.client();
+                TlsTest.fetch(client, server, protocol);
+                long start = System.nanoTime();
+                for (int idx = 0; idx < total; ++idx) {
+                    TlsTest.fetch(client, server, protocol).invalidate();
+                }
+                final long full = total * TimeUnit.SECONDS.toNanos(1L)
+                    / (System.nanoTime() - start);
+                final byte[] first = TlsTest.fetch(client, server, protocol)
+                    .getId();
+                int resumed = 0;
+                start = System.nanoTime();
+                for (int idx = 0; idx < total; ++idx) {
+                    if (Arrays.equals(
+                        TlsTest.fetch(client, server, protocol).getId(), first
+                    )) {
+                        ++resumed;
+                    }
+                }
+                final long quick = total * TimeUnit.SECONDS.toNanos(1L)
+                    / (System.nanoTime() - start);
+                Logger.info(
+                    this,
+                    String.join(
+                        " ",
+                        "%s: %d full handshakes/sec,",
+                        "%d/sec with sessions kept,",
+                        "%d%% resumed by session id (seen in TLS 1.2 only)"
+                    ),
+                    protocol, full, quick, resumed * 100 / total
+                );
+            }
+        } finally {
+            server.close();
+            front.join(10_000L);
+        }
+    }
+
+    /**
+     * Start a secure front in a background thread, until the server
+     * socket is closed.
+     * @param server Server socket
+     * @param msec Handshake timeout
+     * @return The thread
+     */
+    private static Thread start(final ServerSocket server, final long msec) {
+        final Thread thread = new Thread(
+            () -> {
+                try {
+                    new FtSecure(
+                        new BkSafe(new BkBasic(new TkText("secure"))),
+                        server, 4, msec
+                    ).start(Exit.NEVER);
+                } catch (final IOException ignored) {
+                }
+            }
+        );
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Make a client context, trusting the test keystore.
+     * @return Context
+     * @throws Exception If fails
+     */
+    private static SSLContext client() throws Exception {
+        final SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, null, null);
+        return context;
+    }
+
+    /**
+     * Fetch the page over a new connection.
+     * @param client Client context
+     * @param server Server socket
+     * @param protocol Protocol to use
+     * @return Session of the connection
+     * @throws Exception If fails
+     */
+    private static SSLSession fetch(final SSLContext client,
+        final ServerSocket server, final String protocol) throws Exception {
+        try (SSLSocket socket = (SSLSocket) client.getSocketFactory()
+            .createSocket(server.getInetAddress(), server.getLocalPort())) {
+            socket.setSoTimeout(10_000);
+            socket.setTcpNoDelay(true);
+            socket.setEnabledProtocols(new String[] {protocol});
+            socket.getOutputStream().write(
+                "GET / HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII)
+            );
+            final InputStream input = socket.getInputStream();
+            MatcherAssert.assertThat(
+                new TextOf(input).asString(), Matchers.endsWith("secure")
+            );
+            return socket.getSession();
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.ByteArrayOutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link TlsWire}.
+ * @since 2.0
+ */
+final class TlsWireTest {
+
+    /**
+     * TlsWire can leave handshake messages for later, when the channel
+     * doesn't take them, instead of waiting for it.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void waitsForWritableChannel() throws Exception {
+        final SelfSigned cert = new SelfSigned();
+        final SSLEngine client = cert.client().createSSLEngine();
+        client.setUseClientMode(true);
+        final ByteBuffer hello = ByteBuffer.allocate(
+            client.getSession().getPacketBufferSize()
+        );
+        client.wrap(ByteBuffer.allocate(0), hello);
+        hello.flip();
+        // @checkstyle MagicNumber (1 line)
+        final TlsWireTest.Slow channel = new TlsWireTest.Slow(hello, 64);
+        final Wire wire = new TlsWire(
+            channel, new Tls(cert.server()).engine()
+        );
+        try {
+            MatcherAssert.assertThat(
+                "Handshake must not wait for the channel",
+                Assertions.assertTimeoutPreemptively(
+                    Duration.ofSeconds(5L),
+                    () -> {
+                        wire.read(ByteBuffer.allocate(1));
+                        return wire.pending();
+                    }
+                ),
+                Matchers.is(true)
+            );
+            channel.widen();
+            wire.read(ByteBuffer.allocate(1));
+            MatcherAssert.assertThat(
+                "All handshake messages must be written",
+                wire.pending(),
+                Matchers.is(false)
+            );
+            MatcherAssert.assertThat(
+                "Client must get the entire answer to its hello",
+                TlsWireTest.receive(client, channel.sent()),
+                Matchers.is(SSLEngineResult.HandshakeStatus.NEED_WRAP)
+            );
+        } finally {
+            wire.close();
+        }
+    }
+
+    /**
+     * Give the bytes of the server to the client.
+     * @param client Engine of the client
+     * @param bytes Bytes of the server
+     * @return Handshake status of the client after that
+     * @throws Exception If fails
+     */
+    private static SSLEngineResult.HandshakeStatus receive(
+        final SSLEngine client, final byte[] bytes) throws Exception {
+        final ByteBuffer input = ByteBuffer.wrap(bytes);
+        final ByteBuffer app = ByteBuffer.allocate(
+            client.getSession().getApplicationBufferSize()
+        );
+        while (true) {
+            final SSLEngineResult.HandshakeStatus status =
+                client.getHandshakeStatus();
+            if (status == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                client.getDelegatedTask().run();
+            } else if (status
+                != SSLEngineResult.HandshakeStatus.NEED_UNWRAP
+                || client.unwrap(input, app).getStatus()
+                == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                break;
+            }
+        }
+        return client.getHandshakeStatus();
+    }
+
+    /**
+     * Non-blocking channel which takes only a few bytes, until it's
+     * widened.
+     * @since 2.0
+     */
+    @SuppressWarnings("PMD.TooManyMethods")
+    private static final class Slow extends SocketChannel {
+
+        /**
+         * Bytes to read.
+         */
+        private final ByteBuffer inbox;
+
+        /**
+         * Bytes written.
+         */
+        private final ByteArrayOutputStream outbox;
+
+        /**
+         * How many bytes it may take yet.
+         */
+        private int room;
+
+        /**
+         * Ctor.
+         * @param input Bytes to read
+         * @param bytes How many bytes it takes before it's widened
+         */
+        Slow(final ByteBuffer input, final int bytes) {
+            super(SelectorProvider.provider());
+            this.inbox = input;
+            this.outbox = new ByteArrayOutputStream();
+            this.room = bytes;
+        }
+
+        /**
+         * Take any number of bytes from now on.
+         */
+        void widen() {
+            this.room = Integer.MAX_VALUE;
+        }
+
+        /**
+         * Bytes written.
+         * @return Bytes
+         */
+        byte[] sent() {
+            return this.outbox.toByteArray();
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) {
+            final int count = Math.min(dst.remaining(), this.inbox.remaining());
+            final ByteBuffer part = this.inbox.duplicate();
+            part.limit(part.position() + count);
+            dst.put(part);
+            this.inbox.position(this.inbox.position() + count);
+            return count;
+        }
+
+        @Override
+        public long read(final ByteBuffer[] dsts, final int off,
+            final int len) {
+            throw new UnsupportedOperationException("read");
+        }
+
+        @Override
+        public int write(final ByteBuffer src) {
+            final int count = Math.min(src.remaining(), this.room);
+            final byte[] bytes = new byte[count];
+            src.get(bytes);
+            this.outbox.write(bytes, 0, count);
+            this.room -= count;
+            return count;
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs, final int off,
+            final int len) {
+            throw new UnsupportedOperationException("write");
+        }
+
+        @Override
+        public SocketChannel bind(final SocketAddress local) {
+            return this;
+        }
+
+        @Override
+        public <T> SocketChannel setOption(final SocketOption<T> name,
+            final T value) {
+            return this;
+        }
+
+        @Override
+        public <T> T getOption(final SocketOption<T> name) {
+            return null;
+        }
+
+        @Override
+        public Set<SocketOption<?>> supportedOptions() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public SocketChannel shutdownInput() {
+            return this;
+        }
+
+        @Override
+        public SocketChannel shutdownOutput() {
+            return this;
+        }
+
+        @Override
+        public Socket socket() {
+            return new Socket();
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public boolean isConnectionPending() {
+            return false;
+        }
+
+        @Override
+        public boolean connect(final SocketAddress remote) {
+            return true;
+        }
+
+        @Override
+        public boolean finishConnect() {
+            return true;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        protected void implCloseSelectableChannel() {
+            // nothing to close
+        }
+
+        @Override
+        protected void implConfigureBlocking(final boolean block) {
+            // it never blocks
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Tuning}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class TuningTest {
+
+    /**
+     * Tuning can let two sockets listen to the same port.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sharesPort() throws Exception {
+        Assumptions.assumeTrue(Tuning.sharing());
+        final Tuning tuning = new Tuning();
+        try (ServerSocket first = tuning.listen(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), true
+        );
+            ServerSocket second = tuning.listen(
+                new InetSocketAddress(
+                    first.getInetAddress(), first.getLocalPort()
+                ),
+                true
+            )) {
+            MatcherAssert.assertThat(
+                second.getLocalPort(), Matchers.is(first.getLocalPort())
+            );
+        }
+    }
+
+    /**
+     * Tuning can set options of accepted sockets.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void tunesAcceptedSocket() throws Exception {
+        final Tuning tuning = new Tuning(16, true, 0, 65_536);
+        try (ServerSocket server = tuning.listen(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), false
+        );
+            Socket client = new Socket(
+                server.getInetAddress(), server.getLocalPort()
+            );
+            Socket accepted = tuning.apply(server.accept())) {
+            MatcherAssert.assertThat(
+                accepted.getTcpNoDelay(), Matchers.is(true)
+            );
+            MatcherAssert.assertThat(
+                accepted.getSendBufferSize(),
+                Matchers.greaterThanOrEqualTo(65_536)
+            );
+            MatcherAssert.assertThat(client.isConnected(), Matchers.is(true));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import com.jcabi.log.Logger;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Wheel}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class WheelTest {
+
+    /**
+     * Wheel can run a task once its time is out, but not earlier.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void runsTaskAfterDeadline() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        new Wheel().schedule(50L, done::countDown);
+        MatcherAssert.assertThat(
+            done.await(5L, TimeUnit.SECONDS), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            Matchers.greaterThanOrEqualTo(50L)
+        );
+    }
+
+    /**
+     * Wheel can run tasks in the order of their deadlines, even when they
+     * are more than a turn of the wheel away.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void runsTasksInOrderOfDeadlines() throws Exception {
+        final Wheel wheel = new Wheel(1L, 8);
+        final StringBuffer order = new StringBuffer();
+        final CountDownLatch done = new CountDownLatch(3);
+        wheel.schedule(
+            30L,
+            () -> {
+                order.append('c');
+                done.countDown();
+            }
+        );
+        wheel.schedule(
+            3L,
+            () -> {
+                order.append('a');
+                done.countDown();
+            }
+        );
+        wheel.schedule(
+            12L,
+            () -> {
+                order.append('b');
+                done.countDown();
+            }
+        );
+        done.await(5L, TimeUnit.SECONDS);
+        MatcherAssert.assertThat(order.toString(), Matchers.equalTo("abc"));
+    }
+
+    /**
+     * Wheel can forget cancelled tasks without running them.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void forgetsCancelledTasks() throws Exception {
+        final Wheel wheel = new Wheel();
+        final AtomicInteger runs = new AtomicInteger();
+        for (int idx = 0; idx < 10_000; ++idx) {
+            MatcherAssert.assertThat(
+                wheel.schedule(20L, runs::incrementAndGet).cancel(),
+                Matchers.is(true)
+            );
+        }
+        final long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (wheel.size() > 0 && System.nanoTime() < until) {
+            TimeUnit.MILLISECONDS.sleep(10L);
+        }
+        TimeUnit.MILLISECONDS.sleep(50L);
+        MatcherAssert.assertThat(wheel.size(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(runs.get(), Matchers.equalTo(0));
+    }
+
+    /**
+     * Wheel can't cancel a task that already ran.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void doesNotCancelTaskThatRan() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final Wheel.Timeout timeout = new Wheel().schedule(
+            1L, done::countDown
+        );
+        done.await(5L, TimeUnit.SECONDS);
+        MatcherAssert.assertThat(timeout.cancel(), Matchers.is(false));
+    }
+
+    /**
+     * Wheel can schedule and cancel timeouts quickly, while many of them
+     * are pending.
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void schedulesAndCancelsQuickly() {
+        final Wheel wheel = new Wheel();
+        final Runnable task = () -> { };
+        final Wheel.Timeout[] pending = new Wheel.Timeout[100_000];
+        for (int idx = 0; idx < pending.length; ++idx) {
+            pending[idx] = wheel.schedule(60_000L, task);
+        }
+        final int total = 5_000_000;
+        final long start = System.nanoTime();
+        for (int idx = 0; idx < total; ++idx) {
+            wheel.schedule(30_000L, task).cancel();
+        }
+        final long rate = total * 1_000_000_000L
+            / (System.nanoTime() - start);
+        for (final Wheel.Timeout timeout : pending) {
+            timeout.cancel();
+        }
+        Logger.info(
+            this, "%d timeouts scheduled and cancelled per second", rate
+        );
+        MatcherAssert.assertThat(rate, Matchers.greaterThan(100_000L));
+    }
+}
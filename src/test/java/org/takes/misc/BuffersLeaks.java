@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.misc;
+
+import java.util.Collection;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Extension that fails a test class which leaks buffers of
+ * {@link Buffers#SHARED}.
+ *
+ * <p>It is registered for all test classes by the service loader, see
+ * {@code junit-platform.properties}. After a class, it runs the garbage
+ * collector and reports buffers collected without being given back,
+ * with the stack traces of the places where they were taken. Leak
+ * detection is on only if the system property
+ * {@code takes.buffers.leaks} is {@code true}, as surefire sets it;
+ * otherwise nothing is ever reported.
+ *
+ * @since 2.0
+ */
+public final class BuffersLeaks implements AfterAllCallback {
+
+    /**
+     * Garbage collections to run before giving up.
+     */
+    private static final int ROUNDS = 3;
+
+    @Override
+    public void afterAll(final ExtensionContext context)
+        throws InterruptedException {
+        final Collection<Throwable> leaks = BuffersLeaks.collected();
+        if (!leaks.isEmpty()) {
+            final AssertionError error = new AssertionError(
+                String.format(
+                    "%d buffer(s) of Buffers.SHARED leaked in %s",
+                    leaks.size(),
+                    context.getDisplayName()
+                )
+            );
+            for (final Throwable leak : leaks) {
+                error.addSuppressed(leak);
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * Collect garbage and find leaks.
+     * @return Leaks found
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private static Collection<Throwable> collected()
+        throws InterruptedException {
+        final Collection<Throwable> leaks = Buffers.SHARED.leaks();
+        for (int round = 0; round < BuffersLeaks.ROUNDS; ++round) {
+            System.gc();
+            Thread.sleep(10L);
+            leaks.addAll(Buffers.SHARED.leaks());
+        }
+        return leaks;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.misc;
+
+import com.jcabi.log.Logger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Buffers}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class BuffersTest {
+
+    /**
+     * Buffers can give the same array to the thread that gave it back.
+     */
+    @Test
+    void reusesArrays() {
+        final Buffers buffers = new Buffers();
+        final byte[] first = buffers.array(3000);
+        buffers.free(first);
+        MatcherAssert.assertThat(
+            buffers.array(4000), Matchers.sameInstance(first)
+        );
+        MatcherAssert.assertThat(buffers.hits(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(buffers.misses(), Matchers.equalTo(1L));
+    }
+
+    /**
+     * Buffers can round sizes up to their size classes.
+     */
+    @Test
+    void roundsSizesUp() {
+        final Buffers buffers = new Buffers();
+        MatcherAssert.assertThat(buffers.array(1).length, Matchers.is(512));
+        MatcherAssert.assertThat(
+            buffers.array(4097).length, Matchers.is(8192)
+        );
+        MatcherAssert.assertThat(
+            buffers.direct(600).capacity(), Matchers.is(1024)
+        );
+    }
+
+    /**
+     * Buffers can make, but not keep, arrays bigger than its largest class.
+     */
+    @Test
+    void doesNotPoolHugeArrays() {
+        final Buffers buffers = new Buffers();
+        final byte[] huge = buffers.array(100_000);
+        MatcherAssert.assertThat(huge.length, Matchers.is(100_000));
+        buffers.free(huge);
+        MatcherAssert.assertThat(buffers.drops(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(
+            buffers.array(100_000), Matchers.not(Matchers.sameInstance(huge))
+        );
+    }
+
+    /**
+     * Buffers can reuse direct buffers, cleared.
+     */
+    @Test
+    void reusesDirectBuffers() {
+        final Buffers buffers = new Buffers();
+        final ByteBuffer first = buffers.direct(2048);
+        first.put((byte) 1).flip();
+        buffers.free(first);
+        final ByteBuffer second = buffers.direct(2048);
+        MatcherAssert.assertThat(second, Matchers.sameInstance(first));
+        MatcherAssert.assertThat(second.remaining(), Matchers.is(2048));
+        MatcherAssert.assertThat(second.isDirect(), Matchers.is(true));
+    }
+
+    /**
+     * Buffers can drop what doesn't fit into the stripe.
+     */
+    @Test
+    void dropsWhatDoesNotFit() {
+        final Buffers buffers = new Buffers(1, false);
+        final Collection<byte[]> taken = new ArrayList<>(10);
+        for (int idx = 0; idx < 10; ++idx) {
+            taken.add(buffers.array(512));
+        }
+        taken.forEach(buffers::free);
+        MatcherAssert.assertThat(buffers.drops(), Matchers.equalTo(6L));
+    }
+
+    /**
+     * Buffers can find arrays never given back.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void findsLeaks() throws Exception {
+        final Buffers buffers = new Buffers(true);
+        buffers.free(buffers.array(1024));
+        buffers.array(1024);
+        final Collection<Throwable> leaks = new ArrayList<>(1);
+        for (int attempt = 0; attempt < 50 && leaks.isEmpty(); ++attempt) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(20L);
+            leaks.addAll(buffers.leaks());
+        }
+        MatcherAssert.assertThat(leaks, Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+            Arrays.asList(leaks.iterator().next().getStackTrace()),
+            Matchers.hasItem(
+                Matchers.hasToString(Matchers.containsString("findsLeaks"))
+            )
+        );
+    }
+
+    /**
+     * Buffers can hand out arrays faster than they are made.
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void handsOutArraysQuickly() {
+        final Buffers buffers = new Buffers();
+        final int total = 2_000_000;
+        long sum = 0L;
+        long start = System.nanoTime();
+        for (int idx = 0; idx < total; ++idx) {
+            final byte[] array = new byte[8192];
+            array[idx & 8191] = 1;
+            sum += (long) array[0];
+        }
+        final long made = total * 1_000_000_000L
+            / (System.nanoTime() - start);
+        start = System.nanoTime();
+        for (int idx = 0; idx < total; ++idx) {
+            final byte[] array = buffers.array(8192);
+            array[idx & 8191] = 1;
+            sum += (long) array[0];
+            buffers.free(array);
+        }
+        final long pooled = total * 1_000_000_000L
+            / (System.nanoTime() - start);
+        Logger.info(
+            this, "%d arrays/sec pooled, %d made (%d)", pooled, made, sum
+        );
+        MatcherAssert.assertThat(pooled, Matchers.greaterThan(made));
+    }
+}
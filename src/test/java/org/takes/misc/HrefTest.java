@@ -23,8 +23,17 @@
  */
 package org.takes.misc;
 
+import com.jcabi.log.Logger;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.llorllale.cactoos.matchers.HasValues;
 
@@ -163,4 +172,119 @@ final class HrefTest {
             Matchers.equalTo("http://example.com/#hello")
         );
     }
+
+    /**
+     * Href can change many params with a builder, leaving itself as is.
+     */
+    @Test
+    void buildsWithBuilder() {
+        final Href href = new Href("http://example.com/p?x=1&y=2#top");
+        MatcherAssert.assertThat(
+            href.builder()
+                .with("x", "3")
+                .without("y")
+                .with("z", "a b")
+                .build()
+                .toString(),
+            Matchers.equalTo("http://example.com/p?x=1&x=3&z=a+b#top")
+        );
+        MatcherAssert.assertThat(
+            href.with("x", "4").toString(),
+            Matchers.equalTo("http://example.com/p?x=1&x=4&y=2#top")
+        );
+        MatcherAssert.assertThat(
+            href.toString(),
+            Matchers.equalTo("http://example.com/p?x=1&y=2#top")
+        );
+    }
+
+    /**
+     * Href can decode values, keeping broken escapes as they are.
+     */
+    @Test
+    void decodesValues() {
+        final Href href = new Href("/q?broken=%zz&fine=%D0%B0");
+        MatcherAssert.assertThat(
+            href.param("fine"), Matchers.contains("\u0430")
+        );
+        MatcherAssert.assertThat(
+            href.param("broken"), Matchers.contains("%zz")
+        );
+    }
+
+    /**
+     * Href can decode the path.
+     */
+    @Test
+    void decodesPath() {
+        MatcherAssert.assertThat(
+            new Href("https://a.example.com:8080/%D0%B0%20b/c?d=e").path(),
+            Matchers.equalTo("/\u0430 b/c")
+        );
+        MatcherAssert.assertThat(
+            new Href("http://b.example.com").path(),
+            Matchers.equalTo("")
+        );
+        MatcherAssert.assertThat(
+            new Href("/relative/path#x").path(),
+            Matchers.equalTo("/relative/path")
+        );
+    }
+
+    /**
+     * Href can parse links faster than {@link URI} does.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void parsesLinksFast() throws Exception {
+        final String link =
+            "http://www.example.com/api/items/42?page=3&sort=name&q=a%20b";
+        final int total = 1_000_000;
+        long start = System.nanoTime();
+        for (int idx = 0; idx < total; ++idx) {
+            final URI uri = new URI(link);
+            MatcherAssert.assertThat(
+                uri.getPath().length()
+                    + HrefTest.split(uri.getRawQuery()).get("page").size(),
+                Matchers.greaterThan(0)
+            );
+        }
+        final long before = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int idx = 0; idx < total; ++idx) {
+            final Href href = new Href(link);
+            MatcherAssert.assertThat(
+                href.path().length()
+                    + href.param("page").iterator().next().length(),
+                Matchers.greaterThan(0)
+            );
+        }
+        final long after = System.nanoTime() - start;
+        Logger.info(
+            this, "%d links: URI %d ms, Href %d ms",
+            total, TimeUnit.NANOSECONDS.toMillis(before),
+            TimeUnit.NANOSECONDS.toMillis(after)
+        );
+        MatcherAssert.assertThat(after, Matchers.lessThan(before));
+    }
+
+    /**
+     * Parse the query like it was parsed before, decoding all of it.
+     * @param query The query
+     * @return Values by names
+     * @throws Exception If fails
+     */
+    private static Map<String, List<String>> split(final String query)
+        throws Exception {
+        final Map<String, List<String>> map = new HashMap<>(1);
+        for (final String pair : query.split("&")) {
+            final String[] parts = pair.split("=", 2);
+            map.computeIfAbsent(
+                URLDecoder.decode(parts[0], "UTF-8"),
+                key -> new LinkedList<>()
+            ).add(URLDecoder.decode(parts[1], "UTF-8"));
+        }
+        return map;
+    }
 }
@@ -23,19 +23,29 @@
  */
 package org.takes.rq;
 
+import com.jcabi.log.Logger;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.IOUtils;
 import org.cactoos.text.Joined;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.takes.HttpException;
 
 /**
  * Test case for {@link ChunkedInputStream}.
  *
  * @since 0.31.2
+ * @checkstyle MagicNumber (500 lines)
  */
 final class ChunkedInputStreamTest {
 
@@ -146,4 +156,172 @@ final class ChunkedInputStreamTest {
         MatcherAssert.assertThat(stream.available(), Matchers.equalTo(0));
         stream.close();
     }
+
+    /**
+     * ChunkedInputStream can tell the end of the stream, when the buffer
+     * is bigger than the body.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void readsToTheEnd() throws IOException {
+        final InputStream stream = new ChunkedInputStream(
+            IOUtils.toInputStream(
+                "3\r\nabc\r\n2\r\nde\r\n0\r\n\r\n",
+                StandardCharsets.UTF_8
+            )
+        );
+        final byte[] buf = new byte[64];
+        MatcherAssert.assertThat(stream.read(buf), Matchers.equalTo(5));
+        MatcherAssert.assertThat(stream.read(buf), Matchers.equalTo(-1));
+        MatcherAssert.assertThat(stream.read(), Matchers.equalTo(-1));
+    }
+
+    /**
+     * ChunkedInputStream can read many small chunks at once.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void readsManySmallChunks() throws IOException {
+        final int total = 100_000;
+        final byte[] body = ChunkedInputStreamTest.chunked(total, 1);
+        final byte[] buf = new byte[total + 1];
+        MatcherAssert.assertThat(
+            new ChunkedInputStream(new ByteArrayInputStream(body)).read(buf),
+            Matchers.equalTo(total)
+        );
+    }
+
+    /**
+     * ChunkedInputStream can leave the bytes after the body in a stream
+     * that supports marks.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void leavesNextRequestInStream() throws IOException {
+        final InputStream input = new BufferedInputStream(
+            IOUtils.toInputStream(
+                "4;a=\"b\"\r\ntext\r\n0\r\nX-Sum: 1\r\n\r\nGET / HTTP/1.1",
+                StandardCharsets.UTF_8
+            )
+        );
+        final ChunkedInputStream stream = new ChunkedInputStream(input);
+        MatcherAssert.assertThat(
+            IOUtils.toString(stream, StandardCharsets.UTF_8),
+            Matchers.equalTo("text")
+        );
+        MatcherAssert.assertThat(
+            stream.trailers(), Matchers.contains("X-Sum: 1")
+        );
+        MatcherAssert.assertThat(
+            IOUtils.toString(input, StandardCharsets.UTF_8),
+            Matchers.equalTo("GET / HTTP/1.1")
+        );
+    }
+
+    /**
+     * ChunkedInputStream can refuse too long chunk extensions.
+     */
+    @Test
+    void refusesLongExtensions() {
+        final StringBuilder line = new StringBuilder("1;a=");
+        for (int idx = 0; idx < 2000; ++idx) {
+            line.append('x');
+        }
+        final HttpException error = Assertions.assertThrows(
+            HttpException.class,
+            () -> new ChunkedInputStream(
+                IOUtils.toInputStream(
+                    line.append("\r\nz\r\n0\r\n\r\n").toString(),
+                    StandardCharsets.UTF_8
+                )
+            ).read()
+        );
+        MatcherAssert.assertThat(
+            error.code(), Matchers.equalTo(HttpURLConnection.HTTP_BAD_REQUEST)
+        );
+    }
+
+    /**
+     * ChunkedInputStream can refuse too long lines, without reading
+     * them to the end.
+     */
+    @Test
+    void refusesLongLines() {
+        Assertions.assertThrows(
+            HttpException.class,
+            () -> new ChunkedInputStream(
+                new BufferedInputStream(
+                    new InputStream() {
+                        @Override
+                        public int read() {
+                            return '0';
+                        }
+                    }
+                )
+            ).read()
+        );
+    }
+
+    /**
+     * ChunkedInputStream can decode big bodies fast, in chunks from 1 KB
+     * to 64 KB.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void decodesBigBodiesFast() throws IOException {
+        final int size = 16 << 20;
+        final byte[] buf = new byte[8192];
+        for (int chunk = 1024; chunk <= 65_536; chunk <<= 2) {
+            final byte[] body = ChunkedInputStreamTest.chunked(
+                size / chunk, chunk
+            );
+            final int rounds = 20;
+            final long start = System.nanoTime();
+            for (int idx = 0; idx < rounds; ++idx) {
+                final InputStream stream = new ChunkedInputStream(
+                    new BufferedInputStream(new ByteArrayInputStream(body))
+                );
+                long total = 0L;
+                for (int read = stream.read(buf); read >= 0;
+                    read = stream.read(buf)) {
+                    total += read;
+                }
+                MatcherAssert.assertThat(total, Matchers.equalTo((long) size));
+            }
+            final long msec = TimeUnit.NANOSECONDS.toMillis(
+                System.nanoTime() - start
+            );
+            final long speed = (long) size * rounds / (msec + 1L) / 1000L;
+            Logger.info(
+                this, "%d KB chunks: %d MB in %d ms, %d MB/s",
+                chunk >> 10, (size >> 20) * rounds, msec, speed
+            );
+            MatcherAssert.assertThat(speed, Matchers.greaterThan(100L));
+        }
+    }
+
+    /**
+     * Chunked body.
+     * @param count How many chunks
+     * @param size Size of each chunk
+     * @return The body
+     */
+    private static byte[] chunked(final int count, final int size) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(
+            count * (size + 10) + 5
+        );
+        final byte[] head = String.format("%x\r\n", size)
+            .getBytes(StandardCharsets.US_ASCII);
+        final byte[] data = new byte[size];
+        for (int idx = 0; idx < count; ++idx) {
+            out.write(head, 0, head.length);
+            out.write(data, 0, data.length);
+            out.write('\r');
+            out.write('\n');
+        }
+        final byte[] end = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        out.write(end, 0, end.length);
+        return out.toByteArray();
+    }
 }
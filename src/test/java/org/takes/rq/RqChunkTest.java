@@ -25,11 +25,14 @@ package org.takes.rq;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import org.apache.commons.io.IOUtils;
 import org.cactoos.text.Joined;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
+import org.takes.Request;
 
 /**
  * Test case for {@link RqChunk}.
@@ -159,4 +162,42 @@ final class RqChunkTest {
         MatcherAssert.assertThat(buf, Matchers.equalTo(data.getBytes()));
         MatcherAssert.assertThat(stream.available(), Matchers.equalTo(0));
     }
+
+    /**
+     * RqChunk can add the trailers to the head, once the body is read.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void addsTrailersToHead() throws IOException {
+        final Request req = new RqChunk(
+            new RqFake(
+                Arrays.asList(
+                    "POST /h?a=4",
+                    "Host: d.example.com",
+                    RqChunkTest.CHUNKED_HEADER
+                ),
+                new Joined(
+                    RqChunkTest.CRLF,
+                    "5",
+                    "hello",
+                    RqChunkTest.END_OF_CHUNK,
+                    "X-Digest: abc",
+                    "",
+                    ""
+                ).toString()
+            )
+        );
+        MatcherAssert.assertThat(
+            new RqHeaders.Base(req).header("X-Digest"),
+            Matchers.emptyIterable()
+        );
+        MatcherAssert.assertThat(
+            IOUtils.toString(req.body(), StandardCharsets.UTF_8),
+            Matchers.equalTo("hello")
+        );
+        MatcherAssert.assertThat(
+            new RqHeaders.Base(req).header("X-Digest"),
+            Matchers.contains("abc")
+        );
+    }
 }
@@ -31,6 +31,7 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.takes.HttpException;
+import org.takes.Request;
 
 /**
  * Test case for {@link RqHref.Base}.
@@ -245,4 +246,22 @@ import org.takes.HttpException;
             Matchers.startsWith("def-")
         );
     }
+
+    /**
+     * RqHref.Base can make the HREF of an indexed request only once.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void makesHrefOnce() throws IOException {
+        final Request req = new RqIndexed(
+            new RqFake(
+                Arrays.asList("GET /once?b=1", "Host: www.example.com"),
+                ""
+            )
+        );
+        MatcherAssert.assertThat(
+            new RqHref.Base(req).href(),
+            Matchers.sameInstance(new RqHref.Base(req).href())
+        );
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rq;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.facets.cookies.RqCookies;
+
+/**
+ * Test case for {@link RqIndexed}.
+ * @since 2.0
+ */
+final class RqIndexedTest {
+
+    /**
+     * RqIndexed can find headers in any case.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void findsHeadersInAnyCase() throws IOException {
+        final RqHeaders headers = new RqHeaders.Base(
+            new RqIndexed(
+                new RqFake(
+                    Arrays.asList(
+                        "GET /i HTTP/1.1",
+                        "Host:  www.example.com ",
+                        "accept: text/html",
+                        "Accept: text/plain"
+                    ),
+                    ""
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            headers.header("ACCEPT"),
+            Matchers.contains("text/html", "text/plain")
+        );
+        MatcherAssert.assertThat(
+            headers.header("host"),
+            Matchers.contains("www.example.com")
+        );
+        MatcherAssert.assertThat(
+            headers.names(),
+            Matchers.containsInAnyOrder("host", "accept")
+        );
+    }
+
+    /**
+     * RqIndexed can parse the head only once for all decorators.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void parsesHeadOnlyOnce() throws IOException {
+        final AtomicInteger reads = new AtomicInteger();
+        final List<String> head = Arrays.asList(
+            "POST /users?name=jeff HTTP/1.1",
+            "Host: www.example.com",
+            "Cookie: session=abc; lang=en"
+        );
+        final Request req = new RqIndexed(
+            new RequestOf(
+                () -> {
+                    reads.incrementAndGet();
+                    return head;
+                },
+                () -> new RqFake().body()
+            )
+        );
+        MatcherAssert.assertThat(
+            new RqHref.Base(req).href().param("name"),
+            Matchers.contains("jeff")
+        );
+        MatcherAssert.assertThat(
+            new RqMethod.Base(req).method(),
+            Matchers.equalTo("POST")
+        );
+        MatcherAssert.assertThat(
+            new RqCookies.Base(req).cookie("lang"),
+            Matchers.contains("en")
+        );
+        MatcherAssert.assertThat(
+            new RqRequestLine.Base(new RqHeaders.Base(req)).version(),
+            Matchers.equalTo("HTTP/1.1")
+        );
+        MatcherAssert.assertThat(reads.get(), Matchers.equalTo(1));
+    }
+
+    /**
+     * RqIndexed can report a broken header only when it is requested.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void reportsBrokenHeaderLazily() throws IOException {
+        final Request req = new RqIndexed(
+            new RqFake(Arrays.asList("GET / HTTP/1.1", "broken"), "")
+        );
+        MatcherAssert.assertThat(
+            new RqRequestLine.Base(req).uri(),
+            Matchers.equalTo("/")
+        );
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                HttpException.class,
+                () -> new RqHeaders.Base(req).header("Host")
+            ).getMessage(),
+            Matchers.containsString("invalid HTTP header: \"broken\"")
+        );
+    }
+
+    /**
+     * RqIndexed can reject a broken Request-Line.
+     */
+    @Test
+    void rejectsBrokenRequestLine() {
+        Assertions.assertThrows(
+            HttpException.class,
+            () -> new RqMethod.Base(
+                new RqIndexed(new RqFake(Arrays.asList("GET"), ""))
+            ).method()
+        );
+    }
+}
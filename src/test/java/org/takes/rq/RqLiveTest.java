@@ -23,14 +23,20 @@
  */
 package org.takes.rq;
 
+import com.jcabi.log.Logger;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import org.cactoos.io.InputStreamOf;
 import org.cactoos.text.Joined;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.takes.HttpException;
 import org.takes.Request;
 
 /**
@@ -154,4 +160,148 @@ final class RqLiveTest {
         );
     }
 
+    /**
+     * RqLive can leave the next request in the stream untouched.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void leavesNextRequestInStream() throws IOException {
+        final InputStream input = new ByteArrayInputStream(
+            new Joined(
+                RqLiveTest.CRLF,
+                "GET /first HTTP/1.1",
+                "Host: a",
+                "",
+                "GET /second HTTP/1.1",
+                "Host: b",
+                "",
+                ""
+            ).toString().getBytes(StandardCharsets.UTF_8)
+        );
+        new RqLive(input);
+        MatcherAssert.assertThat(
+            new RqHref.Base(new RqLive(input)).href().path(),
+            Matchers.equalTo("/second")
+        );
+    }
+
+    /**
+     * RqLive can leave the buffer of the stream small, when a big body
+     * is read after the head.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void keepsBufferSmall() throws IOException {
+        final byte[] head = new Joined(
+            RqLiveTest.CRLF,
+            "POST /upload HTTP/1.1",
+            "Host: c",
+            "Content-Length: 8388608",
+            "",
+            ""
+        ).toString().getBytes(StandardCharsets.UTF_8);
+        final byte[] all = new byte[head.length + (8 << 20)];
+        System.arraycopy(head, 0, all, 0, head.length);
+        final RqLiveTest.Probe input = new RqLiveTest.Probe(
+            new ByteArrayInputStream(all)
+        );
+        final InputStream body = new RqLengthAware(new RqLive(input)).body();
+        final byte[] buf = new byte[4096];
+        long total = 0L;
+        for (int read = body.read(buf); read >= 0; read = body.read(buf)) {
+            total += read;
+        }
+        MatcherAssert.assertThat(total, Matchers.equalTo(8L << 20));
+        MatcherAssert.assertThat(input.size(), Matchers.lessThan(65_536));
+    }
+
+    /**
+     * RqLive can report the number of the broken line.
+     */
+    @Test
+    void reportsBrokenLine() {
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                HttpException.class,
+                () -> new RqLive(
+                    new ByteArrayInputStream(
+                        "GET / HTTP/1.1\r\nHost: x\r\nA: \u0001\r\n\r\n"
+                            .getBytes(StandardCharsets.UTF_8)
+                    )
+                )
+            ).getMessage(),
+            Matchers.containsString("illegal character 0x01 in HTTP header line #3")
+        );
+    }
+
+    /**
+     * RqLive can parse browser heads fast.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void parsesBrowserHeadsFast() throws IOException {
+        final int total = 100_000;
+        for (final int size : new int[] {20, 40}) {
+            final byte[] bytes = RqLiveTest.browser(size);
+            for (int idx = 0; idx < total; ++idx) {
+                new RqLive(new ByteArrayInputStream(bytes));
+            }
+            final long start = System.nanoTime();
+            for (int idx = 0; idx < total; ++idx) {
+                new RqLive(new ByteArrayInputStream(bytes));
+            }
+            final long nanos = (System.nanoTime() - start) / total;
+            Logger.info(
+                this, "%d headers, %d bytes: %d ns per head",
+                size, bytes.length, nanos
+            );
+            MatcherAssert.assertThat(
+                nanos,
+                // @checkstyle MagicNumber (1 line)
+                Matchers.lessThan(20_000L)
+            );
+        }
+    }
+
+    /**
+     * Make a head like the one a browser sends.
+     * @param size Number of headers
+     * @return Bytes of the head
+     */
+    private static byte[] browser(final int size) {
+        final StringBuilder head = new StringBuilder(
+            "GET /assets/app.js?v=42 HTTP/1.1\r\nHost: www.example.com\r\n"
+        );
+        for (int idx = 1; idx < size; ++idx) {
+            head.append("X-Header-").append(idx)
+                .append(": Mozilla/5.0 (X11; Linux x86_64) text/html;q=0.9")
+                .append(RqLiveTest.CRLF);
+        }
+        return head.append(RqLiveTest.CRLF).toString()
+            .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Buffered stream that tells the size of its buffer.
+     * @since 2.0
+     */
+    private static final class Probe extends BufferedInputStream {
+
+        /**
+         * Ctor.
+         * @param input Original stream
+         */
+        Probe(final InputStream input) {
+            super(input);
+        }
+
+        /**
+         * Size of the buffer.
+         * @return Bytes
+         */
+        int size() {
+            return this.buf.length;
+        }
+    }
 }
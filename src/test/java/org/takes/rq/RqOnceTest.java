@@ -81,4 +81,27 @@ final class RqOnceTest {
         ).affirm();
     }
 
+    /**
+     * RqOnce can spool the body to bytes and read them many times.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void spoolsBodyOnce() throws IOException {
+        final Request req = new RqOnce(
+            new RequestOf(
+                new IterableOf<>(new Randomized().toString()),
+                new InputStreamOf(new Randomized())
+            ),
+            // @checkstyle MagicNumber (1 line)
+            4, 1024L
+        );
+        new Assertion<>(
+            "the spooled body must be cached",
+            new RqPrint(req).printBody(),
+            new IsEqual<>(
+                new RqPrint(req).printBody()
+            )
+        ).affirm();
+    }
+
 }
@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rq;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.Random;
+import org.cactoos.bytes.BytesOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.takes.HttpException;
+import org.takes.Request;
+
+/**
+ * Test case for {@link RqSpooled}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ */
+final class RqSpooledTest {
+
+    /**
+     * RqSpooled can keep a small body in memory and give it many times.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void readsSmallBodyManyTimes() throws Exception {
+        final Request req = new RqSpooled(
+            new RqFake(Arrays.asList("POST / HTTP/1.1", "Host: x"), "hello")
+        );
+        MatcherAssert.assertThat(
+            new RqPrint(req).printBody(), Matchers.equalTo("hello")
+        );
+        MatcherAssert.assertThat(
+            new RqPrint(req).printBody(), Matchers.equalTo("hello")
+        );
+        MatcherAssert.assertThat(
+            new RqHref.Base(req).href().path(), Matchers.equalTo("/")
+        );
+    }
+
+    /**
+     * RqSpooled can spool a big body to a file, which it deletes.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void spoolsBigBodyToFile() throws Exception {
+        final byte[] body = new byte[300_000];
+        new Random(0L).nextBytes(body);
+        final Request req = new RqSpooled(
+            new RqFake(Arrays.asList("PUT / HTTP/1.1", "Host: y"), body),
+            1024, 1_000_000L
+        );
+        MatcherAssert.assertThat(
+            new BytesOf(req.body()).asBytes(), Matchers.equalTo(body)
+        );
+        final InputStream again = req.body();
+        MatcherAssert.assertThat(
+            again.available(), Matchers.equalTo(body.length)
+        );
+        MatcherAssert.assertThat(
+            again.skip(100_000L), Matchers.equalTo(100_000L)
+        );
+        MatcherAssert.assertThat(
+            new BytesOf(again).asBytes(),
+            Matchers.equalTo(Arrays.copyOfRange(body, 100_000, body.length))
+        );
+        MatcherAssert.assertThat(
+            new File(System.getProperty("java.io.tmpdir")).list(
+                (dir, name) -> name.startsWith(RqSpooled.class.getName())
+            ),
+            Matchers.emptyArray()
+        );
+    }
+
+    /**
+     * RqSpooled can refuse a body too big by its length, without
+     * reading it.
+     */
+    @Test
+    void refusesTooLongBody() {
+        final HttpException error = Assertions.assertThrows(
+            HttpException.class,
+            () -> new RqSpooled(
+                new RqFake(
+                    Arrays.asList(
+                        "POST / HTTP/1.1", "Host: z", "Content-Length: 1000"
+                    ),
+                    new InputStream() {
+                        @Override
+                        public int read() throws IOException {
+                            throw new IOException("must not be read");
+                        }
+                    }
+                ),
+                10, 100L
+            )
+        );
+        MatcherAssert.assertThat(
+            error.code(),
+            Matchers.equalTo(HttpURLConnection.HTTP_ENTITY_TOO_LARGE)
+        );
+    }
+
+    /**
+     * RqSpooled can refuse a body too big by its bytes, when the length
+     * isn't known.
+     */
+    @Test
+    void refusesTooBigBody() {
+        final HttpException error = Assertions.assertThrows(
+            HttpException.class,
+            () -> new RqSpooled(
+                new RqFake(
+                    Arrays.asList("POST / HTTP/1.1", "Host: w"),
+                    new ByteArrayInputStream(new byte[20_000])
+                ),
+                10, 10_000L
+            )
+        );
+        MatcherAssert.assertThat(
+            error.code(),
+            Matchers.equalTo(HttpURLConnection.HTTP_ENTITY_TOO_LARGE)
+        );
+    }
+}
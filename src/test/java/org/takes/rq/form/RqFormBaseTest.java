@@ -23,11 +23,24 @@
  */
 package org.takes.rq.form;
 
+import com.jcabi.log.Logger;
 import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.takes.HttpException;
 import org.takes.rq.RqBuffered;
 import org.takes.rq.RqFake;
 import org.takes.rq.RqForm;
@@ -35,6 +48,7 @@ import org.takes.rq.RqForm;
 /**
  * Test case for {@link RqFormBase}.
  * @since 0.33
+ * @checkstyle MagicNumber (500 lines)
  */
 final class RqFormBaseTest {
 
@@ -97,4 +111,140 @@ final class RqFormBaseTest {
             Matchers.is(Boolean.TRUE)
         );
     }
+
+    /**
+     * RqFormBase can decode UTF-8, whatever the default charset is.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void decodesUtfEight() throws IOException {
+        final RqForm req = new RqFormBase(
+            new RqFake("POST", "/", "Name=%D0%AF%D0%BD+%C3%A9&x=1&&y=")
+        );
+        MatcherAssert.assertThat(
+            req.param("name"), Matchers.contains("\u042f\u043d \u00e9")
+        );
+        MatcherAssert.assertThat(
+            req.names(), Matchers.containsInAnyOrder("name", "x", "y")
+        );
+        MatcherAssert.assertThat(req.param("y"), Matchers.contains(""));
+    }
+
+    /**
+     * RqFormBase can decode the charset given.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void decodesCharsetGiven() throws IOException {
+        MatcherAssert.assertThat(
+            new RqFormBase(
+                new RqFake("POST", "/", "city=M%FCnchen"),
+                StandardCharsets.ISO_8859_1
+            ).param("city"),
+            Matchers.contains("M\u00fcnchen")
+        );
+    }
+
+    /**
+     * RqFormBase can decode only the values asked for.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void decodesValuesWhenAsked() throws IOException {
+        final RqForm req = new RqFormBase(
+            new RqFake("POST", "/", "good=yes&bad=%zz")
+        );
+        MatcherAssert.assertThat(req.param("good"), Matchers.contains("yes"));
+        final HttpException ex = Assertions.assertThrows(
+            HttpException.class, () -> req.param("bad")
+        );
+        MatcherAssert.assertThat(
+            ex.code(), Matchers.is(HttpURLConnection.HTTP_BAD_REQUEST)
+        );
+    }
+
+    /**
+     * RqFormBase can refuse too many fields and too big bodies.
+     */
+    @Test
+    void refusesTooBigForms() {
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                HttpException.class,
+                () -> new RqFormBase(
+                    new RqFake("POST", "/", "a=1&b=2&c=3"),
+                    StandardCharsets.UTF_8, 2, 1024
+                ).names()
+            ).code(),
+            Matchers.is(HttpURLConnection.HTTP_ENTITY_TOO_LARGE)
+        );
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                HttpException.class,
+                () -> new RqFormBase(
+                    new RqFake("POST", "/", "a=0123456789"),
+                    StandardCharsets.UTF_8, 2, 8
+                ).names()
+            ).code(),
+            Matchers.is(HttpURLConnection.HTTP_ENTITY_TOO_LARGE)
+        );
+    }
+
+    /**
+     * RqFormBase can parse big forms faster than splitting the text
+     * and decoding it with URLDecoder.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void parsesBigFormsFast() throws Exception {
+        final StringBuilder form = new StringBuilder(600_000);
+        for (int idx = 0; form.length() < 500_000; ++idx) {
+            form.append("field").append(idx)
+                .append("=some+text+with+%C3%A9scapes+and+numbers+")
+                .append(idx).append('&');
+        }
+        final String body = form.toString();
+        final int total = 200;
+        long start = System.nanoTime();
+        for (int idx = 0; idx < total; ++idx) {
+            MatcherAssert.assertThat(
+                RqFormBaseTest.split(body).size(), Matchers.greaterThan(0)
+            );
+        }
+        final long split = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int idx = 0; idx < total; ++idx) {
+            final RqForm req = new RqFormBase(new RqFake("POST", "/", body));
+            MatcherAssert.assertThat(
+                req.param("field7"), Matchers.iterableWithSize(1)
+            );
+        }
+        final long bytes = System.nanoTime() - start;
+        Logger.info(
+            this, "%d forms of %d bytes: split %d ms, RqFormBase %d ms",
+            total, body.length(), TimeUnit.NANOSECONDS.toMillis(split),
+            TimeUnit.NANOSECONDS.toMillis(bytes)
+        );
+        MatcherAssert.assertThat(bytes, Matchers.lessThan(split));
+    }
+
+    /**
+     * Parse the form like it was parsed before, by splitting the text.
+     * @param body The body
+     * @return Values by names
+     * @throws Exception If fails
+     */
+    private static Map<String, List<String>> split(final String body)
+        throws Exception {
+        final Map<String, List<String>> map = new HashMap<>(1);
+        for (final String pair : body.split("&")) {
+            final String[] parts = pair.split("=", 2);
+            map.computeIfAbsent(
+                URLDecoder.decode(parts[0], "UTF-8").toLowerCase(Locale.ENGLISH),
+                key -> new LinkedList<>()
+            ).add(URLDecoder.decode(parts[1].trim(), "UTF-8"));
+        }
+        return map;
+    }
 }
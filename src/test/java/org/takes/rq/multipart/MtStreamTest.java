@@ -0,0 +1,256 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rq.multipart;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.commons.lang.StringUtils;
+import org.cactoos.text.TextOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.takes.HttpException;
+import org.takes.Request;
+import org.takes.misc.Opt;
+import org.takes.rq.RqFake;
+import org.takes.rq.RqHeaders;
+
+/**
+ * Test case for {@link MtStream}.
+ * @since 2.0
+ * @checkstyle MagicNumber (500 lines)
+ * @checkstyle MultipleStringLiteralsCheck (500 lines)
+ */
+final class MtStreamTest {
+
+    /**
+     * MtStream can read parts in order, with their heads.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void readsPartsInOrder() throws Exception {
+        try (MtStream parts = new MtStream(
+            MtStreamTest.request(
+                "boundary=AaB01x",
+                new ByteArrayInputStream(
+                    MtStreamTest.body(
+                        "--AaB01x",
+                        "Content-Disposition: form-data; name=\"first\"",
+                        "",
+                        "one",
+                        "--AaB01x",
+                        "Content-Disposition: form-data; name=\"second\"",
+                        "Content-Type: text/plain",
+                        "",
+                        "two\r\nlines",
+                        "--AaB01x--",
+                        ""
+                    )
+                )
+            )
+        )) {
+            final Request first = parts.next().get();
+            MatcherAssert.assertThat(
+                new RqHeaders.Smart(first).single("Content-Disposition"),
+                Matchers.endsWith("name=\"first\"")
+            );
+            MatcherAssert.assertThat(
+                new TextOf(first.body()).asString(), Matchers.equalTo("one")
+            );
+            final Request second = parts.next().get();
+            MatcherAssert.assertThat(
+                new RqHeaders.Smart(second).single("Content-Type"),
+                Matchers.equalTo("text/plain")
+            );
+            MatcherAssert.assertThat(
+                new TextOf(second.body()).asString(),
+                Matchers.equalTo("two\r\nlines")
+            );
+            MatcherAssert.assertThat(parts.next().has(), Matchers.is(false));
+        }
+    }
+
+    /**
+     * MtStream can find boundaries split between reads of a large
+     * body, without damaging the data around them.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void streamsLargePartsInPieces() throws Exception {
+        final String large = StringUtils.repeat("\r\n--Aa\r\n-", 3_000);
+        try (MtStream parts = new MtStream(
+            MtStreamTest.request(
+                "boundary=AaB01x",
+                new MtStreamTest.Trickle(
+                    new ByteArrayInputStream(
+                        MtStreamTest.body(
+                            "--AaB01x",
+                            "Content-Disposition: form-data; name=\"file\"",
+                            "",
+                            large,
+                            "--AaB01x",
+                            "Content-Disposition: form-data; name=\"tail\"",
+                            "",
+                            "",
+                            "--AaB01x--"
+                        )
+                    )
+                )
+            )
+        )) {
+            MatcherAssert.assertThat(
+                new TextOf(parts.next().get().body()).asString(),
+                Matchers.equalTo(large)
+            );
+            MatcherAssert.assertThat(
+                new TextOf(parts.next().get().body()).asString(),
+                Matchers.equalTo("")
+            );
+            MatcherAssert.assertThat(parts.next().has(), Matchers.is(false));
+        }
+    }
+
+    /**
+     * MtStream can skip what is left of a part and the preamble, and
+     * understand a boundary in quotes.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void skipsUnreadData() throws Exception {
+        try (MtStream parts = new MtStream(
+            MtStreamTest.request(
+                "boundary=\"sim ple\"; charset=utf-8",
+                new ByteArrayInputStream(
+                    MtStreamTest.body(
+                        "This is the preamble.",
+                        "--sim ple",
+                        "Content-Disposition: form-data; name=\"skipped\"",
+                        "",
+                        StringUtils.repeat("x", 20_000),
+                        "--sim ple  ",
+                        "Content-Disposition: form-data; name=\"read\"",
+                        "",
+                        "data",
+                        "--sim ple--",
+                        "This is the epilogue."
+                    )
+                )
+            )
+        )) {
+            final Opt<Request> skipped = parts.next();
+            MatcherAssert.assertThat(
+                skipped.get().body().read(), Matchers.is((int) 'x')
+            );
+            final Request read = parts.next().get();
+            MatcherAssert.assertThat(
+                skipped.get().body().read(), Matchers.is(-1)
+            );
+            MatcherAssert.assertThat(
+                new TextOf(read.body()).asString(), Matchers.equalTo("data")
+            );
+            MatcherAssert.assertThat(parts.next().has(), Matchers.is(false));
+        }
+    }
+
+    /**
+     * MtStream can refuse a body without parts.
+     */
+    @Test
+    void refusesBodyWithoutParts() {
+        Assertions.assertThrows(
+            HttpException.class,
+            () -> {
+                try (MtStream parts = new MtStream(
+                    MtStreamTest.request(
+                        "boundary=AaB01x",
+                        new ByteArrayInputStream(new byte[0])
+                    )
+                )) {
+                    parts.next();
+                }
+            }
+        );
+    }
+
+    /**
+     * Make a multipart request.
+     * @param boundary Parameters of the content type
+     * @param body The body
+     * @return Request
+     */
+    private static Request request(final String boundary,
+        final InputStream body) {
+        return new RqFake(
+            Arrays.asList(
+                "POST /upload HTTP/1.1",
+                "Host: www.example.com",
+                String.format(
+                    "Content-Type: multipart/form-data; %s", boundary
+                )
+            ),
+            body
+        );
+    }
+
+    /**
+     * Make a body of lines.
+     * @param lines The lines
+     * @return Bytes
+     */
+    private static byte[] body(final String... lines) {
+        return String.join("\r\n", lines).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stream that gives a few bytes at a time.
+     * @since 2.0
+     */
+    private static final class Trickle extends FilterInputStream {
+
+        /**
+         * How many bytes to give next.
+         */
+        private int next;
+
+        /**
+         * Ctor.
+         * @param input The stream
+         */
+        Trickle(final InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len)
+            throws IOException {
+            this.next = this.next % 13 + 1;
+            return super.read(buf, off, Math.min(len, this.next));
+        }
+    }
+}
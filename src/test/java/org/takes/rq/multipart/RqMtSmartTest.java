@@ -133,7 +133,7 @@ final class RqMtSmartTest {
 
     /**
      * RqMtSmart can identify the boundary even if the last content to
-     * read before the pattern is an empty line.
+     * read before the pattern is an empty line, which stays in the part.
      * @throws IOException If some problem inside
      */
     @Test
@@ -167,7 +167,7 @@ final class RqMtSmartTest {
         try {
             MatcherAssert.assertThat(
                 regsmart.single(part).body().available(),
-                Matchers.equalTo(length)
+                Matchers.equalTo(length + 2)
             );
         } finally {
             req.body().close();
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link ChunkedOutputStream}.
+ * @since 2.0
+ */
+final class ChunkedOutputStreamTest {
+
+    /**
+     * ChunkedOutputStream can send a chunk on flush.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void sendsChunkOnFlush() throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final ChunkedOutputStream out = new ChunkedOutputStream(baos);
+        out.write("Hello, ".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        out.write("world!".getBytes(StandardCharsets.UTF_8));
+        out.write('!');
+        out.finish();
+        MatcherAssert.assertThat(
+            baos.toString(StandardCharsets.UTF_8.name()),
+            Matchers.equalTo("7\r\nHello, \r\n7\r\nworld!!\r\n0\r\n\r\n")
+        );
+    }
+
+    /**
+     * ChunkedOutputStream can send writes larger than its buffer as chunks
+     * of their own.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void sendsLargeWritesAsOwnChunks() throws IOException {
+        final byte[] data = "Chunked bodies survive the round trip"
+            .getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // @checkstyle MagicNumber (4 lines)
+        final ChunkedOutputStream out = new ChunkedOutputStream(baos, 4);
+        out.write(data, 0, 3);
+        out.write(data, 3, 10);
+        out.write(data, 13, data.length - 13);
+        out.finish();
+        MatcherAssert.assertThat(
+            baos.toString(StandardCharsets.UTF_8.name()),
+            Matchers.equalTo(
+                String.join(
+                    "\r\n",
+                    "3", "Chu",
+                    "a", "nked bodie",
+                    "18", "s survive the round trip",
+                    "0", "", ""
+                )
+            )
+        );
+    }
+}
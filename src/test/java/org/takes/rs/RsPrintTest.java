@@ -23,14 +23,32 @@
  */
 package org.takes.rs;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.cactoos.Text;
 import org.cactoos.bytes.BytesOf;
 import org.cactoos.iterable.IterableOf;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.hamcrest.core.IsEqual;
 import org.hamcrest.object.HasToString;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.llorllale.cactoos.matchers.Assertion;
 
 /**
@@ -89,4 +107,202 @@ final class RsPrintTest {
             )
         );
     }
+
+    /**
+     * RsPrint can print binary body to a stream as it is.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void printsBinaryBodyToStream() throws Exception {
+        final byte[] body = {(byte) 0xff, (byte) 0xfe, 0, (byte) 0x80};
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new RsPrint(
+            new RsSimple(
+                new IterableOf<>("HTTP/1.1 200 OK"),
+                new ByteArrayInputStream(body)
+            )
+        ).print(baos);
+        final byte[] printed = baos.toByteArray();
+        MatcherAssert.assertThat(
+            "must write head as is",
+            new String(printed, 0, printed.length - body.length, "UTF-8"),
+            new IsEqual<>("HTTP/1.1 200 OK\r\n\r\n")
+        );
+        MatcherAssert.assertThat(
+            "must write body bytes as is",
+            Arrays.copyOfRange(
+                printed, printed.length - body.length, printed.length
+            ),
+            new IsEqual<>(body)
+        );
+    }
+
+    /**
+     * RsPrint can transfer a file body to a stream.
+     * @param temp Temporary folder
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void printsFileBodyToStream(@TempDir final Path temp) throws Exception {
+        final Path file = temp.resolve("body.bin");
+        Files.write(file, "file content".getBytes(StandardCharsets.UTF_8));
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new RsPrint(new RsWithBody(file)).print(baos);
+        MatcherAssert.assertThat(
+            new String(baos.toByteArray(), StandardCharsets.UTF_8),
+            new IsEqual<>(
+                "HTTP/1.1 200 OK\r\nContent-Length: 12\r\n\r\nfile content"
+            )
+        );
+    }
+
+    /**
+     * RsPrint can copy the rest of a file body when the channel doesn't
+     * take it in one transfer.
+     * @param temp Temporary folder
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void printsFileBodyToStalledChannel(@TempDir final Path temp)
+        throws Exception {
+        final Path file = temp.resolve("stalled.bin");
+        Files.write(file, "whole content".getBytes(StandardCharsets.UTF_8));
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final WritableByteChannel channel = Channels.newChannel(baos);
+        final AtomicBoolean stalled = new AtomicBoolean();
+        new RsPrint(new RsWithBody(file)).printBody(
+            baos,
+            new WritableByteChannel() {
+                @Override
+                public int write(final ByteBuffer src) throws IOException {
+                    final int count;
+                    if (stalled.compareAndSet(false, true)) {
+                        count = 0;
+                    } else {
+                        count = channel.write(src);
+                    }
+                    return count;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                    // nothing to close
+                }
+            }
+        );
+        MatcherAssert.assertThat(
+            new String(baos.toByteArray(), StandardCharsets.UTF_8),
+            new IsEqual<>("whole content")
+        );
+    }
+
+    /**
+     * RsPrint can refuse to transfer a slice longer than the rest of the
+     * file.
+     * @param temp Temporary folder
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void refusesSliceBeyondFile(@TempDir final Path temp) throws Exception {
+        final Path file = temp.resolve("short.bin");
+        Files.write(file, "short".getBytes(StandardCharsets.UTF_8));
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Assertions.assertThrows(
+            EOFException.class,
+            () -> new RsPrint(
+                new ResponseOf(
+                    () -> new IterableOf<>("HTTP/1.1 206 Partial Content"),
+                    () -> new SliceInputStream(
+                        // @checkstyle MagicNumber (1 line)
+                        new FileInputStream(file.toFile()), 2L, 10L
+                    )
+                )
+            ).printBody(baos, Channels.newChannel(baos))
+        );
+    }
+
+    /**
+     * RsPrint can print nothing in chunks when the body can't be opened.
+     */
+    @Test
+    void printsNoChunkedHeadWithoutBody() {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Assertions.assertThrows(
+            IOException.class,
+            () -> new RsPrint(
+                new ResponseOf(
+                    () -> new IterableOf<>("HTTP/1.1 200 OK"),
+                    () -> {
+                        throw new IOException("no body");
+                    }
+                )
+            ).printChunked(baos)
+        );
+        MatcherAssert.assertThat(baos.size(), new IsEqual<>(0));
+    }
+
+    /**
+     * RsPrint can leave the chunked body unfinished when it breaks.
+     */
+    @Test
+    void leavesBrokenChunkedBodyUnfinished() {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Assertions.assertThrows(
+            IOException.class,
+            () -> new RsPrint(
+                new ResponseOf(
+                    () -> new IterableOf<>("HTTP/1.1 200 OK"),
+                    () -> new SequenceInputStream(
+                        new ByteArrayInputStream(new byte[] {'x'}),
+                        new InputStream() {
+                            @Override
+                            public int read() throws IOException {
+                                throw new IOException("broken body");
+                            }
+                        }
+                    )
+                )
+            ).printChunked(baos)
+        );
+        MatcherAssert.assertThat(
+            new String(baos.toByteArray(), StandardCharsets.UTF_8),
+            Matchers.not(Matchers.endsWith("0\r\n\r\n"))
+        );
+    }
+
+    /**
+     * RsPrint can stream a large body faster than it can make
+     * a byte array of it.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    @Tag("org.takes.misc.PerformanceTests")
+    void printsLargeBodyFasterThanBytes() throws Exception {
+        final byte[] body = new byte[1 << 23];
+        Arrays.fill(body, (byte) 'x');
+        final int rounds = 20;
+        final long bytes = System.nanoTime();
+        for (int idx = 0; idx < rounds; ++idx) {
+            new ByteArrayOutputStream().write(
+                new RsPrint(new RsWithBody(body)).asBytes()
+            );
+        }
+        final long start = System.nanoTime();
+        for (int idx = 0; idx < rounds; ++idx) {
+            new RsPrint(new RsWithBody(body)).print(
+                new ByteArrayOutputStream()
+            );
+        }
+        final long end = System.nanoTime();
+        MatcherAssert.assertThat(
+            "must print faster than convert to bytes",
+            end - start,
+            Matchers.lessThan(start - bytes)
+        );
+    }
 }
@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.takes.HttpException;
+import org.takes.rq.RqFake;
+import org.takes.rs.HeadPrint;
+import org.takes.rs.RsPrint;
+
+/**
+ * Test case for {@link TkCachedClasspath}.
+ * @since 2.0
+ */
+final class TkCachedClasspathTest {
+
+    /**
+     * Resource to read.
+     */
+    private static final String XSL = "/org/takes/rs/simple.xsl";
+
+    /**
+     * TkCachedClasspath can serve resources from the cache.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void servesFromCache() throws Exception {
+        final TkCachedClasspath take = new TkCachedClasspath("");
+        final String first = new RsPrint(
+            take.act(new RqFake("GET", TkCachedClasspathTest.XSL))
+        ).asString();
+        final String second = new RsPrint(
+            take.act(new RqFake("GET", TkCachedClasspathTest.XSL))
+        ).asString();
+        MatcherAssert.assertThat(second, Matchers.equalTo(first));
+        MatcherAssert.assertThat(
+            first,
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 200 OK"),
+                Matchers.containsString("Content-Type: application/xml"),
+                Matchers.containsString("ETag: \""),
+                Matchers.containsString("<stylesheet")
+            )
+        );
+        MatcherAssert.assertThat(take.misses(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(take.hits(), Matchers.equalTo(1L));
+    }
+
+    /**
+     * TkCachedClasspath can send compressed variant.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sendsCompressedVariant() throws Exception {
+        MatcherAssert.assertThat(
+            new HeadPrint(
+                new TkCachedClasspath("/org/takes").act(
+                    new RqFake(
+                        Arrays.asList(
+                            "GET /rs/simple.xsl",
+                            "Host: x",
+                            "Accept-Encoding: gzip"
+                        ),
+                        ""
+                    )
+                )
+            ).asString(),
+            Matchers.allOf(
+                Matchers.containsString("Content-Encoding: gzip"),
+                Matchers.containsString("-gzip\"")
+            )
+        );
+    }
+
+    /**
+     * TkCachedClasspath can evict least recently used resources.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void evictsLeastRecentlyUsed() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final TkCachedClasspath take = new TkCachedClasspath("", 4000L);
+        for (final String name : new String[] {
+            TkCachedClasspathTest.XSL,
+            "/org/takes/rs/included.xsl",
+            "/org/takes/rs/includes.xsl",
+        }) {
+            new RsPrint(take.act(new RqFake("GET", name))).asString();
+        }
+        MatcherAssert.assertThat(take.evictions(), Matchers.greaterThan(0L));
+    }
+
+    /**
+     * TkCachedClasspath can serve resources too large for the cache,
+     * without reading them into it again.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void servesLargeResources() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final TkCachedClasspath take = new TkCachedClasspath("", 16L);
+        for (int idx = 0; idx < 2; ++idx) {
+            MatcherAssert.assertThat(
+                new RsPrint(
+                    take.act(new RqFake("GET", TkCachedClasspathTest.XSL))
+                ).asString(),
+                Matchers.containsString("<stylesheet")
+            );
+        }
+        MatcherAssert.assertThat(take.misses(), Matchers.equalTo(2L));
+        MatcherAssert.assertThat(take.evictions(), Matchers.equalTo(0L));
+    }
+
+    /**
+     * TkCachedClasspath can read a resource only once, when many requests
+     * miss it at the same time.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void readsResourceOnce() throws Exception {
+        final TkCachedClasspath take = new TkCachedClasspath("");
+        final int threads = 16;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService service = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<String>> futures = new ArrayList<>(threads);
+            for (int idx = 0; idx < threads; ++idx) {
+                futures.add(
+                    service.submit(
+                        () -> {
+                            start.await();
+                            return new RsPrint(
+                                take.act(
+                                    new RqFake("GET", TkCachedClasspathTest.XSL)
+                                )
+                            ).asString();
+                        }
+                    )
+                );
+            }
+            start.countDown();
+            for (final Future<String> future : futures) {
+                MatcherAssert.assertThat(
+                    future.get(), Matchers.containsString("<stylesheet")
+                );
+            }
+        } finally {
+            service.shutdown();
+        }
+        MatcherAssert.assertThat(take.misses(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(
+            take.hits(), Matchers.equalTo((long) threads - 1L)
+        );
+    }
+
+    /**
+     * TkCachedClasspath can throw when resource not found.
+     */
+    @Test
+    void throwsWhenResourceNotFound() {
+        Assertions.assertThrows(
+            HttpException.class,
+            () -> new TkCachedClasspath("").act(new RqFake("GET", "/absent"))
+        );
+    }
+}
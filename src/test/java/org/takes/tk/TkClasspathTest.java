@@ -23,13 +23,16 @@
  */
 package org.takes.tk;
 
+import java.util.Arrays;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.llorllale.cactoos.matchers.StartsWith;
 import org.takes.HttpException;
 import org.takes.rq.RqFake;
 import org.takes.rs.HeadPrint;
+import org.takes.rs.RsPrint;
 
 /**
  * Test case for {@link TkClasspath}.
@@ -56,6 +59,33 @@ final class TkClasspathTest {
         );
     }
 
+    /**
+     * TkClasspath can answer 304 for a JAR entry with the same ETag.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void revalidatesJarEntry() throws Exception {
+        final String name = "/org/hamcrest/Matcher.class";
+        final String tag = new HeadPrint(
+            new TkClasspath().act(new RqFake("GET", name))
+        ).asString().replaceAll("(?s).*ETag: (\"[^\"]+\").*", "$1");
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkClasspath().act(
+                    new RqFake(
+                        Arrays.asList(
+                            String.format("GET %s", name),
+                            "Host: x",
+                            String.format("If-None-Match: %s", tag)
+                        ),
+                        ""
+                    )
+                )
+            ).asString(),
+            Matchers.startsWith("HTTP/1.1 304")
+        );
+    }
+
     /**
      * TkClasspath can throw when resource not found.
      */
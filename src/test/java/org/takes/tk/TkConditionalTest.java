@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.util.Arrays;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.takes.rq.RqFake;
+import org.takes.rs.RsPrint;
+import org.takes.rs.RsText;
+import org.takes.rs.RsWithHeaders;
+
+/**
+ * Test case for {@link TkConditional}.
+ * @since 2.0
+ */
+final class TkConditionalTest {
+
+    /**
+     * Response with validators.
+     */
+    private static final TkFixed TAKE = new TkFixed(
+        new RsWithHeaders(
+            new RsText("cached"),
+            "ETag: \"abc\"",
+            "Last-Modified: Fri, 14 Jul 2017 02:40:00 GMT"
+        )
+    );
+
+    /**
+     * TkConditional can answer with 304 when ETag matches.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void answersNotModifiedOnMatchingTag() throws Exception {
+        MatcherAssert.assertThat(
+            TkConditionalTest.print("If-None-Match: \"xyz\", W/\"abc\""),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 304 Not Modified"),
+                Matchers.containsString("ETag: \"abc\""),
+                Matchers.not(Matchers.containsString("cached"))
+            )
+        );
+    }
+
+    /**
+     * TkConditional can send the body when ETag doesn't match.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sendsBodyOnOtherTag() throws Exception {
+        MatcherAssert.assertThat(
+            TkConditionalTest.print(
+                "If-None-Match: \"xyz\"",
+                "If-Modified-Since: Fri, 14 Jul 2017 02:40:00 GMT"
+            ),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 200"),
+                Matchers.endsWith("cached")
+            )
+        );
+    }
+
+    /**
+     * TkConditional can answer with 304 when not modified since.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void answersNotModifiedSinceDate() throws Exception {
+        MatcherAssert.assertThat(
+            TkConditionalTest.print(
+                "If-Modified-Since: Sat, 15 Jul 2017 00:00:00 GMT"
+            ),
+            Matchers.startsWith("HTTP/1.1 304")
+        );
+        MatcherAssert.assertThat(
+            TkConditionalTest.print(
+                "If-Modified-Since: Thu, 13 Jul 2017 00:00:00 GMT"
+            ),
+            Matchers.startsWith("HTTP/1.1 200")
+        );
+    }
+
+    /**
+     * Make a request with these headers and print the response.
+     * @param headers Headers
+     * @return Response
+     * @throws Exception If fails
+     */
+    private static String print(final String... headers) throws Exception {
+        final String[] head = new String[headers.length + 2];
+        head[0] = "GET /";
+        head[1] = "Host: x";
+        System.arraycopy(headers, 0, head, 2, headers.length);
+        return new RsPrint(
+            new TkConditional(TkConditionalTest.TAKE).act(
+                new RqFake(Arrays.asList(head), "")
+            )
+        ).asString();
+    }
+}
@@ -27,6 +27,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import org.apache.commons.io.FileUtils;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -34,6 +35,7 @@ import org.llorllale.cactoos.matchers.StartsWith;
 import org.takes.HttpException;
 import org.takes.rq.RqFake;
 import org.takes.rs.HeadPrint;
+import org.takes.rs.RsPrint;
 
 /**
  * Test case for {@link TkFiles}.
@@ -64,6 +66,35 @@ final class TkFilesTest {
         );
     }
 
+    /**
+     * TkFiles can describe the file with headers from its metadata.
+     * @param temp Temporary folder.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void addsHeadersFromFileMetadata(@TempDir final Path temp)
+        throws Exception {
+        final Path file = temp.resolve("b.txt");
+        FileUtils.write(file.toFile(), "metadata", StandardCharsets.UTF_8);
+        // @checkstyle MagicNumber (1 line)
+        file.toFile().setLastModified(1_500_000_000_000L);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkFiles(temp.toFile()).act(
+                    new RqFake("GET", "/b.txt", "")
+                )
+            ).asString(),
+            Matchers.allOf(
+                Matchers.containsString("Content-Length: 8"),
+                Matchers.containsString(
+                    "Last-Modified: Fri, 14 Jul 2017 02:40:00 GMT"
+                ),
+                Matchers.containsString("ETag: \"15d3ef79800-8\""),
+                Matchers.endsWith("\r\n\r\nmetadata")
+            )
+        );
+    }
+
     /**
      * TkFiles can throw when file not found.
      */
@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.takes.rq.RqFake;
+import org.takes.rs.RsPrint;
+import org.takes.rs.RsText;
+
+/**
+ * Test case for {@link TkRange}.
+ * @since 2.0
+ */
+final class TkRangeTest {
+
+    /**
+     * TkRange can send a single range.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sendsSingleRange() throws Exception {
+        MatcherAssert.assertThat(
+            TkRangeTest.print(new TkFixed(new RsText("0123456789")), "2-5"),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 206 Partial Content"),
+                Matchers.containsString("Content-Range: bytes 2-5/10"),
+                Matchers.containsString("Content-Length: 4\r\n"),
+                Matchers.endsWith("\r\n\r\n2345")
+            )
+        );
+    }
+
+    /**
+     * TkRange can send the suffix of the body.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sendsSuffixRange() throws Exception {
+        MatcherAssert.assertThat(
+            TkRangeTest.print(new TkFixed(new RsText("0123456789")), "-3"),
+            Matchers.allOf(
+                Matchers.containsString("Content-Range: bytes 7-9/10"),
+                Matchers.endsWith("\r\n\r\n789")
+            )
+        );
+    }
+
+    /**
+     * TkRange can send many ranges as multipart.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sendsManyRanges() throws Exception {
+        final String response = TkRangeTest.print(
+            new TkFixed(new RsText("0123456789")), "7-8,0-1,1-2"
+        );
+        MatcherAssert.assertThat(
+            response,
+            Matchers.allOf(
+                Matchers.containsString("multipart/byteranges; boundary="),
+                Matchers.containsString(
+                    "Content-Range: bytes 0-2/10\r\n\r\n012\r\n"
+                ),
+                Matchers.containsString(
+                    "Content-Range: bytes 7-8/10\r\n\r\n78\r\n"
+                )
+            )
+        );
+        final String body = response.substring(
+            response.indexOf("\r\n\r\n") + 4
+        );
+        MatcherAssert.assertThat(
+            response,
+            Matchers.containsString(
+                String.format("Content-Length: %d\r\n", body.length())
+            )
+        );
+    }
+
+    /**
+     * TkRange can reject range that is not satisfiable.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void rejectsUnsatisfiableRange() throws Exception {
+        MatcherAssert.assertThat(
+            TkRangeTest.print(new TkFixed(new RsText("01234")), "10-20"),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 416"),
+                Matchers.containsString("Content-Range: bytes */5")
+            )
+        );
+    }
+
+    /**
+     * TkRange can ignore broken range.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void ignoresBrokenRange() throws Exception {
+        MatcherAssert.assertThat(
+            TkRangeTest.print(new TkFixed(new RsText("01234")), "4-1"),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 200"),
+                Matchers.endsWith("01234")
+            )
+        );
+    }
+
+    /**
+     * TkRange can send a range of a file from the middle of it.
+     * @param temp Temporary folder
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sendsRangeOfFile(@TempDir final Path temp) throws Exception {
+        Files.write(
+            temp.resolve("c.txt"),
+            "abcdefghij".getBytes(StandardCharsets.UTF_8)
+        );
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new RsPrint(
+            new TkFiles(temp.toFile()).act(
+                new RqFake(
+                    Arrays.asList("GET /c.txt", "Host: x", "Range: bytes=3-4"),
+                    ""
+                )
+            )
+        ).print(baos);
+        MatcherAssert.assertThat(
+            new String(baos.toByteArray(), StandardCharsets.UTF_8),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 206"),
+                Matchers.endsWith("\r\n\r\nde")
+            )
+        );
+    }
+
+    /**
+     * Ask for the range and print the response.
+     * @param take Take
+     * @param range Range
+     * @return Response
+     * @throws Exception If fails
+     */
+    private static String print(final TkFixed take, final String range)
+        throws Exception {
+        return new RsPrint(
+            new TkRange(take).act(
+                new RqFake(
+                    Arrays.asList(
+                        "GET /", "Host: x",
+                        String.format("Range: bytes=%s", range)
+                    ),
+                    ""
+                )
+            )
+        ).asString();
+    }
+}